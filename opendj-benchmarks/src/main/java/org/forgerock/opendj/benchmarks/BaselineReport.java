@@ -0,0 +1,200 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares JMH results against a baseline and reports the regressions.
+ * <p>
+ * Both files must be produced by JMH with the {@code -rf json} option, typically one for the release
+ * currently in production and one for the candidate release:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar -rf json -rff baseline.json
+ * java -jar target/benchmarks.jar -rf json -rff candidate.json
+ * java -cp target/benchmarks.jar org.forgerock.opendj.benchmarks.BaselineReport baseline.json candidate.json 10
+ * </pre>
+ *
+ * Results are matched on the benchmark name and its parameters. A result is reported as a regression
+ * when it is worse than the baseline by more than the provided threshold, expressed as a percentage
+ * (5% by default), and by more than the sum of both error margins. The process exits with a non-zero
+ * status when at least one regression has been found, so that it can be used to gate upgrades.
+ */
+public final class BaselineReport {
+    private static final double DEFAULT_THRESHOLD_PERCENT = 5.0;
+
+    /** A single benchmark score as reported by JMH. */
+    static final class Score {
+        private final String mode;
+        private final double value;
+        private final double error;
+        private final String unit;
+
+        Score(final String mode, final double value, final double error, final String unit) {
+            this.mode = mode;
+            this.value = value;
+            this.error = Double.isNaN(error) ? 0 : error;
+            this.unit = unit;
+        }
+
+        /** Throughput is the only JMH mode where a higher score is better. */
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    /** The outcome of the comparison of a benchmark against its baseline. */
+    static final class Comparison {
+        private final String benchmark;
+        private final Score baseline;
+        private final Score current;
+        private final double changePercent;
+        private final boolean regression;
+
+        Comparison(final String benchmark, final Score baseline, final Score current, final double thresholdPercent) {
+            this.benchmark = benchmark;
+            this.baseline = baseline;
+            this.current = current;
+            final double delta = current.value - baseline.value;
+            this.changePercent = baseline.value != 0 ? 100.0 * delta / baseline.value : 0;
+            final double worsening = current.higherIsBetter() ? -delta : delta;
+            this.regression = worsening > baseline.error + current.error
+                    && 100.0 * worsening / Math.abs(baseline.value) > thresholdPercent;
+        }
+
+        boolean isRegression() {
+            return regression;
+        }
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            The baseline result file, the current result file and optionally the regression threshold in
+     *            percent.
+     * @throws IOException
+     *             If one of the result files cannot be read.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Usage: baselineResults.json currentResults.json [thresholdPercent]");
+            System.exit(1);
+        }
+        final double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        final List<Comparison> comparisons =
+                compare(readResults(new File(args[0])), readResults(new File(args[1])), threshold);
+        final int regressions = printReport(comparisons, threshold, System.out);
+        System.exit(regressions == 0 ? 0 : 2);
+    }
+
+    /**
+     * Reads a JMH JSON result file.
+     *
+     * @param file
+     *            The file to read.
+     * @return The scores, keyed by benchmark name and parameters, in file order.
+     * @throws IOException
+     *             If the file cannot be read or is not a JMH JSON result file.
+     */
+    static Map<String, Score> readResults(final File file) throws IOException {
+        final Map<String, Score> results = new LinkedHashMap<>();
+        for (final JsonNode result : new ObjectMapper().readTree(file)) {
+            final JsonNode metric = result.path("primaryMetric");
+            results.put(benchmarkKey(result),
+                        new Score(result.path("mode").asText(),
+                                  metric.path("score").asDouble(),
+                                  metric.path("scoreError").asDouble(0),
+                                  metric.path("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private static String benchmarkKey(final JsonNode result) {
+        final StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+        final JsonNode params = result.path("params");
+        if (params.size() > 0) {
+            // Sort the parameters so that keys do not depend on the JMH output order
+            final Map<String, String> sortedParams = new TreeMap<>();
+            for (final Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext();) {
+                final Map.Entry<String, JsonNode> param = it.next();
+                sortedParams.put(param.getKey(), param.getValue().asText());
+            }
+            key.append(sortedParams);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Compares the current results with the baseline. Benchmarks only present in one of the result sets,
+     * or measured with different modes or units, are ignored.
+     *
+     * @param baseline
+     *            The baseline scores.
+     * @param current
+     *            The current scores.
+     * @param thresholdPercent
+     *            The relative worsening above which a benchmark is considered as regressing.
+     * @return The comparisons, in the order of the current results.
+     */
+    static List<Comparison> compare(final Map<String, Score> baseline, final Map<String, Score> current,
+            final double thresholdPercent) {
+        final List<Comparison> comparisons = new ArrayList<>();
+        for (final Map.Entry<String, Score> entry : current.entrySet()) {
+            final Score baselineScore = baseline.get(entry.getKey());
+            final Score currentScore = entry.getValue();
+            if (baselineScore != null
+                    && baselineScore.mode.equals(currentScore.mode)
+                    && baselineScore.unit.equals(currentScore.unit)) {
+                comparisons.add(new Comparison(entry.getKey(), baselineScore, currentScore, thresholdPercent));
+            }
+        }
+        return comparisons;
+    }
+
+    private static int printReport(final List<Comparison> comparisons, final double thresholdPercent,
+            final PrintStream out) {
+        int regressions = 0;
+        out.format("%-100s %14s %14s %10s %-10s%n", "Benchmark", "Baseline", "Current", "Change", "Unit");
+        for (final Comparison c : comparisons) {
+            out.format("%-100s %14.3f %14.3f %+9.1f%% %-10s%s%n",
+                       c.benchmark, c.baseline.value, c.current.value, c.changePercent, c.current.unit,
+                       c.isRegression() ? "  REGRESSION" : "");
+            if (c.isRegression()) {
+                regressions++;
+            }
+        }
+        out.format("%n%d benchmark(s) compared, %d regression(s) above %.1f%%%n",
+                   comparisons.size(), regressions, thresholdPercent);
+        return regressions;
+    }
+
+    private BaselineReport() {
+        // Not used.
+    }
+}
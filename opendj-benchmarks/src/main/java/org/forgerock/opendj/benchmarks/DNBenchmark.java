@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.Entry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing, normalization and comparison of DNs.
+ * <p>
+ * Run with {@code -prof gc} to report the memory allocated per parse, in the {@code gc.alloc.rate.norm} metric.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DNBenchmark {
+    /** Number of distinct DNs cycled through, large enough to defeat the parent DN cache of {@link DN}. */
+    @Param("1000")
+    int numberOfDns;
+
+    private String[] dnStrings;
+    private ByteString[] dnBytes;
+    private DN[] dns;
+    private int index;
+
+    /**
+     * Generates the DNs used by the benchmarks.
+     *
+     * @throws IOException
+     *             If the entries cannot be generated.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        final List<Entry> entries = Fixtures.generateEntries(numberOfDns);
+        dnStrings = new String[entries.size()];
+        dnBytes = new ByteString[entries.size()];
+        dns = new DN[entries.size()];
+        for (int i = 0; i < dns.length; i++) {
+            dns[i] = entries.get(i).getName();
+            dnStrings[i] = dns[i].toString();
+            dnBytes[i] = ByteString.valueOfUtf8(dnStrings[i]);
+        }
+    }
+
+    /**
+     * Parses a DN from its string representation.
+     *
+     * @return The parsed DN.
+     */
+    @Benchmark
+    public DN valueOf() {
+        return DN.valueOf(dnStrings[next()]);
+    }
+
+    /**
+     * Parses a DN from its UTF-8 encoded representation, as done for attribute values such as group members.
+     *
+     * @return The parsed DN.
+     */
+    @Benchmark
+    public DN valueOfByteString() {
+        return DN.valueOf(dnBytes[next()]);
+    }
+
+    /**
+     * Parses a DN from its string representation and normalizes it, as done when a request DN is used as a key.
+     *
+     * @return The normalized DN.
+     */
+    @Benchmark
+    public ByteString valueOfAndNormalize() {
+        return DN.valueOf(dnStrings[next()]).toNormalizedByteString();
+    }
+
+    /**
+     * Compares two already parsed DNs.
+     *
+     * @return The result of the comparison.
+     */
+    @Benchmark
+    public int compareTo() {
+        final int i = next();
+        return dns[i].compareTo(dns[(i + 1) % dns.length]);
+    }
+
+    /**
+     * Checks whether a DN is subordinate to the parent of another DN.
+     *
+     * @return The result of the check.
+     */
+    @Benchmark
+    public boolean isSubordinateOrEqualTo() {
+        final int i = next();
+        return dns[i].isSubordinateOrEqualTo(dns[(i + 1) % dns.length].parent());
+    }
+
+    private int next() {
+        final int i = index;
+        index = i + 1 < dns.length ? i + 1 : 0;
+        return i;
+    }
+}
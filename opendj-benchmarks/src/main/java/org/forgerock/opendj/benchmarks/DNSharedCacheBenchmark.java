@@ -0,0 +1,26 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * Runs the {@link DNBenchmark} benchmarks with the DN cache shared by all threads enabled, and large enough to
+ * hold all the DNs.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Dorg.forgerock.opendj.ldap.dnCacheSize=10000")
+public class DNSharedCacheBenchmark extends DNBenchmark {
+}
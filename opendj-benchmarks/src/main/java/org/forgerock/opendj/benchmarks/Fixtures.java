@@ -0,0 +1,108 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.opendj.adapter.server3x.Converters;
+import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldif.EntryGenerator;
+import org.opends.server.core.DirectoryServer;
+
+/**
+ * Generates the data sets used by the benchmarks.
+ * <p>
+ * Entries are produced by an {@link EntryGenerator} using the same MakeLDIF templates as the
+ * {@code makeldif} tool, with a fixed random seed so that successive runs, and therefore runs
+ * compared against a baseline, operate on exactly the same data. The default template is the
+ * {@code example.template} shipped with the SDK, a different template may be provided with the
+ * {@value #TEMPLATE_PROPERTY} system property. The template must define the {@code numusers}
+ * constant, which is overridden with the number of requested entries.
+ */
+public final class Fixtures {
+    /** Name of the system property which may be used to provide the path of a MakeLDIF template. */
+    public static final String TEMPLATE_PROPERTY = "org.forgerock.opendj.benchmarks.template";
+
+    /** Name of the template constant holding the number of entries to generate. */
+    private static final String NUMBER_OF_ENTRIES_CONSTANT = "numusers";
+    private static final int RANDOM_SEED = 42;
+
+    private static boolean serverBootstrapped;
+
+    /**
+     * Generates SDK entries using the configured MakeLDIF template. Branch entries are not returned.
+     *
+     * @param count
+     *            The number of entries to generate.
+     * @return The generated entries.
+     * @throws IOException
+     *             If the template cannot be read or parsed.
+     */
+    public static List<Entry> generateEntries(final int count) throws IOException {
+        final String templatePath = System.getProperty(TEMPLATE_PROPERTY);
+        final EntryGenerator generator = templatePath != null ? new EntryGenerator(templatePath) : new EntryGenerator();
+        generator.setRandomSeed(RANDOM_SEED)
+                 .setConstant(NUMBER_OF_ENTRIES_CONSTANT, count)
+                 .setGenerateBranches(false);
+        final List<Entry> entries = new ArrayList<>(count);
+        try {
+            while (entries.size() < count && generator.hasNext()) {
+                entries.add(generator.readEntry());
+            }
+        } finally {
+            generator.close();
+        }
+        return entries;
+    }
+
+    /**
+     * Generates server entries using the configured MakeLDIF template, bootstrapping the server
+     * structures if needed.
+     *
+     * @param count
+     *            The number of entries to generate.
+     * @return The generated entries.
+     * @throws IOException
+     *             If the template cannot be read or parsed.
+     * @see #generateEntries(int)
+     */
+    public static List<org.opends.server.types.Entry> generateServerEntries(final int count) throws IOException {
+        bootstrapServer();
+        final List<org.opends.server.types.Entry> entries = new ArrayList<>(count);
+        for (final Entry entry : generateEntries(count)) {
+            entries.add(Converters.to(entry));
+        }
+        return entries;
+    }
+
+    /**
+     * Bootstraps the server structures needed by benchmarks of server classes: the default
+     * schema and the core configuration with its default values. No backend or connection
+     * handler is started.
+     */
+    public static synchronized void bootstrapServer() {
+        if (!serverBootstrapped) {
+            DirectoryServer.bootstrapClient();
+            serverBootstrapped = true;
+        }
+    }
+
+    private Fixtures() {
+        // Not used.
+    }
+}
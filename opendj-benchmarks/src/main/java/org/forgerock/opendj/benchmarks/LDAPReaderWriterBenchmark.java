@@ -0,0 +1,133 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.io.AbstractLDAPMessageHandler;
+import org.forgerock.opendj.io.ASN1;
+import org.forgerock.opendj.io.ASN1Reader;
+import org.forgerock.opendj.io.ASN1Writer;
+import org.forgerock.opendj.io.LDAP;
+import org.forgerock.opendj.io.LDAPReader;
+import org.forgerock.opendj.io.LDAPWriter;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.DecodeOptions;
+import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldap.responses.Responses;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures the ASN.1 encoding and decoding of search result entries, the most frequent LDAP message. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LDAPReaderWriterBenchmark {
+    private static final int LDAP_VERSION = 3;
+    private static final int MESSAGE_ID = 1;
+
+    /** Keeps the last decoded entry so that decoding cannot be optimized away. */
+    private static final class SearchResultEntryHandler extends AbstractLDAPMessageHandler {
+        private SearchResultEntry entry;
+
+        @Override
+        public void searchResultEntry(final int messageID, final SearchResultEntry entry)
+                throws DecodeException, IOException {
+            this.entry = entry;
+        }
+    }
+
+    @Param("1000")
+    int numberOfEntries;
+
+    private SearchResultEntry[] entries;
+    private ByteString[] encodedEntries;
+    private final ByteStringBuilder buffer = new ByteStringBuilder();
+    private final LDAPWriter<ASN1Writer> writer = LDAP.getWriter(ASN1.getWriter(buffer), LDAP_VERSION);
+    private final DecodeOptions decodeOptions = new DecodeOptions();
+    private final SearchResultEntryHandler handler = new SearchResultEntryHandler();
+    private int index;
+
+    /**
+     * Generates and pre-encodes the entries used by the benchmarks.
+     *
+     * @throws IOException
+     *             If the entries cannot be generated or encoded.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        final List<Entry> generated = Fixtures.generateEntries(numberOfEntries);
+        entries = new SearchResultEntry[generated.size()];
+        encodedEntries = new ByteString[generated.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = Responses.newSearchResultEntry(generated.get(i));
+            buffer.clear();
+            writer.writeSearchResultEntry(MESSAGE_ID, entries[i]);
+            encodedEntries[i] = buffer.toByteString();
+        }
+    }
+
+    /**
+     * Encodes a search result entry.
+     *
+     * @return The length of the encoded message.
+     * @throws IOException
+     *             If the entry cannot be encoded.
+     */
+    @Benchmark
+    public int writeSearchResultEntry() throws IOException {
+        buffer.clear();
+        writer.writeSearchResultEntry(MESSAGE_ID, entries[next()]);
+        return buffer.length();
+    }
+
+    /**
+     * Decodes a search result entry.
+     *
+     * @return The decoded entry.
+     * @throws IOException
+     *             If the entry cannot be decoded.
+     */
+    @Benchmark
+    public SearchResultEntry readSearchResultEntry() throws IOException {
+        final LDAPReader<ASN1Reader> reader = LDAP.getReader(ASN1.getReader(encodedEntries[next()]), decodeOptions);
+        reader.readMessage(handler);
+        return handler.entry;
+    }
+
+    private int next() {
+        final int i = index;
+        index = i + 1 < entries.length ? i + 1 : 0;
+        return i;
+    }
+}
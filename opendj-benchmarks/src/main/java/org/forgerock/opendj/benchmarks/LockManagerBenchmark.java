@@ -0,0 +1,105 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.Entry;
+import org.opends.server.types.LockManager;
+import org.opends.server.types.LockManager.DNLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of acquiring and releasing entry locks, as done by every read and write operation. The
+ * benchmark is run concurrently so that contention on the lock table buckets and on the parent locks is
+ * accounted for.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LockManagerBenchmark {
+    @Param("10000")
+    int numberOfDns;
+
+    private final LockManager lockManager = new LockManager();
+    private DN[] dns;
+
+    /**
+     * Generates the DNs which will be locked.
+     *
+     * @throws IOException
+     *             If the entries cannot be generated.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        final List<Entry> entries = Fixtures.generateEntries(numberOfDns);
+        dns = new DN[entries.size()];
+        for (int i = 0; i < dns.length; i++) {
+            dns[i] = entries.get(i).getName();
+        }
+    }
+
+    /**
+     * Read locks then unlocks a random entry.
+     *
+     * @return Whether the lock was acquired.
+     */
+    @Benchmark
+    public boolean readLockEntry() {
+        return release(lockManager.tryReadLockEntry(randomDn()));
+    }
+
+    /**
+     * Write locks then unlocks a random entry.
+     *
+     * @return Whether the lock was acquired.
+     */
+    @Benchmark
+    public boolean writeLockEntry() {
+        return release(lockManager.tryWriteLockEntry(randomDn()));
+    }
+
+    private DN randomDn() {
+        return dns[ThreadLocalRandom.current().nextInt(dns.length)];
+    }
+
+    private static boolean release(final DNLock lock) {
+        if (lock != null) {
+            lock.unlock();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.forgerock.json.resource.Resources.newInternalConnection;
+import static org.forgerock.opendj.ldap.Connections.newInternalConnectionFactory;
+import static org.forgerock.opendj.rest2ldap.Rest2Ldap.REFERENCE_BATCH_SIZE;
+import static org.forgerock.opendj.rest2ldap.Rest2Ldap.collectionOf;
+import static org.forgerock.opendj.rest2ldap.Rest2Ldap.reference;
+import static org.forgerock.opendj.rest2ldap.Rest2Ldap.resource;
+import static org.forgerock.opendj.rest2ldap.Rest2Ldap.rest2Ldap;
+import static org.forgerock.opendj.rest2ldap.Rest2Ldap.simple;
+import static org.forgerock.util.Options.defaultOptions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldap.IntermediateResponseHandler;
+import org.forgerock.opendj.ldap.LdapException;
+import org.forgerock.opendj.ldap.LdapResultHandler;
+import org.forgerock.opendj.ldap.LinkedHashMapEntry;
+import org.forgerock.opendj.ldap.MemoryBackend;
+import org.forgerock.opendj.ldap.RequestContext;
+import org.forgerock.opendj.ldap.RequestHandler;
+import org.forgerock.opendj.ldap.SearchResultHandler;
+import org.forgerock.opendj.ldap.requests.AddRequest;
+import org.forgerock.opendj.ldap.requests.BindRequest;
+import org.forgerock.opendj.ldap.requests.CompareRequest;
+import org.forgerock.opendj.ldap.requests.DeleteRequest;
+import org.forgerock.opendj.ldap.requests.ExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
+import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.BindResult;
+import org.forgerock.opendj.ldap.responses.CompareResult;
+import org.forgerock.opendj.ldap.responses.ExtendedResult;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldif.LDIF;
+import org.forgerock.opendj.rest2ldap.AuthenticatedConnectionContext;
+import org.forgerock.opendj.rest2ldap.Rest2Ldap;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.util.query.QueryFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of a Rest2Ldap query whose resources each have a reference property. A reference batch
+ * size of one reads each referenced entry individually, as Rest2Ldap did before references were resolved in
+ * batches. The latency of the LDAP server is simulated by delaying each search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class Rest2LdapReferenceBenchmark {
+    private static final String BASE_DN = "ou=people,dc=example,dc=com";
+
+    @Param({ "1", "100" })
+    int referenceBatchSize;
+
+    @Param({ "0", "200" })
+    int searchLatencyMicros;
+
+    @Param("100")
+    int numberOfEntries;
+
+    @Param("20")
+    int numberOfReferencedEntries;
+
+    private ScheduledExecutorService scheduler;
+    private Connection connection;
+    private AuthenticatedConnectionContext context;
+    private QueryRequest request;
+
+    /**
+     * Loads the entries in a memory backend and creates the Rest2Ldap endpoint.
+     *
+     * @throws IOException
+     *             If the entries cannot be loaded.
+     * @throws LdapException
+     *             If the LDAP connection cannot be obtained.
+     */
+    @Setup
+    public void setUp() throws IOException, LdapException {
+        final List<Entry> entries = new ArrayList<>(numberOfEntries + 1);
+        entries.add(new LinkedHashMapEntry("dn: " + BASE_DN, "objectClass: top", "objectClass: organizationalUnit",
+                                           "ou: people"));
+        for (int i = 0; i < numberOfEntries; i++) {
+            entries.add(new LinkedHashMapEntry("dn: uid=user." + i + "," + BASE_DN,
+                                               "objectClass: top",
+                                               "objectClass: person",
+                                               "uid: user." + i,
+                                               "cn: User " + i,
+                                               "sn: " + i,
+                                               "seeAlso: uid=user." + (i % numberOfReferencedEntries) + "," + BASE_DN));
+        }
+        final MemoryBackend backend = new MemoryBackend(LDIF.newEntryIteratorReader(entries.iterator()));
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        final Rest2Ldap rest2Ldap =
+                rest2Ldap(defaultOptions().set(REFERENCE_BATCH_SIZE, referenceBatchSize),
+                          resource("api").subResource(collectionOf("user").dnTemplate(BASE_DN)
+                                                                          .useClientDnNaming("uid")),
+                          resource("user").objectClasses("top", "person")
+                                          .property("_id", simple("uid"))
+                                          .property("displayName", simple("cn"))
+                                          .property("manager", reference("seeAlso", BASE_DN, "uid", simple("uid"))));
+        connection = newInternalConnection(rest2Ldap.newRequestHandlerFor("api"));
+        context = new AuthenticatedConnectionContext(
+                new RootContext(), newInternalConnectionFactory(delaySearches(backend)).getConnection());
+        request = newQueryRequest("").setQueryFilter(QueryFilter.<JsonPointer> alwaysTrue());
+    }
+
+    /** Stops the thread simulating the latency of the LDAP server. */
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Queries all the resources, resolving their references.
+     *
+     * @return The returned resources.
+     * @throws ResourceException
+     *             If the query fails.
+     */
+    @Benchmark
+    public List<ResourceResponse> query() throws ResourceException {
+        final List<ResourceResponse> resources = new ArrayList<>(numberOfEntries);
+        connection.query(context, request, resources);
+        return resources;
+    }
+
+    private RequestHandler<RequestContext> delaySearches(final RequestHandler<RequestContext> handler) {
+        return new RequestHandler<RequestContext>() {
+            @Override
+            public void handleAdd(final RequestContext requestContext, final AddRequest request,
+                    final IntermediateResponseHandler intermediateResponseHandler,
+                    final LdapResultHandler<Result> resultHandler) {
+                handler.handleAdd(requestContext, request, intermediateResponseHandler, resultHandler);
+            }
+
+            @Override
+            public void handleBind(final RequestContext requestContext, final int version, final BindRequest request,
+                    final IntermediateResponseHandler intermediateResponseHandler,
+                    final LdapResultHandler<BindResult> resultHandler) {
+                handler.handleBind(requestContext, version, request, intermediateResponseHandler, resultHandler);
+            }
+
+            @Override
+            public void handleCompare(final RequestContext requestContext, final CompareRequest request,
+                    final IntermediateResponseHandler intermediateResponseHandler,
+                    final LdapResultHandler<CompareResult> resultHandler) {
+                handler.handleCompare(requestContext, request, intermediateResponseHandler, resultHandler);
+            }
+
+            @Override
+            public void handleDelete(final RequestContext requestContext, final DeleteRequest request,
+                    final IntermediateResponseHandler intermediateResponseHandler,
+                    final LdapResultHandler<Result> resultHandler) {
+                handler.handleDelete(requestContext, request, intermediateResponseHandler, resultHandler);
+            }
+
+            @Override
+            public <R extends ExtendedResult> void handleExtendedRequest(final RequestContext requestContext,
+                    final ExtendedRequest<R> request, final IntermediateResponseHandler intermediateResponseHandler,
+                    final LdapResultHandler<R> resultHandler) {
+                handler.handleExtendedRequest(requestContext, request, intermediateResponseHandler, resultHandler);
+            }
+
+            @Override
+            public void handleModify(final RequestContext requestContext, final ModifyRequest request,
+                    final IntermediateResponseHandler intermediateResponseHandler,
+                    final LdapResultHandler<Result> resultHandler) {
+                handler.handleModify(requestContext, request, intermediateResponseHandler, resultHandler);
+            }
+
+            @Override
+            public void handleModifyDN(final RequestContext requestContext, final ModifyDNRequest request,
+                    final IntermediateResponseHandler intermediateResponseHandler,
+                    final LdapResultHandler<Result> resultHandler) {
+                handler.handleModifyDN(requestContext, request, intermediateResponseHandler, resultHandler);
+            }
+
+            @Override
+            public void handleSearch(final RequestContext requestContext, final SearchRequest request,
+                    final IntermediateResponseHandler intermediateResponseHandler,
+                    final SearchResultHandler entryHandler, final LdapResultHandler<Result> resultHandler) {
+                if (searchLatencyMicros == 0) {
+                    handler.handleSearch(requestContext, request, intermediateResponseHandler, entryHandler,
+                                         resultHandler);
+                    return;
+                }
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        handler.handleSearch(requestContext, request, intermediateResponseHandler, entryHandler,
+                                             resultHandler);
+                    }
+                }, searchLatencyMicros, TimeUnit.MICROSECONDS);
+            }
+        };
+    }
+}
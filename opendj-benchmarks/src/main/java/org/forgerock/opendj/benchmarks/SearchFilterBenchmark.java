@@ -0,0 +1,107 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SearchFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the server side decoding of search filters and their evaluation against candidate entries, as done
+ * for each candidate entry of an indexed or unindexed search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchFilterBenchmark {
+    @Param({
+        "(uid=user.500)",
+        "(&(objectClass=person)(sn=A*))",
+        "(|(mail=*@example.com)(telephoneNumber=*5))",
+        "(&(objectClass=inetOrgPerson)(!(employeeNumber<=100))(l=*o*))"
+    })
+    String filter;
+
+    @Param("1000")
+    int numberOfEntries;
+
+    private SearchFilter searchFilter;
+    private Entry[] entries;
+    private int index;
+
+    /**
+     * Generates the candidate entries and decodes the filter.
+     *
+     * @throws IOException
+     *             If the entries cannot be generated.
+     * @throws DirectoryException
+     *             If the filter cannot be decoded.
+     */
+    @Setup
+    public void setUp() throws IOException, DirectoryException {
+        final List<Entry> generated = Fixtures.generateServerEntries(numberOfEntries);
+        entries = generated.toArray(new Entry[generated.size()]);
+        searchFilter = SearchFilter.createFilterFromString(filter);
+    }
+
+    /**
+     * Decodes the filter from its string representation.
+     *
+     * @return The decoded filter.
+     * @throws DirectoryException
+     *             If the filter cannot be decoded.
+     */
+    @Benchmark
+    public SearchFilter createFilterFromString() throws DirectoryException {
+        return SearchFilter.createFilterFromString(filter);
+    }
+
+    /**
+     * Evaluates the filter against the next candidate entry.
+     *
+     * @return Whether the entry matches the filter.
+     * @throws DirectoryException
+     *             If the filter cannot be evaluated.
+     */
+    @Benchmark
+    public boolean matchesEntry() throws DirectoryException {
+        return searchFilter.matchesEntry(entries[next()]);
+    }
+
+    private int next() {
+        final int i = index;
+        index = i + 1 < entries.length ? i + 1 : 0;
+        return i;
+    }
+}
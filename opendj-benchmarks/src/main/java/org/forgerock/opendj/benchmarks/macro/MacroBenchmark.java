@@ -0,0 +1,445 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks.macro;
+
+import static org.forgerock.opendj.server.embedded.ConfigParameters.configParams;
+import static org.forgerock.opendj.server.embedded.ConnectionParameters.connectionParams;
+import static org.forgerock.opendj.server.embedded.EmbeddedDirectoryServer.manageEmbeddedDirectoryServer;
+import static org.forgerock.opendj.server.embedded.ImportParameters.importParams;
+import static org.forgerock.opendj.server.embedded.SetupParameters.setupParams;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.opendj.benchmarks.macro.Workload.Operation;
+import org.forgerock.opendj.config.ManagedObjectNotFoundException;
+import org.forgerock.opendj.config.PropertyException;
+import org.forgerock.opendj.config.client.ManagementContext;
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.LDAPConnectionFactory;
+import org.forgerock.opendj.ldap.LinkedHashMapEntry;
+import org.forgerock.opendj.ldap.SearchResultHandler;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.controls.PersistentSearchChangeType;
+import org.forgerock.opendj.ldap.controls.PersistentSearchRequestControl;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.responses.SearchResultReference;
+import org.forgerock.opendj.ldif.EntryGenerator;
+import org.forgerock.opendj.ldif.LDIFEntryWriter;
+import org.forgerock.opendj.server.config.client.ReplicationDomainCfgClient;
+import org.forgerock.opendj.server.config.client.ReplicationServerCfgClient;
+import org.forgerock.opendj.server.config.client.ReplicationSynchronizationProviderCfgClient;
+import org.forgerock.opendj.server.config.client.RootCfgClient;
+import org.forgerock.opendj.server.config.meta.ReplicationDomainCfgDefn;
+import org.forgerock.opendj.server.config.meta.ReplicationServerCfgDefn;
+import org.forgerock.opendj.server.config.meta.ReplicationSynchronizationProviderCfgDefn;
+import org.forgerock.opendj.server.embedded.EmbeddedDirectoryServer;
+import org.opends.server.replication.plugin.MultimasterReplication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.forgerock.opendj.ldap.tools.AddRate;
+import com.forgerock.opendj.ldap.tools.AuthRate;
+import com.forgerock.opendj.ldap.tools.ModRate;
+import com.forgerock.opendj.ldap.tools.SearchRate;
+
+/**
+ * Runs an end-to-end benchmark against an embedded server.
+ * <p>
+ * The harness sets up the server from a Wren:DS archive the first time it is run, then
+ * (re)loads it with data generated from a MakeLDIF template with a fixed seed, so that
+ * successive runs start from the same state. Optionally, replication is enabled on the server
+ * and persistent searches are opened, in order to account for the cost of the changelog and of
+ * the change notifications. The workload mix is then applied by running {@code searchrate},
+ * {@code authrate}, {@code modrate} and {@code addrate} concurrently against the server, each
+ * of them with its share of the connections and of the target throughput.
+ * <p>
+ * The summaries written by the tools are merged in a single {@value #RESULTS_FILE} file of the
+ * output directory, which can be kept as the baseline of later runs. When a baseline is
+ * provided, the run is compared with it by {@link MacroReport} and the harness exits with a
+ * non-zero status if a regression is detected.
+ */
+public final class MacroBenchmark {
+    /** Name of the file, in the output directory, holding the results of the run. */
+    public static final String RESULTS_FILE = "results.json";
+
+    private static final String HOST_NAME = "localhost";
+    private static final String ROOT_DN = "cn=Directory Manager";
+    private static final String ROOT_PASSWORD = "password";
+    private static final String USER_PASSWORD = "password";
+    private static final String BACKEND_ID = "userRoot";
+    private static final String REPLICATION_PROVIDER = "Multimaster Synchronization";
+    private static final String NUMBER_OF_ENTRIES_CONSTANT = "numusers";
+    private static final String ADD_RATE_TEMPLATE = "addrate.template";
+    private static final int RANDOM_SEED = 42;
+    private static final int STATS_INTERVAL_SECONDS = 5;
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            The command line arguments: optionally, the workload properties file.
+     * @throws Exception
+     *             If the server cannot be set up or if the workload cannot be run.
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length > 1) {
+            System.err.println("Usage: [workloadFile]");
+            System.exit(1);
+        }
+        final Workload workload = Workload.read(args.length > 0 ? new File(args[0]) : null);
+        System.exit(new MacroBenchmark(workload).run() ? 0 : 2);
+    }
+
+    private final Workload workload;
+    private final File outputDirectory;
+    private final List<Connection> persistentSearchConnections = new ArrayList<>();
+    private final AtomicLong persistentSearchNotifications = new AtomicLong();
+
+    private MacroBenchmark(final Workload workload) {
+        this.workload = workload;
+        this.outputDirectory = workload.getOutputDirectory();
+    }
+
+    /** Runs the benchmark and returns {@code false} if a regression has been detected. */
+    private boolean run() throws Exception {
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IOException("Cannot create the output directory " + outputDirectory);
+        }
+        final EmbeddedDirectoryServer server = startServer(generateData());
+        try {
+            if (workload.isReplicationEnabled()) {
+                enableReplication(server);
+            }
+            openPersistentSearches();
+            final Map<Operation, File> reports = runWorkload();
+            closePersistentSearches();
+            writeResults(reports);
+        } finally {
+            closePersistentSearches();
+            server.stop(MacroBenchmark.class.getName(), LocalizableMessage.raw("Macro benchmark completed"));
+        }
+
+        final File baseline = workload.getBaseline();
+        if (baseline == null) {
+            return true;
+        }
+        return new MacroReport(workload.getThresholdPercent(), System.out)
+                .compare(baseline, new File(outputDirectory, RESULTS_FILE));
+    }
+
+    /**
+     * Generates the data set, including the branch receiving the entries added by
+     * {@code addrate}, which generates sequential identifiers colliding with the ones of the
+     * data set.
+     */
+    private File generateData() throws IOException {
+        final File ldif = new File(outputDirectory, "data.ldif");
+        final String baseDn = workload.getBaseDn();
+        try (EntryGenerator generator = new EntryGenerator(workload.getTemplate());
+             LDIFEntryWriter writer = new LDIFEntryWriter(new FileOutputStream(ldif))) {
+            generator.setRandomSeed(RANDOM_SEED)
+                     .setConstant("suffix", baseDn)
+                     .setConstant(NUMBER_OF_ENTRIES_CONSTANT, workload.getEntries())
+                     .setGenerateBranches(true);
+            while (generator.hasNext()) {
+                writer.writeEntry(generator.readEntry());
+            }
+            writer.writeEntry(new LinkedHashMapEntry("dn: " + getAddedBranchDn(),
+                                                     "objectClass: top",
+                                                     "objectClass: organizationalUnit",
+                                                     "ou: Added"));
+            writer.writeEntry(new LinkedHashMapEntry("dn: ou=People," + getAddedBranchDn(),
+                                                     "objectClass: top",
+                                                     "objectClass: organizationalUnit",
+                                                     "ou: People"));
+        }
+        return ldif;
+    }
+
+    /** Sets up the server if needed, starts it and loads the data set. */
+    private EmbeddedDirectoryServer startServer(final File ldif) throws Exception {
+        final String serverRoot = workload.getServerRoot();
+        final File configFile = new File(serverRoot, "config" + File.separator + "config.ldif");
+        final EmbeddedDirectoryServer server = manageEmbeddedDirectoryServer(
+                configParams()
+                    .serverRootDirectory(serverRoot)
+                    .configurationFile(configFile.getPath()),
+                connectionParams()
+                    .hostName(HOST_NAME)
+                    .ldapPort(workload.getLdapPort())
+                    .bindDn(ROOT_DN)
+                    .bindPassword(ROOT_PASSWORD)
+                    .adminPort(workload.getAdminPort()),
+                System.out,
+                System.err);
+
+        if (!configFile.exists()) {
+            final String archive = workload.getServerArchive();
+            if (archive.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "The server root " + serverRoot + " does not exist, a server archive must be provided");
+            }
+            server.extractArchiveForSetup(new File(archive));
+            server.setup(setupParams()
+                    .baseDn(workload.getBaseDn())
+                    .backendType(workload.getBackendType())
+                    .jmxPort(workload.getJmxPort())
+                    .ldifFile(ldif.getPath()));
+            server.start();
+        } else {
+            server.start();
+            server.importLDIF(importParams()
+                    .backendId(BACKEND_ID)
+                    .ldifFile(ldif.getPath()));
+        }
+        return server;
+    }
+
+    /**
+     * Enables replication of the base DN with a replication server local to the server, so that
+     * every update goes through the replication domain and the changelog.
+     */
+    private void enableReplication(final EmbeddedDirectoryServer server) throws Exception {
+        final String replicationServer = HOST_NAME + ":" + workload.getReplicationPort();
+        try (ManagementContext config = server.getConfiguration()) {
+            final RootCfgClient root = config.getRootConfiguration();
+            ReplicationSynchronizationProviderCfgClient sync;
+            try {
+                sync = (ReplicationSynchronizationProviderCfgClient) root.getSynchronizationProvider(
+                        REPLICATION_PROVIDER);
+            } catch (final ManagedObjectNotFoundException e) {
+                sync = root.createSynchronizationProvider(ReplicationSynchronizationProviderCfgDefn.getInstance(),
+                                                          REPLICATION_PROVIDER, new ArrayList<PropertyException>());
+                sync.setJavaClass(MultimasterReplication.class.getName());
+            }
+            sync.setEnabled(true);
+            sync.commit();
+
+            if (!sync.hasReplicationServer()) {
+                final ReplicationServerCfgClient rs =
+                        sync.createReplicationServer(ReplicationServerCfgDefn.getInstance(),
+                                                     new ArrayList<PropertyException>());
+                rs.setReplicationServerId(1);
+                rs.setReplicationPort(workload.getReplicationPort());
+                rs.setReplicationServer(Collections.<String> emptySet());
+                rs.commit();
+            }
+
+            final DN baseDn = DN.valueOf(workload.getBaseDn());
+            for (final String name : sync.listReplicationDomains()) {
+                if (sync.getReplicationDomain(name).getBaseDN().equals(baseDn)) {
+                    return;
+                }
+            }
+            final ReplicationDomainCfgClient domain =
+                    sync.createReplicationDomain(ReplicationDomainCfgDefn.getInstance(), baseDn.toString(), null);
+            domain.setServerId(2);
+            domain.setBaseDN(baseDn);
+            domain.setReplicationServer(Collections.singleton(replicationServer));
+            domain.commit();
+        }
+    }
+
+    /** Opens the persistent searches, each of them on its own connection, counting the notifications. */
+    private void openPersistentSearches() throws Exception {
+        final LDAPConnectionFactory factory = new LDAPConnectionFactory(HOST_NAME, workload.getLdapPort());
+        for (int i = 0; i < workload.getPersistentSearches(); i++) {
+            final Connection connection = factory.getConnection();
+            persistentSearchConnections.add(connection);
+            connection.bind(ROOT_DN, ROOT_PASSWORD.toCharArray());
+            connection.searchAsync(Requests.newSearchRequest(workload.getBaseDn(), SearchScope.WHOLE_SUBTREE,
+                                                             "(objectClass=*)")
+                                           .addControl(PersistentSearchRequestControl.newControl(
+                                                   true, true, true, PersistentSearchChangeType.values())),
+                                   new SearchResultHandler() {
+                                       @Override
+                                       public boolean handleEntry(final SearchResultEntry entry) {
+                                           persistentSearchNotifications.incrementAndGet();
+                                           return true;
+                                       }
+
+                                       @Override
+                                       public boolean handleReference(final SearchResultReference reference) {
+                                           return true;
+                                       }
+                                   });
+        }
+        factory.close();
+    }
+
+    private void closePersistentSearches() {
+        for (final Connection connection : persistentSearchConnections) {
+            connection.close();
+        }
+        persistentSearchConnections.clear();
+    }
+
+    /** Runs the rate tools concurrently and returns the report written by each of them. */
+    private Map<Operation, File> runWorkload() throws Exception {
+        final Map<Operation, File> reports = new EnumMap<>(Operation.class);
+        final Map<Operation, Future<Integer>> results = new EnumMap<>(Operation.class);
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            for (final Operation operation : Operation.values()) {
+                if (workload.getRatio(operation) <= 0) {
+                    continue;
+                }
+                final File report = new File(outputDirectory, operation + ".json");
+                reports.put(operation, report);
+                results.put(operation, executor.submit(newTool(operation, report)));
+            }
+            for (final Map.Entry<Operation, Future<Integer>> result : results.entrySet()) {
+                final int returnCode = result.getValue().get();
+                if (returnCode != 0) {
+                    throw new IllegalStateException(
+                            "The " + result.getKey() + " workload failed with return code " + returnCode);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return reports;
+    }
+
+    private Callable<Integer> newTool(final Operation operation, final File report) {
+        final String userDn = "uid=user.%d,ou=People," + workload.getBaseDn();
+        final String randomUser = "rand(0," + (workload.getEntries() - 1) + ")";
+        final List<String> args = new ArrayList<>();
+        args.add("-h");
+        args.add(HOST_NAME);
+        args.add("-p");
+        args.add(Integer.toString(workload.getLdapPort()));
+        args.add("-S");
+        args.add("-i");
+        args.add(Integer.toString(STATS_INTERVAL_SECONDS));
+        args.add("-d");
+        args.add(Integer.toString(workload.getDurationSeconds()));
+        args.add("-B");
+        args.add(Integer.toString(workload.getWarmUpSeconds()));
+        args.add("-c");
+        args.add(Integer.toString(workload.getConnections(operation)));
+        final int targetThroughput = workload.getTargetThroughput(operation);
+        if (targetThroughput > 0) {
+            args.add("-M");
+            args.add(Integer.toString(targetThroughput));
+        }
+        args.add("--jsonReport");
+        args.add(report.getPath());
+        args.add("-f");
+        if (operation == Operation.BIND) {
+            args.add("-D");
+            args.add(userDn);
+            args.add("-w");
+            args.add(USER_PASSWORD);
+        } else {
+            args.add("-D");
+            args.add(ROOT_DN);
+            args.add("-w");
+            args.add(ROOT_PASSWORD);
+            args.add("-F");
+        }
+
+        switch (operation) {
+        case SEARCH:
+            args.add("-b");
+            args.add(userDn);
+            args.add("-s");
+            args.add("base");
+            args.add("-g");
+            args.add(randomUser);
+            args.add("(objectClass=*)");
+            break;
+        case BIND:
+            args.add("-g");
+            args.add(randomUser);
+            break;
+        case MODIFY:
+            args.add("-b");
+            args.add(userDn);
+            args.add("-g");
+            args.add(randomUser);
+            args.add("-g");
+            args.add("randstr(16)");
+            args.add("description:%2$s");
+            break;
+        case ADD:
+            args.add("-R");
+            args.add(Integer.toString(RANDOM_SEED));
+            args.add("-g");
+            args.add("suffix=" + getAddedBranchDn());
+            args.add(ADD_RATE_TEMPLATE);
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+
+        final File log = new File(outputDirectory, operation + ".log");
+        final String[] toolArgs = args.toArray(new String[args.size()]);
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                try (PrintStream out = new PrintStream(new FileOutputStream(log), true, "UTF-8")) {
+                    switch (operation) {
+                    case SEARCH:
+                        return SearchRate.run(out, out, toolArgs);
+                    case BIND:
+                        return AuthRate.run(out, out, toolArgs);
+                    case MODIFY:
+                        return ModRate.run(out, out, toolArgs);
+                    default:
+                        return AddRate.run(out, out, toolArgs);
+                    }
+                }
+            }
+        };
+    }
+
+    /** Merges the tool reports, together with the workload which produced them, in the results file. */
+    private void writeResults(final Map<Operation, File> reports) throws IOException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final ObjectNode results = mapper.createObjectNode();
+        final ObjectNode workloadNode = results.putObject("workload");
+        for (final Map.Entry<String, String> property : workload.toMap().entrySet()) {
+            workloadNode.put(property.getKey(), property.getValue());
+        }
+        results.put("persistentSearchNotifications", persistentSearchNotifications.get());
+        final ObjectNode operations = results.putObject("operations");
+        for (final Map.Entry<Operation, File> report : reports.entrySet()) {
+            operations.set(report.getKey().toString(), mapper.readTree(report.getValue()));
+        }
+        mapper.writerWithDefaultPrettyPrinter().writeValue(new File(outputDirectory, RESULTS_FILE), results);
+    }
+
+    private String getAddedBranchDn() {
+        return "ou=Added," + workload.getBaseDn();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks.macro;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the results of a macro benchmark run with a baseline run.
+ * <p>
+ * For every operation of the workload present in both runs, the throughput and each response
+ * time percentile are compared. A lower throughput, or a higher response time, than the baseline
+ * by more than the threshold (expressed as a percentage) is reported as a regression:
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.forgerock.opendj.benchmarks.macro.MacroReport \
+ *  baseline/results.json target/macro/results/results.json 5
+ * </pre>
+ *
+ * The process exits with a non-zero status when at least one regression has been found.
+ */
+public final class MacroReport {
+    private static final double DEFAULT_THRESHOLD_PERCENT = 5.0;
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            The baseline results file, the current results file and optionally the regression
+     *            threshold in percent.
+     * @throws IOException
+     *             If one of the results files cannot be read.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Usage: baselineResults.json currentResults.json [thresholdPercent]");
+            System.exit(1);
+        }
+        final double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        final boolean success = new MacroReport(threshold, System.out).compare(new File(args[0]), new File(args[1]));
+        System.exit(success ? 0 : 2);
+    }
+
+    private final double thresholdPercent;
+    private final PrintStream out;
+    private int comparisons;
+    private int regressions;
+
+    MacroReport(final double thresholdPercent, final PrintStream out) {
+        this.thresholdPercent = thresholdPercent;
+        this.out = out;
+    }
+
+    /**
+     * Compares the current results with the baseline and prints the report.
+     *
+     * @param baselineFile
+     *            The results of the baseline run.
+     * @param currentFile
+     *            The results of the current run.
+     * @return {@code true} if no regression has been found.
+     * @throws IOException
+     *             If one of the results files cannot be read.
+     */
+    boolean compare(final File baselineFile, final File currentFile) throws IOException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode baseline = mapper.readTree(baselineFile).path("operations");
+        final JsonNode current = mapper.readTree(currentFile).path("operations");
+        comparisons = 0;
+        regressions = 0;
+
+        out.format("%-40s %14s %14s %10s%n", "Metric", "Baseline", "Current", "Change");
+        for (final Iterator<Map.Entry<String, JsonNode>> it = current.fields(); it.hasNext();) {
+            final Map.Entry<String, JsonNode> operation = it.next();
+            final JsonNode baselineOperation = baseline.path(operation.getKey());
+            if (baselineOperation.isMissingNode()) {
+                continue;
+            }
+            final JsonNode currentOperation = operation.getValue();
+            compare(operation.getKey() + " throughput (op/s)",
+                    baselineOperation.path("throughput"), currentOperation.path("throughput"), true);
+            compare(operation.getKey() + " errors (err/s)",
+                    baselineOperation.path("errorsPerSecond"), currentOperation.path("errorsPerSecond"), false);
+            final JsonNode baselinePercentiles = baselineOperation.path("responseTimePercentilesMs");
+            for (final Iterator<Map.Entry<String, JsonNode>> percentiles =
+                    currentOperation.path("responseTimePercentilesMs").fields(); percentiles.hasNext();) {
+                final Map.Entry<String, JsonNode> percentile = percentiles.next();
+                compare(operation.getKey() + " p" + percentile.getKey() + " (ms)",
+                        baselinePercentiles.path(percentile.getKey()), percentile.getValue(), false);
+            }
+        }
+        out.format("%n%d metric(s) compared, %d regression(s) above %.1f%%%n",
+                   comparisons, regressions, thresholdPercent);
+        return regressions == 0;
+    }
+
+    private void compare(final String metric, final JsonNode baselineNode, final JsonNode currentNode,
+            final boolean higherIsBetter) {
+        if (!baselineNode.isNumber() || !currentNode.isNumber()) {
+            return;
+        }
+        final double baseline = baselineNode.asDouble();
+        final double current = currentNode.asDouble();
+        final double delta = current - baseline;
+        final double changePercent = baseline != 0 ? 100.0 * delta / baseline : 0;
+        final double worsening = higherIsBetter ? -delta : delta;
+        // An error rate appearing from nothing is a regression whatever the threshold
+        final boolean regression =
+                worsening > 0 && (baseline == 0 || 100.0 * worsening / Math.abs(baseline) > thresholdPercent);
+        out.format("%-40s %14.3f %14.3f %+9.1f%%%s%n",
+                   metric, baseline, current, changePercent, regression ? "  REGRESSION" : "");
+        comparisons++;
+        if (regression) {
+            regressions++;
+        }
+    }
+}
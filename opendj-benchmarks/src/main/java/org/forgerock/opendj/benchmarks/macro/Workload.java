@@ -0,0 +1,231 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.benchmarks.macro;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Describes a macro benchmark run: the embedded server, the generated data set, the operation
+ * mix applied to the server and the report to produce.
+ * <p>
+ * A workload is read from a properties file whose values override the defaults listed in the
+ * {@code default-workload.properties} resource of this package. Any property can also be
+ * overridden with a system property of the same name prefixed with {@value #SYSTEM_PROPERTY_PREFIX}.
+ */
+final class Workload {
+    /** Prefix of the system properties overriding the workload properties. */
+    static final String SYSTEM_PROPERTY_PREFIX = "org.forgerock.opendj.benchmarks.macro.";
+
+    /** The operations which may be part of the workload mix, and the rate tool generating each of them. */
+    enum Operation {
+        /** Base object searches of random users, generated by {@code searchrate}. */
+        SEARCH("search"),
+        /** Simple binds of random users, generated by {@code authrate}. */
+        BIND("bind"),
+        /** Modifications of random users, generated by {@code modrate}. */
+        MODIFY("modify"),
+        /** Additions, and deletions, of new users, generated by {@code addrate}. */
+        ADD("add");
+
+        private final String name;
+
+        Operation(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final String DEFAULT_WORKLOAD = "default-workload.properties";
+
+    private final Properties properties;
+
+    /**
+     * Reads a workload.
+     *
+     * @param workloadFile
+     *            The file overriding the default workload, may be {@code null}.
+     * @return The workload.
+     * @throws IOException
+     *             If the workload cannot be read.
+     */
+    static Workload read(final File workloadFile) throws IOException {
+        final Properties defaults = new Properties();
+        try (InputStream in = Workload.class.getResourceAsStream(DEFAULT_WORKLOAD)) {
+            defaults.load(in);
+        }
+        final Properties properties = new Properties(defaults);
+        if (workloadFile != null) {
+            try (InputStream in = new FileInputStream(workloadFile)) {
+                properties.load(in);
+            }
+        }
+        for (final String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(SYSTEM_PROPERTY_PREFIX)) {
+                properties.setProperty(name.substring(SYSTEM_PROPERTY_PREFIX.length()), System.getProperty(name));
+            }
+        }
+        return new Workload(properties);
+    }
+
+    private Workload(final Properties properties) {
+        this.properties = properties;
+    }
+
+    String getServerArchive() {
+        return getString("server.archive");
+    }
+
+    String getServerRoot() {
+        return getString("server.root");
+    }
+
+    String getBackendType() {
+        return getString("server.backendType");
+    }
+
+    int getLdapPort() {
+        return getInt("server.ldapPort");
+    }
+
+    int getAdminPort() {
+        return getInt("server.adminPort");
+    }
+
+    int getJmxPort() {
+        return getInt("server.jmxPort");
+    }
+
+    int getReplicationPort() {
+        return getInt("server.replicationPort");
+    }
+
+    String getBaseDn() {
+        return getString("data.baseDn");
+    }
+
+    int getEntries() {
+        return getInt("data.entries");
+    }
+
+    String getTemplate() {
+        return getString("data.template");
+    }
+
+    int getDurationSeconds() {
+        return getInt("workload.durationSeconds");
+    }
+
+    int getWarmUpSeconds() {
+        return getInt("workload.warmUpSeconds");
+    }
+
+    int getConnections() {
+        return getInt("workload.connections");
+    }
+
+    int getTargetThroughput() {
+        return getInt("workload.targetThroughput");
+    }
+
+    int getRatio(final Operation operation) {
+        return getInt("workload.ratio." + operation);
+    }
+
+    int getPersistentSearches() {
+        return getInt("workload.persistentSearches");
+    }
+
+    boolean isReplicationEnabled() {
+        return Boolean.parseBoolean(getString("workload.replication"));
+    }
+
+    File getOutputDirectory() {
+        return new File(getString("report.output"));
+    }
+
+    File getBaseline() {
+        final String baseline = getString("report.baseline");
+        return baseline.isEmpty() ? null : new File(baseline);
+    }
+
+    double getThresholdPercent() {
+        return Double.parseDouble(getString("report.thresholdPercent"));
+    }
+
+    /**
+     * Returns the number of connections used for the provided operation: the workload connections
+     * are split according to the operation ratios, each operation in the mix gets at least one.
+     */
+    int getConnections(final Operation operation) {
+        final int ratio = getRatio(operation);
+        return ratio > 0 ? Math.max(1, getConnections() * ratio / getTotalRatio()) : 0;
+    }
+
+    /**
+     * Returns the throughput targeted for the provided operation, split according to the
+     * operation ratios, or 0 if the workload is unthrottled.
+     */
+    int getTargetThroughput(final Operation operation) {
+        final int target = getTargetThroughput();
+        return target > 0 ? Math.max(1, target * getRatio(operation) / getTotalRatio()) : 0;
+    }
+
+    private int getTotalRatio() {
+        int total = 0;
+        for (final Operation operation : Operation.values()) {
+            total += getRatio(operation);
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The workload does not contain any operation");
+        }
+        return total;
+    }
+
+    /** Returns all the properties of this workload, recorded with the results of the run. */
+    Map<String, String> toMap() {
+        final Map<String, String> map = new TreeMap<>();
+        for (final String name : properties.stringPropertyNames()) {
+            map.put(name, properties.getProperty(name));
+        }
+        return map;
+    }
+
+    private String getString(final String name) {
+        final String value = properties.getProperty(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing workload property " + name);
+        }
+        return value.trim();
+    }
+
+    private int getInt(final String name) {
+        try {
+            return Integer.parseInt(getString(name));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for workload property " + name, e);
+        }
+    }
+}
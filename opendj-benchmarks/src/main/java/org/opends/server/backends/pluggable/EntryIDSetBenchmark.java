@@ -0,0 +1,98 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.backends.pluggable.EntryIDSet.EntryIDSetCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding and decoding of index records by the {@link EntryIDSet} codecs.
+ * <p>
+ * The IDs are spread with a constant gap, which is representative of the equality and
+ * substring indexes of a backend populated by an import.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntryIDSetBenchmark
+{
+  private static final ByteString KEY = ByteString.valueOfUtf8("benchmark");
+
+  @Param({ "V1", "V2" })
+  String codecVersion;
+
+  @Param({ "10", "1000", "100000" })
+  int numberOfIDs;
+
+  @Param("7")
+  int gap;
+
+  private EntryIDSetCodec codec;
+  private EntryIDSet idSet;
+  private ByteString encodedIDSet;
+
+  /** Creates the ID set and encodes it with the selected codec. */
+  @Setup
+  public void setUp()
+  {
+    codec = "V1".equals(codecVersion) ? EntryIDSet.CODEC_V1 : EntryIDSet.CODEC_V2;
+    final long[] ids = new long[numberOfIDs];
+    for (int i = 0; i < ids.length; i++)
+    {
+      ids[i] = 1 + (long) i * gap;
+    }
+    idSet = EntryIDSet.newDefinedSet(ids);
+    encodedIDSet = codec.encode(idSet);
+  }
+
+  /**
+   * Encodes the ID set.
+   *
+   * @return The encoded ID set.
+   */
+  @Benchmark
+  public ByteString encode()
+  {
+    return codec.encode(idSet);
+  }
+
+  /**
+   * Decodes the ID set.
+   *
+   * @return The decoded ID set.
+   */
+  @Benchmark
+  public EntryIDSet decode()
+  {
+    return codec.decode(KEY, encodedIDSet);
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.benchmarks.Fixtures;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.api.CompressedSchema;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.types.Entry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding and decoding of entries stored in the id2entry tree, without compression,
+ * with compression, and with compression using a dictionary trained from the entries. The average
+ * size of the encoded entries is printed when the benchmark is set up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ID2EntryBenchmark
+{
+  @Param({ "none", "deflate", "dictionary" })
+  String compression;
+
+  @Param("1000")
+  int numberOfEntries;
+
+  private DataConfig dataConfig;
+  private CompressedSchema compressedSchema;
+  private ID2Entry id2entry;
+  private Entry[] entries;
+  private ByteString[] encodedEntries;
+  private int index;
+
+  /**
+   * Generates and pre-encodes the entries.
+   *
+   * @throws Exception
+   *           If the entries cannot be generated or encoded.
+   */
+  @Setup
+  public void setUp() throws Exception
+  {
+    final List<Entry> generated = Fixtures.generateServerEntries(numberOfEntries);
+    final CompressionDictionaries dictionaries = new CompressionDictionaries();
+    dataConfig = new DataConfig.Builder()
+        .compress(!"none".equals(compression))
+        .compressionDictionaries(dictionaries)
+        .build();
+    compressedSchema = dataConfig.getEntryEncodeConfig().getCompressedSchema();
+    id2entry = new ID2Entry(new TreeName("dc=example,dc=com", "id2entry"), dataConfig);
+    entries = generated.toArray(new Entry[generated.size()]);
+    if ("dictionary".equals(compression))
+    {
+      final List<ByteString> samples = new ArrayList<>(entries.length);
+      for (Entry entry : entries)
+      {
+        final ByteStringBuilder sample = new ByteStringBuilder();
+        entry.encode(sample, dataConfig.getEntryEncodeConfig());
+        samples.add(sample.toByteString());
+      }
+      dictionaries.addDictionary(
+          CompressionDictionaries.train(samples, CompressionDictionaries.MAX_DICTIONARY_SIZE));
+    }
+
+    encodedEntries = new ByteString[entries.length];
+    long totalSize = 0;
+    for (int i = 0; i < entries.length; i++)
+    {
+      encodedEntries[i] = id2entry.entryToDatabase(entries[i], dataConfig);
+      totalSize += encodedEntries[i].length();
+    }
+    System.out.printf("%nAverage encoded entry size with compression '%s': %d bytes%n",
+        compression, totalSize / entries.length);
+  }
+
+  /**
+   * Encodes the next entry.
+   *
+   * @return The encoded entry.
+   * @throws Exception
+   *           If the entry cannot be encoded.
+   */
+  @Benchmark
+  public ByteString encode() throws Exception
+  {
+    return id2entry.entryToDatabase(entries[next()], dataConfig);
+  }
+
+  /**
+   * Decodes the next entry.
+   *
+   * @return The decoded entry.
+   * @throws Exception
+   *           If the entry cannot be decoded.
+   */
+  @Benchmark
+  public Entry decode() throws Exception
+  {
+    return id2entry.entryFromDatabase(encodedEntries[next()], compressedSchema);
+  }
+
+  private int next()
+  {
+    final int i = index;
+    index = i + 1 < entries.length ? i + 1 : 0;
+    return i;
+  }
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -98,6 +99,71 @@ abstract class CommonLDAPOptions {
     public static final Option<Boolean> SO_KEEPALIVE = Option.withDefault(
         getBooleanProperty("org.forgerock.opendj.io.keepAlive", true));
 
+    /**
+     * Specifies whether a transport dedicated to this connection factory or listener should be used, rather than the
+     * transport shared by all the connection factories, respectively all the listeners, of the JVM.
+     * <p>
+     * A dedicated transport isolates the selector threads, worker threads and buffers of this connection factory or
+     * listener from any other traffic handled by the JVM, which is typically useful for proxy-like services. It is
+     * created when the connection factory or listener is created and shut down when it is closed.
+     * <p>
+     * The default setting is {@code false}. Setting any of the other {@code TRANSPORT_*} tuning options implies
+     * a dedicated transport.
+     */
+    public static final Option<Boolean> TRANSPORT_DEDICATED = Option.withDefault(false);
+
+    /**
+     * Specifies the number of selector threads of a dedicated transport.
+     * <p>
+     * By default the number of selector threads is computed from the number of available processors and the
+     * {@link #TRANSPORT_USE_WORKER_THREADS IO strategy} in use.
+     */
+    public static final Option<Integer> TRANSPORT_SELECTOR_THREADS = Option.of(Integer.class, null);
+
+    /**
+     * Specifies whether a dedicated transport should hand-off the processing of incoming messages to a pool of
+     * worker threads, rather than process them directly in the selector threads.
+     * <p>
+     * Processing messages in the selector threads performs best, but may only be used when result handlers will not
+     * block. By default, connection factories use worker threads and listeners do not.
+     */
+    public static final Option<Boolean> TRANSPORT_USE_WORKER_THREADS = Option.of(Boolean.class, null);
+
+    /**
+     * Specifies the number of worker threads of a dedicated transport. This option is ignored when the transport
+     * does not {@link #TRANSPORT_USE_WORKER_THREADS use worker threads}.
+     * <p>
+     * By default the number of worker threads is computed from the number of available processors.
+     */
+    public static final Option<Integer> TRANSPORT_WORKER_THREADS = Option.of(Integer.class, null);
+
+    /**
+     * Specifies whether a dedicated transport should read and write messages using pooled direct buffers.
+     * <p>
+     * Pooled buffers avoid allocating new buffers for each message read or written, at the cost of keeping the pooled
+     * buffers in memory. Their sizes are controlled by {@link #TRANSPORT_BUFFER_BASE_SIZE} and
+     * {@link #TRANSPORT_BUFFER_SIZE_CLASSES}. By default, listeners use pooled buffers and connection factories do not.
+     */
+    public static final Option<Boolean> TRANSPORT_POOLED_BUFFERS = Option.of(Boolean.class, null);
+
+    /**
+     * Specifies the size in bytes of the smallest buffers pooled by a dedicated transport using
+     * {@link #TRANSPORT_POOLED_BUFFERS pooled buffers}.
+     * <p>
+     * The default setting is {@code 1024} bytes.
+     */
+    public static final Option<Integer> TRANSPORT_BUFFER_BASE_SIZE = Option.withDefault(1024);
+
+    /**
+     * Specifies the number of buffer size classes pooled by a dedicated transport using
+     * {@link #TRANSPORT_POOLED_BUFFERS pooled buffers}. Each size class holds buffers four times bigger than the
+     * previous one.
+     * <p>
+     * The default setting is {@code 3}, which gives pools of 1KB, 4KB and 16KB buffers with the default
+     * {@link #TRANSPORT_BUFFER_BASE_SIZE base size}.
+     */
+    public static final Option<Integer> TRANSPORT_BUFFER_SIZE_CLASSES = Option.withDefault(3);
+
     /** Sets the decoding options which will be used to control how requests and responses are decoded. */
     public static final Option<DecodeOptions> LDAP_DECODE_OPTIONS = Option.withDefault(new DecodeOptions());
 
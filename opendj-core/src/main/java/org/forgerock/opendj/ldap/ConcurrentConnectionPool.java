@@ -0,0 +1,594 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.opendj.ldap;
+
+import static com.forgerock.opendj.ldap.CoreMessages.ERR_CONNECTION_POOL_CLOSING;
+import static com.forgerock.opendj.util.StaticUtils.DEFAULT_SCHEDULER;
+import static org.forgerock.opendj.ldap.LdapException.newLdapException;
+import static org.forgerock.util.promise.Promises.newResultPromise;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.requests.AbandonRequest;
+import org.forgerock.opendj.ldap.requests.AddRequest;
+import org.forgerock.opendj.ldap.requests.BindRequest;
+import org.forgerock.opendj.ldap.requests.CompareRequest;
+import org.forgerock.opendj.ldap.requests.DeleteRequest;
+import org.forgerock.opendj.ldap.requests.ExtendedRequest;
+import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
+import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.requests.UnbindRequest;
+import org.forgerock.opendj.ldap.responses.BindResult;
+import org.forgerock.opendj.ldap.responses.CompareResult;
+import org.forgerock.opendj.ldap.responses.ExtendedResult;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.spi.ConnectionState;
+import org.forgerock.util.Reject;
+import org.forgerock.util.promise.ExceptionHandler;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.promise.PromiseImpl;
+import org.forgerock.util.promise.ResultHandler;
+import org.forgerock.util.time.TimeService;
+
+import com.forgerock.opendj.util.ReferenceCountedObject;
+
+/**
+ * A connection pool implementation which does not hold any lock while connections are obtained from or returned to
+ * the pool.
+ * <p>
+ * Idle connections are kept in a lock-free stack so that the most recently used connections are reused first, and
+ * the least recently used ones can expire. Connection requests which cannot be satisfied immediately wait in a
+ * lock-free FIFO queue and are served in order. A maintenance task periodically closes connections which have been
+ * idle for too long or have exceeded their maximum lifetime, and opens new connections in order to keep a minimum
+ * number of idle connections.
+ */
+final class ConcurrentConnectionPool implements MonitoredConnectionPool {
+    /** A connection obtained from the underlying factory, either idle in the pool or in use. */
+    private static final class PoolEntry {
+        private final Connection connection;
+        private final long creationTimeMillis;
+        private volatile long releaseTimeMillis;
+
+        private PoolEntry(final Connection connection, final long creationTimeMillis) {
+            this.connection = connection;
+            this.creationTimeMillis = creationTimeMillis;
+            this.releaseTimeMillis = creationTimeMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(connection);
+        }
+    }
+
+    /** A connection request waiting for a connection to be available. */
+    private final class Waiter {
+        private final PromiseImpl<Connection, LdapException> promise = PromiseImpl.create();
+        private final long waitStartTimeMillis = timeService.now();
+
+        private boolean handOver(final PoolEntry entry) {
+            if (promise.tryHandleResult(new PooledConnection(entry))) {
+                recordWaitTime(timeService.now() - waitStartTimeMillis);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A pooled connection is passed to the client. It wraps an underlying connection and lasts until the client
+     * application closes it, at which point the underlying connection is returned to the pool.
+     */
+    private final class PooledConnection extends AbstractAsynchronousConnection implements ConnectionEventListener {
+        private final PoolEntry entry;
+        private final ConnectionState state = new ConnectionState();
+        private final AtomicBoolean isClosed = new AtomicBoolean();
+        private final AtomicBoolean isListening = new AtomicBoolean();
+
+        private PooledConnection(final PoolEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public LdapPromise<Void> abandonAsync(final AbandonRequest request) {
+            return checkState().abandonAsync(request);
+        }
+
+        @Override
+        public LdapPromise<Result> addAsync(final AddRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return checkState().addAsync(request, intermediateResponseHandler);
+        }
+
+        @Override
+        public void addConnectionEventListener(final ConnectionEventListener listener) {
+            Reject.ifNull(listener);
+            if (!isClosed.get() && isListening.compareAndSet(false, true)) {
+                entry.connection.addConnectionEventListener(this);
+            }
+            state.addConnectionEventListener(listener);
+        }
+
+        @Override
+        public LdapPromise<BindResult> bindAsync(final BindRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return checkState().bindAsync(request, intermediateResponseHandler);
+        }
+
+        @Override
+        public void close(final UnbindRequest request, final String reason) {
+            if (!isClosed.compareAndSet(false, true)) {
+                return;
+            }
+            /*
+             * Remove underlying listener if needed and do this before
+             * subsequent connection events may occur.
+             */
+            if (isListening.get()) {
+                entry.connection.removeConnectionEventListener(this);
+            }
+            releaseConnection(entry);
+            state.notifyConnectionClosed();
+        }
+
+        @Override
+        public LdapPromise<CompareResult> compareAsync(final CompareRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return checkState().compareAsync(request, intermediateResponseHandler);
+        }
+
+        @Override
+        public LdapPromise<Result> deleteAsync(final DeleteRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return checkState().deleteAsync(request, intermediateResponseHandler);
+        }
+
+        @Override
+        public <R extends ExtendedResult> LdapPromise<R> extendedRequestAsync(final ExtendedRequest<R> request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return checkState().extendedRequestAsync(request, intermediateResponseHandler);
+        }
+
+        @Override
+        public void handleConnectionClosed() {
+            /*
+             * The underlying connection was closed by the client. This can only
+             * occur when the pool is being shut down and the underlying
+             * connection is not in use.
+             */
+            throw new IllegalStateException("Pooled connection received unexpected close notification");
+        }
+
+        @Override
+        public void handleConnectionError(final boolean isDisconnectNotification, final LdapException error) {
+            state.notifyConnectionError(isDisconnectNotification, error);
+        }
+
+        @Override
+        public void handleUnsolicitedNotification(final ExtendedResult notification) {
+            state.notifyUnsolicitedNotification(notification);
+        }
+
+        @Override
+        public boolean isClosed() {
+            return isClosed.get();
+        }
+
+        @Override
+        public boolean isValid() {
+            return entry.connection.isValid() && !isClosed();
+        }
+
+        @Override
+        public LdapPromise<Result> modifyAsync(final ModifyRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return checkState().modifyAsync(request, intermediateResponseHandler);
+        }
+
+        @Override
+        public LdapPromise<Result> modifyDNAsync(final ModifyDNRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler) {
+            return checkState().modifyDNAsync(request, intermediateResponseHandler);
+        }
+
+        @Override
+        public void removeConnectionEventListener(final ConnectionEventListener listener) {
+            Reject.ifNull(listener);
+            state.removeConnectionEventListener(listener);
+        }
+
+        @Override
+        public LdapPromise<Result> searchAsync(final SearchRequest request,
+                final IntermediateResponseHandler intermediateResponseHandler, final SearchResultHandler entryHandler) {
+            return checkState().searchAsync(request, intermediateResponseHandler, entryHandler);
+        }
+
+        @Override
+        public String toString() {
+            return "PooledConnection(" + entry.connection + ')';
+        }
+
+        /** Checks that this pooled connection has not been closed. */
+        private Connection checkState() {
+            if (isClosed()) {
+                throw new IllegalStateException();
+            }
+            return entry.connection;
+        }
+    }
+
+    /**
+     * Scheduled task responsible for computing the borrow rate, closing expired idle connections and opening new
+     * connections in order to maintain the minimum number of idle connections.
+     */
+    private final class MaintenanceTask implements Runnable {
+        private long lastRunTimeMillis = -1;
+        private long lastBorrowedConnections;
+
+        @Override
+        public void run() {
+            if (isClosed.get()) {
+                return;
+            }
+            final long now = timeService.now();
+            final long borrowed = borrowedConnections.get();
+            if (lastRunTimeMillis >= 0 && now > lastRunTimeMillis) {
+                borrowRate = (borrowed - lastBorrowedConnections) * 1000d / (now - lastRunTimeMillis);
+            }
+            lastRunTimeMillis = now;
+            lastBorrowedConnections = borrowed;
+
+            closeExpiredIdleConnections(now);
+            while (idleConnectionCount.get() + pendingConnectionAttempts.get() < minIdle && openConnection()) {
+                // Prewarm the pool.
+            }
+        }
+    }
+
+    private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+    /** Interval between two runs of the maintenance task. */
+    private static final long MAINTENANCE_INTERVAL_MILLIS = 1000;
+
+    /** This is package private in order to allow unit tests to inject fake time stamps. */
+    TimeService timeService = TimeService.SYSTEM;
+
+    private final ConnectionFactory factory;
+    private final int maxPoolSize;
+    private final int minIdle;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final AtomicBoolean isClosed = new AtomicBoolean();
+
+    /** Idle connections, the most recently released first. */
+    private final ConcurrentLinkedDeque<PoolEntry> idleConnections = new ConcurrentLinkedDeque<>();
+    /** Connection requests waiting for a connection, the oldest first. */
+    private final ConcurrentLinkedDeque<Waiter> waiters = new ConcurrentLinkedDeque<>();
+    /** The number of open or pending connections, which must not exceed the maximum pool size. */
+    private final AtomicInteger poolSize = new AtomicInteger();
+    /** The number of idle connections, since computing the size of a concurrent deque is not a constant time. */
+    private final AtomicInteger idleConnectionCount = new AtomicInteger();
+    private final AtomicInteger waitingRequestCount = new AtomicInteger();
+    /** The number of new connections which are in the process of being established. */
+    private final AtomicInteger pendingConnectionAttempts = new AtomicInteger();
+    private final AtomicLong borrowedConnections = new AtomicLong();
+    private final AtomicLongArray waitTimeHistogram =
+            new AtomicLongArray(ConnectionPoolStatistics.getWaitTimeBucketCount());
+    private volatile double borrowRate;
+
+    private final ReferenceCountedObject<ScheduledExecutorService>.Reference scheduler;
+    private final ScheduledFuture<?> maintenanceFuture;
+
+    private final ResultHandler<Connection> connectionResultHandler = new ResultHandler<Connection>() {
+        @Override
+        public void handleResult(final Connection connection) {
+            pendingConnectionAttempts.decrementAndGet();
+            releaseConnection(new PoolEntry(connection, timeService.now()));
+        }
+    };
+
+    private final ExceptionHandler<LdapException> connectionFailureHandler = new ExceptionHandler<LdapException>() {
+        @Override
+        public void handleException(final LdapException exception) {
+            pendingConnectionAttempts.decrementAndGet();
+            poolSize.decrementAndGet();
+            logger.debug(LocalizableMessage.raw("Connection attempt failed: %s", ConcurrentConnectionPool.this,
+                    exception));
+            /*
+             * A failed connection attempt fails all the waiting requests, since
+             * the other connection attempts are likely to fail too: waiting
+             * requests must not be left unresolved.
+             */
+            failWaiters(exception);
+        }
+    };
+
+    ConcurrentConnectionPool(final ConnectionFactory factory, final int maxPoolSize, final int minIdle,
+            final long idleTimeoutMillis, final long maxLifetimeMillis, final ScheduledExecutorService scheduler) {
+        Reject.ifNull(factory);
+        Reject.ifFalse(maxPoolSize > 0, "maxPoolSize <= 0");
+        Reject.ifFalse(minIdle >= 0, "minIdle < 0");
+        Reject.ifFalse(minIdle <= maxPoolSize, "minIdle > maxPoolSize");
+        Reject.ifFalse(idleTimeoutMillis >= 0, "idleTimeout < 0");
+        Reject.ifFalse(maxLifetimeMillis >= 0, "maxLifetime < 0");
+
+        this.factory = factory;
+        this.maxPoolSize = maxPoolSize;
+        this.minIdle = minIdle;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.scheduler = DEFAULT_SCHEDULER.acquireIfNull(scheduler);
+        this.maintenanceFuture = this.scheduler.get().scheduleWithFixedDelay(new MaintenanceTask(),
+                minIdle > 0 ? 0 : MAINTENANCE_INTERVAL_MILLIS, MAINTENANCE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (!isClosed.compareAndSet(false, true)) {
+            return;
+        }
+        logger.debug(LocalizableMessage.raw("Connection pool is closing: %s", this));
+        maintenanceFuture.cancel(false);
+        scheduler.release();
+
+        for (PoolEntry entry = pollIdleConnection(); entry != null; entry = pollIdleConnection()) {
+            closeConnection(entry);
+        }
+        failWaiters(newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED,
+                ERR_CONNECTION_POOL_CLOSING.get(toString()).toString()));
+        factory.close();
+    }
+
+    @Override
+    public Connection getConnection() throws LdapException {
+        try {
+            return getConnectionAsync().getOrThrow();
+        } catch (final InterruptedException e) {
+            throw newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED, e);
+        }
+    }
+
+    @Override
+    public Promise<Connection, LdapException> getConnectionAsync() {
+        if (isClosed.get()) {
+            throw new IllegalStateException("ConcurrentConnectionPool is already closed");
+        }
+        borrowedConnections.incrementAndGet();
+        for (PoolEntry entry = pollIdleConnection(); entry != null; entry = pollIdleConnection()) {
+            if (isReusable(entry, timeService.now())) {
+                recordWaitTime(0);
+                return newResultPromise((Connection) new PooledConnection(entry));
+            }
+            closeConnection(entry);
+        }
+
+        final Waiter waiter = new Waiter();
+        waiters.offerLast(waiter);
+        waitingRequestCount.incrementAndGet();
+        if (pendingConnectionAttempts.get() < waitingRequestCount.get()) {
+            openConnection();
+        }
+        // A connection may have been released since the idle connections were polled.
+        dispatchIdleConnections();
+        if (isClosed.get()) {
+            // The pool was closed while this request was being queued.
+            failWaiters(newLdapException(ResultCode.CLIENT_SIDE_USER_CANCELLED,
+                    ERR_CONNECTION_POOL_CLOSING.get(toString()).toString()));
+        }
+        return waiter.promise;
+    }
+
+    @Override
+    public ConnectionPoolStatistics getStatistics() {
+        final int idle = idleConnectionCount.get();
+        final int pending = pendingConnectionAttempts.get();
+        final long[] histogram = new long[waitTimeHistogram.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = waitTimeHistogram.get(i);
+        }
+        return new ConnectionPoolStatistics(maxPoolSize, Math.max(poolSize.get() - idle - pending, 0), idle,
+                pending, waitingRequestCount.get(), borrowedConnections.get(), borrowRate, histogram);
+    }
+
+    @Override
+    public String toString() {
+        final int size = poolSize.get();
+        final int idle = idleConnectionCount.get();
+        final int pending = pendingConnectionAttempts.get();
+        return String.format("ConcurrentConnectionPool(size=%d[in:%d + out:%d + pending:%d], maxSize=%d, "
+                + "blocked=%d, factory=%s)", size, idle, size - idle - pending, pending, maxPoolSize,
+                waitingRequestCount.get(), String.valueOf(factory));
+    }
+
+    /**
+     * Provide a finalizer because connection pools are expensive resources to
+     * accidentally leave around. Also, since they won't be created all that
+     * frequently, there's little risk of overloading the finalizer.
+     */
+    @Override
+    protected void finalize() throws Throwable {
+        close();
+    }
+
+    /** Package private for unit testing. */
+    int currentPoolSize() {
+        return poolSize.get();
+    }
+
+    /** Package private for unit testing. */
+    int idleConnectionCount() {
+        return idleConnectionCount.get();
+    }
+
+    /**
+     * Returns a connection to the pool, handing it over to the oldest waiting request if there is one.
+     *
+     * @param entry
+     *            The connection which is no longer used, or has just been opened.
+     */
+    private void releaseConnection(final PoolEntry entry) {
+        final long now = timeService.now();
+        if (isClosed.get() || !isReusable(entry, now)) {
+            closeConnection(entry);
+            if (!isClosed.get() && waitingRequestCount.get() > pendingConnectionAttempts.get()) {
+                // Avoid leaving waiting requests hanging while the server may still be available.
+                openConnection();
+            }
+            return;
+        }
+        entry.releaseTimeMillis = now;
+        for (Waiter waiter = pollWaiter(); waiter != null; waiter = pollWaiter()) {
+            if (waiter.handOver(entry)) {
+                return;
+            }
+        }
+        idleConnections.offerFirst(entry);
+        idleConnectionCount.incrementAndGet();
+        // A request may have been queued since the waiters were polled.
+        dispatchIdleConnections();
+        if (isClosed.get()) {
+            // The pool was closed while the connection was being released.
+            for (PoolEntry idleEntry = pollIdleConnection(); idleEntry != null; idleEntry = pollIdleConnection()) {
+                closeConnection(idleEntry);
+            }
+        }
+    }
+
+    /** Hands over idle connections to waiting requests until there are no more idle connections or waiters. */
+    private void dispatchIdleConnections() {
+        while (!waiters.isEmpty()) {
+            final PoolEntry entry = pollIdleConnection();
+            if (entry == null) {
+                return;
+            }
+            final Waiter waiter = pollWaiter();
+            if (waiter == null) {
+                idleConnections.offerFirst(entry);
+                idleConnectionCount.incrementAndGet();
+                return;
+            }
+            if (!isReusable(entry, timeService.now())) {
+                closeConnection(entry);
+                waiters.offerFirst(waiter);
+                waitingRequestCount.incrementAndGet();
+                openConnection();
+            } else if (!waiter.handOver(entry)) {
+                idleConnections.offerFirst(entry);
+                idleConnectionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Opens a new connection if the maximum pool size has not been reached yet. The new connection will be handed
+     * over to the oldest waiting request, or kept idle in the pool.
+     *
+     * @return {@code true} if a new connection is being opened.
+     */
+    private boolean openConnection() {
+        for (;;) {
+            final int size = poolSize.get();
+            if (size >= maxPoolSize) {
+                return false;
+            }
+            if (poolSize.compareAndSet(size, size + 1)) {
+                break;
+            }
+        }
+        pendingConnectionAttempts.incrementAndGet();
+        factory.getConnectionAsync().thenOnResult(connectionResultHandler).thenOnException(connectionFailureHandler);
+        return true;
+    }
+
+    private void closeConnection(final PoolEntry entry) {
+        poolSize.decrementAndGet();
+        entry.connection.close();
+        logger.debug(LocalizableMessage.raw("Closed pooled connection %s: %s", entry, this));
+    }
+
+    /** Closes the idle connections which exceeded their maximum lifetime or, above the minimum, the idle timeout. */
+    private void closeExpiredIdleConnections(final long now) {
+        final List<PoolEntry> expiredEntries = new ArrayList<>();
+        int idleCount = idleConnectionCount.get();
+        // Least recently used connections are at the end of the deque.
+        for (final Iterator<PoolEntry> it = idleConnections.descendingIterator(); it.hasNext();) {
+            final PoolEntry entry = it.next();
+            if (hasExceededLifetime(entry, now)) {
+                expiredEntries.add(entry);
+                idleCount--;
+            } else if (idleCount > minIdle && idleTimeoutMillis > 0
+                    && now - entry.releaseTimeMillis >= idleTimeoutMillis) {
+                expiredEntries.add(entry);
+                idleCount--;
+            }
+        }
+        for (final PoolEntry entry : expiredEntries) {
+            // The connection may have been obtained by a request in the meantime.
+            if (idleConnections.removeLastOccurrence(entry)) {
+                idleConnectionCount.decrementAndGet();
+                closeConnection(entry);
+            }
+        }
+    }
+
+    private boolean isReusable(final PoolEntry entry, final long now) {
+        return entry.connection.isValid() && !hasExceededLifetime(entry, now);
+    }
+
+    private boolean hasExceededLifetime(final PoolEntry entry, final long now) {
+        return maxLifetimeMillis > 0 && now - entry.creationTimeMillis >= maxLifetimeMillis;
+    }
+
+    private PoolEntry pollIdleConnection() {
+        final PoolEntry entry = idleConnections.pollFirst();
+        if (entry != null) {
+            idleConnectionCount.decrementAndGet();
+        }
+        return entry;
+    }
+
+    private Waiter pollWaiter() {
+        final Waiter waiter = waiters.pollFirst();
+        if (waiter != null) {
+            waitingRequestCount.decrementAndGet();
+        }
+        return waiter;
+    }
+
+    private void failWaiters(final LdapException exception) {
+        for (Waiter waiter = pollWaiter(); waiter != null; waiter = pollWaiter()) {
+            waiter.promise.handleException(exception);
+        }
+    }
+
+    private void recordWaitTime(final long waitTimeMillis) {
+        waitTimeHistogram.incrementAndGet(ConnectionPoolStatistics.getWaitTimeBucket(waitTimeMillis));
+    }
+}
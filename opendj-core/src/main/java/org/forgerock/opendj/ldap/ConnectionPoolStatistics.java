@@ -0,0 +1,159 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.opendj.ldap;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of the statistics of a {@link MonitoredConnectionPool}.
+ * <p>
+ * The time spent by connection requests waiting for a connection is tracked by a histogram whose bucket upper bounds
+ * are given by {@link #getWaitTimeBucketsMillis()}: the bucket at index {@code i} counts the requests which waited
+ * more than the bound of the previous bucket and at most {@code getWaitTimeBucketsMillis()[i]} milliseconds, while the
+ * last bucket of {@link #getWaitTimeHistogram()} counts the requests which waited longer than the last bound.
+ */
+public final class ConnectionPoolStatistics {
+    private static final long[] WAIT_TIME_BUCKETS_MILLIS = { 0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 };
+
+    /**
+     * Returns the index of the wait time histogram bucket which counts the provided wait time.
+     *
+     * @param waitTimeMillis
+     *            The wait time in milliseconds.
+     * @return The index of the histogram bucket.
+     */
+    static int getWaitTimeBucket(final long waitTimeMillis) {
+        int index = Arrays.binarySearch(WAIT_TIME_BUCKETS_MILLIS, waitTimeMillis);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    static int getWaitTimeBucketCount() {
+        return WAIT_TIME_BUCKETS_MILLIS.length + 1;
+    }
+
+    private final int maxPoolSize;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int pendingConnections;
+    private final int waitingRequests;
+    private final long borrowedConnections;
+    private final double borrowRate;
+    private final long[] waitTimeHistogram;
+
+    ConnectionPoolStatistics(final int maxPoolSize, final int activeConnections, final int idleConnections,
+            final int pendingConnections, final int waitingRequests, final long borrowedConnections,
+            final double borrowRate, final long[] waitTimeHistogram) {
+        this.maxPoolSize = maxPoolSize;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.pendingConnections = pendingConnections;
+        this.waitingRequests = waitingRequests;
+        this.borrowedConnections = borrowedConnections;
+        this.borrowRate = borrowRate;
+        this.waitTimeHistogram = waitTimeHistogram;
+    }
+
+    /**
+     * Returns the maximum number of connections of the connection pool.
+     *
+     * @return The maximum number of connections of the connection pool.
+     */
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * Returns the number of connections which are currently in use by the application.
+     *
+     * @return The number of connections which are currently in use by the application.
+     */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    /**
+     * Returns the number of connections which are currently available in the pool.
+     *
+     * @return The number of connections which are currently available in the pool.
+     */
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /**
+     * Returns the number of connections which are currently being established.
+     *
+     * @return The number of connections which are currently being established.
+     */
+    public int getPendingConnections() {
+        return pendingConnections;
+    }
+
+    /**
+     * Returns the number of connection requests which are currently waiting for a connection.
+     *
+     * @return The number of connection requests which are currently waiting for a connection.
+     */
+    public int getWaitingRequests() {
+        return waitingRequests;
+    }
+
+    /**
+     * Returns the total number of connection requests made to the connection pool.
+     *
+     * @return The total number of connection requests made to the connection pool.
+     */
+    public long getBorrowedConnections() {
+        return borrowedConnections;
+    }
+
+    /**
+     * Returns the number of connection requests per second made to the connection pool during the last second.
+     *
+     * @return The number of connection requests per second.
+     */
+    public double getBorrowRate() {
+        return borrowRate;
+    }
+
+    /**
+     * Returns the upper bounds in milliseconds of the buckets of the wait time histogram.
+     *
+     * @return The upper bounds in milliseconds of the buckets of the wait time histogram.
+     */
+    public long[] getWaitTimeBucketsMillis() {
+        return WAIT_TIME_BUCKETS_MILLIS.clone();
+    }
+
+    /**
+     * Returns the number of connection requests having waited for a connection in each bucket of the wait time
+     * histogram. The returned array has one more element than {@link #getWaitTimeBucketsMillis()}.
+     *
+     * @return The wait time histogram.
+     */
+    public long[] getWaitTimeHistogram() {
+        return waitTimeHistogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPoolStatistics(maxSize=%d, active=%d, idle=%d, pending=%d, waiting=%d, "
+                + "borrowed=%d, borrowRate=%.1f/s, waitTimeHistogram=%s)", maxPoolSize, activeConnections,
+                idleConnections, pendingConnections, waitingRequests, borrowedConnections, borrowRate,
+                Arrays.toString(waitTimeHistogram));
+    }
+}
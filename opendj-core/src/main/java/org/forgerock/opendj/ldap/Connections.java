@@ -13,6 +13,7 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -21,14 +22,19 @@ import static org.forgerock.util.time.Duration.duration;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.LoadBalancer.StatisticsProvider;
 import org.forgerock.opendj.ldap.RequestLoadBalancer.PartitionedRequest;
+import org.forgerock.opendj.ldap.RequestLoadBalancer.ResponseTimePolicy;
 import org.forgerock.opendj.ldap.requests.AddRequest;
 import org.forgerock.opendj.ldap.requests.CRAMMD5SASLBindRequest;
 import org.forgerock.opendj.ldap.requests.CompareRequest;
@@ -82,6 +88,57 @@ public final class Connections {
     public static final Option<ScheduledExecutorService> LOAD_BALANCER_SCHEDULER =
             Option.of(ScheduledExecutorService.class, null);
 
+    /**
+     * Specifies whether the "latency aware" load-balancer should hedge searches, in other words send a search again to
+     * another connection factory when it has not completed within the {@link #LOAD_BALANCER_HEDGING_PERCENTILE
+     * usual response time}, using the first response and abandoning the other search. Only searches without controls
+     * are hedged, since searches are idempotent but some controls, such as paged results, bind a search to a server.
+     * By default searches are not hedged.
+     *
+     * @see #newLatencyAwareLoadBalancer(Collection, Options)
+     */
+    public static final Option<Boolean> LOAD_BALANCER_HEDGE_SEARCHES = Option.withDefault(false);
+
+    /**
+     * Specifies the percentile of the recent response times after which the "latency aware" load-balancer hedges a
+     * search which has not completed, when {@link #LOAD_BALANCER_HEDGE_SEARCHES hedging} is enabled. The default
+     * setting is {@code 95}, so that about one in twenty searches is hedged.
+     *
+     * @see #newLatencyAwareLoadBalancer(Collection, Options)
+     */
+    public static final Option<Double> LOAD_BALANCER_HEDGING_PERCENTILE = Option.withDefault(95d);
+
+    /**
+     * Specifies the minimum number of idle connections which a {@link #newConcurrentConnectionPool concurrent
+     * connection pool} tries to maintain. The pool opens new connections in the background when needed, so that
+     * bursts of requests do not have to wait for connections to be established. The default setting is {@code 0},
+     * which means that the pool does not open connections in advance.
+     */
+    public static final Option<Integer> CONNECTION_POOL_MIN_IDLE = Option.withDefault(0);
+
+    /**
+     * Specifies the time after which a {@link #newConcurrentConnectionPool concurrent connection pool} closes idle
+     * connections in excess of the {@link #CONNECTION_POOL_MIN_IDLE minimum number of idle connections}. The default
+     * setting is sixty seconds.
+     */
+    public static final Option<Duration> CONNECTION_POOL_IDLE_TIMEOUT = Option.withDefault(duration("60 seconds"));
+
+    /**
+     * Specifies the maximum time during which a {@link #newConcurrentConnectionPool concurrent connection pool}
+     * reuses a connection. Older connections are closed when they are released or while they are idle, and are
+     * replaced by new connections when needed. This, for example, spreads connections over time across the servers
+     * behind a network load-balancer. By default connections are reused indefinitely.
+     */
+    public static final Option<Duration> CONNECTION_POOL_MAX_LIFETIME = Option.withDefault(duration("unlimited"));
+
+    /**
+     * Specifies the scheduler which a {@link #newConcurrentConnectionPool concurrent connection pool} will use for
+     * periodically closing expired connections and opening new idle connections. A system-wide scheduler will be
+     * used by default.
+     */
+    public static final Option<ScheduledExecutorService> CONNECTION_POOL_SCHEDULER =
+            Option.of(ScheduledExecutorService.class, null);
+
     /**
      * Creates a new connection pool which creates new connections as needed
      * using the provided connection factory, but will reuse previously
@@ -251,6 +308,52 @@ public final class Connections {
         return new CachedConnectionPool(factory, poolSize, poolSize, 0L, null, null);
     }
 
+    /**
+     * Creates a new connection pool which creates new connections as needed using the provided connection factory,
+     * up to {@code maximumPoolSize} connections, and reuses previously allocated connections when they are available.
+     * <p>
+     * Unlike {@link #newCachedConnectionPool cached connection pools}, this pool does not hold any lock when
+     * connections are obtained or released. Idle connections are kept in a lock-free stack, so that the most
+     * recently used connections are reused first. Requests which cannot be satisfied immediately wait in a lock-free
+     * queue, and obtain connections in their order of arrival. The pool can maintain a
+     * {@link #CONNECTION_POOL_MIN_IDLE minimum number of idle connections}. It closes idle connections after an
+     * {@link #CONNECTION_POOL_IDLE_TIMEOUT idle timeout}, and rotates connections after a
+     * {@link #CONNECTION_POOL_MAX_LIFETIME maximum lifetime}. The returned pool exposes
+     * {@link MonitoredConnectionPool#getStatistics() statistics}, such as the number of active and idle connections,
+     * the borrow rate, and a histogram of the time spent waiting for connections.
+     * <p>
+     * Connections obtained from the connection pool are guaranteed to be valid immediately before being returned to
+     * the calling application. However, once a pooled connection has been obtained it is the responsibility of the
+     * calling application to handle subsequent connection failures, these being signaled via a
+     * {@link ConnectionException}.
+     *
+     * @param factory
+     *            The connection factory to use for creating new connections.
+     * @param maximumPoolSize
+     *            The maximum number of connections to allow in the pool.
+     * @param options
+     *            The configuration options for the connection pool.
+     * @return The new connection pool.
+     * @throws IllegalArgumentException
+     *             If {@code maximumPoolSize} is less than or equal to zero, or if the minimum number of idle
+     *             connections is negative or greater than {@code maximumPoolSize}.
+     * @throws NullPointerException
+     *             If {@code factory} or {@code options} was {@code null}.
+     * @see #CONNECTION_POOL_MIN_IDLE
+     * @see #CONNECTION_POOL_IDLE_TIMEOUT
+     * @see #CONNECTION_POOL_MAX_LIFETIME
+     * @see #CONNECTION_POOL_SCHEDULER
+     */
+    public static MonitoredConnectionPool newConcurrentConnectionPool(final ConnectionFactory factory,
+            final int maximumPoolSize, final Options options) {
+        final Duration idleTimeout = options.get(CONNECTION_POOL_IDLE_TIMEOUT);
+        final Duration maxLifetime = options.get(CONNECTION_POOL_MAX_LIFETIME);
+        return new ConcurrentConnectionPool(factory, maximumPoolSize, options.get(CONNECTION_POOL_MIN_IDLE),
+                idleTimeout.isUnlimited() ? 0 : idleTimeout.to(TimeUnit.MILLISECONDS),
+                maxLifetime.isUnlimited() ? 0 : maxLifetime.to(TimeUnit.MILLISECONDS),
+                options.get(CONNECTION_POOL_SCHEDULER));
+    }
+
     /**
      * Creates a new internal client connection which will route requests to the
      * provided {@code RequestHandler}.
@@ -853,6 +956,225 @@ public final class Connections {
         }
     }
 
+    /**
+     * Creates a new "latency aware" load-balancer which will load-balance individual requests across the provided set
+     * of connection factories, each typically representing a single replica, using an algorithm that avoids replicas
+     * which respond slowly.
+     * <p/>
+     * The load-balancer tracks, for each replica, an exponentially weighted moving average of the response times and
+     * the number of active requests. Each request is routed using the "power of two choices": two replicas are picked
+     * at random and the request is sent to the one having the lowest average response time weighted by its number of
+     * active requests. This avoids the herd behavior of always choosing the best replica, while quickly draining
+     * traffic away from a replica which becomes slow, for example while it is being backed up.
+     * <p/>
+     * Searches may additionally be {@link #LOAD_BALANCER_HEDGE_SEARCHES hedged} in order to reduce tail latencies.
+     * <p/>
+     * The statistics maintained for each replica are periodically published to the
+     * {@link #LOAD_BALANCER_EVENT_LISTENER event listener} if it is a {@link LoadBalancerStatisticsListener}.
+     * <p/>
+     * <b>NOTE:</b> this connection factory returns fake connections, since real connections are obtained for each
+     * request. Therefore, the returned fake connections have certain limitations: abandon requests will be ignored
+     * since they cannot be routed; connection event listeners can be registered, but will only be notified when the
+     * fake connection is closed or when all of the connection factories are unavailable.
+     * <p/>
+     * <b>NOTE:</b>Server selection is only based on information which is local to the client application. If other
+     * applications are accessing the same servers then their additional load is only taken into account through the
+     * resulting response times.
+     * <p/>
+     * The implementation periodically attempts to connect to failed connection factories in order to determine if they
+     * have become available again.
+     *
+     * @param factories
+     *            The connection factories.
+     * @param options
+     *            This configuration options for the load-balancer.
+     * @return The new latency aware load balancer.
+     * @see #newLeastRequestsLoadBalancer(Collection, Options)
+     * @see #LOAD_BALANCER_EVENT_LISTENER
+     * @see #LOAD_BALANCER_MONITORING_INTERVAL
+     * @see #LOAD_BALANCER_SCHEDULER
+     * @see #LOAD_BALANCER_HEDGE_SEARCHES
+     * @see #LOAD_BALANCER_HEDGING_PERCENTILE
+     */
+    public static ConnectionFactory newLatencyAwareLoadBalancer(
+            final Collection<? extends ConnectionFactory> factories, final Options options) {
+        final LatencyAwareDispatcher dispatcher = new LatencyAwareDispatcher(factories.size(),
+                options.get(LOAD_BALANCER_HEDGE_SEARCHES), options.get(LOAD_BALANCER_HEDGING_PERCENTILE));
+        final RequestLoadBalancer loadBalancer = new RequestLoadBalancer("LatencyAwareRequestLoadBalancer",
+                factories, options, newLatencyAwareLoadBalancerNextFunction(dispatcher),
+                NOOP_END_OF_REQUEST_FUNCTION, dispatcher);
+        loadBalancer.publishStatistics(dispatcher);
+        return loadBalancer;
+    }
+
+    static Function<Request, PartitionedRequest, NeverThrowsException> newLatencyAwareLoadBalancerNextFunction(
+            final LatencyAwareDispatcher dispatcher) {
+        return new Function<Request, PartitionedRequest, NeverThrowsException>() {
+            @Override
+            public PartitionedRequest apply(final Request request) {
+                return new PartitionedRequest(request, dispatcher.selectServer());
+            }
+        };
+    }
+
+    /**
+     * Dispatch requests using the "power of two choices" based on the response times and active requests of each
+     * server.
+     * <p>
+     * A server is only represented by its index. The cost of a server is its average response time multiplied by its
+     * number of active requests plus one, so that requests piling up on a server are taken into account before their
+     * response times are known. A server which did not respond yet is given the lowest average response time of the
+     * other servers, so that it is tried without being preferred while its own requests are still pending.
+     */
+    static class LatencyAwareDispatcher implements ResponseTimePolicy, StatisticsProvider {
+        /** Weight of each new response time in the moving average of the response times of a server. */
+        private static final double RESPONSE_TIME_WEIGHT = 0.2;
+        /** Number of recent response times from which the hedging delay is computed. */
+        private static final int RESPONSE_TIME_SAMPLES = 256;
+        /** Number of new response times after which the hedging delay is computed again. */
+        private static final int HEDGING_DELAY_REFRESH_INTERVAL = 64;
+
+        private final AtomicIntegerArray activeRequests;
+        /** Moving average of the response times in nanoseconds of each server, {@code 0} until a request completes. */
+        private final AtomicLongArray averageResponseTimes;
+        private final boolean hedgeSearches;
+        private final double hedgingPercentile;
+        /** Ring buffer of the most recent response times of all the servers. */
+        private final AtomicLongArray responseTimeSamples = new AtomicLongArray(RESPONSE_TIME_SAMPLES);
+        private final AtomicLong responseTimeSampleCount = new AtomicLong();
+        private volatile long hedgingDelayNanos = -1;
+
+        LatencyAwareDispatcher(final int numberOfServers, final boolean hedgeSearches,
+                final double hedgingPercentile) {
+            Reject.ifFalse(hedgingPercentile > 0 && hedgingPercentile <= 100,
+                    "The hedging percentile must be in the range ]0, 100]");
+            this.activeRequests = new AtomicIntegerArray(numberOfServers);
+            this.averageResponseTimes = new AtomicLongArray(numberOfServers);
+            this.hedgeSearches = hedgeSearches && numberOfServers > 1;
+            this.hedgingPercentile = hedgingPercentile;
+        }
+
+        int size() {
+            return activeRequests.length();
+        }
+
+        /**
+         * Returns the index of the server to use for the next request, which is counted as active until it
+         * is terminated.
+         *
+         * @return The server index.
+         */
+        int selectServer() {
+            final int size = size();
+            int index = 0;
+            if (size > 1) {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                final int first = random.nextInt(size);
+                final int second = (first + 1 + random.nextInt(size - 1)) % size;
+                index = cost(second) < cost(first) ? second : first;
+            }
+            activeRequests.incrementAndGet(index);
+            return index;
+        }
+
+        @Override
+        public int selectHedgingServer(final int serverIndex) {
+            int bestIndex = -1;
+            double bestCost = Double.MAX_VALUE;
+            for (int i = 0; i < size(); i++) {
+                final double cost = cost(i);
+                if (i != serverIndex && cost < bestCost) {
+                    bestCost = cost;
+                    bestIndex = i;
+                }
+            }
+            if (bestIndex >= 0) {
+                activeRequests.incrementAndGet(bestIndex);
+            }
+            return bestIndex;
+        }
+
+        @Override
+        public void requestRedirected(final int serverIndex, final int newServerIndex) {
+            activeRequests.decrementAndGet(serverIndex);
+            activeRequests.incrementAndGet(newServerIndex);
+        }
+
+        @Override
+        public long getHedgingDelayNanos(final SearchRequest request) {
+            return hedgeSearches && request.getControls().isEmpty() ? hedgingDelayNanos : -1;
+        }
+
+        @Override
+        public void requestTerminated(final int serverIndex, final long responseTimeNanos, final boolean isAbandoned) {
+            activeRequests.decrementAndGet(serverIndex);
+            if (responseTimeNanos < 0) {
+                return;
+            }
+            long average;
+            long newAverage;
+            do {
+                average = averageResponseTimes.get(serverIndex);
+                if (isAbandoned) {
+                    // The response time is only a lower bound: only use it for making the average worse.
+                    newAverage = Math.max(average, responseTimeNanos);
+                } else if (average == 0) {
+                    newAverage = Math.max(responseTimeNanos, 1);
+                } else {
+                    newAverage = Math.max(average + (long) (RESPONSE_TIME_WEIGHT * (responseTimeNanos - average)), 1);
+                }
+            } while (!averageResponseTimes.compareAndSet(serverIndex, average, newAverage));
+
+            if (!isAbandoned && hedgeSearches) {
+                final long count = responseTimeSampleCount.getAndIncrement();
+                responseTimeSamples.set((int) (count % RESPONSE_TIME_SAMPLES), responseTimeNanos);
+                if ((count + 1) % HEDGING_DELAY_REFRESH_INTERVAL == 0 && count + 1 >= RESPONSE_TIME_SAMPLES) {
+                    hedgingDelayNanos = computeHedgingDelay();
+                }
+            }
+        }
+
+        @Override
+        public int getActiveRequests(final int index) {
+            return activeRequests.get(index);
+        }
+
+        @Override
+        public double getAverageResponseTimeMillis(final int index) {
+            return averageResponseTimes.get(index) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        private double cost(final int index) {
+            long average = averageResponseTimes.get(index);
+            if (average == 0) {
+                average = getLowestAverageResponseTime();
+            }
+            return (double) average * (activeRequests.get(index) + 1);
+        }
+
+        /** Returns the lowest known average response time, or {@code 1} if no server has responded yet. */
+        private long getLowestAverageResponseTime() {
+            long lowest = Long.MAX_VALUE;
+            for (int i = 0; i < averageResponseTimes.length(); i++) {
+                final long average = averageResponseTimes.get(i);
+                if (average != 0 && average < lowest) {
+                    lowest = average;
+                }
+            }
+            return lowest != Long.MAX_VALUE ? lowest : 1;
+        }
+
+        private long computeHedgingDelay() {
+            final long[] samples = new long[RESPONSE_TIME_SAMPLES];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = responseTimeSamples.get(i);
+            }
+            Arrays.sort(samples);
+            final int rank = (int) Math.ceil(hedgingPercentile / 100 * samples.length) - 1;
+            return samples[Math.max(rank, 0)];
+        }
+    }
+
     /**
      * Creates a new connection factory which forwards connection requests to
      * the provided factory, but whose {@code toString} method will always
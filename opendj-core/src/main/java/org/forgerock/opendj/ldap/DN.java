@@ -13,18 +13,22 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.CoreSchema;
 import org.forgerock.opendj.ldap.schema.Schema;
 import org.forgerock.opendj.ldap.schema.UnknownSchemaElementException;
@@ -34,6 +38,7 @@ import org.forgerock.util.Reject;
 import com.forgerock.opendj.util.SubstringReader;
 
 import static com.forgerock.opendj.ldap.CoreMessages.*;
+import static com.forgerock.opendj.util.StaticUtils.*;
 
 /**
  * A distinguished name (DN) as defined in RFC 4512 section 2.3 is the
@@ -68,19 +73,98 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
      */
     private static final int DN_CACHE_SIZE = 32;
 
-    private static final ThreadLocal<Map<String, DN>> CACHE = new ThreadLocal<Map<String, DN>>() {
+    /** Keyed by the string or byte string representation of the DNs. */
+    private static final ThreadLocal<Map<Object, DN>> CACHE = new ThreadLocal<Map<Object, DN>>() {
         @SuppressWarnings("serial")
         @Override
-        protected Map<String, DN> initialValue() {
-            return new LinkedHashMap<String, DN>(DN_CACHE_SIZE, 0.75f, true) {
+        protected Map<Object, DN> initialValue() {
+            return new LinkedHashMap<Object, DN>(DN_CACHE_SIZE, 0.75f, true) {
                 @Override
-                protected boolean removeEldestEntry(Entry<String, DN> eldest) {
+                protected boolean removeEldestEntry(Entry<Object, DN> eldest) {
                     return size() > DN_CACHE_SIZE;
                 }
             };
         }
     };
 
+    /**
+     * Name of the system property holding the size of the DN cache shared by all threads, 0 (the default)
+     * disables it.
+     */
+    static final String SHARED_CACHE_SIZE_PROPERTY = "org.forgerock.opendj.ldap.dnCacheSize";
+
+    /**
+     * Parsed DNs shared by all threads, keyed by their string or byte string representation, or {@code null}
+     * if disabled. Unlike the per-thread cache, it holds DNs of any depth, such as the base DNs, group member
+     * DNs and ACI target DNs decoded over and over by a server, with their normalized form already computed.
+     */
+    private static final SharedCache SHARED_CACHE = newSharedCache(Integer.getInteger(SHARED_CACHE_SIZE_PROPERTY, 0));
+
+    private static SharedCache newSharedCache(final int size) {
+        return size > 0 ? new SharedCache(size) : null;
+    }
+
+    /**
+     * A bounded cache safe for use by multiple threads. It is split in segments, each of them evicting its
+     * least recently used DNs independently, so that threads only contend when accessing the same segment.
+     */
+    static final class SharedCache {
+        private static final int MAX_SEGMENTS = 16;
+
+        @SuppressWarnings("serial")
+        private static final class Segment extends LinkedHashMap<Object, DN> {
+            private final int capacity;
+
+            private Segment(final int capacity) {
+                super(capacity, 0.75f, true);
+                this.capacity = capacity;
+            }
+
+            @Override
+            protected boolean removeEldestEntry(final Entry<Object, DN> eldest) {
+                return size() > capacity;
+            }
+        }
+
+        private final Segment[] segments;
+
+        SharedCache(final int size) {
+            int nbSegments = 1;
+            while (nbSegments < MAX_SEGMENTS && nbSegments * 2 <= size) {
+                nbSegments *= 2;
+            }
+            segments = new Segment[nbSegments];
+            for (int i = 0; i < nbSegments; i++) {
+                segments[i] = new Segment(size / nbSegments);
+            }
+        }
+
+        /**
+         * Returns the DN cached for the provided string or byte sequence. Byte sequences of any type are looked up
+         * without being copied, since they share the same equality and hash code.
+         */
+        DN get(final Object key) {
+            final Segment segment = segmentFor(key);
+            synchronized (segment) {
+                return segment.get(key);
+            }
+        }
+
+        void put(final Object key, final DN dn) {
+            // Compute the normalized form before sharing the DN, so that it is computed only once.
+            dn.toNormalizedByteString();
+            final Segment segment = segmentFor(key);
+            synchronized (segment) {
+                segment.put(key, dn);
+            }
+        }
+
+        private Segment segmentFor(final Object key) {
+            final int hash = key.hashCode();
+            return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+        }
+    }
+
     /**
      * Returns the LDAP string representation of the provided DN attribute value
      * in a form suitable for substitution directly into a DN string. This
@@ -233,16 +317,17 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
         if (dn.length() == 0) {
             return ROOT_DN;
         }
-
-        // First check if DN is already cached.
-        final Map<String, DN> cache = CACHE.get();
-        final DN cachedDN = cache.get(dn);
-        if (cachedDN != null && cachedDN.schema == schema) {
-            return cachedDN;
+        if (SHARED_CACHE == null) {
+            return valueOf0(dn, schema);
         }
 
-        // Not in cache so decode.
-        return decode(new SubstringReader(dn), schema, cache);
+        final DN sharedDN = SHARED_CACHE.get(dn);
+        if (sharedDN != null && sharedDN.schema == schema) {
+            return sharedDN;
+        }
+        final DN decodedDN = valueOf0(dn, schema);
+        SHARED_CACHE.put(dn, decodedDN);
+        return decodedDN;
     }
 
     /**
@@ -257,11 +342,90 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
      *             If {@code dn} was {@code null}.
      */
     public static DN valueOf(ByteString dn) {
-        return DN.valueOf(dn.toString());
+        return valueOf(dn, Schema.getDefaultSchema());
+    }
+
+    /**
+     * Parses the provided UTF-8 encoded LDAP string representation of a DN using the default schema.
+     *
+     * @param dn
+     *            The LDAP byte sequence representation of a DN.
+     * @return The parsed DN.
+     * @throws LocalizedIllegalArgumentException
+     *             If {@code dn} is not a valid LDAP byte sequence representation of a DN.
+     * @throws NullPointerException
+     *             If {@code dn} was {@code null}.
+     */
+    public static DN valueOf(final ByteSequence dn) {
+        return valueOf(dn, Schema.getDefaultSchema());
+    }
+
+    /**
+     * Parses the provided UTF-8 encoded LDAP string representation of a DN using the provided schema.
+     * <p>
+     * The byte sequence is parsed directly, without decoding it to a string first, unless it contains quoted or
+     * hex encoded BER values or non-ASCII characters, in which case it is parsed as by
+     * {@link #valueOf(String, Schema)}. When the DN cache shared by all threads is enabled, with the
+     * {@value #SHARED_CACHE_SIZE_PROPERTY} system property, the byte sequence is first looked up as is, so that DNs
+     * already parsed are returned without parsing them again. The cache is disabled by default.
+     *
+     * @param dn
+     *            The LDAP byte sequence representation of a DN.
+     * @param schema
+     *            The schema to use when parsing the DN.
+     * @return The parsed DN.
+     * @throws LocalizedIllegalArgumentException
+     *             If {@code dn} is not a valid LDAP byte sequence representation of a DN.
+     * @throws NullPointerException
+     *             If {@code dn} or {@code schema} was {@code null}.
+     */
+    public static DN valueOf(final ByteSequence dn, final Schema schema) {
+        Reject.ifNull(dn, schema);
+        if (dn.length() == 0) {
+            return ROOT_DN;
+        }
+        if (SHARED_CACHE == null) {
+            return valueOf0(dn, schema);
+        }
+
+        final DN sharedDN = SHARED_CACHE.get(dn);
+        if (sharedDN != null && sharedDN.schema == schema) {
+            return sharedDN;
+        }
+        final DN decodedDN = valueOf0(dn, schema);
+        SHARED_CACHE.put(dn.toByteString(), decodedDN);
+        return decodedDN;
+    }
+
+    /** Parses a non empty DN string, using the per-thread cache of parent DNs. */
+    private static DN valueOf0(final String dn, final Schema schema) {
+        // First check if DN is already cached.
+        final Map<Object, DN> cache = CACHE.get();
+        final DN cachedDN = cache.get(dn);
+        if (cachedDN != null && cachedDN.schema == schema) {
+            return cachedDN;
+        }
+
+        // Not in cache so decode.
+        return decode(new SubstringReader(dn), schema, cache);
+    }
+
+    /** Parses a non empty DN byte sequence, using the per-thread cache of parent DNs. */
+    private static DN valueOf0(final ByteSequence dn, final Schema schema) {
+        // First check if DN is already cached.
+        final Map<Object, DN> cache = CACHE.get();
+        final DN cachedDN = cache.get(dn);
+        if (cachedDN != null && cachedDN.schema == schema) {
+            return cachedDN;
+        }
+
+        // Not in cache so decode, from the string if the byte decoder gave up.
+        final DN decodedDN = new ByteSequenceDecoder(dn, schema).decode(cache);
+        return decodedDN != null ? decodedDN : decode(new SubstringReader(dn.toString()), schema, cache);
     }
 
     /** Decodes a DN using the provided reader and schema. */
-    private static DN decode(final SubstringReader reader, final Schema schema, final Map<String, DN> cache) {
+    private static DN decode(final SubstringReader reader, final Schema schema, final Map<Object, DN> cache) {
         reader.skipWhitespaces();
         if (reader.remaining() == 0) {
             return ROOT_DN;
@@ -312,6 +476,244 @@ public final class DN implements Iterable<RDN>, Comparable<DN> {
         return new DN(schema, parent, rdn);
     }
 
+    /**
+     * Decodes a DN from its UTF-8 bytes with the same grammar as {@link DN#decode(SubstringReader, Schema, Map)},
+     * {@link RDN#decode(SubstringReader, Schema)} and {@link AVA#decode(SubstringReader, Schema)}, without creating
+     * strings other than the attribute names. It only handles ASCII DNs without quoted or hex encoded BER values,
+     * which are by far the most common ones, and gives up on anything else, including invalid DNs, so that the
+     * string decoder handles them and reports the errors.
+     */
+    private static final class ByteSequenceDecoder {
+        private final ByteSequence bytes;
+        private final Schema schema;
+        private int pos;
+
+        private ByteSequenceDecoder(final ByteSequence bytes, final Schema schema) {
+            this.bytes = bytes;
+            this.schema = schema;
+        }
+
+        /** Returns the decoded DN, or {@code null} if it must be decoded from its string representation. */
+        private DN decode(final Map<Object, DN> cache) {
+            skipWhitespaces();
+            if (pos == bytes.length()) {
+                return ROOT_DN;
+            }
+
+            final RDN rdn = readRDN();
+            if (rdn == null) {
+                return null;
+            }
+
+            LinkedList<Pair<Integer, RDN>> parentRDNs = null;
+            DN parent = null;
+            while (pos < bytes.length() && bytes.byteAt(pos++) == ',') {
+                skipWhitespaces();
+                if (pos == bytes.length()) {
+                    return null;
+                }
+                parent = cache.get(bytes.subSequence(pos, bytes.length()));
+                if (parent != null) {
+                    break;
+                }
+                final int parentPos = pos;
+                final RDN parentRDN = readRDN();
+                if (parentRDN == null) {
+                    return null;
+                }
+                if (parentRDNs == null) {
+                    parentRDNs = new LinkedList<>();
+                }
+                parentRDNs.add(Pair.of(parentPos, parentRDN));
+            }
+            if (parent == null) {
+                parent = ROOT_DN;
+            }
+
+            if (parentRDNs != null) {
+                Iterator<Pair<Integer, RDN>> iter = parentRDNs.descendingIterator();
+                int parentsLeft = parentRDNs.size();
+                while (iter.hasNext()) {
+                    Pair<Integer, RDN> parentRDN = iter.next();
+                    parent = new DN(schema, parent, parentRDN.getSecond());
+                    if (parentsLeft-- < DN_CACHE_SIZE) {
+                        cache.put(bytes.subSequence(parentRDN.getFirst(), bytes.length()).toByteString(), parent);
+                    }
+                }
+            }
+            return new DN(schema, parent, rdn);
+        }
+
+        private RDN readRDN() {
+            final AVA firstAVA = readAVA();
+            if (firstAVA == null) {
+                return null;
+            }
+
+            // Skip over any spaces that might be after the attribute value.
+            skipWhitespaces();
+            if (pos == bytes.length() || bytes.byteAt(pos) != '+') {
+                return new RDN(firstAVA);
+            }
+
+            final List<AVA> avas = new ArrayList<>();
+            avas.add(firstAVA);
+            do {
+                pos++;
+                final AVA ava = readAVA();
+                if (ava == null) {
+                    return null;
+                }
+                avas.add(ava);
+                skipWhitespaces();
+            } while (pos < bytes.length() && bytes.byteAt(pos) == '+');
+            return new RDN(avas);
+        }
+
+        private AVA readAVA() {
+            skipWhitespaces();
+            if (pos == bytes.length()) {
+                return null;
+            }
+
+            final String nameOrOid = readAttributeName();
+            if (nameOrOid == null) {
+                return null;
+            }
+            final AttributeType attribute;
+            try {
+                attribute = schema.getAttributeType(nameOrOid);
+            } catch (final UnknownSchemaElementException e) {
+                return null;
+            }
+
+            skipWhitespaces();
+            if (pos == bytes.length() || bytes.byteAt(pos) != '=') {
+                return null;
+            }
+            pos++;
+            skipWhitespaces();
+
+            final ByteString value = readAttributeValue();
+            return value != null ? new AVA(attribute, nameOrOid, value) : null;
+        }
+
+        private String readAttributeName() {
+            final int start = pos;
+            // The first character must be either numeric (for an OID) or alphabetic (for an attribute description).
+            final char first = (char) bytes.byteAt(pos++);
+            if (isDigit(first)) {
+                boolean lastWasPeriod = false;
+                for (; pos < bytes.length(); pos++) {
+                    final char c = (char) bytes.byteAt(pos);
+                    if (c == '=' || c == ' ') {
+                        break;
+                    } else if (c == '.') {
+                        if (lastWasPeriod) {
+                            return null;
+                        }
+                        lastWasPeriod = true;
+                    } else if (!isDigit(c)) {
+                        return null;
+                    } else {
+                        lastWasPeriod = false;
+                    }
+                }
+                if (lastWasPeriod) {
+                    return null;
+                }
+            } else if (isAlpha(first)) {
+                for (; pos < bytes.length(); pos++) {
+                    final char c = (char) bytes.byteAt(pos);
+                    if (c == '=' || c == ' ') {
+                        break;
+                    } else if (!isAlpha(c) && !isDigit(c) && c != '-') {
+                        return null;
+                    }
+                }
+            } else {
+                return null;
+            }
+            return bytes.subSequence(start, pos).toString();
+        }
+
+        private ByteString readAttributeValue() {
+            if (pos == bytes.length() || bytes.byteAt(pos) == '+') {
+                // Value is empty, and may be followed by another AVA.
+                return ByteString.empty();
+            }
+            final byte first = bytes.byteAt(pos);
+            if (first == '#' || first == '"') {
+                // Leave hex encoded BER and quoted values to the string decoder.
+                return null;
+            }
+
+            // Find the end of the value, only copying it if it contains escaped characters.
+            final int start = pos;
+            ByteStringBuilder unescapedValue = null;
+            int trailingSpaces = 0;
+            for (; pos < bytes.length(); pos++) {
+                final byte b = bytes.byteAt(pos);
+                if (b == '+' || b == ',' || b == ';') {
+                    break;
+                } else if (b < 0) {
+                    // Non-ASCII characters must be decoded from UTF-8.
+                    return null;
+                } else if (b == '\\') {
+                    if (unescapedValue == null) {
+                        unescapedValue = new ByteStringBuilder().appendBytes(bytes.subSequence(start, pos));
+                    }
+                    final int escaped = readEscapedByte();
+                    if (escaped < 0) {
+                        return null;
+                    }
+                    unescapedValue.appendByte(escaped);
+                    trailingSpaces = 0;
+                } else {
+                    if (unescapedValue != null) {
+                        unescapedValue.appendByte(b);
+                    }
+                    trailingSpaces = b != ' ' ? 0 : trailingSpaces + 1;
+                }
+            }
+
+            final ByteString value = unescapedValue != null
+                    ? unescapedValue.setLength(unescapedValue.length() - trailingSpaces).toByteString()
+                    : bytes.subSequence(start, pos - trailingSpaces).toByteString();
+            // We don't allow an empty attribute value.
+            return value.length() > 0 ? value : null;
+        }
+
+        /**
+         * Reads the character or the pair of hex digits following the back-slash at the current position, and
+         * returns its ASCII value, or -1 if it is not an escaped ASCII character.
+         */
+        private int readEscapedByte() {
+            if (++pos == bytes.length()) {
+                return -1;
+            }
+            final char c = (char) bytes.byteAt(pos);
+            if (!isHexDigit(c)) {
+                return c < 0x80 ? c : -1;
+            }
+            if (++pos == bytes.length()) {
+                return -1;
+            }
+            final char c2 = (char) bytes.byteAt(pos);
+            if (!isHexDigit(c2)) {
+                return -1;
+            }
+            final int escaped = Character.digit(c, 16) << 4 | Character.digit(c2, 16);
+            return escaped < 0x80 ? escaped : -1;
+        }
+
+        private void skipWhitespaces() {
+            while (pos < bytes.length() && bytes.byteAt(pos) == ' ') {
+                pos++;
+            }
+        }
+    }
+
     private final RDN rdn;
     private DN parent;
     private final int size;
@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -23,6 +24,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -75,6 +77,10 @@ abstract class LoadBalancer implements ConnectionFactory {
                     monitoringFuture.cancel(false);
                     monitoringFuture = null;
                 }
+                if (statisticsFuture != null) {
+                    statisticsFuture.cancel(false);
+                    statisticsFuture = null;
+                }
             }
             closeSilently(monitoredFactories);
             scheduler.release();
@@ -125,11 +131,18 @@ abstract class LoadBalancer implements ConnectionFactory {
 
         @Override
         public Promise<Connection, LdapException> getConnectionAsync() {
+            return getConnectionAsync(null);
+        }
+
+        private Promise<Connection, LdapException> getConnectionAsync(final AtomicInteger usedIndex) {
             return factory.getConnectionAsync().thenAsync(
                 new AsyncFunction<Connection, Connection, LdapException>() {
                     @Override
                     public Promise<Connection, LdapException> apply(Connection value) throws LdapException {
                         notifyOnline();
+                        if (usedIndex != null) {
+                            usedIndex.set(index);
+                        }
                         return newResultPromise(value);
                     }
                 },
@@ -139,7 +152,7 @@ abstract class LoadBalancer implements ConnectionFactory {
                         // Attempt failed - try next factory.
                         notifyOffline(error);
                         final int nextIndex = (index + 1) % monitoredFactories.size();
-                        return getMonitoredConnectionFactory(nextIndex).getConnectionAsync();
+                        return getOperationalFactory(nextIndex).getConnectionAsync(usedIndex);
                     }
                 });
         }
@@ -224,6 +237,53 @@ abstract class LoadBalancer implements ConnectionFactory {
         }
     }
 
+    private final class StatisticsRunnable implements Runnable {
+        private final LoadBalancerStatisticsListener statisticsListener;
+        private final StatisticsProvider provider;
+
+        private StatisticsRunnable(final LoadBalancerStatisticsListener statisticsListener,
+                                   final StatisticsProvider provider) {
+            this.statisticsListener = statisticsListener;
+            this.provider = provider;
+        }
+
+        @Override
+        public void run() {
+            for (final MonitoredConnectionFactory factory : monitoredFactories) {
+                synchronized (listenerLock) {
+                    try {
+                        statisticsListener.handleConnectionFactoryStatistics(factory.factory,
+                                provider.getActiveRequests(factory.index),
+                                provider.getAverageResponseTimeMillis(factory.index));
+                    } catch (RuntimeException e) {
+                        factory.handleListenerException(e);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Provides the per connection factory statistics published to {@link LoadBalancerStatisticsListener}s. */
+    interface StatisticsProvider {
+        /**
+         * Returns the number of requests currently in progress for the connection factory at the provided index.
+         *
+         * @param index
+         *            The index of the connection factory.
+         * @return The number of requests currently in progress.
+         */
+        int getActiveRequests(int index);
+
+        /**
+         * Returns the average response time in milliseconds of the connection factory at the provided index.
+         *
+         * @param index
+         *            The index of the connection factory.
+         * @return The average response time, or {@code 0} if no request has completed yet.
+         */
+        double getAverageResponseTimeMillis(int index);
+    }
+
     private final class MonitorRunnable implements Runnable {
         private MonitorRunnable() {
             // Nothing to do.
@@ -263,6 +323,9 @@ abstract class LoadBalancer implements ConnectionFactory {
 
     /** Guarded by stateLock. */
     private ScheduledFuture<?> monitoringFuture;
+
+    /** Guarded by stateLock. */
+    private ScheduledFuture<?> statisticsFuture;
     private final AtomicBoolean isClosed = new AtomicBoolean();
 
     /**
@@ -273,6 +336,10 @@ abstract class LoadBalancer implements ConnectionFactory {
      * @throws LdapException If no connection factories are available.
      */
     final ConnectionFactory getMonitoredConnectionFactory(final int initialIndex) throws LdapException {
+        return getOperationalFactory(initialIndex);
+    }
+
+    private MonitoredConnectionFactory getOperationalFactory(final int initialIndex) throws LdapException {
         final int maxIndex = monitoredFactories.size();
         int index = initialIndex;
         do {
@@ -291,7 +358,45 @@ abstract class LoadBalancer implements ConnectionFactory {
         throw newLdapException(CLIENT_SIDE_CONNECT_ERROR, "No operational connection factories available", lastFailure);
     }
 
+    /**
+     * Asynchronously obtains a connection from the first available connection factory starting from
+     * {@code initialIndex}, failing over to the next connection factories if needed.
+     *
+     * @param initialIndex The index of the connection factory to be used if operational.
+     * @param usedIndex Set to the index of the connection factory which provided the connection.
+     * @return A promise of the connection.
+     * @throws LdapException If no connection factories are available.
+     */
+    final Promise<Connection, LdapException> getMonitoredConnectionAsync(final int initialIndex,
+            final AtomicInteger usedIndex) throws LdapException {
+        return getOperationalFactory(initialIndex).getConnectionAsync(usedIndex);
+    }
+
     final String getLoadBalancerName() {
         return loadBalancerName;
     }
+
+    final ScheduledExecutorService getScheduler() {
+        return scheduler.get();
+    }
+
+    /**
+     * Periodically publishes the statistics returned by the provided provider, at the monitoring interval, if the
+     * event listener of this load balancer is a {@link LoadBalancerStatisticsListener}.
+     *
+     * @param provider
+     *            The provider of the statistics of each connection factory.
+     */
+    final void publishStatistics(final StatisticsProvider provider) {
+        if (listener instanceof LoadBalancerStatisticsListener) {
+            final StatisticsRunnable statisticsRunnable =
+                    new StatisticsRunnable((LoadBalancerStatisticsListener) listener, provider);
+            synchronized (stateLock) {
+                if (!isClosed.get() && statisticsFuture == null) {
+                    statisticsFuture = scheduler.get().scheduleWithFixedDelay(statisticsRunnable,
+                            monitoringIntervalMS, monitoringIntervalMS, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
 }
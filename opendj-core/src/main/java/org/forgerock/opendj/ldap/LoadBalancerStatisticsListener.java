@@ -0,0 +1,44 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.opendj.ldap;
+
+/**
+ * A {@link LoadBalancerEventListener} which is also periodically notified of the statistics that a load-balancer
+ * maintains about each of its connection factories, such as the number of requests in progress and the average
+ * response time.
+ * <p>
+ * Statistics are only published by load-balancers which track them, such as the one created by
+ * {@link Connections#newLatencyAwareLoadBalancer}. They are published at the interval specified by the
+ * {@link Connections#LOAD_BALANCER_MONITORING_INTERVAL} option, and never concurrently with other events.
+ *
+ * @see Connections#LOAD_BALANCER_EVENT_LISTENER
+ */
+public interface LoadBalancerStatisticsListener extends LoadBalancerEventListener {
+    /**
+     * Invoked periodically with the current statistics of a connection factory of the load-balancer.
+     *
+     * @param factory
+     *            The connection factory.
+     * @param activeRequests
+     *            The number of requests currently in progress for the connection factory.
+     * @param averageResponseTimeMillis
+     *            The exponentially weighted moving average of the response times of the connection factory, in
+     *            milliseconds, or {@code 0} if no request has completed yet.
+     */
+    void handleConnectionFactoryStatistics(ConnectionFactory factory, int activeRequests,
+            double averageResponseTimeMillis);
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -20,6 +21,11 @@ import static org.forgerock.util.Utils.closeSilently;
 import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.forgerock.opendj.ldap.requests.AbandonRequest;
@@ -36,7 +42,10 @@ import org.forgerock.opendj.ldap.requests.UnbindRequest;
 import org.forgerock.opendj.ldap.responses.BindResult;
 import org.forgerock.opendj.ldap.responses.CompareResult;
 import org.forgerock.opendj.ldap.responses.ExtendedResult;
+import org.forgerock.opendj.ldap.responses.IntermediateResponse;
 import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.responses.SearchResultReference;
 import org.forgerock.opendj.ldap.spi.ConnectionState;
 import org.forgerock.opendj.ldap.spi.LdapPromises;
 import org.forgerock.util.AsyncFunction;
@@ -45,6 +54,7 @@ import org.forgerock.util.Options;
 import org.forgerock.util.promise.ExceptionHandler;
 import org.forgerock.util.promise.NeverThrowsException;
 import org.forgerock.util.promise.Promise;
+import org.forgerock.util.promise.PromiseImpl;
 import org.forgerock.util.promise.ResultHandler;
 
 /**
@@ -66,15 +76,78 @@ final class RequestLoadBalancer extends LoadBalancer {
     private final Function<Request, PartitionedRequest, NeverThrowsException> nextFactoryFunction;
     /** A function which is called after a request is terminated. */
     private final Function<Integer, Void, NeverThrowsException> endOfRequestFunction;
+    /** An optional policy which is notified of response times and which may hedge slow searches. */
+    private final ResponseTimePolicy responseTimePolicy;
 
     RequestLoadBalancer(final String loadBalancerName,
                         final Collection<? extends ConnectionFactory> factories,
                         final Options options,
                         final Function<Request, PartitionedRequest, NeverThrowsException> nextFactoryFunction,
                         final Function<Integer, Void, NeverThrowsException> endOfRequestFunction) {
+        this(loadBalancerName, factories, options, nextFactoryFunction, endOfRequestFunction, null);
+    }
+
+    RequestLoadBalancer(final String loadBalancerName,
+                        final Collection<? extends ConnectionFactory> factories,
+                        final Options options,
+                        final Function<Request, PartitionedRequest, NeverThrowsException> nextFactoryFunction,
+                        final Function<Integer, Void, NeverThrowsException> endOfRequestFunction,
+                        final ResponseTimePolicy responseTimePolicy) {
         super(loadBalancerName, factories, options);
         this.nextFactoryFunction = nextFactoryFunction;
         this.endOfRequestFunction = endOfRequestFunction;
+        this.responseTimePolicy = responseTimePolicy;
+    }
+
+    /**
+     * A policy which is notified of the response time of each request, and which decides whether searches which take
+     * longer than expected should be hedged, in other words sent again to another server, the first response being
+     * used and the other search being abandoned.
+     */
+    interface ResponseTimePolicy {
+        /**
+         * Invoked when a request routed to the provided server index is terminated.
+         *
+         * @param serverIndex
+         *            The index of the server which processed the request: the index the request was routed to, or
+         *            the index it was {@link #requestRedirected redirected} to.
+         * @param responseTimeNanos
+         *            The time elapsed since the request was routed to the server, or {@code -1} if the request was
+         *            not sent because no connection could be obtained.
+         * @param isAbandoned
+         *            {@code true} if the request was abandoned before completing because a hedged copy completed
+         *            first, in which case the response time is only a lower bound.
+         */
+        void requestTerminated(int serverIndex, long responseTimeNanos, boolean isAbandoned);
+
+        /**
+         * Invoked when a request routed to the provided server index is sent to another server instead, because the
+         * connection factory of the server it was routed to is not operational.
+         *
+         * @param serverIndex
+         *            The index of the server the request was routed to.
+         * @param newServerIndex
+         *            The index of the server which processes the request instead.
+         */
+        void requestRedirected(int serverIndex, int newServerIndex);
+
+        /**
+         * Returns the delay after which the provided search should be hedged if it has not completed yet.
+         *
+         * @param request
+         *            The search request.
+         * @return The delay in nanoseconds, or {@code -1} if the search should not be hedged.
+         */
+        long getHedgingDelayNanos(SearchRequest request);
+
+        /**
+         * Returns the index of the server to which a hedged copy of a search should be sent.
+         *
+         * @param serverIndex
+         *            The index of the server to which the search was initially sent.
+         * @return The index of another server, or {@code -1} if the search should not be hedged.
+         */
+        int selectHedgingServer(int serverIndex);
     }
 
     @Override
@@ -231,6 +304,14 @@ final class RequestLoadBalancer extends LoadBalancer {
                 final IntermediateResponseHandler intermediateResponseHandler,
                 final SearchResultHandler entryHandler) {
             final ConnectionContext connectionContext = getConnection(request);
+            if (responseTimePolicy != null && connectionContext.getServerIndex() >= 0) {
+                final long hedgingDelayNanos =
+                        responseTimePolicy.getHedgingDelayNanos((SearchRequest) connectionContext.getRequest());
+                if (hedgingDelayNanos >= 0) {
+                    return new HedgedSearch(intermediateResponseHandler, entryHandler).execute(connectionContext,
+                                                                                             hedgingDelayNanos);
+                }
+            }
             return executeRequest(connectionContext,
                     new AsyncFunction<Connection, Result, LdapException>() {
                         @Override
@@ -246,31 +327,43 @@ final class RequestLoadBalancer extends LoadBalancer {
             if (state.isClosed()) {
                 throw new IllegalStateException();
             }
+            return getConnection(nextFactoryFunction.apply(request));
+        }
+
+        private ConnectionContext getConnection(final PartitionedRequest partitionedRequest) {
+            final AtomicInteger usedServerIndex = new AtomicInteger(-1);
             try {
-                final PartitionedRequest partitionedRequest = nextFactoryFunction.apply(request);
-                final ConnectionFactory factory = getMonitoredConnectionFactory(partitionedRequest.getServerIndex());
                 return new ConnectionContext(
-                        LdapPromises.asPromise(factory.getConnectionAsync()
+                        LdapPromises.asPromise(
+                                getMonitoredConnectionAsync(partitionedRequest.getServerIndex(), usedServerIndex)
                                 .thenOnException(new ExceptionHandler<LdapException>() {
                                     @Override
                                     public void handleException(final LdapException e) {
                                         state.notifyConnectionError(false, e);
                                     }
-                                })), partitionedRequest);
+                                })), partitionedRequest, usedServerIndex);
             } catch (final LdapException e) {
                 state.notifyConnectionError(false, e);
                 LdapPromise<Connection> failedLdapPromise = newFailedLdapPromise(e);
-                return new ConnectionContext(failedLdapPromise, new PartitionedRequest(request, -1));
+                return new ConnectionContext(failedLdapPromise, partitionedRequest, usedServerIndex);
             }
         }
 
         private <R> LdapPromise<R> executeRequest(final ConnectionContext connectionContext,
                 final AsyncFunction<Connection, R, LdapException> requestSender) {
+            final long startNanos = responseTimePolicy != null ? System.nanoTime() : 0;
             return connectionContext.getConnectionPromise()
                     .thenOnResult(new ResultHandler<Connection>() {
                         @Override
                         public void handleResult(final Connection connection) {
                             connectionContext.setConnection(connection);
+                            final int usedServerIndex = connectionContext.getUsedServerIndex();
+                            if (responseTimePolicy != null && connectionContext.getServerIndex() >= 0
+                                    && usedServerIndex != connectionContext.getServerIndex()) {
+                                // Fail-over: the response time is the one of another server
+                                responseTimePolicy.requestRedirected(connectionContext.getServerIndex(),
+                                                                     usedServerIndex);
+                            }
                         }
                     })
                     .thenAsync(requestSender)
@@ -279,9 +372,163 @@ final class RequestLoadBalancer extends LoadBalancer {
                         public void run() {
                             closeSilently(connectionContext.getConnection());
                             endOfRequestFunction.apply(connectionContext.getServerIndex());
+                            if (responseTimePolicy != null && connectionContext.getServerIndex() >= 0) {
+                                if (connectionContext.getConnection() != null) {
+                                    responseTimePolicy.requestTerminated(connectionContext.getUsedServerIndex(),
+                                                                         System.nanoTime() - startNanos,
+                                                                         connectionContext.isAbandoned());
+                                } else {
+                                    // Not sent: this tells nothing about the response time of the server
+                                    responseTimePolicy.requestTerminated(connectionContext.getServerIndex(), -1,
+                                                                         connectionContext.isAbandoned());
+                                }
+                            }
                         }
                     });
         }
+
+        /**
+         * A search which is sent again to another server if it has not completed within the hedging delay. The first
+         * search which returns a response wins: its responses are forwarded to the application handlers while the
+         * other search is abandoned. An error only wins if no other search is still in progress.
+         */
+        private final class HedgedSearch {
+            private final IntermediateResponseHandler intermediateResponseHandler;
+            private final SearchResultHandler entryHandler;
+            private final PromiseImpl<Result, LdapException> promise = PromiseImpl.create();
+            private final List<Attempt> attempts = new CopyOnWriteArrayList<>();
+            private final AtomicReference<Attempt> winner = new AtomicReference<>();
+            private final AtomicInteger pendingAttempts = new AtomicInteger();
+            private volatile ScheduledFuture<?> hedgingFuture;
+
+            private HedgedSearch(final IntermediateResponseHandler intermediateResponseHandler,
+                                 final SearchResultHandler entryHandler) {
+                this.intermediateResponseHandler = intermediateResponseHandler;
+                this.entryHandler = entryHandler;
+            }
+
+            private LdapPromise<Result> execute(final ConnectionContext connectionContext,
+                                                final long hedgingDelayNanos) {
+                start(connectionContext);
+                hedgingFuture = getScheduler().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        hedge(connectionContext);
+                    }
+                }, hedgingDelayNanos, TimeUnit.NANOSECONDS);
+                if (winner.get() != null) {
+                    hedgingFuture.cancel(false);
+                }
+                return LdapPromises.asPromise(promise);
+            }
+
+            private void hedge(final ConnectionContext initialContext) {
+                if (winner.get() != null || state.isClosed()) {
+                    return;
+                }
+                final int serverIndex = responseTimePolicy.selectHedgingServer(initialContext.getServerIndex());
+                if (serverIndex >= 0) {
+                    start(getConnection(new PartitionedRequest(initialContext.getRequest(), serverIndex)));
+                }
+            }
+
+            private void start(final ConnectionContext connectionContext) {
+                final Attempt attempt = new Attempt(connectionContext);
+                pendingAttempts.incrementAndGet();
+                attempts.add(attempt);
+                executeRequest(connectionContext, attempt).thenOnResult(new ResultHandler<Result>() {
+                    @Override
+                    public void handleResult(final Result result) {
+                        pendingAttempts.decrementAndGet();
+                        if (attempt.claim()) {
+                            promise.handleResult(result);
+                        }
+                    }
+                }).thenOnException(new ExceptionHandler<LdapException>() {
+                    @Override
+                    public void handleException(final LdapException exception) {
+                        final boolean isLastAttempt = pendingAttempts.decrementAndGet() == 0;
+                        if ((isLastAttempt || winner.get() == attempt) && attempt.claim()) {
+                            promise.handleException(exception);
+                        }
+                    }
+                });
+                final Attempt currentWinner = winner.get();
+                if (currentWinner != null && currentWinner != attempt) {
+                    attempt.abandon();
+                }
+            }
+
+            /** A copy of the search sent to one server, whose responses are forwarded only if it wins. */
+            private final class Attempt implements AsyncFunction<Connection, Result, LdapException>,
+                    IntermediateResponseHandler, SearchResultHandler {
+                private final ConnectionContext connectionContext;
+                private volatile LdapPromise<Result> searchPromise;
+
+                private Attempt(final ConnectionContext connectionContext) {
+                    this.connectionContext = connectionContext;
+                }
+
+                @Override
+                public Promise<Result, LdapException> apply(final Connection connection) throws LdapException {
+                    final LdapPromise<Result> resultPromise =
+                            connection.searchAsync((SearchRequest) connectionContext.getRequest(), this, this);
+                    searchPromise = resultPromise;
+                    if (connectionContext.isAbandoned()) {
+                        resultPromise.cancel(true);
+                    }
+                    return resultPromise;
+                }
+
+                @Override
+                public boolean handleEntry(final SearchResultEntry entry) {
+                    return claim() && entryHandler.handleEntry(entry);
+                }
+
+                @Override
+                public boolean handleReference(final SearchResultReference reference) {
+                    return claim() && entryHandler.handleReference(reference);
+                }
+
+                @Override
+                public boolean handleIntermediateResponse(final IntermediateResponse response) {
+                    if (!claim()) {
+                        return false;
+                    }
+                    return intermediateResponseHandler == null
+                            || intermediateResponseHandler.handleIntermediateResponse(response);
+                }
+
+                /** Returns {@code true} if this attempt is, or has just become, the winner. */
+                private boolean claim() {
+                    final Attempt currentWinner = winner.get();
+                    if (currentWinner != null) {
+                        return currentWinner == this;
+                    }
+                    if (!winner.compareAndSet(null, this)) {
+                        return winner.get() == this;
+                    }
+                    final ScheduledFuture<?> future = hedgingFuture;
+                    if (future != null) {
+                        future.cancel(false);
+                    }
+                    for (final Attempt attempt : attempts) {
+                        if (attempt != this) {
+                            attempt.abandon();
+                        }
+                    }
+                    return true;
+                }
+
+                private void abandon() {
+                    connectionContext.setAbandoned();
+                    final LdapPromise<Result> resultPromise = searchPromise;
+                    if (resultPromise != null) {
+                        resultPromise.cancel(true);
+                    }
+                }
+            }
+        }
     }
 
     /** Utility class for a request and a server index. */
@@ -309,10 +556,15 @@ final class RequestLoadBalancer extends LoadBalancer {
         private final AtomicReference<Connection> connectionHolder = new AtomicReference<>();
         private final LdapPromise<Connection> connectionPromise;
         private final PartitionedRequest partitionedRequest;
+        /** The index of the server which provided the connection, differing from the routed one after a fail-over. */
+        private final AtomicInteger usedServerIndex;
+        private volatile boolean isAbandoned;
 
-        ConnectionContext(LdapPromise<Connection> connectionPromise, PartitionedRequest partitionedRequest) {
+        ConnectionContext(LdapPromise<Connection> connectionPromise, PartitionedRequest partitionedRequest,
+                AtomicInteger usedServerIndex) {
             this.partitionedRequest = partitionedRequest;
             this.connectionPromise = connectionPromise;
+            this.usedServerIndex = usedServerIndex;
         }
 
         Connection getConnection() {
@@ -331,8 +583,20 @@ final class RequestLoadBalancer extends LoadBalancer {
             return partitionedRequest.getServerIndex();
         }
 
+        int getUsedServerIndex() {
+            return usedServerIndex.get();
+        }
+
         Request getRequest() {
             return partitionedRequest.getRequest();
         }
+
+        boolean isAbandoned() {
+            return isAbandoned;
+        }
+
+        void setAbandoned() {
+            isAbandoned = true;
+        }
     }
 }
@@ -0,0 +1,230 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.opendj.ldap;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.forgerock.opendj.ldap.TestCaseUtils.mockConnectionFactory;
+import static org.forgerock.opendj.ldap.TestCaseUtils.mockTimeService;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.forgerock.util.promise.Promise;
+import org.testng.annotations.Test;
+
+/** Tests the lock-free connection pool implementation. */
+@SuppressWarnings("javadoc")
+public class ConcurrentConnectionPoolTestCase extends SdkTestCase {
+
+    @Test
+    public void testMostRecentlyReleasedConnectionIsReused() throws Exception {
+        final Connection connection1 = mockValidConnection();
+        final Connection connection2 = mockValidConnection();
+        final ConcurrentConnectionPool pool = newPool(mockConnectionFactory(connection1, connection2), 2, 0, 0, 0);
+
+        final Connection c1 = pool.getConnection();
+        final Connection c2 = pool.getConnection();
+        assertThat(pool.currentPoolSize()).isEqualTo(2);
+        c1.close();
+        c2.close();
+        assertThat(pool.idleConnectionCount()).isEqualTo(2);
+
+        // Borrow a connection again: it must be the last released one.
+        final Connection c3 = pool.getConnection();
+        assertThat(c3.toString()).contains(connection2.toString());
+        c3.close();
+        assertThat(pool.currentPoolSize()).isEqualTo(2);
+        pool.close();
+    }
+
+    @Test
+    public void testWaitingRequestsAreServedInOrder() throws Exception {
+        final Connection connection = mockValidConnection();
+        final ConcurrentConnectionPool pool = newPool(mockConnectionFactory(connection), 1, 0, 0, 0);
+
+        final Connection c1 = pool.getConnection();
+        final Promise<Connection, LdapException> promise2 = pool.getConnectionAsync();
+        final Promise<Connection, LdapException> promise3 = pool.getConnectionAsync();
+        assertThat(promise2.isDone()).isFalse();
+        assertThat(promise3.isDone()).isFalse();
+        assertThat(pool.getStatistics().getWaitingRequests()).isEqualTo(2);
+
+        c1.close();
+        assertThat(promise2.isDone()).isTrue();
+        assertThat(promise3.isDone()).isFalse();
+
+        promise2.get().close();
+        assertThat(promise3.isDone()).isTrue();
+        promise3.get().close();
+
+        assertThat(pool.currentPoolSize()).isEqualTo(1);
+        assertThat(pool.getStatistics().getWaitingRequests()).isEqualTo(0);
+        verify(connection, times(0)).close();
+        pool.close();
+    }
+
+    @Test
+    public void testCloseFailsWaitingRequests() throws Exception {
+        final ConcurrentConnectionPool pool = newPool(mockConnectionFactory(mockValidConnection()), 1, 0, 0, 0);
+
+        pool.getConnection();
+        final Promise<Connection, LdapException> promise = pool.getConnectionAsync();
+        pool.close();
+        assertThat(promise.isDone()).isTrue();
+        try {
+            promise.getOrThrow();
+            TestCaseUtils.failWasExpected(LdapException.class);
+        } catch (final LdapException e) {
+            assertThat(e.getResult().getResultCode()).isEqualTo(ResultCode.CLIENT_SIDE_USER_CANCELLED);
+        }
+    }
+
+    @Test
+    public void testMinimumIdleConnectionsArePrewarmed() throws Exception {
+        final Connection connection1 = mockValidConnection();
+        final Connection connection2 = mockValidConnection();
+        final Connection connection3 = mockValidConnection();
+        final MockScheduler scheduler = new MockScheduler();
+        final ConcurrentConnectionPool pool = new ConcurrentConnectionPool(
+                mockConnectionFactory(connection1, connection2, connection3), 3, 2, 0, 0, scheduler);
+        pool.timeService = mockTimeService(0);
+        assertThat(scheduler.isScheduled()).isTrue();
+        assertThat(pool.currentPoolSize()).isEqualTo(0);
+
+        scheduler.runFirstTask();
+        assertThat(pool.currentPoolSize()).isEqualTo(2);
+        assertThat(pool.idleConnectionCount()).isEqualTo(2);
+
+        // Borrowing a connection triggers the opening of a new idle connection on the next run.
+        final Connection c1 = pool.getConnection();
+        scheduler.runFirstTask();
+        assertThat(pool.currentPoolSize()).isEqualTo(3);
+        assertThat(pool.idleConnectionCount()).isEqualTo(2);
+
+        // The maximum pool size is never exceeded.
+        final Connection c2 = pool.getConnection();
+        scheduler.runFirstTask();
+        assertThat(pool.currentPoolSize()).isEqualTo(3);
+        assertThat(pool.idleConnectionCount()).isEqualTo(1);
+
+        c1.close();
+        c2.close();
+        pool.close();
+    }
+
+    @Test
+    public void testIdleConnectionsExpire() throws Exception {
+        final Connection connection1 = mockValidConnection();
+        final Connection connection2 = mockValidConnection();
+        final Connection connection3 = mockValidConnection();
+        final MockScheduler scheduler = new MockScheduler();
+        final ConcurrentConnectionPool pool = new ConcurrentConnectionPool(
+                mockConnectionFactory(connection1, connection2, connection3), 3, 1, 100, 0, scheduler);
+        pool.timeService = mockTimeService(0);
+
+        final Connection c1 = pool.getConnection();
+        final Connection c2 = pool.getConnection();
+        final Connection c3 = pool.getConnection();
+        c1.close();
+        c2.close();
+        when(pool.timeService.now()).thenReturn(50L);
+        c3.close();
+
+        // Only the least recently used connections expire, down to the minimum number of idle connections.
+        when(pool.timeService.now()).thenReturn(120L);
+        scheduler.runFirstTask();
+        assertThat(pool.currentPoolSize()).isEqualTo(1);
+        verify(connection1).close();
+        verify(connection2).close();
+        verify(connection3, times(0)).close();
+
+        when(pool.timeService.now()).thenReturn(1000L);
+        scheduler.runFirstTask();
+        assertThat(pool.currentPoolSize()).isEqualTo(1);
+        verify(connection3, times(0)).close();
+        pool.close();
+    }
+
+    @Test
+    public void testConnectionsAreRotatedAfterMaximumLifetime() throws Exception {
+        final Connection connection1 = mockValidConnection();
+        final Connection connection2 = mockValidConnection();
+        final ConcurrentConnectionPool pool = newPool(mockConnectionFactory(connection1, connection2), 1, 0, 0, 100);
+
+        pool.getConnection().close();
+        final Connection c1 = pool.getConnection();
+        verify(connection1, times(0)).close();
+
+        // The connection exceeded its lifetime while in use: it is closed when released.
+        when(pool.timeService.now()).thenReturn(150L);
+        c1.close();
+        verify(connection1).close();
+        assertThat(pool.currentPoolSize()).isEqualTo(0);
+
+        // A new connection is opened on demand.
+        pool.getConnection().close();
+        assertThat(pool.currentPoolSize()).isEqualTo(1);
+        verify(connection2, times(0)).close();
+        pool.close();
+        verify(connection2).close();
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        final ConcurrentConnectionPool pool =
+                newPool(mockConnectionFactory(mockValidConnection(), mockValidConnection()), 2, 0, 0, 0);
+
+        final Connection c1 = pool.getConnection();
+        final Connection c2 = pool.getConnection();
+        c2.close();
+        ConnectionPoolStatistics statistics = pool.getStatistics();
+        assertThat(statistics.getMaxPoolSize()).isEqualTo(2);
+        assertThat(statistics.getActiveConnections()).isEqualTo(1);
+        assertThat(statistics.getIdleConnections()).isEqualTo(1);
+        assertThat(statistics.getPendingConnections()).isEqualTo(0);
+        assertThat(statistics.getBorrowedConnections()).isEqualTo(2);
+
+        // Wait 7ms for a connection, which falls in the 10ms bucket.
+        pool.getConnection();
+        final Promise<Connection, LdapException> promise = pool.getConnectionAsync();
+        when(pool.timeService.now()).thenReturn(7L);
+        c1.close();
+        assertThat(promise.isDone()).isTrue();
+
+        statistics = pool.getStatistics();
+        assertThat(statistics.getBorrowedConnections()).isEqualTo(4);
+        final long[] histogram = statistics.getWaitTimeHistogram();
+        assertThat(histogram[0]).isEqualTo(3);
+        assertThat(histogram[ConnectionPoolStatistics.getWaitTimeBucket(10)]).isEqualTo(1);
+        pool.close();
+    }
+
+    private ConcurrentConnectionPool newPool(final ConnectionFactory factory, final int maxPoolSize,
+            final int minIdle, final long idleTimeoutMillis, final long maxLifetimeMillis) {
+        final ConcurrentConnectionPool pool = new ConcurrentConnectionPool(factory, maxPoolSize, minIdle,
+                idleTimeoutMillis, maxLifetimeMillis, new MockScheduler());
+        pool.timeService = mockTimeService(0);
+        return pool;
+    }
+
+    private Connection mockValidConnection() {
+        final Connection connection = mock(Connection.class);
+        when(connection.isValid()).thenReturn(true);
+        return connection;
+    }
+}
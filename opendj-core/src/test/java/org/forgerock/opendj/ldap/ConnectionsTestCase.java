@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -23,6 +24,9 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.Connections.LatencyAwareDispatcher;
 import org.forgerock.opendj.ldap.Connections.LeastRequestsDispatcher;
 import org.forgerock.opendj.ldap.RequestLoadBalancer.PartitionedRequest;
 import org.forgerock.opendj.ldap.requests.AddRequest;
@@ -211,6 +215,87 @@ public class ConnectionsTestCase extends SdkTestCase {
         assertThat(next.apply(reqs[9]).getServerIndex()).isEqualTo(2); // number of reqs = [4, 3, 3]
     }
 
+    @Test
+    public void latencyAwareDispatcherMustAvoidTheSlowServer() {
+        LatencyAwareDispatcher dispatcher = new LatencyAwareDispatcher(2, false, 95);
+        Function<Request, PartitionedRequest, NeverThrowsException> next =
+                newLatencyAwareLoadBalancerNextFunction(dispatcher);
+
+        // With two servers, the "other" server is always the same one.
+        dispatcher.requestTerminated(dispatcher.selectHedgingServer(1), TimeUnit.MILLISECONDS.toNanos(100), false);
+        dispatcher.requestTerminated(dispatcher.selectHedgingServer(0), TimeUnit.MILLISECONDS.toNanos(1), false);
+        assertThat(dispatcher.getAverageResponseTimeMillis(0)).isEqualTo(100d);
+        assertThat(dispatcher.getAverageResponseTimeMillis(1)).isEqualTo(1d);
+
+        // With two servers, the two choices are always both servers.
+        for (int i = 0; i < 10; i++) {
+            assertThat(next.apply(mock(SearchRequest.class)).getServerIndex()).isEqualTo(1);
+        }
+        assertThat(dispatcher.getActiveRequests(0)).isEqualTo(0);
+        assertThat(dispatcher.getActiveRequests(1)).isEqualTo(10);
+    }
+
+    @Test
+    public void latencyAwareDispatcherMustNotPreferServerWhichDidNotRespond() {
+        LatencyAwareDispatcher dispatcher = new LatencyAwareDispatcher(2, false, 95);
+        Function<Request, PartitionedRequest, NeverThrowsException> next =
+                newLatencyAwareLoadBalancerNextFunction(dispatcher);
+        dispatcher.requestTerminated(dispatcher.selectHedgingServer(1), TimeUnit.MILLISECONDS.toNanos(10), false);
+
+        // Server 1 did not respond yet: it costs as much as server 0 until its own requests pile up.
+        for (int i = 0; i < 10; i++) {
+            next.apply(mock(SearchRequest.class));
+        }
+        assertThat(dispatcher.getActiveRequests(0)).isEqualTo(5);
+        assertThat(dispatcher.getActiveRequests(1)).isEqualTo(5);
+        assertThat(dispatcher.getAverageResponseTimeMillis(1)).isEqualTo(0d);
+    }
+
+    @Test
+    public void latencyAwareDispatcherMustMoveRedirectedRequests() {
+        LatencyAwareDispatcher dispatcher = new LatencyAwareDispatcher(2, false, 95);
+        assertThat(dispatcher.selectHedgingServer(1)).isEqualTo(0);
+        dispatcher.requestRedirected(0, 1);
+        assertThat(dispatcher.getActiveRequests(0)).isEqualTo(0);
+        assertThat(dispatcher.getActiveRequests(1)).isEqualTo(1);
+
+        // A request which could not be sent does not tell how fast the server is.
+        dispatcher.requestTerminated(1, -1, false);
+        assertThat(dispatcher.getActiveRequests(1)).isEqualTo(0);
+        assertThat(dispatcher.getAverageResponseTimeMillis(1)).isEqualTo(0d);
+    }
+
+    @Test
+    public void latencyAwareDispatcherMustOnlyWorsenAverageForAbandonedRequests() {
+        LatencyAwareDispatcher dispatcher = new LatencyAwareDispatcher(2, true, 95);
+        dispatcher.requestTerminated(dispatcher.selectHedgingServer(1), TimeUnit.MILLISECONDS.toNanos(10), false);
+        dispatcher.requestTerminated(dispatcher.selectHedgingServer(1), TimeUnit.MILLISECONDS.toNanos(1), true);
+        assertThat(dispatcher.getAverageResponseTimeMillis(0)).isEqualTo(10d);
+        dispatcher.requestTerminated(dispatcher.selectHedgingServer(1), TimeUnit.MILLISECONDS.toNanos(20), true);
+        assertThat(dispatcher.getAverageResponseTimeMillis(0)).isEqualTo(20d);
+        assertThat(dispatcher.getActiveRequests(0)).isEqualTo(0);
+    }
+
+    @Test
+    public void latencyAwareDispatcherMustHedgeSearchesAfterPercentileDelay() {
+        LatencyAwareDispatcher dispatcher = new LatencyAwareDispatcher(2, true, 95);
+        final SearchRequest search = Requests.newSearchRequest("dc=example,dc=com", SearchScope.BASE_OBJECT,
+                                                               "(objectClass=*)");
+        // Not enough response times are known yet.
+        assertThat(dispatcher.getHedgingDelayNanos(search)).isEqualTo(-1);
+
+        for (int i = 1; i <= 256; i++) {
+            dispatcher.requestTerminated(dispatcher.selectHedgingServer(0), i, false);
+        }
+        assertThat(dispatcher.getHedgingDelayNanos(search)).isEqualTo(244);
+        assertThat(dispatcher.selectHedgingServer(1)).isEqualTo(0);
+        assertThat(dispatcher.getActiveRequests(0)).isEqualTo(1);
+
+        // Controls may bind a search to a server.
+        search.addControl(AffinityControl.newControl(ByteString.valueOfUtf8("val"), false));
+        assertThat(dispatcher.getHedgingDelayNanos(search)).isEqualTo(-1);
+    }
+
     private void assertRequestsAreRoutedConsistently(
             final Function<Request, PartitionedRequest, NeverThrowsException> f, final Request r,
             final int firstExpectedIndex, final int secondExpectedIndex) {
@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -938,6 +939,76 @@ public class DNTestCase extends SdkTestCase {
         assertEquals(raw, string);
     }
 
+    @Test(dataProvider = "testDNs")
+    public void testValueOfByteSequence(final String rawDN, final String normDN, final String stringDN)
+            throws Exception {
+        final ByteStringBuilder builder = new ByteStringBuilder().appendByte(0).appendUtf8(rawDN);
+        final ByteSequence dnBytes = builder.subSequence(1, builder.length());
+        final DN dn = DN.valueOf(dnBytes);
+        assertEquals(dn, DN.valueOf(rawDN));
+        assertEquals(dn.toString(), DN.valueOf(rawDN).toString());
+        assertEquals(dn.toNormalizedByteString(), DN.valueOf(rawDN).toNormalizedByteString());
+    }
+
+    @DataProvider
+    public Object[][] byteSequenceDNs() {
+        // @formatter:off
+        return new Object[][] {
+            { "cn=Jim;dc=example,dc=com" },
+            { "cn=Jim,dc=example;dc=com" },
+            { "cn=a\\,dc=com" },
+            { "cn=\7e\5C\2b,dc=com" },
+            { "cn=Jim\  ,dc=com" },
+            { "cn=caf\c3\a9,dc=com" },
+            { "cn=caf\u00e9,dc=com" },
+            { "cn=#04024869,dc=com" },
+            { "cn=\"Jim, Smith\",dc=com" },
+            { "1.3.6.1.4.1.1466.0=Jim,dc=com" },
+            { "cn=Jim,x-unknown-attribute=value,dc=com" },
+        };
+        // @formatter:on
+    }
+
+    @Test(dataProvider = "byteSequenceDNs")
+    public void testValueOfByteSequenceMatchesValueOfString(final String dn) throws Exception {
+        final DN byteSequenceDN = DN.valueOf(ByteString.valueOfUtf8(dn));
+        final DN stringDN = DN.valueOf(dn);
+        assertEquals(byteSequenceDN, stringDN);
+        assertEquals(byteSequenceDN.toString(), stringDN.toString());
+        assertEquals(byteSequenceDN.toNormalizedByteString(), stringDN.toNormalizedByteString());
+    }
+
+    @Test
+    public void testValueOfByteSequenceReusesCachedParentDNs() throws Exception {
+        final DN first = DN.valueOf(ByteString.valueOfUtf8("cn=a,ou=people,dc=example,dc=com"));
+        final DN second = DN.valueOf(new ByteStringBuilder().appendUtf8("cn=b, ou=people,dc=example,dc=com"));
+        assertThat(second.parent()).isSameAs(first.parent());
+        assertThat(second.toString()).isEqualTo("cn=b,ou=people,dc=example,dc=com");
+    }
+
+    @Test
+    public void sharedCacheShouldMatchAnyByteSequence() {
+        final DN.SharedCache cache = new DN.SharedCache(4);
+        final DN dn = DN.valueOf("dc=example,dc=com");
+        cache.put(ByteString.valueOfUtf8("dc=example,dc=com"), dn);
+
+        assertThat(cache.get(new ByteStringBuilder().appendUtf8("dc=example,dc=com"))).isSameAs(dn);
+        assertThat(cache.get(ByteString.valueOfUtf8("dc=example,dc=org"))).isNull();
+        assertThat(cache.get("dc=example,dc=com")).isNull();
+    }
+
+    @Test
+    public void sharedCacheShouldEvictLeastRecentlyUsedDNs() {
+        final DN.SharedCache cache = new DN.SharedCache(1);
+        final DN dn1 = DN.valueOf("dc=example,dc=com");
+        final DN dn2 = DN.valueOf("dc=example,dc=org");
+        cache.put("dc=example,dc=com", dn1);
+        cache.put("dc=example,dc=org", dn2);
+
+        assertThat(cache.get("dc=example,dc=com")).isNull();
+        assertThat(cache.get("dc=example,dc=org")).isSameAs(dn2);
+    }
+
     /**
      * Test data for testInScopeOf tests.
      *
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.ldap;
 
@@ -26,6 +27,7 @@ import static org.forgerock.opendj.ldap.responses.Responses.newGenericExtendedRe
 import static org.forgerock.opendj.ldap.responses.Responses.newResult;
 import static org.forgerock.opendj.ldap.spi.LdapPromises.newSuccessfulLdapPromise;
 import static org.forgerock.util.Options.defaultOptions;
+import static org.mockito.AdditionalMatchers.geq;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isNotNull;
@@ -38,6 +40,7 @@ import java.util.ArrayList;
 import java.util.logging.Level;
 
 import org.forgerock.opendj.ldap.RequestLoadBalancer.PartitionedRequest;
+import org.forgerock.opendj.ldap.RequestLoadBalancer.ResponseTimePolicy;
 import org.forgerock.opendj.ldap.requests.AbandonRequest;
 import org.forgerock.opendj.ldap.requests.AddRequest;
 import org.forgerock.opendj.ldap.requests.BindRequest;
@@ -250,6 +253,42 @@ public class RequestLoadBalancerTestCase extends SdkTestCase {
         verifyZeroInteractions(connection2);
     }
 
+    @Test
+    public void responseTimesShouldBeReportedForTheServerUsedAfterFailOver() throws Exception {
+        final ResponseTimePolicy policy = mock(ResponseTimePolicy.class);
+        loadBalancer.close();
+        loadBalancer = new RequestLoadBalancer("Test",
+                                               asList(factory1, factory2, factory3),
+                                               defaultOptions(), newNextFactoryFunction(),
+                                               Connections.NOOP_END_OF_REQUEST_FUNCTION, policy);
+        configureFactoriesOneAndTwoOffline();
+        try (Connection connection = loadBalancer.getConnectionAsync().get()) {
+            connection.add(addRequest1);
+        }
+        verify(policy).requestRedirected(0, 2);
+        verify(policy).requestTerminated(eq(2), geq(0L), eq(false));
+        verifyNoMoreInteractions(policy);
+    }
+
+    @Test
+    public void responseTimesShouldNotBeReportedWhenAllFactoriesOffline() throws Exception {
+        final ResponseTimePolicy policy = mock(ResponseTimePolicy.class);
+        loadBalancer.close();
+        loadBalancer = new RequestLoadBalancer("Test",
+                                               asList(factory1, factory2, factory3),
+                                               defaultOptions(), newNextFactoryFunction(),
+                                               Connections.NOOP_END_OF_REQUEST_FUNCTION, policy);
+        configureAllFactoriesOffline();
+        try (Connection connection = loadBalancer.getConnectionAsync().get()) {
+            connection.add(addRequest2);
+            fail("add unexpectedly succeeded");
+        } catch (LdapException ignored) {
+            // Ignore.
+        }
+        verify(policy).requestTerminated(1, -1, false);
+        verifyNoMoreInteractions(policy);
+    }
+
     @Test
     public void addRequestsShouldFailWhenAllFactoriesOffline() throws Exception {
         configureAllFactoriesOffline();
@@ -0,0 +1,306 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.dsml.protocol;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.DereferenceAliasesPolicy;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.opends.server.protocols.ldap.LDAPConstants;
+import org.opends.server.protocols.ldap.LDAPFilter;
+import org.opends.server.protocols.ldap.LDAPMessage;
+import org.opends.server.protocols.ldap.SearchRequestProtocolOp;
+import org.opends.server.tools.LDAPConnection;
+import org.opends.server.tools.LDAPConnectionException;
+import org.opends.server.tools.LDAPConnectionOptions;
+import org.opends.server.types.LDAPException;
+
+/**
+ * A pool of authenticated LDAP connections used by the DSML gateway. The
+ * connections are keyed by the identity they are bound with, so that a
+ * connection is only ever re-used by a request presenting the same
+ * credentials. Idle connections are closed once they have been idle for
+ * longer than the idle timeout, and are checked to be still alive before being
+ * handed out again, as the LDAP server may have closed them meanwhile.
+ */
+class DSMLConnectionPool
+{
+  /** A connection waiting in the pool, with the time it was released. */
+  private static final class IdleConnection
+  {
+    private final LDAPConnection connection;
+    private final long releaseTime;
+
+    private IdleConnection(LDAPConnection connection, long releaseTime)
+    {
+      this.connection = connection;
+      this.releaseTime = releaseTime;
+    }
+  }
+
+  private final String hostName;
+  private final int port;
+  private final int maxIdleConnections;
+  private final long idleTimeoutMillis;
+  private final ConcurrentMap<String, ConcurrentLinkedDeque<IdleConnection>> idleConnections =
+      new ConcurrentHashMap<>();
+  private volatile long lastPurgeTime = System.currentTimeMillis();
+
+  /**
+   * Creates a new connection pool.
+   *
+   * @param hostName the host name of the LDAP server
+   * @param port the port of the LDAP server
+   * @param maxIdleConnections the maximum number of idle connections kept
+   *          for each identity, 0 disables pooling
+   * @param idleTimeoutSeconds the number of seconds after which an idle
+   *          connection is closed
+   */
+  DSMLConnectionPool(String hostName, int port, int maxIdleConnections, int idleTimeoutSeconds)
+  {
+    this.hostName = hostName;
+    this.port = port;
+    this.maxIdleConnections = maxIdleConnections;
+    this.idleTimeoutMillis = TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+  }
+
+  /**
+   * Returns the key identifying the connections bound with the provided
+   * credentials. The password is only kept as a digest.
+   *
+   * @param bindID the bind DN, or the authentication ID for SASL PLAIN
+   * @param authzID the SASL authorization ID, or null
+   * @param bindPassword the password
+   * @return the key identifying the connections bound with the credentials
+   */
+  static String identityOf(String bindID, String authzID, String bindPassword)
+  {
+    final StringBuilder builder = new StringBuilder();
+    builder.append(bindID).append('\u0000');
+    if (authzID != null)
+    {
+      builder.append(authzID);
+    }
+    builder.append('\u0000');
+    try
+    {
+      final byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+          ByteString.valueOfUtf8(bindPassword != null ? bindPassword : "").toByteArray());
+      builder.append(ByteString.wrap(digest).toHexString());
+    }
+    catch (NoSuchAlgorithmException e)
+    {
+      // Every Java platform supports SHA-256.
+      throw new IllegalStateException(e);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Returns a connection bound with the provided credentials, re-using an
+   * idle connection if possible. Idle connections which are no longer alive
+   * are closed, and a new connection is established instead.
+   *
+   * @param identity the key returned by {@link #identityOf}
+   * @param options the options of new connections
+   * @param bindDN the bind DN of new connections
+   * @param bindPassword the password of new connections
+   * @return a connection bound with the provided credentials
+   * @throws LDAPConnectionException if a new connection cannot be established
+   */
+  LDAPConnection getConnection(String identity, LDAPConnectionOptions options, String bindDN, String bindPassword)
+      throws LDAPConnectionException
+  {
+    final long now = System.currentTimeMillis();
+    purgeIdleConnectionsIfNeeded(now);
+    final ConcurrentLinkedDeque<IdleConnection> connections = idleConnections.get(identity);
+    if (connections != null)
+    {
+      IdleConnection idle;
+      // Most recently used first, so that surplus connections expire.
+      while ((idle = connections.pollFirst()) != null)
+      {
+        if (now - idle.releaseTime < idleTimeoutMillis && isAlive(idle.connection))
+        {
+          return idle.connection;
+        }
+        close(idle.connection);
+      }
+    }
+    return connect(options, bindDN, bindPassword);
+  }
+
+  /**
+   * Establishes a new connection bound with the provided credentials.
+   *
+   * @param options the options of the connection
+   * @param bindDN the bind DN
+   * @param bindPassword the password
+   * @return the new connection
+   * @throws LDAPConnectionException if the connection cannot be established
+   */
+  LDAPConnection connect(LDAPConnectionOptions options, String bindDN, String bindPassword)
+      throws LDAPConnectionException
+  {
+    final LDAPConnection connection = new LDAPConnection(hostName, port, options);
+    connection.connectToHost(bindDN, bindPassword);
+    return connection;
+  }
+
+  /**
+   * Indicates whether an idle connection is still alive, by reading the root
+   * DSE without requesting any attribute. A connection closed by the LDAP
+   * server, either silently or with a notice of disconnection, fails this
+   * check.
+   *
+   * @param connection the idle connection
+   * @return true if the connection can be handed out
+   */
+  boolean isAlive(LDAPConnection connection)
+  {
+    final int messageID = DSMLServlet.nextMessageID();
+    final SearchRequestProtocolOp searchRequest = new SearchRequestProtocolOp(ByteString.empty(),
+        SearchScope.BASE_OBJECT, DereferenceAliasesPolicy.NEVER, 1, 0, true,
+        LDAPFilter.objectClassPresent(), Collections.singleton("1.1"));
+    try
+    {
+      connection.getLDAPWriter().writeMessage(new LDAPMessage(messageID, searchRequest));
+      LDAPMessage response;
+      while ((response = connection.getLDAPReader().readMessage()) != null)
+      {
+        if (response.getMessageID() != messageID)
+        {
+          // Unsolicited notification, or a response the connection should not have pending.
+          return false;
+        }
+        if (response.getProtocolOpType() == LDAPConstants.OP_TYPE_SEARCH_RESULT_DONE)
+        {
+          return true;
+        }
+      }
+      return false;
+    }
+    catch (IOException | DecodeException | LDAPException e)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Gives back a connection obtained from {@link #getConnection}.
+   *
+   * @param identity the key the connection was obtained with
+   * @param connection the connection
+   * @param isReusable whether the connection is in a known state and may be
+   *          handed to another request, otherwise it is closed
+   */
+  void releaseConnection(String identity, LDAPConnection connection, boolean isReusable)
+  {
+    final long now = System.currentTimeMillis();
+    if (isReusable && maxIdleConnections > 0)
+    {
+      ConcurrentLinkedDeque<IdleConnection> connections = idleConnections.get(identity);
+      if (connections == null)
+      {
+        final ConcurrentLinkedDeque<IdleConnection> newConnections = new ConcurrentLinkedDeque<>();
+        connections = idleConnections.putIfAbsent(identity, newConnections);
+        if (connections == null)
+        {
+          connections = newConnections;
+        }
+      }
+      if (connections.size() < maxIdleConnections)
+      {
+        final IdleConnection idle = new IdleConnection(connection, now);
+        connections.offerFirst(idle);
+        // The identity may have been purged meanwhile, keep the connection only if it can still be found.
+        if (idleConnections.get(identity) == connections || !connections.removeFirstOccurrence(idle))
+        {
+          connection = null;
+        }
+      }
+    }
+    if (connection != null)
+    {
+      close(connection);
+    }
+    purgeIdleConnectionsIfNeeded(now);
+  }
+
+  /** Closes all the idle connections. */
+  void close()
+  {
+    purgeIdleConnections(Long.MAX_VALUE);
+  }
+
+  /**
+   * Purges the idle connections at most once per idle timeout, so that the
+   * connections of identities which are no longer used are closed as well.
+   */
+  private void purgeIdleConnectionsIfNeeded(long now)
+  {
+    if (now - lastPurgeTime > idleTimeoutMillis)
+    {
+      lastPurgeTime = now;
+      purgeIdleConnections(now);
+    }
+  }
+
+  /** Closes the connections released before the idle timeout, and forgets identities without connections. */
+  private void purgeIdleConnections(long now)
+  {
+    for (Iterator<Map.Entry<String, ConcurrentLinkedDeque<IdleConnection>>> it =
+        idleConnections.entrySet().iterator(); it.hasNext();)
+    {
+      final ConcurrentLinkedDeque<IdleConnection> connections = it.next().getValue();
+      // Least recently used connections are at the end of the queue.
+      IdleConnection idle;
+      while ((idle = connections.peekLast()) != null && now - idle.releaseTime >= idleTimeoutMillis)
+      {
+        if (connections.removeLastOccurrence(idle))
+        {
+          close(idle.connection);
+        }
+      }
+      if (connections.isEmpty())
+      {
+        it.remove();
+        // Close the connections released while the identity was being removed.
+        while ((idle = connections.pollLast()) != null)
+        {
+          close(idle.connection);
+        }
+      }
+    }
+  }
+
+  private static void close(LDAPConnection connection)
+  {
+    connection.close(new AtomicInteger(DSMLServlet.nextMessageID()));
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.dsml.protocol;
 
@@ -32,13 +33,25 @@ import java.io.OutputStream;
 import java.io.StringReader;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -55,6 +68,8 @@ import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.ValidationEvent;
+import javax.xml.bind.ValidationEventHandler;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -67,6 +82,10 @@ import javax.xml.soap.SOAPElement;
 import javax.xml.soap.SOAPException;
 import javax.xml.soap.SOAPHeader;
 import javax.xml.soap.SOAPMessage;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
@@ -119,6 +138,10 @@ public class DSMLServlet extends HttpServlet {
   private static final String TRUSTALLCERTS = "ldap.trustall";
   private static final String USEHTTPAUTHZID = "ldap.authzidtypeisid";
   private static final String EXOPSTRINGPREFIX = "ldap.exop.string.";
+  private static final String POOLMAXIDLE = "ldap.pool.maxidle";
+  private static final String POOLIDLETIMEOUT = "ldap.pool.idletimeout";
+  private static final String PARALLELCONNECTIONS = "ldap.parallel.connections";
+  private static final String STREAMING = "dsml.streaming";
   private static final long serialVersionUID = -3748022009593442973L;
   private static final AtomicInteger nextMessageID = new AtomicInteger(1);
 
@@ -133,6 +156,24 @@ public class DSMLServlet extends HttpServlet {
   // definitions of onError values
   private static final String ON_ERROR_EXIT = "exit";
 
+  // definitions of processing and responseOrder values
+  private static final String PROCESSING_PARALLEL = "parallel";
+  private static final String RESPONSE_ORDER_UNORDERED = "unordered";
+
+  private static final String DSML_NAMESPACE = "urn:oasis:names:tc:DSML:2:0:core";
+  private static final Map<String, Class<? extends DsmlMessage>> REQUEST_TYPES = new HashMap<>();
+  static
+  {
+    REQUEST_TYPES.put("searchRequest", SearchRequest.class);
+    REQUEST_TYPES.put("modifyRequest", ModifyRequest.class);
+    REQUEST_TYPES.put("addRequest", AddRequest.class);
+    REQUEST_TYPES.put("delRequest", DelRequest.class);
+    REQUEST_TYPES.put("modDNRequest", ModifyDNRequest.class);
+    REQUEST_TYPES.put("compareRequest", CompareRequest.class);
+    REQUEST_TYPES.put("abandonRequest", AbandonRequest.class);
+    REQUEST_TYPES.put("extendedRequest", ExtendedRequest.class);
+  }
+
   private static JAXBContext jaxbContext;
   private static Schema schema;
 
@@ -149,7 +190,11 @@ public class DSMLServlet extends HttpServlet {
   private String trustStorePasswordValue;
   private Boolean trustAll;
   private Boolean useHTTPAuthzID;
+  private boolean useStreaming;
+  private int maxParallelConnections;
   private final Set<String> exopStrings = new HashSet<>();
+  private DSMLConnectionPool connectionPool;
+  private ExecutorService batchExecutor;
 
   /**
    * This method will be called by the Servlet Container when
@@ -172,6 +217,25 @@ public class DSMLServlet extends HttpServlet {
       trustStorePasswordValue = stringValue(config, TRUSTSTOREPASSWORD);
       trustAll = booleanValue(config, TRUSTALLCERTS);
       useHTTPAuthzID = booleanValue(config, USEHTTPAUTHZID);
+      useStreaming = booleanValue(config, STREAMING);
+      maxParallelConnections = intValue(config, PARALLELCONNECTIONS, 4);
+      connectionPool = new DSMLConnectionPool(hostName, port,
+          intValue(config, POOLMAXIDLE, 8), intValue(config, POOLIDLETIMEOUT, 60));
+      if (maxParallelConnections > 1)
+      {
+        batchExecutor = Executors.newCachedThreadPool(new ThreadFactory()
+        {
+          private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+          @Override
+          public Thread newThread(Runnable r)
+          {
+            final Thread thread = new Thread(r, "DSML Batch Worker " + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+      }
 
       /*
        * Find all the param-names matching the pattern:
@@ -224,6 +288,30 @@ public class DSMLServlet extends HttpServlet {
     return config.getServletContext().getInitParameter(paramName);
   }
 
+  private int intValue(ServletConfig config, String paramName, int defaultValue)
+  {
+    final String value = stringValue(config, paramName);
+    return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+  }
+
+  /**
+   * This method will be called by the Servlet Container when this servlet is
+   * being taken out of service. It closes the pooled LDAP connections.
+   */
+  @Override
+  public void destroy()
+  {
+    if (batchExecutor != null)
+    {
+      batchExecutor.shutdown();
+    }
+    if (connectionPool != null)
+    {
+      connectionPool.close();
+    }
+    super.destroy();
+  }
+
   /**
    * Check if using the proxy authz control will work, by using it to read
    * the Root DSE.
@@ -299,7 +387,6 @@ public class DSMLServlet extends HttpServlet {
     connOptions.setUseSSL(useSSL);
     connOptions.setStartTLS(useStartTLS);
 
-    LDAPConnection connection = null;
     BatchRequest batchRequest = null;
 
     // Keep the Servlet input stream buffered in case the SOAP un-marshalling
@@ -347,6 +434,7 @@ public class DSMLServlet extends HttpServlet {
     MimeHeaders mimeHeaders = new MimeHeaders();
     String bindDN = null;
     String bindPassword = null;
+    String authID = null;
     boolean authenticationInHeader = false;
     boolean authenticationIsID = false;
     final Enumeration<String> en = req.getHeaderNames();
@@ -384,9 +472,9 @@ public class DSMLServlet extends HttpServlet {
           if (colon > 0) {
             if (useHTTPAuthzID)
             {
+              authID = "u:" + unencoded.substring(0, colon).trim();
               connOptions.setSASLMechanism("mech=" + SASL_MECHANISM_PLAIN);
-              connOptions.addSASLProperty(
-                  "authid=u:" + unencoded.substring(0, colon).trim());
+              connOptions.addSASLProperty("authid=" + authID);
               authenticationIsID = true;
             }
             else
@@ -443,18 +531,27 @@ public class DSMLServlet extends HttpServlet {
       }
     }
 
+    // Connections are pooled by the identity they are bound with.
+    final Credentials credentials =
+        new Credentials(connOptions, authenticationIsID ? authID : "dn:" + bindDN, bindDN, bindPassword,
+            authenticationIsID);
+
     // if an error already occurred, the list is not empty
     if ( batchResponses.isEmpty() ) {
-      try {
-        SOAPMessage message = messageFactory.createMessage(mimeHeaders, is);
-        soapBody = message.getSOAPBody();
-      } catch (SOAPException ex) {
-        // SOAP was unable to parse XML successfully
-        batchResponses.add(
-          createXMLParsingErrorResponse(is,
-                                        objFactory,
-                                        batchResponse,
-                                        String.valueOf(ex.getCause())));
+      if (useStreaming) {
+        processStreamingRequest(is, objFactory, batchResponse, credentials);
+      } else {
+        try {
+          SOAPMessage message = messageFactory.createMessage(mimeHeaders, is);
+          soapBody = message.getSOAPBody();
+        } catch (SOAPException ex) {
+          // SOAP was unable to parse XML successfully
+          batchResponses.add(
+            createXMLParsingErrorResponse(is,
+                                          objFactory,
+                                          batchResponse,
+                                          String.valueOf(ex.getCause())));
+        }
       }
     }
 
@@ -482,86 +579,21 @@ public class DSMLServlet extends HttpServlet {
                                                        String.valueOf(e)));
         }
         if ( batchRequestElement != null ) {
-          boolean authzInBind = false;
-          boolean authzInControl = false;
           batchRequest = batchRequestElement.getValue();
 
-          /*
-           *  Process optional authRequest (i.e. use authz)
-           */
-          if (batchRequest.authRequest != null) {
-            if (authenticationIsID) {
-              // If we are using SASL, then use the bind authz.
-              connOptions.addSASLProperty("authzid=" +
-                  batchRequest.authRequest.getPrincipal());
-              authzInBind = true;
-            } else {
-              // If we are using simple then we have to do some work after
-              // the bind.
-              authzInControl = true;
-            }
-          }
           // set requestID in response
           batchResponse.setRequestID(batchRequest.getRequestID());
-          org.opends.server.types.Control proxyAuthzControl = null;
-
-          boolean connected = false;
 
-          if ( connection == null ) {
-            connection = new LDAPConnection(hostName, port, connOptions);
-            try {
-
-              connection.connectToHost(bindDN, bindPassword);
-              if (authzInControl)
-              {
-                proxyAuthzControl = checkAuthzControl(connection,
-                    batchRequest.authRequest.getPrincipal());
-              }
-              if (authzInBind || authzInControl)
-              {
-                LDAPResult authResponse = objFactory.createLDAPResult();
-                ResultCode code = ResultCodeFactory.create(objFactory,
-                    LDAPResultCode.SUCCESS);
-                authResponse.setResultCode(code);
-                batchResponses.add(
-                    objFactory.createBatchResponseAuthResponse(authResponse));
+          BatchProcessor processor = new BatchProcessor(objFactory, batchResponses, credentials,
+              batchRequest.getProcessing(), batchRequest.getResponseOrder(), batchRequest.getOnError());
+          if (processor.open(batchRequest.authRequest)) {
+            for (DsmlMessage request : batchRequest.getBatchRequests()) {
+              if (!processor.process(request)) {
+                break;
               }
-              connected = true;
-            } catch (LDAPConnectionException e) {
-              // if connection failed, return appropriate error response
-              batchResponses.add(createErrorResponse(objFactory, e));
             }
           }
-          if ( connected ) {
-            List<DsmlMessage> list = batchRequest.getBatchRequests();
-
-            for (DsmlMessage request : list) {
-              JAXBElement<?> result = performLDAPRequest(connection, objFactory, proxyAuthzControl, request);
-              if ( result != null ) {
-                batchResponses.add(result);
-              }
-              // evaluate response to check if an error occurred
-              Object o = result.getValue();
-              if ( o instanceof ErrorResponse ) {
-                if ( ON_ERROR_EXIT.equals(batchRequest.getOnError()) ) {
-                  break;
-                }
-              } else if ( o instanceof LDAPResult ) {
-                int code = ((LDAPResult)o).getResultCode().getCode();
-                if ( code != LDAPResultCode.SUCCESS
-                  && code != LDAPResultCode.REFERRAL
-                  && code != LDAPResultCode.COMPARE_TRUE
-                  && code != LDAPResultCode.COMPARE_FALSE && ON_ERROR_EXIT.equals(batchRequest.getOnError()) )
-                {
-                  break;
-                }
-              }
-            }
-          }
-          // close connection to LDAP server
-          if ( connection != null ) {
-            connection.close(nextMessageID);
-          }
+          processor.close();
         }
       }
     }
@@ -577,6 +609,151 @@ public class DSMLServlet extends HttpServlet {
 
 
 
+  /**
+   * Parses the SOAP message with a StAX parser and processes the operations
+   * of the batch requests as soon as they have been parsed, instead of
+   * building the whole SOAP message and batch request in memory first. The
+   * operations are unmarshalled one at a time, and rejected if JAXB reports
+   * any unexpected content. As opposed to the default SOAP parsing, the
+   * batch request is not validated against the DSMLv2 schema as a whole.
+   *
+   * @param is the XML InputStream to parse
+   * @param objFactory the object factory
+   * @param batchResponse the JAXB object to fill in
+   * @param credentials the credentials of the connections to the LDAP server
+   */
+  private void processStreamingRequest(InputStream is, ObjectFactory objFactory, BatchResponse batchResponse,
+      Credentials credentials)
+  {
+    final List<JAXBElement<?>> batchResponses = batchResponse.getBatchResponses();
+    BatchProcessor processor = null;
+    try
+    {
+      final XMLStreamReader reader = createSafeXMLStreamReader(is);
+      final Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+      unmarshaller.setEventHandler(new ValidationEventHandler()
+      {
+        @Override
+        public boolean handleEvent(ValidationEvent event)
+        {
+          // Reject unexpected elements and values rather than ignoring them.
+          return false;
+        }
+      });
+
+      boolean inBody = false;
+      while (reader.hasNext())
+      {
+        if (reader.next() != XMLStreamConstants.START_ELEMENT)
+        {
+          continue;
+        }
+        if (!inBody)
+        {
+          // Skip the SOAP envelope and header.
+          inBody = "Body".equals(reader.getLocalName());
+          continue;
+        }
+        if (!"batchRequest".equals(reader.getLocalName()) || !DSML_NAMESPACE.equals(reader.getNamespaceURI()))
+        {
+          batchResponses.add(createMalformedRequestResponse(objFactory,
+              "Unexpected element " + reader.getName() + " in SOAP body"));
+          return;
+        }
+
+        batchResponse.setRequestID(reader.getAttributeValue(null, "requestID"));
+        processor = new BatchProcessor(objFactory, batchResponses, credentials,
+            reader.getAttributeValue(null, "processing"),
+            reader.getAttributeValue(null, "responseOrder"),
+            defaultIfNull(reader.getAttributeValue(null, "onError"), ON_ERROR_EXIT));
+        AuthRequest authRequest = null;
+        boolean isOpen = false;
+        for (int event = reader.nextTag(); event == XMLStreamConstants.START_ELEMENT; event = currentOrNextTag(reader))
+        {
+          final String name = reader.getLocalName();
+          if (!isOpen && "authRequest".equals(name))
+          {
+            authRequest = unmarshaller.unmarshal(reader, AuthRequest.class).getValue();
+            continue;
+          }
+          final Class<? extends DsmlMessage> requestType = REQUEST_TYPES.get(name);
+          if (requestType == null)
+          {
+            batchResponses.add(createMalformedRequestResponse(objFactory,
+                "Unexpected element " + reader.getName() + " in batch request"));
+            return;
+          }
+          final DsmlMessage request = unmarshaller.unmarshal(reader, requestType).getValue();
+          if (!isOpen)
+          {
+            isOpen = true;
+            if (!processor.open(authRequest))
+            {
+              return;
+            }
+          }
+          if (!processor.process(request))
+          {
+            // No need to parse the rest of the batch.
+            return;
+          }
+        }
+        if (!isOpen && !processor.open(authRequest))
+        {
+          return;
+        }
+        processor.close();
+        processor = null;
+      }
+    }
+    catch (XMLStreamException | JAXBException e)
+    {
+      batchResponses.add(createMalformedRequestResponse(objFactory, String.valueOf(e)));
+    }
+    finally
+    {
+      if (processor != null)
+      {
+        processor.close();
+      }
+    }
+  }
+
+  /**
+   * Returns the current event if it is a tag, which happens when an element
+   * was immediately followed by another one, otherwise moves to the next tag.
+   */
+  private static int currentOrNextTag(XMLStreamReader reader) throws XMLStreamException
+  {
+    final int event = reader.getEventType();
+    if (event == XMLStreamConstants.START_ELEMENT || event == XMLStreamConstants.END_ELEMENT)
+    {
+      return event;
+    }
+    return reader.nextTag();
+  }
+
+  private static String defaultIfNull(String value, String defaultValue)
+  {
+    return value != null ? value : defaultValue;
+  }
+
+  /**
+   * Returns a malformed request error response.
+   *
+   * @param objFactory the object factory
+   * @param message the error message
+   *
+   * @return a JAXBElement that contains an ErrorResponse
+   */
+  private JAXBElement<ErrorResponse> createMalformedRequestResponse(ObjectFactory objFactory, String message)
+  {
+    ErrorResponse errorResponse = objFactory.createErrorResponse();
+    errorResponse.setMessage(message);
+    errorResponse.setType(MALFORMED_REQUEST);
+    return objFactory.createBatchResponseErrorResponse(errorResponse);
+  }
+
   /**
    * Safely set a feature on an XMLReader instance.
    *
@@ -933,6 +1110,255 @@ public class DSMLServlet extends HttpServlet {
     return xmlReader;
   }
 
+  /**
+   * Create an XMLStreamReader that is safe against XML External Entity (XXE) Processing attacks.
+   *
+   * @param is the XML InputStream to parse
+   * @return an XMLStreamReader
+   * @throws XMLStreamException if we cannot obtain a parser.
+   */
+  private XMLStreamReader createSafeXMLStreamReader(InputStream is)
+          throws XMLStreamException
+  {
+    final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return xmlInputFactory.createXMLStreamReader(is);
+  }
+
+  /** The credentials used for binding the connections to the LDAP server. */
+  private static final class Credentials
+  {
+    private final LDAPConnectionOptions connOptions;
+    /** The bind DN or the SASL authentication ID, which identifies the connection in the pool. */
+    private final String bindID;
+    private final String bindDN;
+    private final String bindPassword;
+    private final boolean authenticationIsID;
+
+    private Credentials(LDAPConnectionOptions connOptions, String bindID, String bindDN, String bindPassword,
+        boolean authenticationIsID)
+    {
+      this.connOptions = connOptions;
+      this.bindID = bindID;
+      this.bindDN = bindDN;
+      this.bindPassword = bindPassword;
+      this.authenticationIsID = authenticationIsID;
+    }
+  }
+
+  /**
+   * Processes the operations of a batch request, either one after the other
+   * over a single pooled connection, or concurrently over up to
+   * ldap.parallel.connections pooled connections when the batch request asks
+   * for parallel processing.
+   */
+  private class BatchProcessor
+  {
+    private final ObjectFactory objFactory;
+    private final List<JAXBElement<?>> batchResponses;
+    private final Credentials credentials;
+    private final boolean isParallel;
+    private final boolean isUnordered;
+    private final boolean exitOnError;
+
+    private String identity;
+    private org.opends.server.types.Control proxyAuthzControl;
+    /** The connections of this batch which are not processing an operation. */
+    private final Queue<LDAPConnection> idleConnections = new ConcurrentLinkedQueue<>();
+    /** Bounds the number of operations processed concurrently, hence the number of connections. */
+    private final Semaphore permits;
+    private final List<Future<JAXBElement<?>>> pendingResponses = new ArrayList<>();
+    private final List<JAXBElement<?>> unorderedResponses =
+        Collections.synchronizedList(new ArrayList<JAXBElement<?>>());
+    private volatile boolean isStopped;
+
+    private BatchProcessor(ObjectFactory objFactory, List<JAXBElement<?>> batchResponses, Credentials credentials,
+        String processing, String responseOrder, String onError)
+    {
+      this.objFactory = objFactory;
+      this.batchResponses = batchResponses;
+      this.credentials = credentials;
+      this.isParallel = PROCESSING_PARALLEL.equals(processing) && batchExecutor != null;
+      this.isUnordered = RESPONSE_ORDER_UNORDERED.equals(responseOrder);
+      this.exitOnError = ON_ERROR_EXIT.equals(onError);
+      this.permits = new Semaphore(isParallel ? maxParallelConnections : 1);
+    }
+
+    /**
+     * Obtains the first connection of the batch, and processes the optional
+     * authRequest.
+     *
+     * @param authRequest the authRequest of the batch, or null
+     * @return true if the operations of the batch can be processed
+     */
+    private boolean open(AuthRequest authRequest)
+    {
+      boolean authzInControl = false;
+      String authzID = null;
+      if (authRequest != null) {
+        if (credentials.authenticationIsID) {
+          // If we are using SASL, then use the bind authz.
+          authzID = authRequest.getPrincipal();
+          credentials.connOptions.addSASLProperty("authzid=" + authzID);
+        } else {
+          // If we are using simple then we have to do some work after
+          // the bind.
+          authzInControl = true;
+        }
+      }
+      identity = DSMLConnectionPool.identityOf(credentials.bindID, authzID, credentials.bindPassword);
+
+      LDAPConnection connection = null;
+      try {
+        connection = newConnection();
+        if (authzInControl) {
+          proxyAuthzControl = checkAuthzControl(connection, authRequest.getPrincipal());
+        }
+        if (authRequest != null) {
+          LDAPResult authResponse = objFactory.createLDAPResult();
+          ResultCode code = ResultCodeFactory.create(objFactory, LDAPResultCode.SUCCESS);
+          authResponse.setResultCode(code);
+          batchResponses.add(objFactory.createBatchResponseAuthResponse(authResponse));
+        }
+        idleConnections.add(connection);
+        return true;
+      } catch (LDAPConnectionException e) {
+        // if connection failed, return appropriate error response
+        if (connection != null) {
+          connectionPool.releaseConnection(identity, connection, false);
+        }
+        batchResponses.add(createErrorResponse(objFactory, e));
+        return false;
+      }
+    }
+
+    /**
+     * Processes an operation of the batch. Sequential batches process it
+     * immediately, parallel batches schedule it once a connection is
+     * available.
+     *
+     * @param request the operation
+     * @return false if the processing of the batch must stop
+     */
+    private boolean process(final DsmlMessage request)
+    {
+      if (!isParallel) {
+        final JAXBElement<?> result = perform(request);
+        if (result != null) {
+          batchResponses.add(result);
+        }
+        return !(exitOnError && isError(result));
+      }
+
+      permits.acquireUninterruptibly();
+      if (isStopped) {
+        permits.release();
+        return false;
+      }
+      pendingResponses.add(batchExecutor.submit(new Callable<JAXBElement<?>>()
+      {
+        @Override
+        public JAXBElement<?> call()
+        {
+          try {
+            if (isStopped) {
+              // A previous operation failed and the batch must exit.
+              return null;
+            }
+            final JAXBElement<?> result = perform(request);
+            if (exitOnError && isError(result)) {
+              isStopped = true;
+            }
+            if (isUnordered && result != null) {
+              unorderedResponses.add(result);
+            }
+            return result;
+          } finally {
+            permits.release();
+          }
+        }
+      }));
+      return !isStopped;
+    }
+
+    /** Waits for the scheduled operations and gives the connections back to the pool. */
+    private void close()
+    {
+      for (Future<JAXBElement<?>> pendingResponse : pendingResponses) {
+        JAXBElement<?> result;
+        try {
+          result = pendingResponse.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          result = createErrorResponse(objFactory, e);
+        } catch (ExecutionException e) {
+          result = createErrorResponse(objFactory, e.getCause());
+        }
+        if (!isUnordered && result != null) {
+          batchResponses.add(result);
+        }
+      }
+      if (isUnordered) {
+        batchResponses.addAll(unorderedResponses);
+      }
+      LDAPConnection connection;
+      while ((connection = idleConnections.poll()) != null) {
+        connectionPool.releaseConnection(identity, connection, true);
+      }
+    }
+
+    private JAXBElement<?> perform(DsmlMessage request)
+    {
+      // The number of operations in progress is bounded by the permits, so
+      // there is no need to bound the number of connections again.
+      LDAPConnection connection = idleConnections.poll();
+      if (connection == null) {
+        try {
+          connection = newConnection();
+        } catch (LDAPConnectionException e) {
+          return createErrorResponse(objFactory, e);
+        }
+      }
+
+      final JAXBElement<?> result = performLDAPRequest(connection, objFactory, proxyAuthzControl, request);
+      if ((result != null && result.getValue() instanceof ErrorResponse) || request instanceof ExtendedRequest) {
+        // Protocol errors may leave unread responses and extended operations
+        // may change the state of the connection: do not re-use it.
+        connectionPool.releaseConnection(identity, connection, false);
+      } else {
+        idleConnections.add(connection);
+      }
+      return result;
+    }
+
+    private LDAPConnection newConnection() throws LDAPConnectionException
+    {
+      return connectionPool.getConnection(
+          identity, credentials.connOptions, credentials.bindDN, credentials.bindPassword);
+    }
+
+    /** Evaluates the response to check if an error occurred. */
+    private boolean isError(JAXBElement<?> result)
+    {
+      if (result == null) {
+        return false;
+      }
+      Object o = result.getValue();
+      if ( o instanceof ErrorResponse ) {
+        return true;
+      } else if ( o instanceof LDAPResult ) {
+        int code = ((LDAPResult)o).getResultCode().getCode();
+        return code != LDAPResultCode.SUCCESS
+          && code != LDAPResultCode.REFERRAL
+          && code != LDAPResultCode.COMPARE_TRUE
+          && code != LDAPResultCode.COMPARE_FALSE;
+      }
+      return false;
+    }
+  }
+
   /**
    * This class is used when an XML request is malformed to retrieve the
    * requestID value using an event XML parser.
@@ -0,0 +1,206 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.dsml.protocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.testng.ForgeRockTestCase;
+import org.opends.server.protocols.ldap.LDAPConstants;
+import org.opends.server.protocols.ldap.LDAPMessage;
+import org.opends.server.protocols.ldap.LDAPResultCode;
+import org.opends.server.protocols.ldap.SearchResultDoneProtocolOp;
+import org.opends.server.tools.LDAPConnection;
+import org.opends.server.tools.LDAPConnectionOptions;
+import org.opends.server.tools.LDAPReader;
+import org.opends.server.tools.LDAPWriter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the hand out of idle connections by the DSML connection pool. The
+ * connections of the pool are plain sockets to a local server socket, which
+ * play the role of the LDAP server without requiring a bind.
+ */
+@SuppressWarnings("javadoc")
+public class DSMLConnectionPoolTestCase extends ForgeRockTestCase
+{
+  private static final String IDENTITY = DSMLConnectionPool.identityOf("cn=Directory Manager", null, "password");
+
+  private ServerSocket serverSocket;
+  private ExecutorService executor;
+
+  @BeforeMethod
+  public void setUp() throws IOException
+  {
+    serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterMethod
+  public void tearDown() throws IOException
+  {
+    executor.shutdownNow();
+    serverSocket.close();
+  }
+
+  @Test
+  public void testAliveIdleConnectionIsReused() throws Exception
+  {
+    final TestPool pool = new TestPool(60);
+    final LDAPConnection connection = pool.getConnection(IDENTITY, new LDAPConnectionOptions(), null, null);
+    final Socket serverSide = serverSocket.accept();
+    pool.releaseConnection(IDENTITY, connection, true);
+
+    final Future<Integer> searchMessageID = answerSearch(serverSide);
+    assertThat(pool.getConnection(IDENTITY, new LDAPConnectionOptions(), null, null)).isSameAs(connection);
+    assertThat(searchMessageID.get(10, TimeUnit.SECONDS)).isPositive();
+    assertThat(pool.connectCount.get()).isEqualTo(1);
+    serverSide.close();
+  }
+
+  @Test
+  public void testIdleConnectionClosedByServerIsReplaced() throws Exception
+  {
+    final TestPool pool = new TestPool(60);
+    final LDAPConnection connection = pool.getConnection(IDENTITY, new LDAPConnectionOptions(), null, null);
+    pool.releaseConnection(IDENTITY, connection, true);
+    // The server closes the idle connection, for instance because of its idle time limit
+    serverSocket.accept().close();
+
+    final LDAPConnection newConnection = pool.getConnection(IDENTITY, new LDAPConnectionOptions(), null, null);
+    assertThat(newConnection).isNotSameAs(connection);
+    assertThat(pool.connectCount.get()).isEqualTo(2);
+    serverSocket.accept().close();
+  }
+
+  @Test
+  public void testIdleConnectionNotifiedOfDisconnectionIsReplaced() throws Exception
+  {
+    final TestPool pool = new TestPool(60);
+    final LDAPConnection connection = pool.getConnection(IDENTITY, new LDAPConnectionOptions(), null, null);
+    pool.releaseConnection(IDENTITY, connection, true);
+    // The server sends an unsolicited notification, but does not close the socket yet
+    final Socket serverSide = serverSocket.accept();
+    new LDAPWriter(serverSide).writeMessage(
+        new LDAPMessage(0, new SearchResultDoneProtocolOp(LDAPResultCode.UNAVAILABLE)));
+
+    final LDAPConnection newConnection = pool.getConnection(IDENTITY, new LDAPConnectionOptions(), null, null);
+    assertThat(newConnection).isNotSameAs(connection);
+    assertThat(pool.connectCount.get()).isEqualTo(2);
+    serverSide.close();
+    serverSocket.accept().close();
+  }
+
+  @Test
+  public void testExpiredIdleConnectionIsNotReused() throws Exception
+  {
+    final TestPool pool = new TestPool(0);
+    final LDAPConnection connection = pool.getConnection(IDENTITY, new LDAPConnectionOptions(), null, null);
+    pool.releaseConnection(IDENTITY, connection, true);
+    serverSocket.accept().close();
+
+    assertThat(pool.getConnection(IDENTITY, new LDAPConnectionOptions(), null, null)).isNotSameAs(connection);
+    assertThat(pool.connectCount.get()).isEqualTo(2);
+    serverSocket.accept().close();
+  }
+
+  /** Reads the search request checking the connection, and returns a successful search result done. */
+  private Future<Integer> answerSearch(final Socket serverSide)
+  {
+    return executor.submit(new Callable<Integer>()
+    {
+      @Override
+      public Integer call() throws Exception
+      {
+        final LDAPMessage request = new LDAPReader(serverSide).readMessage();
+        assertThat(request.getProtocolOpType()).isEqualTo(LDAPConstants.OP_TYPE_SEARCH_REQUEST);
+        new LDAPWriter(serverSide).writeMessage(
+            new LDAPMessage(request.getMessageID(), new SearchResultDoneProtocolOp(LDAPResultCode.SUCCESS)));
+        return request.getMessageID();
+      }
+    });
+  }
+
+  /** A pool connecting plain sockets to the local server socket instead of binding LDAP connections. */
+  private final class TestPool extends DSMLConnectionPool
+  {
+    private final AtomicInteger connectCount = new AtomicInteger();
+
+    private TestPool(int idleTimeoutSeconds)
+    {
+      super(serverSocket.getInetAddress().getHostAddress(), serverSocket.getLocalPort(), 8, idleTimeoutSeconds);
+    }
+
+    @Override
+    LDAPConnection connect(LDAPConnectionOptions options, String bindDN, String bindPassword)
+    {
+      connectCount.incrementAndGet();
+      try
+      {
+        return new SocketConnection(new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort()), options);
+      }
+      catch (IOException e)
+      {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /** An LDAP connection over an already connected socket. */
+  private static final class SocketConnection extends LDAPConnection
+  {
+    private final LDAPWriter writer;
+    private final LDAPReader reader;
+
+    private SocketConnection(Socket socket, LDAPConnectionOptions options) throws IOException
+    {
+      super(socket.getInetAddress().getHostAddress(), socket.getPort(), options);
+      writer = new LDAPWriter(socket);
+      reader = new LDAPReader(socket);
+    }
+
+    @Override
+    public LDAPWriter getLDAPWriter()
+    {
+      return writer;
+    }
+
+    @Override
+    public LDAPReader getLDAPReader()
+    {
+      return reader;
+    }
+
+    @Override
+    public void close(AtomicInteger nextMessageID)
+    {
+      writer.close();
+      reader.close();
+    }
+  }
+}
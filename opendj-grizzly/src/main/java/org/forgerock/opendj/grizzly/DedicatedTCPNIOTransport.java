@@ -0,0 +1,161 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.grizzly;
+
+import static org.forgerock.opendj.ldap.LDAPConnectionFactory.*;
+
+import java.io.IOException;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.util.Options;
+import org.glassfish.grizzly.memory.HeapMemoryManager;
+import org.glassfish.grizzly.memory.PooledMemoryManager;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+
+import com.forgerock.opendj.util.ReferenceCountedObject;
+
+/**
+ * A {@link TCPNIOTransport} dedicated to a single {@code LDAPConnectionFactory} or {@code LDAPListener}, configured
+ * using the {@code TRANSPORT_*} options of the connection factory or listener.
+ * <p>
+ * Options which are not set default to the behavior of the transport which is shared by all the connection
+ * factories, respectively all the listeners.
+ */
+final class DedicatedTCPNIOTransport extends ReferenceCountedObject<TCPNIOTransport> {
+
+    private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+    private static final long MB = 1024 * 1024;
+    /** Growing factor applied to the size of the buffers of each pool size class. */
+    private static final int BUFFER_GROWTH_FACTOR = 4;
+
+    /**
+     * Returns a reference to the transport to use for a connection factory or a listener: the provided transport if
+     * not {@code null}, a new dedicated transport if the provided options request one, or the shared transport.
+     *
+     * @param transport
+     *            The transport explicitly provided by the application, may be {@code null}.
+     * @param sharedTransport
+     *            The transport shared by all the connection factories or all the listeners.
+     * @param options
+     *            The connection factory or listener options.
+     * @param isServer
+     *            {@code true} if the transport will be used by a listener.
+     * @return A reference to the transport, which must be released once no longer needed.
+     */
+    static ReferenceCountedObject<TCPNIOTransport>.Reference acquireTransport(final TCPNIOTransport transport,
+            final ReferenceCountedObject<TCPNIOTransport> sharedTransport, final Options options,
+            final boolean isServer) {
+        if (transport == null && isDedicatedTransportRequested(options)) {
+            return new DedicatedTCPNIOTransport(options, isServer).acquire();
+        }
+        return sharedTransport.acquireIfNull(transport);
+    }
+
+    static boolean isDedicatedTransportRequested(final Options options) {
+        return options.get(TRANSPORT_DEDICATED)
+                || options.get(TRANSPORT_SELECTOR_THREADS) != null
+                || options.get(TRANSPORT_USE_WORKER_THREADS) != null
+                || options.get(TRANSPORT_WORKER_THREADS) != null
+                || options.get(TRANSPORT_POOLED_BUFFERS) != null;
+    }
+
+    private final Options options;
+    private final boolean isServer;
+
+    private DedicatedTCPNIOTransport(final Options options, final boolean isServer) {
+        this.options = Options.copyOf(options);
+        this.isServer = isServer;
+    }
+
+    @Override
+    protected void destroyInstance(final TCPNIOTransport instance) {
+        try {
+            instance.shutdownNow();
+        } catch (final IOException e) {
+            // TODO: I18N
+            logger.warn(LocalizableMessage.raw("An error occurred while shutting down the Grizzly transport", e));
+        }
+    }
+
+    @Override
+    protected TCPNIOTransport newInstance() {
+        final TCPNIOTransportBuilder builder = TCPNIOTransportBuilder.newInstance();
+        final String poolNamePrefix = "OpenDJ LDAP SDK Grizzly dedicated " + (isServer ? "server " : "client ");
+        final int cpus = Runtime.getRuntime().availableProcessors();
+
+        final Boolean useWorkerThreadsOption = options.get(TRANSPORT_USE_WORKER_THREADS);
+        final boolean useWorkerThreadStrategy = useWorkerThreadsOption != null ? useWorkerThreadsOption : !isServer;
+        builder.setIOStrategy(useWorkerThreadStrategy
+                ? WorkerThreadIOStrategy.getInstance() : SameThreadIOStrategy.getInstance());
+
+        final Integer selectorsOption = options.get(TRANSPORT_SELECTOR_THREADS);
+        final int selectorThreadCount;
+        if (selectorsOption != null) {
+            selectorThreadCount = selectorsOption;
+        } else {
+            selectorThreadCount = useWorkerThreadStrategy ? Math.max(2, cpus / 4) : Math.max(5, (cpus / 2) - 1);
+        }
+        builder.setSelectorThreadPoolConfig(ThreadPoolConfig.defaultConfig()
+                                                            .setCorePoolSize(selectorThreadCount)
+                                                            .setMaxPoolSize(selectorThreadCount)
+                                                            .setPoolName(poolNamePrefix + "selector thread"));
+
+        if (useWorkerThreadStrategy) {
+            final Integer workersOption = options.get(TRANSPORT_WORKER_THREADS);
+            final int workerThreadCount = workersOption != null ? workersOption : Math.max(5, cpus * 2);
+            builder.setWorkerThreadPoolConfig(ThreadPoolConfig.defaultConfig()
+                                                              .setCorePoolSize(workerThreadCount)
+                                                              .setMaxPoolSize(workerThreadCount)
+                                                              .setPoolName(poolNamePrefix + "worker thread"));
+        }
+
+        final Boolean pooledBuffersOption = options.get(TRANSPORT_POOLED_BUFFERS);
+        if (pooledBuffersOption != null ? pooledBuffersOption : isServer) {
+            final long maxMemory = Runtime.getRuntime().maxMemory();
+            // Same sizing as the shared server transport: roughly 64MB, or 1% of small heaps.
+            final float heapPercent = maxMemory < 1024 * MB ? 0.01f : 64f * MB / maxMemory;
+            // Buffers are not pre-allocated: several dedicated transports may co-exist in the same JVM.
+            builder.setMemoryManager(new PooledMemoryManager(
+                    options.get(TRANSPORT_BUFFER_BASE_SIZE),
+                    options.get(TRANSPORT_BUFFER_SIZE_CLASSES),
+                    BUFFER_GROWTH_FACTOR,
+                    selectorThreadCount,
+                    heapPercent,
+                    0f,
+                    true));
+        } else {
+            builder.setMemoryManager(new HeapMemoryManager());
+        }
+
+        final TCPNIOTransport transport = builder.build();
+
+        // FIXME: raise bug in Grizzly. We should not need to do this, but
+        // failure to do so causes many deadlocks.
+        transport.setSelectorRunnersCount(selectorThreadCount);
+        try {
+            transport.start();
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return transport;
+    }
+}
@@ -13,11 +13,13 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.opendj.grizzly;
 
 import static com.forgerock.opendj.grizzly.GrizzlyMessages.LDAP_CONNECTION_CONNECT_TIMEOUT;
+import static org.forgerock.opendj.grizzly.DedicatedTCPNIOTransport.acquireTransport;
 import static org.forgerock.opendj.grizzly.DefaultTCPNIOTransport.DEFAULT_TRANSPORT;
 import static org.forgerock.opendj.grizzly.GrizzlyUtils.buildFilterChain;
 import static org.forgerock.opendj.grizzly.GrizzlyUtils.configureConnection;
@@ -167,8 +169,8 @@ public final class GrizzlyLDAPConnectionFactory implements LDAPConnectionFactory
     private final ReferenceCountedObject<TimeoutChecker>.Reference timeoutChecker = TIMEOUT_CHECKER.acquire();
 
     /**
-     * Grizzly TCP Transport NIO implementation to use for connections. If {@code null}, default transport will be
-     * used.
+     * Grizzly TCP Transport NIO implementation to use for connections. If {@code null}, a dedicated transport will be
+     * used if requested by the {@code TRANSPORT_*} options, or the default transport otherwise.
      */
     public static final Option<TCPNIOTransport> GRIZZLY_TRANSPORT = Option.of(TCPNIOTransport.class, null);
 
@@ -184,7 +186,7 @@ public final class GrizzlyLDAPConnectionFactory implements LDAPConnectionFactory
      *         The LDAP connection options to use when creating connections.
      */
     public GrizzlyLDAPConnectionFactory(final String host, final int port, final Options options) {
-        this.transport = DEFAULT_TRANSPORT.acquireIfNull(options.get(GRIZZLY_TRANSPORT));
+        this.transport = acquireTransport(options.get(GRIZZLY_TRANSPORT), DEFAULT_TRANSPORT, options, false);
         this.host = host;
         this.port = port;
         this.options = options;
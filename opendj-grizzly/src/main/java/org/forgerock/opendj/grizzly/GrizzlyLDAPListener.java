@@ -13,9 +13,11 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.grizzly;
 
+import static org.forgerock.opendj.grizzly.DedicatedTCPNIOTransport.acquireTransport;
 import static org.forgerock.opendj.grizzly.ServerTCPNIOTransport.SERVER_TRANSPORT;
 import static org.forgerock.opendj.ldap.LDAPListener.*;
 
@@ -88,8 +90,8 @@ public final class GrizzlyLDAPListener implements LDAPListenerImpl {
      * @param options
      *            The LDAP listener options.
      * @param transport
-     *            Grizzly TCP Transport NIO implementation to use for connections. If {@code null}, default transport
-     *            will be used.
+     *            Grizzly TCP Transport NIO implementation to use for connections. If {@code null}, a dedicated
+     *            transport will be used if requested by the options, or the default transport otherwise.
      * @throws IOException
      *             If an error occurred while trying to listen on the provided address.
      */
@@ -99,7 +101,7 @@ public final class GrizzlyLDAPListener implements LDAPListenerImpl {
                            LdapException> requestHandlerFactory,
             final Options options, TCPNIOTransport transport) throws IOException {
 
-        this.transport = SERVER_TRANSPORT.acquireIfNull(transport);
+        this.transport = acquireTransport(transport, SERVER_TRANSPORT, options, true);
         this.options = Options.copyOf(options);
         final LDAPServerFilter serverFilter = new LDAPServerFilter(requestHandlerFactory, options,
                 options.get(LDAP_DECODE_OPTIONS), options.get(MAX_CONCURRENT_REQUESTS));
@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.grizzly;
 
@@ -265,6 +266,38 @@ public class GrizzlyLDAPListenerTestCase extends SdkTestCase {
         }
     }
 
+    /**
+     * Tests LDAP listener and connection factory using their own dedicated transports.
+     *
+     * @throws Exception
+     *             If an unexpected exception occurred.
+     */
+    @Test(timeOut = 10000)
+    public void testLDAPListenerWithDedicatedTransports() throws Exception {
+        final MockServerConnection serverConnection = new MockServerConnection();
+        final MockServerConnectionFactory serverConnectionFactory =
+                new MockServerConnectionFactory(serverConnection);
+        final LDAPListener listener = new LDAPListener(Collections.singleton(loopbackWithDynamicPort()),
+                new ServerConnectionFactoryAdapter(Options.defaultOptions().get(LDAP_DECODE_OPTIONS),
+                        serverConnectionFactory),
+                Options.defaultOptions().set(TRANSPORT_SELECTOR_THREADS, 1)
+                                        .set(TRANSPORT_POOLED_BUFFERS, true)
+                                        .set(TRANSPORT_BUFFER_BASE_SIZE, 512));
+        final InetSocketAddress addr = listener.firstSocketAddress();
+        final LDAPConnectionFactory factory = new LDAPConnectionFactory(addr.getHostName(), addr.getPort(),
+                Options.defaultOptions().set(TRANSPORT_USE_WORKER_THREADS, true)
+                                        .set(TRANSPORT_WORKER_THREADS, 2));
+        try {
+            final Connection connection = factory.getConnection();
+            assertThat(serverConnection.context.get(10, TimeUnit.SECONDS)).isNotNull();
+            connection.close();
+            assertThat(serverConnection.isClosed.await(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            factory.close();
+            listener.close();
+        }
+    }
+
     /**
      * Tests LDAP listener which attempts to open a connection to a remote
      * offline server at the point when the listener accepts the client
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.forgerock.opendj.ldap.tools;
 
@@ -368,6 +369,22 @@ public class AddRate extends ConsoleApplication {
         System.exit(filterExitCode(retCode));
     }
 
+    /**
+     * This method should be used to run this ldap tool programmatically.
+     * Output and errors will be printed on provided {@link PrintStream}.
+     *
+     * @param out
+     *            The {@link PrintStream} to use to write tool output.
+     * @param err
+     *            The {@link PrintStream} to use to write tool errors.
+     * @param args
+     *            The arguments to use with this tool.
+     * @return The code returned by the tool
+     */
+    public static int run(final PrintStream out, final PrintStream err, final String... args) {
+        return new AddRate(out, err).run(args);
+    }
+
     private BooleanArgument verbose;
     private BooleanArgument scriptFriendly;
 
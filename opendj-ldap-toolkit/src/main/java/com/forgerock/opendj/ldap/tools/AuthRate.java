@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.forgerock.opendj.ldap.tools;
 
@@ -102,10 +103,11 @@ public final class AuthRate extends ConsoleApplication {
             }
         }
 
+        /**
+         * Builds new requests for each operation: in open-loop mode, several operations of a worker may be in
+         * progress at the same time.
+         */
         private final class BindWorkerThread extends WorkerThread {
-            private SearchRequest sr;
-            private BindRequest br;
-            private Object[] data;
             private final char[] invalidPassword = "invalid-password".toCharArray();
 
             private final ThreadLocal<Random> rng = new ThreadLocal<Random>() {
@@ -122,30 +124,27 @@ public final class AuthRate extends ConsoleApplication {
             @Override
             public Promise<?, LdapException> performOperation(final Connection connection,
                     final DataSource[] dataSources, final long currentTimeNs) {
+                final Object[] data;
                 if (dataSources != null) {
-                    data = DataSource.generateData(dataSources, data);
-                    if (data.length == dataSources.length) {
-                        final Object[] newData = new Object[data.length + 1];
-                        System.arraycopy(data, 0, newData, 0, data.length);
-                        data = newData;
-                    }
+                    // The last element receives the DN of the entry found by the search, if any
+                    data = DataSource.generateData(dataSources, new Object[dataSources.length + 1]);
+                } else if (filter != null && baseDN != null) {
+                    data = new Object[1];
+                } else {
+                    data = null;
                 }
 
                 Promise<BindResult, LdapException> returnedPromise;
                 if (filter != null && baseDN != null) {
-                    if (sr == null) {
-                        if (dataSources != null) {
-                            final String newBaseDN = String.format(baseDN, data);
-                            final String newFilter = String.format(filter, data);
-                            sr = Requests.newSearchRequest(newBaseDN, scope, newFilter, attributes);
-                        } else {
-                            sr = Requests.newSearchRequest(baseDN, scope, filter, attributes);
-                        }
-                        sr.setDereferenceAliasesPolicy(dereferencesAliasesPolicy);
-                    } else if (dataSources != null) {
-                        sr.setFilter(String.format(filter, data));
-                        sr.setName(String.format(baseDN, data));
+                    final SearchRequest sr;
+                    if (dataSources != null) {
+                        final String newBaseDN = String.format(baseDN, data);
+                        final String newFilter = String.format(filter, data);
+                        sr = Requests.newSearchRequest(newBaseDN, scope, newFilter, attributes);
+                    } else {
+                        sr = Requests.newSearchRequest(baseDN, scope, filter, attributes);
                     }
+                    sr.setDereferenceAliasesPolicy(dereferencesAliasesPolicy);
 
                     returnedPromise = connection.searchSingleEntryAsync(sr).thenAsync(
                             new AsyncFunction<SearchResultEntry, BindResult, LdapException>() {
@@ -153,9 +152,6 @@ public final class AuthRate extends ConsoleApplication {
                                 public Promise<BindResult, LdapException> apply(SearchResultEntry result)
                                         throws LdapException {
                                     searchWaitRecentTimeNs.inc(System.nanoTime() - currentTimeNs);
-                                    if (data == null) {
-                                        data = new Object[1];
-                                    }
                                     data[data.length - 1] = result.getName().toString();
 
                                     return performBind(connection, data);
@@ -190,13 +186,11 @@ public final class AuthRate extends ConsoleApplication {
                 }
 
                 final BindRequest bindRequest = bindRequestTemplate;
+                final BindRequest br;
                 if (bindRequest instanceof SimpleBindRequest) {
                     final SimpleBindRequest o = (SimpleBindRequest) bindRequest;
-                    if (br == null) {
-                        br = Requests.copyOfSimpleBindRequest(o);
-                    }
-
-                    final SimpleBindRequest sbr = (SimpleBindRequest) br;
+                    final SimpleBindRequest sbr = Requests.copyOfSimpleBindRequest(o);
+                    br = sbr;
                     if (data != null && o.getName() != null) {
                         sbr.setName(String.format(o.getName(), data));
                     }
@@ -207,11 +201,8 @@ public final class AuthRate extends ConsoleApplication {
                     }
                 } else if (bindRequest instanceof DigestMD5SASLBindRequest) {
                     final DigestMD5SASLBindRequest o = (DigestMD5SASLBindRequest) bindRequest;
-                    if (br == null) {
-                        br = Requests.copyOfDigestMD5SASLBindRequest(o);
-                    }
-
-                    final DigestMD5SASLBindRequest sbr = (DigestMD5SASLBindRequest) br;
+                    final DigestMD5SASLBindRequest sbr = Requests.copyOfDigestMD5SASLBindRequest(o);
+                    br = sbr;
                     if (data != null) {
                         if (o.getAuthenticationID() != null) {
                             sbr.setAuthenticationID(String.format(o.getAuthenticationID(), data));
@@ -227,11 +218,8 @@ public final class AuthRate extends ConsoleApplication {
                     }
                 } else if (bindRequest instanceof CRAMMD5SASLBindRequest) {
                     final CRAMMD5SASLBindRequest o = (CRAMMD5SASLBindRequest) bindRequest;
-                    if (br == null) {
-                        br = Requests.copyOfCRAMMD5SASLBindRequest(o);
-                    }
-
-                    final CRAMMD5SASLBindRequest sbr = (CRAMMD5SASLBindRequest) br;
+                    final CRAMMD5SASLBindRequest sbr = Requests.copyOfCRAMMD5SASLBindRequest(o);
+                    br = sbr;
                     if (data != null && o.getAuthenticationID() != null) {
                         sbr.setAuthenticationID(String.format(o.getAuthenticationID(), data));
                     }
@@ -242,11 +230,8 @@ public final class AuthRate extends ConsoleApplication {
                     }
                 } else if (bindRequest instanceof GSSAPISASLBindRequest) {
                     final GSSAPISASLBindRequest o = (GSSAPISASLBindRequest) bindRequest;
-                    if (br == null) {
-                        br = Requests.copyOfGSSAPISASLBindRequest(o);
-                    }
-
-                    final GSSAPISASLBindRequest sbr = (GSSAPISASLBindRequest) br;
+                    final GSSAPISASLBindRequest sbr = Requests.copyOfGSSAPISASLBindRequest(o);
+                    br = sbr;
                     if (data != null) {
                         if (o.getAuthenticationID() != null) {
                             sbr.setAuthenticationID(String.format(o.getAuthenticationID(), data));
@@ -262,21 +247,15 @@ public final class AuthRate extends ConsoleApplication {
                     }
                 } else if (bindRequest instanceof ExternalSASLBindRequest) {
                     final ExternalSASLBindRequest o = (ExternalSASLBindRequest) bindRequest;
-                    if (br == null) {
-                        br = Requests.copyOfExternalSASLBindRequest(o);
-                    }
-
-                    final ExternalSASLBindRequest sbr = (ExternalSASLBindRequest) br;
+                    final ExternalSASLBindRequest sbr = Requests.copyOfExternalSASLBindRequest(o);
+                    br = sbr;
                     if (data != null && o.getAuthorizationID() != null) {
                         sbr.setAuthorizationID(String.format(o.getAuthorizationID(), data));
                     }
                 } else if (bindRequest instanceof PlainSASLBindRequest) {
                     final PlainSASLBindRequest o = (PlainSASLBindRequest) bindRequest;
-                    if (br == null) {
-                        br = Requests.copyOfPlainSASLBindRequest(o);
-                    }
-
-                    final PlainSASLBindRequest sbr = (PlainSASLBindRequest) br;
+                    final PlainSASLBindRequest sbr = Requests.copyOfPlainSASLBindRequest(o);
+                    br = sbr;
                     if (data != null) {
                         if (o.getAuthenticationID() != null) {
                             sbr.setAuthenticationID(String.format(o.getAuthenticationID(), data));
@@ -290,6 +269,8 @@ public final class AuthRate extends ConsoleApplication {
                     } else {
                         sbr.setPassword(o.getPassword());
                     }
+                } else {
+                    br = bindRequest;
                 }
 
                 return connection.bindAsync(br);
@@ -338,6 +319,22 @@ public final class AuthRate extends ConsoleApplication {
         System.exit(filterExitCode(retCode));
     }
 
+    /**
+     * This method should be used to run this ldap tool programmatically.
+     * Output and errors will be printed on provided {@link PrintStream}.
+     *
+     * @param out
+     *            The {@link PrintStream} to use to write tool output.
+     * @param err
+     *            The {@link PrintStream} to use to write tool errors.
+     * @param args
+     *            The arguments to use with this tool.
+     * @return The code returned by the tool
+     */
+    public static int run(final PrintStream out, final PrintStream err, final String... args) {
+        return new AuthRate(out, err).run(args);
+    }
+
     private BooleanArgument verbose;
     private BooleanArgument scriptFriendly;
 
@@ -13,9 +13,12 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.forgerock.opendj.ldap.tools;
 
+import java.io.PrintStream;
+
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.ldap.Connection;
 import org.forgerock.opendj.ldap.ConnectionFactory;
@@ -125,6 +128,22 @@ public final class ModRate extends ConsoleApplication {
         System.exit(filterExitCode(retCode));
     }
 
+    /**
+     * This method should be used to run this ldap tool programmatically.
+     * Output and errors will be printed on provided {@link PrintStream}.
+     *
+     * @param out
+     *            The {@link PrintStream} to use to write tool output.
+     * @param err
+     *            The {@link PrintStream} to use to write tool errors.
+     * @param args
+     *            The arguments to use with this tool.
+     * @return The code returned by the tool
+     */
+    public static int run(final PrintStream out, final PrintStream err, final String... args) {
+        return new ModRate(out, err).run(args);
+    }
+
     private BooleanArgument verbose;
     private BooleanArgument scriptFriendly;
 
@@ -132,6 +151,10 @@ public final class ModRate extends ConsoleApplication {
         // Nothing to do.
     }
 
+    private ModRate(final PrintStream out, final PrintStream err) {
+        super(out, err);
+    }
+
     @Override
     public boolean isInteractive() {
         return false;
@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.forgerock.opendj.ldap.tools;
 
@@ -23,10 +24,15 @@ import static org.forgerock.util.Utils.*;
 
 import static com.forgerock.opendj.ldap.tools.ToolsMessages.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.ldap.Connection;
@@ -37,6 +43,7 @@ import org.forgerock.opendj.ldap.LdapResultHandler;
 import org.forgerock.opendj.ldap.requests.BindRequest;
 import org.forgerock.opendj.ldap.responses.ExtendedResult;
 import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.util.promise.ExceptionHandler;
 import org.forgerock.util.promise.Promise;
 
 import com.forgerock.opendj.cli.ArgumentException;
@@ -44,12 +51,68 @@ import com.forgerock.opendj.cli.ArgumentParser;
 import com.forgerock.opendj.cli.BooleanArgument;
 import com.forgerock.opendj.cli.ConsoleApplication;
 import com.forgerock.opendj.cli.IntegerArgument;
+import com.forgerock.opendj.cli.MultiChoiceArgument;
 import com.forgerock.opendj.cli.StringArgument;
 import com.forgerock.opendj.util.StaticUtils;
 
 /** Benchmark application framework. */
 abstract class PerformanceRunner implements ConnectionEventListener {
     private static final double[] DEFAULT_PERCENTILES = new double[] { 99.9, 99.99, 99.999 };
+    /** A ramp step achieving less than this ratio of its target throughput means the server is saturated. */
+    private static final double SATURATION_RATIO = 0.9;
+
+    /** Distribution of the intervals between two requests in open-loop mode. */
+    enum ArrivalDistribution {
+        /** Requests are sent at a fixed interval. */
+        CONSTANT {
+            @Override
+            long nextIntervalNs(final double ratePerSecond) {
+                return (long) (SECONDS.toNanos(1) / ratePerSecond);
+            }
+        },
+        /** Requests are sent at exponentially distributed intervals, as independent clients would do. */
+        POISSON {
+            @Override
+            long nextIntervalNs(final double ratePerSecond) {
+                final double uniform = ThreadLocalRandom.current().nextDouble();
+                return (long) (-Math.log(1.0 - uniform) * SECONDS.toNanos(1) / ratePerSecond);
+            }
+        };
+
+        abstract long nextIntervalNs(double ratePerSecond);
+    }
+
+    /**
+     * Intended start times of the requests sent by an open-loop worker. The intended start times only depend on
+     * the arrival distribution, never on the time at which the previous requests were actually sent: when the
+     * worker falls behind, the next intended start times are in the past, the requests are sent immediately, and
+     * their response times, measured from the intended start times, include the delay.
+     */
+    static final class OpenLoopSchedule {
+        private final ArrivalDistribution arrivalDistribution;
+        private long intendedStartTimeNs;
+
+        OpenLoopSchedule(final ArrivalDistribution arrivalDistribution, final long startTimeNs) {
+            this.arrivalDistribution = arrivalDistribution;
+            this.intendedStartTimeNs = startTimeNs;
+        }
+
+        /**
+         * Waits for the intended start time of the next request, unless it is already past.
+         *
+         * @param ratePerSecond
+         *            the current target rate of this worker
+         * @return the intended start time of the next request, in {@link System#nanoTime()} time
+         */
+        long awaitNextStartTime(final double ratePerSecond) {
+            intendedStartTimeNs += arrivalDistribution.nextIntervalNs(ratePerSecond);
+            long waitTimeNs;
+            while ((waitTimeNs = intendedStartTimeNs - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(waitTimeNs);
+            }
+            return intendedStartTimeNs;
+        }
+    }
 
     class TimerThread extends Thread {
         private final long timeToWait;
@@ -74,6 +137,47 @@ abstract class PerformanceRunner implements ConnectionEventListener {
         }
     }
 
+    /**
+     * Increases the open-loop target throughput step by step, until the server no longer sustains it or
+     * the tool is stopped.
+     */
+    class RampThread extends Thread {
+        RampThread() {
+            super("Ramp Thread");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long lastCompletedCount = completedOperations.get();
+            long lastTimeNs = System.nanoTime();
+            while (!stopRequested) {
+                try {
+                    Thread.sleep(rampStepDurationMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                final long completedCount = completedOperations.get();
+                final long timeNs = System.nanoTime();
+                final double achievedThroughput =
+                        (completedCount - lastCompletedCount) * (double) SECONDS.toNanos(1) / (timeNs - lastTimeNs);
+                if (stopRequested) {
+                    return;
+                } else if (achievedThroughput < SATURATION_RATIO * currentTargetThroughput) {
+                    app.println(LocalizableMessage.raw(String.format(
+                            "Saturation reached: %.1f operations per second achieved for a target of %d, "
+                                    + "last sustained target was %d", achievedThroughput, currentTargetThroughput,
+                            currentTargetThroughput - rampStep)));
+                    stopTool();
+                    return;
+                }
+                currentTargetThroughput += rampStep;
+                lastCompletedCount = completedCount;
+                lastTimeNs = timeNs;
+            }
+        }
+    }
+
     /**
      * Statistics update result handler implementation.
      *
@@ -127,6 +231,11 @@ abstract class PerformanceRunner implements ConnectionEventListener {
 
         @Override
         public void run() {
+            if (openLoop) {
+                runOpenLoop();
+                return;
+            }
+
             Promise<?, LdapException> promise;
             Connection connection;
             final double targetTimeMs = 1000.0 / (targetThroughput / (double) (numThreads * numConnections));
@@ -184,6 +293,89 @@ abstract class PerformanceRunner implements ConnectionEventListener {
             }
         }
 
+        /**
+         * Sends requests at the intended times given by the target throughput and the arrival distribution,
+         * without waiting for the responses of the previous requests. Response times are measured from the
+         * intended send times, so that a server stall is accounted for in the response time of every request
+         * which should have been sent during the stall. The number of requests awaiting a response is bounded:
+         * once the limit is reached, requests are delayed, which shows up in their response time. Binds cannot
+         * be pipelined, so requests are sent one at a time on a kept open connection which is rebound, or whose
+         * operation is a bind.
+         */
+        private void runOpenLoop() {
+            final int numWorkers = numThreads * numConnections;
+            final Semaphore window = this.connection != null && (!supportsRebind || (!noRebind && bindRequest != null))
+                    ? new Semaphore(1) : outstandingRequests;
+            final OpenLoopSchedule schedule = new OpenLoopSchedule(arrivalDistribution, System.nanoTime());
+            while (!stopRequested && !localStopRequested
+                    && (maxIterations <= 0 || count < maxIterations)) {
+                final long intendedStartTimeNs =
+                        schedule.awaitNextStartTime(currentTargetThroughput / (double) numWorkers);
+                if (stopRequested) {
+                    break;
+                }
+
+                final Connection connection;
+                try {
+                    acquire(window);
+                } catch (final InterruptedException e) {
+                    // Ignore and check stop requested
+                    continue;
+                }
+                try {
+                    connection = getConnectionToUse();
+                } catch (final InterruptedException e) {
+                    release(window);
+                    continue;
+                } catch (final LdapException e) {
+                    release(window);
+                    handleConnectionError(false, e);
+                    break;
+                }
+
+                final Promise<?, LdapException> promise =
+                        performOperation(connection, dataSources.get(), intendedStartTimeNs);
+                statsThread.incrementOperationCount();
+                promise.thenOnException(new ExceptionHandler<LdapException>() {
+                    @Override
+                    public void handleException(final LdapException e) {
+                        if (!stopRequested && e.getCause() instanceof IOException) {
+                            e.getCause().printStackTrace(app.getErrorStream());
+                            stopTool(true);
+                        }
+                    }
+                }).thenAlways(new Runnable() {
+                    @Override
+                    public void run() {
+                        completedOperations.incrementAndGet();
+                        release(window);
+                        if (WorkerThread.this.connection == null) {
+                            connection.close();
+                        }
+                    }
+                });
+            }
+        }
+
+        private void acquire(final Semaphore window) throws InterruptedException {
+            outstandingRequests.acquire();
+            if (window != outstandingRequests) {
+                try {
+                    window.acquire();
+                } catch (final InterruptedException e) {
+                    outstandingRequests.release();
+                    throw e;
+                }
+            }
+        }
+
+        private void release(final Semaphore window) {
+            if (window != outstandingRequests) {
+                window.release();
+            }
+            outstandingRequests.release();
+        }
+
         private Connection getConnectionToUse() throws InterruptedException, LdapException {
             if (this.connection == null) {
                 return connectionFactory.getConnectionAsync().getOrThrow();
@@ -224,12 +416,22 @@ abstract class PerformanceRunner implements ConnectionEventListener {
     private boolean stopRequested;
 
     private int targetThroughput;
+    private boolean openLoop;
+    private ArrivalDistribution arrivalDistribution;
+    private Semaphore outstandingRequests;
+    private int rampStep;
+    private long rampStepDurationMs;
+    /** Open-loop target throughput, updated by the ramp. */
+    private volatile int currentTargetThroughput;
+    /** Number of open-loop requests which received a response. */
+    private final AtomicLong completedOperations = new AtomicLong();
     private int maxIterations;
     /** Warm-up duration time in ms. */
     private long warmUpDurationMs;
     /** Max duration time in ms, 0 for unlimited. */
     private long maxDurationTimeMs;
     private boolean noRebind;
+    private final boolean supportsRebind;
     private BindRequest bindRequest;
     private int statsIntervalMs;
     private final IntegerArgument numThreadsArgument;
@@ -241,6 +443,12 @@ abstract class PerformanceRunner implements ConnectionEventListener {
     private final BooleanArgument keepConnectionsOpen;
     private final BooleanArgument noRebindArgument;
     private final StringArgument arguments;
+    private final StringArgument jsonReportArgument;
+    private final BooleanArgument openLoopArgument;
+    private final MultiChoiceArgument<ArrivalDistribution> arrivalDistributionArgument;
+    private final IntegerArgument maxOutstandingRequestsArgument;
+    private final IntegerArgument rampStepArgument;
+    private final IntegerArgument rampStepDurationArgument;
     protected final IntegerArgument maxIterationsArgument;
     protected final IntegerArgument warmUpArgument;
 
@@ -251,6 +459,7 @@ abstract class PerformanceRunner implements ConnectionEventListener {
         ArgumentParser argParser = options.getArgumentParser();
 
         this.app = options.getConsoleApplication();
+        this.supportsRebind = options.supportsRebind();
 
         numThreadsArgument =
                 IntegerArgument.builder("numThreads")
@@ -351,6 +560,53 @@ abstract class PerformanceRunner implements ConnectionEventListener {
         if (options.supportsGeneratorArgument()) {
             argParser.addArgument(arguments);
         }
+
+        jsonReportArgument =
+                StringArgument.builder("jsonReport")
+                        .description(LocalizableMessage.raw("Write a summary of the whole run, including response "
+                                + "time percentiles, to the provided file in JSON format"))
+                        .valuePlaceholder(LocalizableMessage.raw("{jsonReportFile}"))
+                        .buildAndAddToParser(argParser);
+
+        openLoopArgument =
+                BooleanArgument.builder("openLoop")
+                        .description(LocalizableMessage.raw("Send requests at the target throughput without "
+                                + "waiting for responses, and measure response times from the time each request "
+                                + "should have been sent, so that server stalls are fully accounted for "
+                                + "(requires a target throughput)"))
+                        .buildAndAddToParser(argParser);
+        arrivalDistributionArgument =
+                MultiChoiceArgument.<ArrivalDistribution>builder("arrivalDistribution")
+                        .description(LocalizableMessage.raw("Distribution of the intervals between requests in "
+                                + "open-loop mode: constant, or poisson to simulate independent clients"))
+                        .allowedValues(ArrivalDistribution.values())
+                        .defaultValue(ArrivalDistribution.CONSTANT)
+                        .valuePlaceholder(LocalizableMessage.raw("{constant|poisson}"))
+                        .buildAndAddToParser(argParser);
+        maxOutstandingRequestsArgument =
+                IntegerArgument.builder("maxOutstandingRequests")
+                        .description(LocalizableMessage.raw("Maximum number of requests awaiting a response in "
+                                + "open-loop mode, further requests are delayed until responses are received"))
+                        .lowerBound(1)
+                        .defaultValue(1000)
+                        .valuePlaceholder(LocalizableMessage.raw("{maxOutstandingRequests}"))
+                        .buildAndAddToParser(argParser);
+        rampStepArgument =
+                IntegerArgument.builder("rampStep")
+                        .description(LocalizableMessage.raw("Increase the open-loop target throughput by this "
+                                + "amount at each ramp step, until the server no longer sustains it. "
+                                + "0 for a constant target throughput"))
+                        .lowerBound(0)
+                        .defaultValue(0)
+                        .valuePlaceholder(LocalizableMessage.raw("{rampStep}"))
+                        .buildAndAddToParser(argParser);
+        rampStepDurationArgument =
+                IntegerArgument.builder("rampStepDuration")
+                        .description(LocalizableMessage.raw("Duration in seconds of each ramp step"))
+                        .lowerBound(1)
+                        .defaultValue(10)
+                        .valuePlaceholder(LocalizableMessage.raw("{rampStepDuration}"))
+                        .buildAndAddToParser(argParser);
     }
 
     @Override
@@ -385,6 +641,23 @@ abstract class PerformanceRunner implements ConnectionEventListener {
 
         noRebind = noRebindArgument.isPresent();
 
+        openLoop = openLoopArgument.isPresent();
+        arrivalDistribution = arrivalDistributionArgument.getTypedValue();
+        outstandingRequests = new Semaphore(maxOutstandingRequestsArgument.getIntValue());
+        rampStep = rampStepArgument.getIntValue();
+        rampStepDurationMs = rampStepDurationArgument.getIntValue() * 1000L;
+        currentTargetThroughput = targetThroughput;
+
+        if (openLoop && targetThroughput <= 0) {
+            throw new ArgumentException(ERR_TOOL_ARG_MUST_BE_USED_WHEN_ARG_CONDITION.get(
+                "--" + targetThroughputArgument.getLongIdentifier(), "--" + openLoopArgument.getLongIdentifier(),
+                "used"));
+        }
+        if (rampStep > 0 && !openLoop) {
+            throw new ArgumentException(ERR_TOOL_ARG_MUST_BE_USED_WHEN_ARG_CONDITION.get(
+                "--" + openLoopArgument.getLongIdentifier(), "--" + rampStepArgument.getLongIdentifier(), "> 0"));
+        }
+
         if (!noRebindArgument.isPresent() && this.numThreads > 1) {
             throw new ArgumentException(ERR_TOOL_ARG_MUST_BE_USED_WHEN_ARG_CONDITION.get(
                 "--" + noRebindArgument.getLongIdentifier(), "--" + numThreadsArgument.getLongIdentifier(), "> 1"));
@@ -436,6 +709,9 @@ abstract class PerformanceRunner implements ConnectionEventListener {
             if (maxDurationTimeMs > 0) {
                 newEndTimerThread(maxDurationTimeMs).start();
             }
+            if (rampStep > 0) {
+                new RampThread().start();
+            }
 
             statsThread.startReporting();
             joinAllWorkerThreads();
@@ -466,6 +742,17 @@ abstract class PerformanceRunner implements ConnectionEventListener {
         if (!stopRequested) {
             stopRequested = true;
             statsThread.stopRecording(stoppedByError);
+            if (!stoppedByError && jsonReportArgument.isPresent()) {
+                writeJsonReport(new File(jsonReportArgument.getValue()));
+            }
+        }
+    }
+
+    private void writeJsonReport(final File file) {
+        try {
+            statsThread.writeJsonReport(file);
+        } catch (final IOException e) {
+            app.errPrintln(LocalizableMessage.raw("Unable to write the JSON report to " + file + ": " + e));
         }
     }
 
@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.forgerock.opendj.ldap.tools;
 
@@ -23,6 +24,7 @@ import static com.forgerock.opendj.cli.Utils.*;
 import static com.forgerock.opendj.ldap.tools.ToolsMessages.*;
 import static com.forgerock.opendj.cli.CommonArguments.*;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -170,6 +172,22 @@ public final class SearchRate extends ConsoleApplication {
         System.exit(filterExitCode(retCode));
     }
 
+    /**
+     * This method should be used to run this ldap tool programmatically.
+     * Output and errors will be printed on provided {@link PrintStream}.
+     *
+     * @param out
+     *            The {@link PrintStream} to use to write tool output.
+     * @param err
+     *            The {@link PrintStream} to use to write tool errors.
+     * @param args
+     *            The arguments to use with this tool.
+     * @return The code returned by the tool
+     */
+    public static int run(final PrintStream out, final PrintStream err, final String... args) {
+        return new SearchRate(out, err).run(args);
+    }
+
     private BooleanArgument verbose;
     private BooleanArgument scriptFriendly;
     private StatsThread.IntervalCounter entryCount = StatsThread.newIntervalCounter();
@@ -178,6 +196,10 @@ public final class SearchRate extends ConsoleApplication {
         // Nothing to do.
     }
 
+    private SearchRate(final PrintStream out, final PrintStream err) {
+        super(out, err);
+    }
+
     @Override
     public boolean isInteractive() {
         return false;
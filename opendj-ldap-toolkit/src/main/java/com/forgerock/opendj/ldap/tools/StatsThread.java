@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.forgerock.opendj.ldap.tools;
 
@@ -20,11 +21,15 @@ import static com.forgerock.opendj.cli.MultiColumnPrinter.separatorColumn;
 import static com.forgerock.opendj.ldap.tools.ToolsMessages.INFO_TOOL_WARMING_UP;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.SortedMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -38,6 +43,7 @@ import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.RatioGauge;
 import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.Timer;
 import com.forgerock.opendj.cli.ConsoleApplication;
 import com.forgerock.opendj.cli.MultiColumnPrinter;
@@ -60,6 +66,9 @@ class StatsThread extends Thread {
     private static final String PERCENTILES = STAT_ID_PREFIX + "percentiles";
     private static final String ERROR_PER_SECOND = STAT_ID_PREFIX + "error_per_second";
 
+    /** Percentiles always written in the JSON report, in addition to the requested ones. */
+    private static final double[] JSON_REPORT_PERCENTILES = new double[] { 50.0, 90.0, 99.0 };
+
     public static final double MS_IN_S = TimeUnit.SECONDS.toMillis(1);
     public static final double NS_IN_MS = TimeUnit.MILLISECONDS.toNanos(1);
 
@@ -389,6 +398,55 @@ class StatsThread extends Thread {
         reporter.report();
     }
 
+    /**
+     * Writes a summary of the whole run to the provided file in JSON format: operation counts, average throughput
+     * and response times, with the response time percentiles computed from the HDR histogram. The summary reflects
+     * the statistics as of the last report, it is therefore meant to be written once recording has been stopped.
+     */
+    void writeJsonReport(final File file) throws IOException {
+        final Snapshot snapshot = responseTimes.getSnapshot();
+        final long operations = successCount.getLastTotalCount() + errorCount.getLastTotalCount();
+        final double durationS = durationMsCount.getLastTotalCount() / MS_IN_S;
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.println("{");
+            writeJsonField(writer, "durationSeconds", durationS);
+            writeJsonField(writer, "operations", operations);
+            writeJsonField(writer, "successes", successCount.getLastTotalCount());
+            writeJsonField(writer, "errors", errorCount.getLastTotalCount());
+            writeJsonField(writer, "throughput", durationS > 0 ? operations / durationS : 0);
+            writeJsonField(writer, "errorsPerSecond", durationS > 0 ? errorCount.getLastTotalCount() / durationS : 0);
+            writeJsonField(writer, "responseTimeMeanMs", snapshot.getMean() / NS_IN_MS);
+            writeJsonField(writer, "responseTimeMaxMs", snapshot.getMax() / NS_IN_MS);
+            writer.println("  \"responseTimePercentilesMs\": {");
+            final List<Double> allPercentiles = new ArrayList<>();
+            for (final double percentile : JSON_REPORT_PERCENTILES) {
+                allPercentiles.add(percentile);
+            }
+            for (final double percentile : percentiles) {
+                if (!allPercentiles.contains(percentile)) {
+                    allPercentiles.add(percentile);
+                }
+            }
+            Collections.sort(allPercentiles);
+            for (int i = 0; i < allPercentiles.size(); i++) {
+                final double percentile = allPercentiles.get(i);
+                writer.print(String.format(Locale.ROOT, "    \"%s\": %.3f", percentile,
+                                           snapshot.getValue(percentile / 100.0) / NS_IN_MS));
+                writer.println(i < allPercentiles.size() - 1 ? "," : "");
+            }
+            writer.println("  }");
+            writer.println("}");
+        }
+    }
+
+    private static void writeJsonField(final PrintWriter writer, final String name, final double value) {
+        writer.println(String.format(Locale.ROOT, "  \"%s\": %.3f,", name, value));
+    }
+
+    private static void writeJsonField(final PrintWriter writer, final String name, final long value) {
+        writer.println(String.format(Locale.ROOT, "  \"%s\": %d,", name, value));
+    }
+
     void addResponseTime(final long responseTimeNs) {
         // The computed response time might be negative if the difference between the two
         // System.nanoTime() calls (Just before sending the request and right after receiving the response)
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.forgerock.opendj.ldap.tools;
 
@@ -20,7 +21,12 @@ import static com.forgerock.opendj.ldap.tools.ToolsMessages.ERR_ERROR_PARSING_AR
 import static com.forgerock.opendj.ldap.tools.ToolsMessages.INFO_TOOL_WARMING_UP;
 import static org.fest.assertions.Assertions.assertThat;
 
+import java.io.File;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.forgerock.opendj.ldap.ByteStringBuilder;
 import org.forgerock.opendj.ldap.TestCaseUtils;
@@ -52,6 +58,15 @@ public class AuthRateITCase extends ToolsITCase {
                      "-g", "rand(0,1000)", "-D", "uid=%d,ou=people,o=test", "-w", "password",
                      "-i", "1", "-c", "1", "-m", "10", "-f", "-S", "-B", "0"),
                 THROUGHPUT_TEXT, "" },
+
+            // Open-loop test case
+            {
+                args("-h", TestCaseUtils.getServerSocketAddress().getHostName(),
+                     "-p", Integer.toString(TestCaseUtils.getServerSocketAddress().getPort()),
+                     "-g", "rand(0,1000)", "-D", "uid=%d,ou=people,o=test", "-w", "password",
+                     "-i", "1", "-c", "1", "-m", "10", "-f", "-S", "-B", "0",
+                     "--openLoop", "-M", "100", "--arrivalDistribution", "poisson", "--maxOutstandingRequests", "4"),
+                THROUGHPUT_TEXT, "" },
         };
     }
 
@@ -79,4 +94,61 @@ public class AuthRateITCase extends ToolsITCase {
             }
         }
     }
+
+    @Test
+    public void testITAuthRateJsonReport() throws Exception {
+        final File report = File.createTempFile("authrate", ".json");
+        report.deleteOnExit();
+        ByteStringBuilder out = new ByteStringBuilder();
+        ByteStringBuilder err = new ByteStringBuilder();
+
+        try (PrintStream outStream = new PrintStream(out.asOutputStream());
+            PrintStream errStream = new PrintStream(err.asOutputStream())) {
+            final int returnCode = AuthRate.run(outStream, errStream,
+                    "-h", TestCaseUtils.getServerSocketAddress().getHostName(),
+                    "-p", Integer.toString(TestCaseUtils.getServerSocketAddress().getPort()),
+                    "-g", "rand(0,1000)", "-D", "uid=%d,ou=people,o=test", "-w", "password",
+                    "-i", "1", "-c", "1", "-m", "10", "-f", "-S", "-B", "0",
+                    "-e", "95", "--jsonReport", report.getPath());
+            assertThat(returnCode).isEqualTo(0);
+        }
+
+        final String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+        assertThat(json).contains("\"operations\"");
+        assertThat(json).contains("\"errors\": 0,");
+        assertThat(json).contains("\"throughput\"");
+        assertThat(json).contains("\"95.0\"");
+        assertThat(json).contains("\"99.0\"");
+    }
+
+    @Test
+    public void testITAuthRateOpenLoopSustainsTargetThroughput() throws Exception {
+        final File report = File.createTempFile("authrate", ".json");
+        report.deleteOnExit();
+        ByteStringBuilder out = new ByteStringBuilder();
+        ByteStringBuilder err = new ByteStringBuilder();
+
+        try (PrintStream outStream = new PrintStream(out.asOutputStream());
+            PrintStream errStream = new PrintStream(err.asOutputStream())) {
+            final int returnCode = AuthRate.run(outStream, errStream,
+                    "-h", TestCaseUtils.getServerSocketAddress().getHostName(),
+                    "-p", Integer.toString(TestCaseUtils.getServerSocketAddress().getPort()),
+                    "-g", "rand(0,1000)", "-D", "uid=%d,ou=people,o=test", "-w", "password",
+                    "-i", "1", "-c", "1", "-m", "300", "-f", "-S", "-B", "0",
+                    "--openLoop", "-M", "100", "--jsonReport", report.getPath());
+            assertThat(returnCode).isEqualTo(0);
+        }
+
+        final String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+        assertThat(json).contains("\"errors\": 0,");
+        // Requests are sent at their intended start times, neither faster nor slower than the target
+        assertThat(jsonField(json, "throughput")).isGreaterThan(80).isLessThan(120);
+        assertThat(jsonField(json, "responseTimeMeanMs")).isGreaterThanOrEqualTo(0);
+    }
+
+    private static double jsonField(final String json, final String name) {
+        final Matcher matcher = Pattern.compile("\"" + name + "\": ([0-9.]+),").matcher(json);
+        assertThat(matcher.find()).isTrue();
+        return Double.parseDouble(matcher.group(1));
+    }
 }
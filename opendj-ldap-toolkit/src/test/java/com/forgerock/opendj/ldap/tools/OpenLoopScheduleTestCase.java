@@ -0,0 +1,75 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.forgerock.opendj.ldap.tools;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+import com.forgerock.opendj.ldap.tools.PerformanceRunner.ArrivalDistribution;
+import com.forgerock.opendj.ldap.tools.PerformanceRunner.OpenLoopSchedule;
+
+/** Tests the open-loop scheduling of the {@link PerformanceRunner} tools. */
+@SuppressWarnings("javadoc")
+public final class OpenLoopScheduleTestCase extends ToolsTestCase {
+
+    @Test
+    public void constantScheduleFollowsTheTargetRate() {
+        final long startTimeNs = System.nanoTime();
+        final OpenLoopSchedule schedule = new OpenLoopSchedule(ArrivalDistribution.CONSTANT, startTimeNs);
+
+        for (int i = 1; i <= 50; i++) {
+            assertThat(schedule.awaitNextStartTime(1000)).isEqualTo(startTimeNs + i * MILLISECONDS.toNanos(1));
+        }
+        // Waited for the intended start times: 50 requests at 1000 per second take at least 50 ms
+        assertThat(System.nanoTime() - startTimeNs).isGreaterThanOrEqualTo(MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void intendedStartTimesDoNotDependOnStalls() throws Exception {
+        final long startTimeNs = System.nanoTime();
+        final OpenLoopSchedule schedule = new OpenLoopSchedule(ArrivalDistribution.CONSTANT, startTimeNs);
+        assertThat(schedule.awaitNextStartTime(1000)).isEqualTo(startTimeNs + MILLISECONDS.toNanos(1));
+
+        // The worker stalls, for instance because the server does not answer
+        Thread.sleep(100);
+
+        // The requests which should have been sent during the stall are sent immediately, and their response
+        // times, measured from their intended start times, include the time spent in the stall
+        final long intendedStartTimeNs = schedule.awaitNextStartTime(1000);
+        assertThat(intendedStartTimeNs).isEqualTo(startTimeNs + MILLISECONDS.toNanos(2));
+        assertThat(System.nanoTime() - intendedStartTimeNs).isGreaterThanOrEqualTo(MILLISECONDS.toNanos(98));
+        for (int i = 3; i <= 50; i++) {
+            assertThat(schedule.awaitNextStartTime(1000)).isEqualTo(startTimeNs + i * MILLISECONDS.toNanos(1));
+        }
+        assertThat(System.nanoTime() - startTimeNs).isLessThan(MILLISECONDS.toNanos(1000));
+    }
+
+    @Test
+    public void poissonIntervalsAverageToTheTargetRate() {
+        final int samples = 100000;
+        long totalNs = 0;
+        for (int i = 0; i < samples; i++) {
+            final long intervalNs = ArrivalDistribution.POISSON.nextIntervalNs(1000);
+            assertThat(intervalNs).isGreaterThanOrEqualTo(0);
+            totalNs += intervalNs;
+        }
+        final double meanIntervalNs = totalNs / (double) samples;
+        assertThat(meanIntervalNs).isGreaterThan(0.95 * MILLISECONDS.toNanos(1));
+        assertThat(meanIntervalNs).isLessThan(1.05 * MILLISECONDS.toNanos(1));
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.rest2ldap;
 
@@ -335,15 +336,26 @@ public final class ReferencePropertyMapper extends AbstractLdapPropertyMapper<Re
         final Set<String> requestedLDAPAttributes = new LinkedHashSet<>();
         mapper.getLdapAttributes(path, new JsonPointer(), requestedLDAPAttributes);
 
-        final Filter searchFilter = filter != null ? filter : Filter.alwaysTrue();
         final String[] attributes = requestedLDAPAttributes.toArray(new String[requestedLDAPAttributes.size()]);
-        final SearchRequest request = newSearchRequest(dn, SearchScope.BASE_OBJECT, searchFilter, attributes);
+        final Promise<SearchResultEntry, LdapException> promise;
+        if (context.containsContext(ReferenceResolver.class)) {
+            // Let the resolver batch this read together with the other references of the current request.
+            promise = context.asContext(ReferenceResolver.class)
+                             .readEntry(baseDnTemplate.format(context), scope, filter, attributes, dn);
+        } else {
+            final Filter searchFilter = filter != null ? filter : Filter.alwaysTrue();
+            final SearchRequest request = newSearchRequest(dn, SearchScope.BASE_OBJECT, searchFilter, attributes);
+            promise = connectionFrom(context).searchSingleEntryAsync(request);
+        }
 
-        return connectionFrom(context)
-                .searchSingleEntryAsync(request)
+        return promise
                 .thenAsync(new AsyncFunction<SearchResultEntry, JsonValue, ResourceException>() {
                     @Override
                     public Promise<JsonValue, ResourceException> apply(final SearchResultEntry result) {
+                        if (result == null) {
+                            // The resolver could not find the referenced entry.
+                            return Promises.newResultPromise(null);
+                        }
                         return mapper.read(context, resource, path, result);
                     }
                 }, new AsyncFunction<LdapException, JsonValue, ResourceException>() {
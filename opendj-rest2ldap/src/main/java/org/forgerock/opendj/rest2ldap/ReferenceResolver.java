@@ -0,0 +1,247 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.opendj.rest2ldap;
+
+import static org.forgerock.opendj.ldap.requests.Requests.newSearchRequest;
+import static org.forgerock.opendj.rest2ldap.Utils.connectionFrom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.opendj.ldap.AVA;
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.EntryNotFoundException;
+import org.forgerock.opendj.ldap.Filter;
+import org.forgerock.opendj.ldap.LdapException;
+import org.forgerock.opendj.ldap.RDN;
+import org.forgerock.opendj.ldap.SearchResultHandler;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.Result;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.responses.SearchResultReference;
+import org.forgerock.services.context.AbstractContext;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.ExceptionHandler;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.promise.PromiseImpl;
+import org.forgerock.util.promise.ResultHandler;
+
+/**
+ * A {@link Context} which resolves the entries targeted by {@link ReferencePropertyMapper reference} properties on
+ * behalf of a single request. Rather than reading each referenced entry individually, references are collected while
+ * the request's own LDAP searches are in progress and are then resolved using a single search per batch whose filter
+ * is the disjunction of the referenced entries' RDNs. Identical references are only resolved once and, if
+ * {@link Rest2Ldap#CACHE_REFERENCES enabled}, resolved entries are re-used for the remainder of the request.
+ * <p>
+ * Pending references are flushed whenever a batch becomes full or when there are no more outstanding searches which
+ * could contribute new references. The creator of the resolver holds an implicit outstanding search which must be
+ * released by calling {@link #release()} once it will no longer contribute references.
+ */
+final class ReferenceResolver extends AbstractContext {
+    /** Groups the references which can be resolved using the same search. */
+    private final class Batch {
+        private final DN baseDn;
+        private final SearchScope scope;
+        private final Filter filter;
+        private final String[] attributes;
+        private final Map<DN, PromiseImpl<SearchResultEntry, LdapException>> references = new LinkedHashMap<>();
+
+        private Batch(final DN baseDn, final SearchScope scope, final Filter filter, final String[] attributes) {
+            this.baseDn = baseDn;
+            this.scope = scope;
+            this.filter = filter;
+            this.attributes = attributes;
+        }
+
+        private void search() {
+            final List<Filter> subFilters = new ArrayList<>(references.size());
+            for (final DN dn : references.keySet()) {
+                subFilters.add(rdnFilter(dn.rdn()));
+            }
+            final Filter referencesFilter = subFilters.size() == 1 ? subFilters.get(0) : Filter.or(subFilters);
+            final Filter searchFilter = filter != null ? Filter.and(filter, referencesFilter) : referencesFilter;
+            final SearchRequest request = newSearchRequest(baseDn, scope, searchFilter, attributes);
+            connection.searchAsync(request, new SearchResultHandler() {
+                @Override
+                public boolean handleEntry(final SearchResultEntry entry) {
+                    // Other entries having the same RDN may be returned, so only keep those which were requested.
+                    final PromiseImpl<SearchResultEntry, LdapException> promise = references.remove(entry.getName());
+                    if (promise != null) {
+                        promise.handleResult(entry);
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean handleReference(final SearchResultReference reference) {
+                    // Ignore references.
+                    return true;
+                }
+            }).thenOnResult(new ResultHandler<Result>() {
+                @Override
+                public void handleResult(final Result result) {
+                    // The remaining references do not exist or do not match the filter.
+                    for (final PromiseImpl<SearchResultEntry, LdapException> promise : references.values()) {
+                        promise.handleResult(null);
+                    }
+                    searchCompleted();
+                }
+            }).thenOnException(new ExceptionHandler<LdapException>() {
+                @Override
+                public void handleException(final LdapException exception) {
+                    // The server may not accept large filters, so fall back to reading the remaining entries.
+                    for (final Map.Entry<DN, PromiseImpl<SearchResultEntry, LdapException>> reference
+                            : references.entrySet()) {
+                        read(reference.getKey(), filter, attributes, reference.getValue());
+                    }
+                    searchCompleted();
+                }
+            });
+        }
+    }
+
+    private final Connection connection;
+    private final int batchSize;
+    private final boolean cacheReferences;
+
+    /** The following fields are guarded by this resolver. */
+    private final Map<String, Batch> pendingBatches = new LinkedHashMap<>();
+    private final Map<String, Promise<SearchResultEntry, LdapException>> resolvedReferences = new HashMap<>();
+    private int outstandingSearches = 1;
+
+    ReferenceResolver(final Context parent, final int batchSize, final boolean cacheReferences) {
+        super(parent, "reference resolver");
+        this.connection = connectionFrom(parent);
+        this.batchSize = batchSize;
+        this.cacheReferences = cacheReferences;
+    }
+
+    /**
+     * Returns the entry having the provided DN if it exists below the provided base DN and matches the provided
+     * filter. The returned promise completes with {@code null} if there is no such entry.
+     */
+    Promise<SearchResultEntry, LdapException> readEntry(final DN baseDn, final SearchScope scope,
+                                                        final Filter filter, final String[] attributes,
+                                                        final DN dn) {
+        final String batchKey = baseDn + "|" + scope + "|" + filter + "|" + Arrays.toString(attributes);
+        final String referenceKey = batchKey + "|" + dn;
+        final PromiseImpl<SearchResultEntry, LdapException> promise;
+        final boolean canBatch = batchSize > 1 && !dn.isRootDN() && dn.isInScopeOf(baseDn, scope);
+        Batch fullBatch = null;
+        synchronized (this) {
+            final Promise<SearchResultEntry, LdapException> resolved = resolvedReferences.get(referenceKey);
+            if (resolved != null) {
+                return resolved;
+            }
+            promise = PromiseImpl.create();
+            resolvedReferences.put(referenceKey, promise);
+            if (canBatch) {
+                Batch batch = pendingBatches.get(batchKey);
+                if (batch == null) {
+                    batch = new Batch(baseDn, scope, filter, attributes);
+                    pendingBatches.put(batchKey, batch);
+                }
+                batch.references.put(dn, promise);
+                if (batch.references.size() >= batchSize || outstandingSearches == 0) {
+                    pendingBatches.remove(batchKey);
+                    outstandingSearches++;
+                    fullBatch = batch;
+                }
+            }
+        }
+        if (!cacheReferences) {
+            forget(referenceKey, promise);
+        }
+        if (fullBatch != null) {
+            fullBatch.search();
+        } else if (!canBatch) {
+            read(dn, filter, attributes, promise);
+        }
+        return promise;
+    }
+
+    /** Releases the implicit search held by the creator of this resolver, flushing any pending references. */
+    void release() {
+        searchCompleted();
+    }
+
+    private void searchCompleted() {
+        final List<Batch> batches;
+        synchronized (this) {
+            if (--outstandingSearches > 0 || pendingBatches.isEmpty()) {
+                return;
+            }
+            batches = new ArrayList<>(pendingBatches.values());
+            pendingBatches.clear();
+            outstandingSearches += batches.size();
+        }
+        for (final Batch batch : batches) {
+            batch.search();
+        }
+    }
+
+    private void forget(final String referenceKey, final Promise<SearchResultEntry, LdapException> promise) {
+        // Identical references are still shared while they are being resolved.
+        promise.thenAlways(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (ReferenceResolver.this) {
+                    resolvedReferences.remove(referenceKey);
+                }
+            }
+        });
+    }
+
+    private void read(final DN dn, final Filter filter, final String[] attributes,
+                      final PromiseImpl<SearchResultEntry, LdapException> promise) {
+        final Filter searchFilter = filter != null ? filter : Filter.alwaysTrue();
+        connection.searchSingleEntryAsync(newSearchRequest(dn, SearchScope.BASE_OBJECT, searchFilter, attributes))
+                  .thenOnResult(new ResultHandler<SearchResultEntry>() {
+                      @Override
+                      public void handleResult(final SearchResultEntry entry) {
+                          promise.handleResult(entry);
+                      }
+                  })
+                  .thenOnException(new ExceptionHandler<LdapException>() {
+                      @Override
+                      public void handleException(final LdapException exception) {
+                          if (exception instanceof EntryNotFoundException) {
+                              promise.handleResult(null);
+                          } else {
+                              promise.handleException(exception);
+                          }
+                      }
+                  });
+    }
+
+    private static Filter rdnFilter(final RDN rdn) {
+        if (rdn.size() == 1) {
+            final AVA ava = rdn.getFirstAVA();
+            return Filter.equality(ava.getAttributeName(), ava.getAttributeValue());
+        }
+        final List<Filter> subFilters = new ArrayList<>(rdn.size());
+        for (final AVA ava : rdn) {
+            subFilters.add(Filter.equality(ava.getAttributeName(), ava.getAttributeValue()));
+        }
+        return Filter.and(subFilters);
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  *
  */
 package org.forgerock.opendj.rest2ldap;
@@ -128,6 +129,24 @@ public final class Rest2Ldap {
      * default Rest2Ldap will use the subtree delete control and use of the control is strongly recommended.
      */
     public static final Option<Boolean> USE_SUBTREE_DELETE = Option.withDefault(true);
+    /**
+     * Specifies the maximum number of referenced LDAP entries which Rest2Ldap should resolve using a single LDAP search
+     * when reading the {@link ReferencePropertyMapper reference} properties of query results. A value of one or less
+     * reads each referenced entry individually. By default Rest2Ldap will resolve up to 100 references per search.
+     */
+    public static final Option<Integer> REFERENCE_BATCH_SIZE = Option.withDefault(100);
+    /**
+     * Specifies whether Rest2Ldap should re-use referenced LDAP entries which have already been resolved for the
+     * remainder of the request which referenced them. By default Rest2Ldap will cache referenced entries.
+     */
+    public static final Option<Boolean> CACHE_REFERENCES = Option.withDefault(true);
+    /**
+     * Specifies the number of LDAP entries which Rest2Ldap should read at a time when processing queries which do not
+     * request paged results. Each page is only read once all the resources of the previous page have been returned,
+     * which bounds the memory used by large queries. A value of zero reads all the entries using a single LDAP search.
+     * By default Rest2Ldap will read all the entries using a single LDAP search.
+     */
+    public static final Option<Integer> QUERY_PAGE_SIZE = Option.withDefault(0);
 
     /**
      * Creates a new {@link Rest2Ldap} instance using the provided options and {@link Resource resources}.
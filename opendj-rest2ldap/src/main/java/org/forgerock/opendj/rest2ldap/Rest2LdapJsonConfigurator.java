@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  *
  */
 package org.forgerock.opendj.rest2ldap;
@@ -97,7 +98,10 @@ public final class Rest2LdapJsonConfigurator {
      *      "useSubtreeDelete": true,
      *      "usePermissiveModify": true,
      *      "useMvcc": true
-     *      "mvccAttribute": "etag"
+     *      "mvccAttribute": "etag",
+     *      "referenceBatchSize": 100,
+     *      "cacheReferences": true,
+     *      "queryPageSize": 1000
      * }
      * </pre>
      * <p>
@@ -123,6 +127,9 @@ public final class Rest2LdapJsonConfigurator {
 
         options.set(USE_MVCC, config.get("useMvcc").defaultTo(true).asBoolean());
         options.set(MVCC_ATTRIBUTE, config.get("mvccAttribute").defaultTo("etag").asString());
+        options.set(REFERENCE_BATCH_SIZE, config.get("referenceBatchSize").defaultTo(100).asInteger());
+        options.set(CACHE_REFERENCES, config.get("cacheReferences").defaultTo(true).asBoolean());
+        options.set(QUERY_PAGE_SIZE, config.get("queryPageSize").defaultTo(0).asInteger());
 
         return options;
     }
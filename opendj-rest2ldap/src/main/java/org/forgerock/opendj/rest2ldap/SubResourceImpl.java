@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.rest2ldap;
 
@@ -138,6 +139,9 @@ final class SubResourceImpl {
     private final ReadOnUpdatePolicy readOnUpdatePolicy;
     private final boolean useSubtreeDelete;
     private final boolean usePermissiveModify;
+    private final int referenceBatchSize;
+    private final int queryPageSize;
+    private final boolean cacheReferences;
     private final Resource resource;
     private final Attribute glueObjectClasses;
 
@@ -149,6 +153,9 @@ final class SubResourceImpl {
         this.etagAttribute = rest2Ldap.getOptions().get(USE_MVCC)
                 ? AttributeDescription.valueOf(rest2Ldap.getOptions().get(MVCC_ATTRIBUTE)) : null;
         this.decodeOptions = rest2Ldap.getOptions().get(DECODE_OPTIONS);
+        this.referenceBatchSize = rest2Ldap.getOptions().get(REFERENCE_BATCH_SIZE);
+        this.queryPageSize = rest2Ldap.getOptions().get(QUERY_PAGE_SIZE);
+        this.cacheReferences = rest2Ldap.getOptions().get(CACHE_REFERENCES);
         this.baseDn = baseDn;
         this.glueObjectClasses = glueObjectClasses;
         this.namingStrategy = namingStrategy;
@@ -680,6 +687,7 @@ final class SubResourceImpl {
     private AsyncFunction<Filter, QueryResponse, ResourceException> runQuery(
             final Context context, final QueryRequest request, final QueryResourceHandler resourceHandler) {
         return new AsyncFunction<Filter, QueryResponse, ResourceException>() {
+            private final PromiseImpl<QueryResponse, ResourceException> promise = PromiseImpl.create();
             // The following fields are guarded by sequenceLock. In addition, the sequenceLock ensures that
             // we send one JSON resource at a time back to the client.
             private final Object sequenceLock = new Object();
@@ -688,6 +696,15 @@ final class SubResourceImpl {
             private int pendingResourceCount;
             private boolean resultSent;
             private int totalResourceCount;
+            private boolean isAbandoned;
+            /** The cookie of the next page to read if the query is internally paged, {@code null} otherwise. */
+            private ByteString nextPageCookie;
+
+            // The following fields are only modified when the query is started.
+            private Filter searchFilter;
+            private String[] attributes;
+            private int pageResultStartIndex;
+            private boolean isInternallyPaged;
 
             @Override
             public Promise<QueryResponse, ResourceException> apply(final Filter ldapFilter) {
@@ -695,18 +712,13 @@ final class SubResourceImpl {
                     // Avoid performing a search if the filter could not be mapped or if it will never match.
                     return newQueryResponse().asPromise();
                 }
-                final PromiseImpl<QueryResponse, ResourceException> promise = PromiseImpl.create();
-                // Perform the search.
-                final String[] attributes = getLdapAttributesForUnknownType(request.getFields()).toArray(new String[0]);
-                final Filter searchFilter = ldapFilter == Filter.alwaysTrue() ? Filter.objectClassPresent()
-                        : ldapFilter;
-                final SearchRequest searchRequest = newSearchRequest(baseDn, SINGLE_LEVEL, searchFilter, attributes);
+                attributes = getLdapAttributesForUnknownType(request.getFields()).toArray(new String[0]);
+                searchFilter = ldapFilter == Filter.alwaysTrue() ? Filter.objectClassPresent() : ldapFilter;
 
                 // Add the page results control. We can support the page offset by reading the next offset pages, or
                 // offset x page size resources.
-                final int pageResultStartIndex;
                 final int pageSize = request.getPageSize();
-                if (request.getPageSize() > 0) {
+                if (pageSize > 0) {
                     final int pageResultEndIndex;
                     if (request.getPagedResultsOffset() > 0) {
                         pageResultStartIndex = request.getPagedResultsOffset() * pageSize;
@@ -717,18 +729,36 @@ final class SubResourceImpl {
                     }
                     final ByteString cookie = request.getPagedResultsCookie() != null
                             ? ByteString.valueOfBase64(request.getPagedResultsCookie()) : ByteString.empty();
-                    final SimplePagedResultsControl control =
-                            SimplePagedResultsControl.newControl(true, pageResultEndIndex, cookie);
-                    searchRequest.addControl(control);
+                    searchPage(SimplePagedResultsControl.newControl(true, pageResultEndIndex, cookie));
+                } else if (queryPageSize > 0) {
+                    /*
+                     * Read the whole result set one page at a time, only reading the next page once all the resources
+                     * of the current page have been sent back to the client. This way the LDAP server does not send
+                     * results faster than they can be mapped and the number of resources held in memory is bounded by
+                     * the page size. The control is not critical, so servers not supporting it return all the results.
+                     */
+                    isInternallyPaged = true;
+                    searchPage(SimplePagedResultsControl.newControl(false, queryPageSize, ByteString.empty()));
                 } else {
-                    pageResultStartIndex = 0;
+                    searchPage(null);
                 }
+                return promise;
+            }
 
+            private void searchPage(final SimplePagedResultsControl control) {
+                final SearchRequest searchRequest = newSearchRequest(baseDn, SINGLE_LEVEL, searchFilter, attributes);
+                if (control != null) {
+                    searchRequest.addControl(control);
+                }
+                // Resolve the references of all the resources of the page together once the search has completed.
+                final ReferenceResolver referenceResolver =
+                        new ReferenceResolver(context, referenceBatchSize, cacheReferences);
                 connectionFrom(context).searchAsync(searchRequest, new SearchResultHandler() {
                     @Override
                     public boolean handleEntry(final SearchResultEntry entry) {
                         // Search result entries will be returned before the search result/error so the only reason
-                        // pendingResult will be non-null is if a mapping error has occurred.
+                        // pendingResult will be non-null is if a mapping error has occurred or if the client does not
+                        // want more resources.
                         synchronized (sequenceLock) {
                             if (pendingResult != null) {
                                 return false;
@@ -755,7 +785,8 @@ final class SubResourceImpl {
                         final String id = namingStrategy.decodeResourceId(entry);
                         final String revision = getRevisionFromEntry(entry);
                         final Resource subType = resource.resolveSubTypeFromObjectClasses(entry);
-                        final RoutingContext dnAndType = newRoutingContext(context, entry.getName(), subType);
+                        final RoutingContext dnAndType =
+                                newRoutingContext(referenceResolver, entry.getName(), subType);
                         final PropertyMapper propertyMapper = subType.getPropertyMapper();
                         propertyMapper.read(dnAndType, subType, ROOT, entry)
                                       .thenOnResult(new ResultHandler<JsonValue>() {
@@ -763,12 +794,18 @@ final class SubResourceImpl {
                                           public void handleResult(final JsonValue result) {
                                               synchronized (sequenceLock) {
                                                   pendingResourceCount--;
-                                                  if (!resultSent) {
-                                                      resourceHandler.handleResource(
-                                                              newResourceResponse(id, revision, result));
+                                                  if (!resultSent && !isAbandoned
+                                                          && !resourceHandler.handleResource(
+                                                                  newResourceResponse(id, revision, result))) {
+                                                      // The client does not want any more resources.
+                                                      isAbandoned = true;
+                                                      if (pendingResult == null) {
+                                                          pendingResult = SUCCESS;
+                                                      }
                                                   }
                                                   completeIfNecessary(promise);
                                               }
+                                              searchNextPageIfNecessary();
                                           }
                                       })
                                       .thenOnException(new ExceptionHandler<ResourceException>() {
@@ -778,6 +815,7 @@ final class SubResourceImpl {
                                                   pendingResourceCount--;
                                                   completeIfNecessary(exception, promise);
                                               }
+                                              searchNextPageIfNecessary();
                                           }
                                       });
                         return true;
@@ -793,19 +831,29 @@ final class SubResourceImpl {
                     @Override
                     public void handleResult(Result result) {
                         synchronized (sequenceLock) {
-                            if (request.getPageSize() > 0) {
-                                try {
-                                    final SimplePagedResultsControl control =
-                                            result.getControl(SimplePagedResultsControl.DECODER, decodeOptions);
-                                    if (control != null && !control.getCookie().isEmpty()) {
-                                        cookie = control.getCookie().toBase64String();
-                                    }
-                                } catch (final DecodeException e) {
-                                    logger.error(ERR_DECODING_CONTROL.get(e.getLocalizedMessage()), e);
+                            ByteString pageCookie = null;
+                            try {
+                                final SimplePagedResultsControl control =
+                                        result.getControl(SimplePagedResultsControl.DECODER, decodeOptions);
+                                if (control != null && !control.getCookie().isEmpty()) {
+                                    pageCookie = control.getCookie();
                                 }
+                            } catch (final DecodeException e) {
+                                logger.error(ERR_DECODING_CONTROL.get(e.getLocalizedMessage()), e);
+                            }
+                            if (!isInternallyPaged) {
+                                if (pageCookie != null && request.getPageSize() > 0) {
+                                    cookie = pageCookie.toBase64String();
+                                }
+                                completeIfNecessary(SUCCESS, promise);
+                            } else if (pageCookie != null && pendingResult == null) {
+                                nextPageCookie = pageCookie;
+                            } else {
+                                completeIfNecessary(SUCCESS, promise);
                             }
-                            completeIfNecessary(SUCCESS, promise);
                         }
+                        referenceResolver.release();
+                        searchNextPageIfNecessary();
                     }
                 }).thenOnException(new ExceptionHandler<LdapException>() {
                     @Override
@@ -818,10 +866,30 @@ final class SubResourceImpl {
                                 completeIfNecessary(asResourceException(e), promise);
                             }
                         }
+                        referenceResolver.release();
                     }
                 });
+            }
 
-                return promise;
+            /**
+             * Read the next page of an internally paged query once all the resources of the current page have been
+             * sent back to the client.
+             */
+            private void searchNextPageIfNecessary() {
+                final ByteString pageCookie;
+                synchronized (sequenceLock) {
+                    if (nextPageCookie == null || pendingResourceCount > 0) {
+                        return;
+                    }
+                    pageCookie = nextPageCookie;
+                    nextPageCookie = null;
+                    if (pendingResult != null) {
+                        // A mapping error occurred or the client does not want more resources.
+                        completeIfNecessary(promise);
+                        return;
+                    }
+                }
+                searchPage(SimplePagedResultsControl.newControl(false, queryPageSize, pageCookie));
             }
 
             /** This method must be invoked with the sequenceLock held. */
@@ -839,7 +907,7 @@ final class SubResourceImpl {
              * This method must be invoked with the sequenceLock held.
              */
             private void completeIfNecessary(final PromiseImpl<QueryResponse, ResourceException> handler) {
-                if (pendingResourceCount == 0 && pendingResult != null && !resultSent) {
+                if (pendingResourceCount == 0 && pendingResult != null && nextPageCookie == null && !resultSent) {
                     if (pendingResult == SUCCESS) {
                         handler.handleResult(newQueryResponse(cookie));
                     } else {
@@ -860,8 +928,16 @@ final class SubResourceImpl {
                              @Override
                              public Promise<ResourceResponse, ResourceException> apply(SearchResultEntry entry) {
                                  final Resource subType = resource.resolveSubTypeFromObjectClasses(entry);
-                                 final RoutingContext dnAndType = newRoutingContext(context, entry.getName(), subType);
-                                 return encodeResourceResponse(dnAndType, subType, entry);
+                                 final ReferenceResolver referenceResolver =
+                                         new ReferenceResolver(context, referenceBatchSize, cacheReferences);
+                                 final RoutingContext dnAndType =
+                                         newRoutingContext(referenceResolver, entry.getName(), subType);
+                                 try {
+                                     return encodeResourceResponse(dnAndType, subType, entry);
+                                 } finally {
+                                     // Resolve the references of multi-valued reference properties together.
+                                     referenceResolver.release();
+                                 }
                              }
                          });
     }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.opendj.rest2ldap;
 
@@ -30,6 +31,9 @@ import static org.forgerock.opendj.ldap.Connections.newInternalConnectionFactory
 import static org.forgerock.opendj.ldap.Functions.byteStringToInteger;
 import static org.forgerock.opendj.rest2ldap.Rest2Ldap.collectionOf;
 import static org.forgerock.opendj.rest2ldap.Rest2Ldap.constant;
+import static org.forgerock.opendj.rest2ldap.Rest2Ldap.QUERY_PAGE_SIZE;
+import static org.forgerock.opendj.rest2ldap.Rest2Ldap.REFERENCE_BATCH_SIZE;
+import static org.forgerock.opendj.rest2ldap.Rest2Ldap.reference;
 import static org.forgerock.opendj.rest2ldap.Rest2Ldap.rest2Ldap;
 import static org.forgerock.opendj.rest2ldap.Rest2Ldap.object;
 import static org.forgerock.opendj.rest2ldap.Rest2Ldap.resource;
@@ -53,6 +57,7 @@ import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.NotSupportedException;
 import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.opendj.ldap.ConnectionFactory;
@@ -62,6 +67,7 @@ import org.forgerock.opendj.ldap.MemoryBackend;
 import org.forgerock.opendj.ldap.RequestContext;
 import org.forgerock.opendj.ldap.RequestHandler;
 import org.forgerock.opendj.ldap.SearchResultHandler;
+import org.forgerock.opendj.ldap.controls.SimplePagedResultsControl;
 import org.forgerock.opendj.ldap.requests.AddRequest;
 import org.forgerock.opendj.ldap.requests.BindRequest;
 import org.forgerock.opendj.ldap.requests.CompareRequest;
@@ -78,6 +84,7 @@ import org.forgerock.opendj.ldap.responses.Result;
 import org.forgerock.opendj.ldif.LDIFEntryReader;
 import org.forgerock.services.context.Context;
 import org.forgerock.testng.ForgeRockTestCase;
+import org.forgerock.util.Options;
 import org.forgerock.util.query.QueryFilter;
 import org.testng.annotations.Test;
 
@@ -102,6 +109,81 @@ public final class BasicRequestsTest extends ForgeRockTestCase {
         assertThat(result.getTotalPagedResults()).isEqualTo(-1);
     }
 
+    @Test
+    public void testQueryResolvesReferencesInBatches() throws Exception {
+        final Connection connection = newInternalConnection(usersApi(defaultOptions()).newRequestHandlerFor("api"));
+        final List<Request> requests = new ArrayList<>();
+        final List<ResourceResponse> resources = new LinkedList<>();
+        connection.query(newAuthConnectionContext(requests), newQueryRequest("").setQueryFilter(NO_FILTER), resources);
+
+        assertThat(resources).hasSize(5);
+        assertThat(resources.get(3).getContent().get("seeAlso").asList()).containsOnly("test1");
+        assertThat(resources.get(4).getContent().get("seeAlso").asList()).containsOnly("test1", "test2");
+        // The primary search followed by a single search for all the distinct references.
+        assertThat(requests).hasSize(2);
+    }
+
+    @Test
+    public void testQueryResolvesReferencesIndividually() throws Exception {
+        final Options options = defaultOptions().set(REFERENCE_BATCH_SIZE, 1);
+        final Connection connection = newInternalConnection(usersApi(options).newRequestHandlerFor("api"));
+        final List<Request> requests = new ArrayList<>();
+        final List<ResourceResponse> resources = new LinkedList<>();
+        connection.query(newAuthConnectionContext(requests), newQueryRequest("").setQueryFilter(NO_FILTER), resources);
+
+        assertThat(resources).hasSize(5);
+        assertThat(resources.get(4).getContent().get("seeAlso").asList()).containsOnly("test1", "test2");
+        // The primary search followed by a read of each distinct reference.
+        assertThat(requests).hasSize(3);
+    }
+
+    @Test
+    public void testReadResolvesReferencesInBatches() throws Exception {
+        final Connection connection = newInternalConnection(usersApi(defaultOptions()).newRequestHandlerFor("api"));
+        final List<Request> requests = new ArrayList<>();
+        final ResourceResponse resource = connection.read(newAuthConnectionContext(requests),
+                                                          newReadRequest("/test5"));
+        assertThat(resource.getContent().get("seeAlso").asList()).containsOnly("test1", "test2");
+        assertThat(requests).hasSize(2);
+    }
+
+    @Test
+    public void testQueryInternallyPaged() throws Exception {
+        final Options options = defaultOptions().set(QUERY_PAGE_SIZE, 2);
+        final Connection connection = newInternalConnection(usersApi(options).newRequestHandlerFor("api"));
+        final List<Request> requests = new ArrayList<>();
+        final List<ResourceResponse> resources = new LinkedList<>();
+        final QueryResponse result = connection.query(
+                newAuthConnectionContext(requests), newQueryRequest("").setQueryFilter(NO_FILTER), resources);
+
+        assertThat(resources).hasSize(5);
+        assertThat(resources.get(0).getId()).isEqualTo("test1");
+        assertThat(resources.get(4).getId()).isEqualTo("test5");
+        assertThat(result.getPagedResultsCookie()).isNull();
+        // Three pages of entries, each followed by the search for the references of the page.
+        assertThat(requests).hasSize(5);
+        assertThat(((SearchRequest) requests.get(0)).containsControl(SimplePagedResultsControl.OID)).isTrue();
+    }
+
+    @Test
+    public void testQueryStopsWhenResourceHandlerDoesNotWantMoreResources() throws Exception {
+        final Options options = defaultOptions().set(QUERY_PAGE_SIZE, 2);
+        final Connection connection = newInternalConnection(usersApi(options).newRequestHandlerFor("api"));
+        final List<Request> requests = new ArrayList<>();
+        final List<ResourceResponse> resources = new LinkedList<>();
+        connection.query(newAuthConnectionContext(requests), newQueryRequest("").setQueryFilter(NO_FILTER),
+                         new QueryResourceHandler() {
+                             @Override
+                             public boolean handleResource(final ResourceResponse resource) {
+                                 resources.add(resource);
+                                 return false;
+                             }
+                         });
+
+        assertThat(resources).hasSize(1);
+        assertThat(requests).hasSize(1);
+    }
+
     @Test
     public void testQueryNone() throws Exception {
         final Connection connection = newConnection();
@@ -607,7 +689,11 @@ public final class BasicRequestsTest extends ForgeRockTestCase {
     }
 
     private Rest2Ldap usersApi() throws IOException {
-        return rest2Ldap(defaultOptions(),
+        return usersApi(defaultOptions());
+    }
+
+    private Rest2Ldap usersApi(final Options options) throws IOException {
+        return rest2Ldap(options,
                          resource("api").subResource(collectionOf("user").dnTemplate("dc=test")
                                                                          .useClientDnNaming("uid")),
                          resource("user").objectClasses("top", "person")
@@ -622,7 +708,10 @@ public final class BasicRequestsTest extends ForgeRockTestCase {
                                                    simple("singleNumber").decoder(byteStringToInteger()))
                                          .property("multiNumber",
                                                    simple("multiNumber").isMultiValued(true)
-                                                                        .decoder(byteStringToInteger())));
+                                                                        .decoder(byteStringToInteger()))
+                                         .property("seeAlso",
+                                                   reference("seeAlso", "dc=test", "uid", simple("uid"))
+                                                           .isMultiValued(true)));
     }
 
     private void checkResourcesAreEqual(final ResourceResponse actual, final JsonValue expected) {
@@ -684,6 +773,7 @@ public final class BasicRequestsTest extends ForgeRockTestCase {
                         "cn: test user 4",
                         "sn: user 4",
                         "etag: 44444",
+                        "seeAlso: uid=test1,dc=test",
                         "",
                         "dn: uid=test5,dc=test",
                         "objectClass: top",
@@ -692,7 +782,9 @@ public final class BasicRequestsTest extends ForgeRockTestCase {
                         "userpassword: password",
                         "cn: test user 5",
                         "sn: user 5",
-                        "etag: 55555"
+                        "etag: 55555",
+                        "seeAlso: uid=test1,dc=test",
+                        "seeAlso: uid=test2,dc=test"
                 ));
         // @formatter:on
 
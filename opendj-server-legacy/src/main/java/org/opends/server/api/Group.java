@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.api;
 
@@ -22,6 +23,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.server.config.server.GroupImplementationCfg;
@@ -212,6 +214,30 @@ public abstract class Group<T extends GroupImplementationCfg>
    */
   public abstract List<DN> getNestedGroupDNs();
 
+  /**
+   * Retrieves the normalized DNs of the entries explicitly listed as
+   * members of this group, nested groups included, when the
+   * membership of this group is entirely determined by such a list.
+   * The group manager uses them to maintain its reverse membership
+   * index, so that it does not have to call {@code isMember} on this
+   * group for every entry. The returned DNs must reflect the current
+   * members of this group when they are iterated, and groups returning
+   * them must report any change of their members to
+   * {@code GroupManager.updateMembershipIndex}.
+   * <BR><BR>
+   * The default implementation returns {@code null}, meaning that the
+   * membership of this group depends on the contents of the member
+   * entries or on other groups and cannot be indexed.
+   *
+   * @return  The normalized DNs of the entries explicitly listed as
+   *          members of this group, or {@code null} if the membership
+   *          of this group cannot be determined from such a list.
+   */
+  public Iterable<ByteString> getIndexableMemberDNs()
+  {
+    return null;
+  }
+
   /**
    * Attempts to add the provided group DN as a nested group within
    * this group.  The change should be committed to persistent storage
@@ -13,18 +13,21 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.api;
 
 import static org.opends.messages.BackendMessages.*;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.forgerock.opendj.config.Configuration;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
@@ -331,6 +334,37 @@ public abstract class LocalBackend<C extends Configuration> extends Backend<C>
     return getEntry(entryDN) != null;
   }
 
+  /**
+   * Retrieves the DNs of the entries at or below the provided base DN which contain any of the
+   * provided values for any of the provided attribute types, using only the equality indexes of
+   * this backend. Unlike an internal search, this bypasses the search operation processing, access
+   * control and logging, and is intended for internal components which only need to check the
+   * existence of a few values, such as uniqueness checks. The caller is not required to hold any
+   * locks.
+   * <p>
+   * This default implementation returns {@code null}: backends supporting equality index probes
+   * should override it.
+   *
+   * @param baseDN
+   *          The base DN below which matching entries must be located.
+   * @param attributeTypes
+   *          The attribute types which may contain the values.
+   * @param values
+   *          The assertion values to look for.
+   * @param sizeLimit
+   *          The maximum number of DNs to return.
+   * @return The DNs of at most {@code sizeLimit} matching entries, or {@code null} if this backend
+   *         cannot resolve the values using only its equality indexes, in which case the caller
+   *         should fall back to an internal search.
+   * @throws DirectoryException
+   *           If a problem occurs while reading the indexes or the matching entries.
+   */
+  public List<DN> findEntriesByEqualityIndex(DN baseDN, Collection<AttributeType> attributeTypes,
+      Collection<ByteString> values, int sizeLimit) throws DirectoryException
+  {
+    return null;
+  }
+
   /**
    * Retrieves the requested entry from this backend. The caller is not required to hold any locks
    * on the specified DN.
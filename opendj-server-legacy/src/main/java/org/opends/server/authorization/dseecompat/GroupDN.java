@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -132,7 +133,7 @@ class GroupDN implements KeywordBindRule {
         List<Attribute> attrs = e.getAllAttributes(attributeType);
         for(ByteString v : attrs.get(0)) {
             try {
-                DN groupDN = DN.valueOf(v.toString());
+                DN groupDN = DN.valueOf(v);
                 if(suffixDN != null && !groupDN.isSubordinateOrEqualTo(suffixDN))
                 {
                   continue;
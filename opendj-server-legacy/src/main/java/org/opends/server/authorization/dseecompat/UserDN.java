@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.authorization.dseecompat;
 
@@ -347,7 +348,7 @@ public class UserDN implements KeywordBindRule {
         List<Attribute> attrs =  e.getAllAttributes(attrType);
         for(ByteString v : attrs.get(0)) {
             try {
-                DN dn = DN.valueOf(v.toString());
+                DN dn = DN.valueOf(v);
                 if(dn.equals(clientDN)) {
                     return true;
                 }
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends;
 
@@ -805,7 +806,8 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     }
 
     final ReplicationDomainDB replicationDomainDB = getChangelogDB().getReplicationDomainDB();
-    CursorOptions options = new CursorOptions(GREATER_THAN_OR_EQUAL_TO_KEY, AFTER_MATCHING_KEY);
+    CursorOptions options =
+        new CursorOptions(GREATER_THAN_OR_EQUAL_TO_KEY, AFTER_MATCHING_KEY, null, entrySender.updateMsgFilter);
     try (final MultiDomainDBCursor cursor =
         replicationDomainDB.getCursorFrom(entrySender.cookie, options, entrySender.excludedBaseDNs);
         ECLMultiDomainDBCursor replicaUpdatesCursor = new ECLMultiDomainDBCursor(domainPredicate, cursor))
@@ -1589,10 +1591,13 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     private final long lowestChangeNumber;
     private final long highestChangeNumber;
     private final SendEntryData<Long> sendEntryData;
+    /** Filter skipping the changes which cannot match the search filter, {@code null} if none can be skipped. */
+    private final ChangelogUpdateMsgFilter updateMsgFilter;
 
     private ChangeNumberEntrySender(SearchOperation searchOp, SearchPhase startPhase, ChangeNumberRange range)
     {
       this.searchOp = searchOp;
+      this.updateMsgFilter = ChangelogUpdateMsgFilter.newInstance(searchOp.getFilter());
       this.sendEntryData = new SendEntryData<>(startPhase);
       this.lowestChangeNumber = range.lowerBound;
       this.highestChangeNumber = range.upperBound;
@@ -1630,6 +1635,10 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     {
       final DN baseDN = cnIndexRecord.getBaseDN();
       sendEntryData.initialSearchSendsEntry(cnIndexRecord.getChangeNumber());
+      if (updateMsgFilter != null && !updateMsgFilter.mayMatch(updateMsg))
+      {
+        return true;
+      }
       final Entry entry = createEntryFromMsg(baseDN, cnIndexRecord.getChangeNumber(), cookie.toString(), updateMsg);
       return sendEntryIfMatches(searchOp, entry, null);
     }
@@ -1651,11 +1660,19 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     private final MultiDomainServerState cookie;
     private final ConcurrentSkipListMap<ReplicaId, SendEntryData<CSN>> replicaIdToSendEntryData =
         new ConcurrentSkipListMap<>();
+    /**
+     * Whether the "initial search" phase has completed. Replicas first seen afterwards, for example because the
+     * "initial search" phase skipped all their changes, directly start in the "persistent search" phase.
+     */
+    private volatile boolean initialSearchFinalized;
+    /** Filter skipping the changes which cannot match the search filter, {@code null} if none can be skipped. */
+    private final ChangelogUpdateMsgFilter updateMsgFilter;
 
     private CookieEntrySender(SearchOperation searchOp, SearchPhase startPhase, MultiDomainServerState cookie,
         Set<DN> excludedBaseDNs)
     {
       this.searchOp = searchOp;
+      this.updateMsgFilter = ChangelogUpdateMsgFilter.newInstance(searchOp.getFilter());
       this.startPhase = startPhase;
       this.cookie = cookie;
       this.excludedBaseDNs = excludedBaseDNs;
@@ -1663,6 +1680,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
 
     private void finalizeInitialSearch()
     {
+      initialSearchFinalized = true;
       for (SendEntryData<CSN> sendEntryData : replicaIdToSendEntryData.values())
       {
         sendEntryData.finalizeInitialSearch();
@@ -1685,7 +1703,16 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       {
         final SendEntryData<CSN> newData = new SendEntryData<>(startPhase);
         data = replicaIdToSendEntryData.putIfAbsent(replicaId, newData);
-        return data == null ? newData : data;
+        if (data != null)
+        {
+          return data;
+        }
+        if (initialSearchFinalized)
+        {
+          // finalizeInitialSearch() may have iterated before this replica was added
+          newData.finalizeInitialSearch();
+        }
+        return newData;
       }
       return data;
     }
@@ -1703,6 +1730,10 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     private void persistentSearchSendEntry(DN baseDN, UpdateMsg updateMsg)
         throws DirectoryException
     {
+      if (updateMsgFilter != null && !updateMsgFilter.mayMatch(updateMsg))
+      {
+        return;
+      }
       final CSN csn = updateMsg.getCSN();
       final SendEntryData<CSN> sendEntryData = getSendEntryData(baseDN, csn);
       if (sendEntryData.persistentSearchCanSendEntry(csn))
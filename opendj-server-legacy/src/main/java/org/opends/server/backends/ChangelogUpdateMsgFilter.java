@@ -0,0 +1,241 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends;
+
+import static org.opends.server.util.CollectionUtils.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.util.Set;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ConditionResult;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.Schema;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.replication.protocol.AddMsg;
+import org.opends.server.replication.protocol.DeleteMsg;
+import org.opends.server.replication.protocol.LDAPUpdateMsg;
+import org.opends.server.replication.protocol.ModifyCommonMsg;
+import org.opends.server.replication.protocol.ModifyDNMsg;
+import org.opends.server.replication.protocol.UpdateMsg;
+import org.opends.server.replication.server.changelog.api.UpdateMsgFilter;
+import org.opends.server.types.Attributes;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.SearchFilter;
+
+/**
+ * Search filter of a changelog search, pushed down to the changelog cursors.
+ * <p>
+ * Only the parts of the search filter on the changelog entry attributes built
+ * from the header of the update messages are evaluated, against an entry which
+ * only contains these attributes. The other parts of the filter are considered
+ * undefined, so that update messages are only skipped when the changelog entry
+ * built from them could not match the search filter whatever its other
+ * attributes.
+ */
+final class ChangelogUpdateMsgFilter implements UpdateMsgFilter
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The changelog entry attributes whose values only depend on the header of the update messages. */
+  private static final Set<String> HEADER_ATTRIBUTES =
+      newHashSet("targetdn", "changetype", "targetentryuuid", "replicationcsn", "replicaidentifier");
+
+  private final SearchFilter filter;
+
+  private ChangelogUpdateMsgFilter(SearchFilter filter)
+  {
+    this.filter = filter;
+  }
+
+  /**
+   * Returns the filter to push down to the changelog cursors for the provided
+   * search filter.
+   *
+   * @param filter
+   *          the search filter of a changelog search
+   * @return the filter to push down, or {@code null} if the search filter does
+   *         not allow to skip any update message
+   */
+  static ChangelogUpdateMsgFilter newInstance(SearchFilter filter)
+  {
+    return filter != null && hasHeaderItem(filter) ? new ChangelogUpdateMsgFilter(filter) : null;
+  }
+
+  /**
+   * Returns the change type of the changelog entry built from the provided
+   * update message.
+   *
+   * @param updateMsg
+   *          the update message
+   * @return the change type, or {@code null} if no changelog entry is built
+   *         from the provided update message
+   */
+  static String getChangeType(UpdateMsg updateMsg)
+  {
+    if (updateMsg instanceof AddMsg)
+    {
+      return "add";
+    }
+    else if (updateMsg instanceof ModifyDNMsg)
+    {
+      return "modrdn";
+    }
+    else if (updateMsg instanceof ModifyCommonMsg)
+    {
+      return "modify";
+    }
+    else if (updateMsg instanceof DeleteMsg)
+    {
+      return "delete";
+    }
+    return null;
+  }
+
+  @Override
+  public boolean mayMatch(UpdateMsg updateMsg)
+  {
+    final String changeType = getChangeType(updateMsg);
+    if (changeType == null)
+    {
+      // not a change: the caller decides what to do with it
+      return true;
+    }
+
+    try
+    {
+      return evaluate(filter, createHeaderEntry(updateMsg, changeType)) != ConditionResult.FALSE;
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return true;
+    }
+  }
+
+  private static ConditionResult evaluate(SearchFilter filter, Entry headerEntry) throws DirectoryException
+  {
+    switch (filter.getFilterType())
+    {
+    case AND:
+      ConditionResult andResult = ConditionResult.TRUE;
+      for (SearchFilter component : filter.getFilterComponents())
+      {
+        andResult = ConditionResult.and(andResult, evaluate(component, headerEntry));
+        if (andResult == ConditionResult.FALSE)
+        {
+          break;
+        }
+      }
+      return andResult;
+
+    case OR:
+      ConditionResult orResult = ConditionResult.FALSE;
+      for (SearchFilter component : filter.getFilterComponents())
+      {
+        orResult = ConditionResult.or(orResult, evaluate(component, headerEntry));
+        if (orResult == ConditionResult.TRUE)
+        {
+          break;
+        }
+      }
+      return orResult;
+
+    case NOT:
+      return ConditionResult.not(evaluate(filter.getNotComponent(), headerEntry));
+
+    default:
+      if (isHeaderItem(filter))
+      {
+        return ConditionResult.valueOf(filter.matchesEntry(headerEntry));
+      }
+      return ConditionResult.UNDEFINED;
+    }
+  }
+
+  private static boolean hasHeaderItem(SearchFilter filter)
+  {
+    switch (filter.getFilterType())
+    {
+    case AND:
+    case OR:
+      for (SearchFilter component : filter.getFilterComponents())
+      {
+        if (hasHeaderItem(component))
+        {
+          return true;
+        }
+      }
+      return false;
+
+    case NOT:
+      return hasHeaderItem(filter.getNotComponent());
+
+    default:
+      return isHeaderItem(filter);
+    }
+  }
+
+  private static boolean isHeaderItem(SearchFilter filter)
+  {
+    switch (filter.getFilterType())
+    {
+    case EQUALITY:
+    case SUBSTRING:
+    case GREATER_OR_EQUAL:
+    case LESS_OR_EQUAL:
+    case PRESENT:
+    case APPROXIMATE_MATCH:
+      final AttributeType attrType = filter.getAttributeType();
+      return attrType != null && HEADER_ATTRIBUTES.contains(toLowerCase(attrType.getNameOrOID()));
+
+    default:
+      // extensible matches may also match the entry DN
+      return false;
+    }
+  }
+
+  /** Creates an entry with the attributes of the changelog entry built from the header of the update message. */
+  private static Entry createHeaderEntry(UpdateMsg updateMsg, String changeType)
+  {
+    final Entry entry = new Entry(DN.rootDN(), null, null, null);
+    addAttribute(entry, "changeType", changeType);
+    final LDAPUpdateMsg ldapUpdateMsg = (LDAPUpdateMsg) updateMsg;
+    addAttribute(entry, "targetDN", ldapUpdateMsg.getDN().toString());
+    final String targetUUID = ldapUpdateMsg.getEntryUUID();
+    if (targetUUID != null)
+    {
+      addAttribute(entry, "targetEntryUUID", targetUUID);
+    }
+    addAttribute(entry, "replicationCSN", updateMsg.getCSN().toString());
+    addAttribute(entry, "replicaIdentifier", Integer.toString(updateMsg.getCSN().getServerId()));
+    return entry;
+  }
+
+  private static void addAttribute(Entry entry, String attrName, String attrValue)
+  {
+    final Schema schema = DirectoryServer.getInstance().getServerContext().getSchema();
+    entry.addAttribute(Attributes.create(schema.getAttributeType(attrName), attrValue), null);
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(" + filter + ")";
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends;
 
@@ -42,6 +43,8 @@ public class RebuildConfig
   private final List<String> rebuildList = new ArrayList<>();
   private String tmpDirectory;
   private boolean isClearDegradedState;
+  private boolean isOnline;
+  private int maxEntriesPerSecond;
 
   /**
    * Get the base DN to rebuild.
@@ -228,4 +231,51 @@ public class RebuildConfig
     this.isClearDegradedState = isClearDegradedState;
   }
 
+  /**
+   * Returns {@code true} if indexes should be rebuilt while the backend remains
+   * online and the entries are being updated.
+   *
+   * @return {@code true} if indexes should be rebuilt online.
+   */
+  public boolean isOnline()
+  {
+    return isOnline;
+  }
+
+  /**
+   * Sets whether indexes should be rebuilt while the backend remains online.
+   *
+   * @param isOnline
+   *          {@code true} if indexes should be rebuilt online.
+   */
+  public void setOnline(boolean isOnline)
+  {
+    this.isOnline = isOnline;
+  }
+
+  /**
+   * Returns the maximum number of entries processed per second by an online
+   * rebuild.
+   *
+   * @return The maximum number of entries processed per second, or 0 if the
+   *         rate of an online rebuild is not limited.
+   */
+  public int getMaxEntriesPerSecond()
+  {
+    return maxEntriesPerSecond;
+  }
+
+  /**
+   * Sets the maximum number of entries processed per second by an online
+   * rebuild.
+   *
+   * @param maxEntriesPerSecond
+   *          The maximum number of entries processed per second, or 0 if the
+   *          rate of an online rebuild is not limited.
+   */
+  public void setMaxEntriesPerSecond(int maxEntriesPerSecond)
+  {
+    this.maxEntriesPerSecond = maxEntriesPerSecond;
+  }
+
 }
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.jeb;
 
@@ -257,6 +258,21 @@ public final class JEStorage implements Storage, Backupable, ConfigurationChange
       }
     }
 
+    @Override
+    public boolean previous()
+    {
+      clearCurrentKeyAndValue();
+      try
+      {
+        isDefined = cursor.getPrev(dbKey, dbValue, null) == SUCCESS;
+        return isDefined;
+      }
+      catch (DatabaseException e)
+      {
+        throw new StorageRuntimeException(e);
+      }
+    }
+
     private void clearCurrentKeyAndValue()
     {
       currentKey = null;
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pdb;
 
@@ -251,6 +252,20 @@ public final class PDBStorage implements Storage, Backupable, ConfigurationChang
       }
     }
 
+    @Override
+    public boolean previous()
+    {
+      clearCurrentKeyAndValue();
+      try
+      {
+        return exchange.previous();
+      }
+      catch (final PersistitException e)
+      {
+        throw new StorageRuntimeException(e);
+      }
+    }
+
     private void clearCurrentKeyAndValue()
     {
       currentKey = null;
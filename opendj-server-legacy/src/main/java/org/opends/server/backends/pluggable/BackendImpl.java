@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -22,6 +23,7 @@ import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -37,6 +39,7 @@ import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.ldap.ConditionResult;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.schema.AttributeType;
@@ -456,6 +459,27 @@ public abstract class BackendImpl<C extends PluggableBackendCfg> extends LocalBa
     }
   }
 
+  @Override
+  public List<DN> findEntriesByEqualityIndex(DN baseDN, Collection<AttributeType> attributeTypes,
+      Collection<ByteString> values, int sizeLimit) throws DirectoryException
+  {
+    EntryContainer ec = accessBegin(null, baseDN);
+    ec.sharedLock.lock();
+    try
+    {
+      return ec.findEntriesByEqualityIndex(baseDN, attributeTypes, values, sizeLimit);
+    }
+    catch (StorageRuntimeException e)
+    {
+      throw createDirectoryException(e);
+    }
+    finally
+    {
+      ec.sharedLock.unlock();
+      accessEnd();
+    }
+  }
+
   @Override
   public void addEntry(Entry entry, AddOperation addOperation) throws DirectoryException, CanceledOperationException
   {
@@ -753,6 +777,11 @@ public abstract class BackendImpl<C extends PluggableBackendCfg> extends LocalBa
       throw new DirectoryException(
           serverContext.getCoreConfigManager().getServerErrorResultCode(), ERR_REBUILD_BACKEND_ONLINE.get());
     }
+    if (openRootContainer && rebuildConfig.isOnline())
+    {
+      throw new DirectoryException(serverContext.getCoreConfigManager().getServerErrorResultCode(),
+          ERR_REBUILD_ONLINE_BACKEND_DISABLED.get(rebuildConfig.getBaseDN()));
+    }
 
     try
     {
@@ -776,6 +805,30 @@ public abstract class BackendImpl<C extends PluggableBackendCfg> extends LocalBa
     }
   }
 
+  /**
+   * Trains a new dictionary for compressing the entries of this backend from a sample of its entries, then
+   * re-encodes the existing entries with the new dictionary. The backend remains online while its entries are
+   * re-encoded.
+   *
+   * @param sampleSize
+   *          The maximum number of entries used for training the dictionary.
+   * @throws DirectoryException
+   *           If the backend is not online, if entries compression is disabled, or if an error occurs while reading
+   *           or writing the entries.
+   */
+  public void trainCompressionDictionary(int sampleSize) throws DirectoryException
+  {
+    checkRootContainerInitialized();
+    try
+    {
+      rootContainer.trainCompressionDictionary(sampleSize);
+    }
+    catch (Exception e)
+    {
+      throw createDirectoryException(e);
+    }
+  }
+
   @Override
   public void createBackup(BackupConfig backupConfig) throws DirectoryException
   {
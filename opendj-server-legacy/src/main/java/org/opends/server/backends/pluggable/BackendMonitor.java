@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -102,7 +103,7 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
   @Override
   public MonitorData getMonitorData()
   {
-    MonitorData monitorAttrs = new MonitorData(5);
+    MonitorData monitorAttrs = new MonitorData(6);
 
     Collection<String> needReindexValues = createNeedReindexValues();
     if (!needReindexValues.isEmpty())
@@ -110,6 +111,12 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
       monitorAttrs.add("need-reindex", needReindexValues);
     }
 
+    Collection<String> indexBuildValues = createIndexBuildValues();
+    if (!indexBuildValues.isEmpty())
+    {
+      monitorAttrs.add("online-index-build", indexBuildValues);
+    }
+
     if (filterUseEnabled)
     {
       monitorAttrs.add("filter-use-startTime", startTimeStamp);
@@ -137,6 +144,19 @@ class BackendMonitor extends MonitorProvider<MonitorProviderCfg>
     return values;
   }
 
+  private Collection<String> createIndexBuildValues()
+  {
+    Collection<String> values = new ArrayList<>();
+    for (EntryContainer ec : rootContainer.getEntryContainers())
+    {
+      for (OnlineIndexBuilder builder : ec.getIndexBuilders())
+      {
+        values.add(ec.getBaseDN() + " " + builder.getProgress());
+      }
+    }
+    return values;
+  }
+
   private List<String> createFilterUseValues()
   {
     List<String> values = new ArrayList<>();
@@ -0,0 +1,305 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.opends.messages.BackendMessages.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.Storage;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.DirectoryException;
+
+/**
+ * The compression dictionaries of a backend, which are persisted in a tree next to the compressed schema.
+ * <p>
+ * A compression dictionary holds byte sequences which frequently appear in the encoded entries of the backend. It
+ * is used as a preset dictionary by the deflate algorithm when compressing the entries of the id2entry tree, which
+ * considerably improves the compression ratio of small entries. Dictionaries are identified by an increasing
+ * integer and are never removed, because entries compressed with an older dictionary must remain readable. New
+ * entries are always compressed with the most recent dictionary.
+ */
+final class CompressionDictionaries
+{
+  /** The maximum size of a dictionary, which is the size of the deflate window. */
+  static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+  /** The length of the byte sequences whose frequencies are counted when training a dictionary. */
+  private static final int DMER_LENGTH = 8;
+  /** The length of the sample segments which are candidates for inclusion in a dictionary. */
+  private static final int SEGMENT_LENGTH = 64;
+
+  /** The name of the tree used to store the compression dictionaries. */
+  private static final TreeName dictionariesTreeName = new TreeName("compressed_schema", "compression_dictionaries");
+
+  /** The storage in which the tree is held, or {@code null} if the dictionaries are only held in memory. */
+  private final Storage storage;
+  private final ConcurrentMap<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+  /** The identifier of the most recent dictionary, or {@code 0} if there is no dictionary. */
+  private volatile int currentDictionaryID;
+
+  /** Creates a new empty set of dictionaries which are only held in memory. */
+  CompressionDictionaries()
+  {
+    this.storage = null;
+  }
+
+  /**
+   * Creates a new set of dictionaries and loads the dictionaries persisted in the provided storage.
+   *
+   * @param storage
+   *          A reference to the storage in which the tree will be held.
+   * @param txn
+   *          a non null transaction
+   * @param accessMode
+   *          specifies how the storage has been opened (read only or read/write)
+   * @throws StorageRuntimeException
+   *           If a problem occurs while loading the dictionaries from the tree.
+   */
+  CompressionDictionaries(Storage storage, WriteableTransaction txn, AccessMode accessMode)
+      throws StorageRuntimeException
+  {
+    this.storage = storage;
+    txn.openTree(dictionariesTreeName, accessMode.isWriteable());
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(dictionariesTreeName))
+    {
+      while (cursor.next())
+      {
+        final int id = cursor.getKey().toInt();
+        dictionaries.put(id, cursor.getValue().toByteArray());
+        currentDictionaryID = Math.max(currentDictionaryID, id);
+      }
+    }
+  }
+
+  /**
+   * Returns the identifier of the dictionary which must be used for compressing new entries.
+   *
+   * @return the identifier of the most recent dictionary, or {@code 0} if there is no dictionary
+   */
+  int getCurrentDictionaryID()
+  {
+    return currentDictionaryID;
+  }
+
+  /**
+   * Returns the dictionary having the provided identifier. The returned array is shared and must not be modified.
+   *
+   * @param id
+   *          the identifier of the dictionary
+   * @return the dictionary, or {@code null} if there is no dictionary with this identifier
+   */
+  byte[] getDictionary(int id)
+  {
+    return dictionaries.get(id);
+  }
+
+  /**
+   * Adds a new dictionary, which becomes the dictionary used for compressing new entries.
+   *
+   * @param dictionary
+   *          the new dictionary
+   * @return the identifier of the new dictionary
+   * @throws DirectoryException
+   *           If the dictionary cannot be persisted.
+   */
+  synchronized int addDictionary(final byte[] dictionary) throws DirectoryException
+  {
+    final int id = currentDictionaryID + 1;
+    if (storage != null)
+    {
+      try
+      {
+        storage.write(new WriteOperation()
+        {
+          @Override
+          public void run(WriteableTransaction txn) throws Exception
+          {
+            txn.put(dictionariesTreeName, ByteString.valueOfInt(id), ByteString.wrap(dictionary));
+          }
+        });
+      }
+      catch (final Exception e)
+      {
+        throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+            ERR_COMPRESSION_DICTIONARY_CANNOT_STORE.get(id, e.getMessage()), e);
+      }
+    }
+    dictionaries.put(id, dictionary);
+    currentDictionaryID = id;
+    return id;
+  }
+
+  /**
+   * Trains a dictionary from a sample of encoded entries.
+   * <p>
+   * The dictionary is made of the sample segments containing the byte sequences which appear in the largest number
+   * of samples. Segments are selected greedily, and the byte sequences of a selected segment no longer count for the
+   * remaining segments, so that the dictionary does not contain redundant content. The best segments are placed at
+   * the end of the dictionary, because the deflate algorithm encodes shorter back-references more efficiently.
+   *
+   * @param samples
+   *          the encoded entries, before compression
+   * @param maxDictionarySize
+   *          the maximum size of the dictionary
+   * @return the trained dictionary, which is empty if the samples do not have any content in common
+   */
+  static byte[] train(List<? extends ByteSequence> samples, int maxDictionarySize)
+  {
+    final Map<Long, Integer> frequencies = countDmerFrequencies(samples);
+
+    final PriorityQueue<Segment> candidates = new PriorityQueue<>();
+    for (ByteSequence sample : samples)
+    {
+      for (int start = 0; start + DMER_LENGTH <= sample.length(); start += SEGMENT_LENGTH / 2)
+      {
+        final Segment segment = new Segment(sample, start, Math.min(start + SEGMENT_LENGTH, sample.length()));
+        if (segment.computeScore(frequencies) > 0)
+        {
+          candidates.add(segment);
+        }
+      }
+    }
+
+    final List<Segment> selected = new ArrayList<>();
+    int size = 0;
+    while (size < maxDictionarySize && !candidates.isEmpty())
+    {
+      final Segment segment = candidates.poll();
+      final long previousScore = segment.score;
+      if (segment.computeScore(frequencies) < previousScore)
+      {
+        // Some byte sequences of this segment are already in the dictionary: re-evaluate it later.
+        if (segment.score > 0)
+        {
+          candidates.add(segment);
+        }
+        continue;
+      }
+      selected.add(segment);
+      size += segment.length();
+      segment.removeDmers(frequencies);
+    }
+
+    final ByteStringBuilder dictionary = new ByteStringBuilder(size);
+    for (int i = selected.size() - 1; i >= 0; i--)
+    {
+      final Segment segment = selected.get(i);
+      dictionary.appendBytes(segment.sample.subSequence(segment.start, segment.end));
+    }
+    final int length = dictionary.length();
+    return dictionary.subSequence(Math.max(length - maxDictionarySize, 0), length).toByteArray();
+  }
+
+  /** Counts, for each byte sequence of {@link #DMER_LENGTH} bytes, the number of samples containing it. */
+  private static Map<Long, Integer> countDmerFrequencies(List<? extends ByteSequence> samples)
+  {
+    final Map<Long, Integer> frequencies = new HashMap<>();
+    final Set<Long> sampleDmers = new HashSet<>();
+    for (ByteSequence sample : samples)
+    {
+      sampleDmers.clear();
+      for (int i = 0; i + DMER_LENGTH <= sample.length(); i++)
+      {
+        sampleDmers.add(dmer(sample, i));
+      }
+      for (Long dmer : sampleDmers)
+      {
+        final Integer frequency = frequencies.get(dmer);
+        frequencies.put(dmer, frequency != null ? frequency + 1 : 1);
+      }
+    }
+    return frequencies;
+  }
+
+  private static long dmer(ByteSequence sample, int offset)
+  {
+    long dmer = 0;
+    for (int i = offset; i < offset + DMER_LENGTH; i++)
+    {
+      dmer = (dmer << 8) | (sample.byteAt(i) & 0xFF);
+    }
+    return dmer;
+  }
+
+  /** A segment of a sample which is a candidate for inclusion in a dictionary. */
+  private static final class Segment implements Comparable<Segment>
+  {
+    private final ByteSequence sample;
+    private final int start;
+    private final int end;
+    /** The sum of the frequencies of the byte sequences of this segment which appear in several samples. */
+    private long score;
+
+    private Segment(ByteSequence sample, int start, int end)
+    {
+      this.sample = sample;
+      this.start = start;
+      this.end = end;
+    }
+
+    private long computeScore(Map<Long, Integer> frequencies)
+    {
+      score = 0;
+      for (int i = start; i + DMER_LENGTH <= end; i++)
+      {
+        final Integer frequency = frequencies.get(dmer(sample, i));
+        if (frequency != null && frequency > 1)
+        {
+          score += frequency;
+        }
+      }
+      return score;
+    }
+
+    private void removeDmers(Map<Long, Integer> frequencies)
+    {
+      for (int i = start; i + DMER_LENGTH <= end; i++)
+      {
+        frequencies.remove(dmer(sample, i));
+      }
+    }
+
+    private int length()
+    {
+      return end - start;
+    }
+
+    @Override
+    public int compareTo(Segment o)
+    {
+      // Highest scores first.
+      return Long.compare(o.score, score);
+    }
+  }
+}
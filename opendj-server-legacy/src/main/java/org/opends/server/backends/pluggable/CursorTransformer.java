@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -199,6 +200,13 @@ final class CursorTransformer<KI, VI, KO, VO> implements Cursor<KO, VO>
     return input.positionToLastKey();
   }
 
+  @Override
+  public boolean previous()
+  {
+    clearCache();
+    return input.previous();
+  }
+
   @Override
   public boolean positionToIndex(int index)
   {
@@ -281,6 +289,12 @@ final class CursorTransformer<KI, VI, KO, VO> implements Cursor<KO, VO>
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public boolean previous()
+    {
+      throw new UnsupportedOperationException();
+    }
+
     @Override
     public boolean positionToIndex(int index)
     {
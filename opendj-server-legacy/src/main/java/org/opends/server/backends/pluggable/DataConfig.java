@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -36,6 +37,7 @@ final class DataConfig
     private boolean encrypted;
     private boolean compactEncoding;
     private CompressedSchema compressedSchema;
+    private CompressionDictionaries compressionDictionaries;
     private CryptoSuite cryptoSuite;
 
     Builder()
@@ -67,6 +69,12 @@ final class DataConfig
       return this;
     }
 
+    public Builder compressionDictionaries(CompressionDictionaries dictionaries)
+    {
+      this.compressionDictionaries = dictionaries;
+      return this;
+    }
+
     public Builder cryptoSuite(CryptoSuite cs)
     {
       this.cryptoSuite = cs;
@@ -87,6 +95,9 @@ final class DataConfig
   private final boolean encrypted;
 
   private final CryptoSuite cryptoSuite;
+
+  /** The dictionaries used to compress entries, may be {@code null}. */
+  private final CompressionDictionaries compressionDictionaries;
   /**
    * Construct a new DataConfig object with the specified settings.
    *
@@ -97,6 +108,7 @@ final class DataConfig
     this.compressed = builder.compressed;
     this.encrypted = builder.encrypted;
     this.cryptoSuite = builder.cryptoSuite;
+    this.compressionDictionaries = builder.compressionDictionaries;
 
     if (builder.compressedSchema == null)
     {
@@ -130,6 +142,11 @@ final class DataConfig
     return cryptoSuite;
   }
 
+  CompressionDictionaries getCompressionDictionaries()
+  {
+    return compressionDictionaries;
+  }
+
   @Override
   public String toString()
   {
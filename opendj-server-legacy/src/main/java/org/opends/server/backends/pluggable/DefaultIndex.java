@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -66,6 +67,11 @@ class DefaultIndex extends AbstractTree implements Index
    * </ul>
    */
   private volatile boolean trusted;
+  /**
+   * A flag to indicate if this index is being built online. While being built, an index is updated as if it was
+   * trusted, but is still read as if it was not trusted.
+   */
+  private volatile boolean building;
 
   /**
    * Create a new index object.
@@ -179,7 +185,7 @@ class DefaultIndex extends AbstractTree implements Index
      * Avoid taking a write lock on a record which has hit all IDs because it is likely to be a
      * point of contention.
      */
-    if (!get(txn, key).isDefined())
+    if (!get(txn, key).isDefined() && !(building && txn.read(getName(), key) == null))
     {
       return;
     }
@@ -200,9 +206,10 @@ class DefaultIndex extends AbstractTree implements Index
            */
           return entryIDSet.size() == 0 ? null : toValue(entryIDSet);
         }
-        else if (trusted)
+        else if (trusted || building)
         {
-          if (deletedIDs != null)
+          // While being built, the deleted entries may not have been indexed yet.
+          if (deletedIDs != null && trusted)
           {
             logIndexCorruptError(txn, key);
           }
@@ -325,6 +332,18 @@ class DefaultIndex extends AbstractTree implements Index
     return trusted;
   }
 
+  /**
+   * Sets whether this index is being built online, so that the updates of the entries are applied to this index
+   * although it is not trusted.
+   *
+   * @param building
+   *          {@code true} if this index is being built online
+   */
+  final void setBuilding(boolean building)
+  {
+    this.building = building;
+  }
+
   final boolean isEncrypted()
   {
     return cryptoSuite.isEncrypted();
@@ -14,6 +14,7 @@
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions copyright 2013 Manuel Gaupp
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -36,7 +37,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -66,6 +69,7 @@ import org.opends.server.api.EntryCache;
 import org.opends.server.api.VirtualAttributeProvider;
 import org.opends.server.api.plugin.PluginResult.SubordinateDelete;
 import org.opends.server.api.plugin.PluginResult.SubordinateModifyDN;
+import org.opends.server.backends.pluggable.AttributeIndex.MatchingRuleIndex;
 import org.opends.server.backends.pluggable.spi.AccessMode;
 import org.opends.server.backends.pluggable.spi.Cursor;
 import org.opends.server.backends.pluggable.spi.ReadOperation;
@@ -90,6 +94,7 @@ import org.opends.server.core.ModifyOperation;
 import org.opends.server.core.SearchOperation;
 import org.opends.server.core.ServerContext;
 import org.opends.server.crypto.CryptoSuite;
+import org.opends.server.extensions.DefaultEntryCache;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.Attributes;
 import org.opends.server.types.CanceledOperationException;
@@ -158,6 +163,9 @@ public class EntryContainer
   private final Map<AttributeType, CryptoSuite> attrCryptoMap = new HashMap<>();
   /** The set of VLV (Virtual List View) indexes. */
   private final Map<String, VLVIndex> vlvIndexMap = new HashMap<>();
+  /** The indexes being built online. */
+  private final Set<OnlineIndexBuilder> indexBuilders =
+      Collections.newSetFromMap(new ConcurrentHashMap<OnlineIndexBuilder, Boolean>());
 
   /**
    * Prevents name clashes for common indexes (like id2entry) across multiple suffixes.
@@ -234,6 +242,12 @@ public class EntryContainer
     public ConfigChangeResult applyConfigurationDelete(final BackendIndexCfg cfg)
     {
       final ConfigChangeResult ccr = new ConfigChangeResult();
+      final AttributeIndex attributeIndex = attrIndexMap.get(cfg.getAttribute());
+      if (attributeIndex != null)
+      {
+        // The builders take the shared lock: stop them before taking the exclusive lock.
+        stopIndexBuilders(attributeIndex.getNameToIndexes().values());
+      }
 
       exclusiveLock.lock();
       try
@@ -280,6 +294,7 @@ public class EntryContainer
     public ConfigChangeResult applyConfigurationAdd(final BackendVLVIndexCfg cfg)
     {
       final ConfigChangeResult ccr = new ConfigChangeResult();
+      final String indexName = cfg.getName().toLowerCase();
       try
       {
         storage.write(new WriteOperation()
@@ -289,14 +304,16 @@ public class EntryContainer
           {
             VLVIndex vlvIndex = new VLVIndex(cfg, state, storage, EntryContainer.this, txn);
             vlvIndex.open(txn, true);
-            if(!vlvIndex.isTrusted())
-            {
-              ccr.setAdminActionRequired(true);
-              ccr.addMessage(NOTE_INDEX_ADD_REQUIRES_REBUILD.get(cfg.getName()));
-            }
-            vlvIndexMap.put(cfg.getName().toLowerCase(), vlvIndex);
+            vlvIndexMap.put(indexName, vlvIndex);
           }
         });
+        final VLVIndex vlvIndex = vlvIndexMap.get(indexName);
+        if (!vlvIndex.isTrusted())
+        {
+          // Build the new index in the background rather than requiring an offline rebuild.
+          new OnlineIndexBuilder(EntryContainer.this, Collections.<MatchingRuleIndex> emptyList(),
+              Collections.singletonList(vlvIndex), storage, 0).start();
+        }
       }
       catch(Exception e)
       {
@@ -317,6 +334,13 @@ public class EntryContainer
     public ConfigChangeResult applyConfigurationDelete(final BackendVLVIndexCfg cfg)
     {
       final ConfigChangeResult ccr = new ConfigChangeResult();
+      final String indexName = cfg.getName().toLowerCase();
+      final VLVIndex vlvIndex = vlvIndexMap.get(indexName);
+      if (vlvIndex != null)
+      {
+        // The builders take the shared lock: stop them before taking the exclusive lock.
+        stopIndexBuilders(Collections.singletonList(vlvIndex));
+      }
       exclusiveLock.lock();
       try
       {
@@ -325,7 +349,7 @@ public class EntryContainer
           @Override
           public void run(WriteableTransaction txn) throws Exception
           {
-            vlvIndexMap.remove(cfg.getName().toLowerCase()).closeAndDelete(txn);
+            vlvIndexMap.remove(indexName).closeAndDelete(txn);
           }
         });
       }
@@ -342,6 +366,42 @@ public class EntryContainer
     }
   }
 
+  /** Stops the online builds of the provided indexes. The indexes remain untrusted. */
+  private void stopIndexBuilders(Collection<? extends Tree> indexes)
+  {
+    for (OnlineIndexBuilder builder : indexBuilders)
+    {
+      for (Tree index : indexes)
+      {
+        if (builder.isBuilding(index))
+        {
+          builder.stop();
+          break;
+        }
+      }
+    }
+  }
+
+  void registerIndexBuilder(OnlineIndexBuilder builder)
+  {
+    indexBuilders.add(builder);
+  }
+
+  void deregisterIndexBuilder(OnlineIndexBuilder builder)
+  {
+    indexBuilders.remove(builder);
+  }
+
+  /**
+   * Returns the online builds of indexes in progress.
+   *
+   * @return the online builds of indexes in progress
+   */
+  Collection<OnlineIndexBuilder> getIndexBuilders()
+  {
+    return indexBuilders;
+  }
+
   /** A read write lock to handle schema changes and bulk changes. */
   private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
   final Lock sharedLock = lock.readLock();
@@ -393,6 +453,7 @@ public class EntryContainer
         .cryptoSuite(serverContext.getCryptoManager().newCryptoSuite(config.getCipherTransformation(),
             config.getCipherKeyLength(),config.isConfidentialityEnabled()))
         .schema(rootContainer.getCompressedSchema())
+        .compressionDictionaries(rootContainer.getCompressionDictionaries())
         .build();
   }
 
@@ -472,6 +533,10 @@ public class EntryContainer
   @Override
   public void close() throws StorageRuntimeException
   {
+    for (OnlineIndexBuilder builder : indexBuilders)
+    {
+      builder.stop();
+    }
     closeSilently(attrIndexMap.values());
     closeSilently(vlvIndexMap.values());
 
@@ -1168,7 +1233,7 @@ public class EntryContainer
         if (isInScope)
         {
           // Process the candidate entry.
-          final Entry entry = getEntry(txn, entryID);
+          final Entry entry = getEntryForSearch(txn, entryID);
           if (entry != null)
           {
             lookthroughCount++;
@@ -1251,6 +1316,31 @@ public class EntryContainer
     return entry;
   }
 
+  /**
+   * Returns the entry corresponding to the provided entryID, for evaluation by a search.
+   * <p>
+   * When no entry cache is configured, the attribute values of the entry are only decoded when they are
+   * first accessed: by the search filter, by access control or because they are returned to the client.
+   * Otherwise the entry is fully decoded, so that it can be shared through the entry cache.
+   *
+   * @param txn a non null transaction
+   * @param entryID
+   *          the id of the entry to retrieve
+   * @return the entry corresponding to the provided entryID, which must not be shared between threads
+   * @throws DirectoryException
+   *           If an error occurs retrieving the entry
+   */
+  private Entry getEntryForSearch(ReadableTransaction txn, EntryID entryID) throws DirectoryException
+  {
+    final EntryCache<?> entryCache = getEntryCache();
+    if (entryCache == null
+        || (entryCache instanceof DefaultEntryCache && DefaultEntryCache.getCacheOrder().length == 0))
+    {
+      return id2entry.getLazily(txn, entryID);
+    }
+    return getEntry(txn, entryID);
+  }
+
   /**
    * We were able to obtain a set of candidate entry IDs for the search from the indexes.
    * <p>
@@ -1325,7 +1415,7 @@ public class EntryContainer
         Entry entry;
         try
         {
-          entry = getEntry(txn, entryID);
+          entry = getEntryForSearch(txn, entryID);
         }
         catch (Exception e)
         {
@@ -1842,6 +1932,88 @@ public class EntryContainer
     return entry;
   }
 
+  /**
+   * Retrieves the DNs of the entries at or below the provided base DN which contain any of the
+   * provided values for any of the provided attribute types. The candidate entries are read
+   * directly from the equality indexes within a single read transaction, without going through
+   * the search operation processing.
+   *
+   * @param baseDN
+   *          The base DN below which matching entries must be located.
+   * @param attributeTypes
+   *          The attribute types which may contain the values.
+   * @param values
+   *          The assertion values to look for.
+   * @param sizeLimit
+   *          The maximum number of DNs to return.
+   * @return The DNs of at most {@code sizeLimit} matching entries, or {@code null} if the values
+   *         could not be resolved using only the equality indexes.
+   * @throws DirectoryException
+   *           If a problem occurs while reading the matching entries.
+   * @throws StorageRuntimeException
+   *           An error occurred during a storage operation.
+   */
+  List<DN> findEntriesByEqualityIndex(final DN baseDN, Collection<AttributeType> attributeTypes,
+      Collection<ByteString> values, final int sizeLimit) throws StorageRuntimeException, DirectoryException
+  {
+    final List<SearchFilter> filters = new ArrayList<>(attributeTypes.size() * values.size());
+    for (AttributeType attributeType : attributeTypes)
+    {
+      if (getAttributeIndex(attributeType) == null)
+      {
+        return null;
+      }
+      for (ByteString value : values)
+      {
+        filters.add(SearchFilter.createEqualityFilter(attributeType, value));
+      }
+    }
+    final SearchFilter filter = SearchFilter.createORFilter(filters);
+
+    try
+    {
+      return storage.read(new ReadOperation<List<DN>>()
+      {
+        @Override
+        public List<DN> run(ReadableTransaction txn) throws Exception
+        {
+          final List<EntryIDSet> candidateSets = new ArrayList<>(filters.size());
+          for (SearchFilter equalityFilter : filters)
+          {
+            final AttributeIndex attributeIndex = getAttributeIndex(equalityFilter.getAttributeType());
+            final EntryIDSet candidates = attributeIndex.evaluateFilter(new IndexQueryFactoryImpl(txn, attributeIndex),
+                AttributeIndex.IndexFilterType.EQUALITY, equalityFilter, null, rootContainer.getMonitorProvider());
+            if (!candidates.isDefined())
+            {
+              return null;
+            }
+            candidateSets.add(candidates);
+          }
+
+          final List<DN> entryDNs = new ArrayList<>();
+          for (EntryID entryID : EntryIDSet.newSetFromUnion(candidateSets))
+          {
+            final Entry entry = getEntry(txn, entryID);
+            if (entry != null && entry.getName().isSubordinateOrEqualTo(baseDN) && filter.matchesEntry(entry))
+            {
+              entryDNs.add(entry.getName());
+              if (entryDNs.size() >= sizeLimit)
+              {
+                break;
+              }
+            }
+          }
+          return entryDNs;
+        }
+      });
+    }
+    catch (Exception e)
+    {
+      throwAllowedExceptionTypes(e, DirectoryException.class, StorageRuntimeException.class);
+      return null; // it can never happen
+    }
+  }
+
   /**
    * The simplest case of replacing an entry in which the entry DN has
    * not changed.
@@ -2553,7 +2725,7 @@ public class EntryContainer
     {
       try
       {
-        Entry e = getEntry(txn, id);
+        Entry e = getEntryForSearch(txn, id);
         if (e.matchesBaseAndScope(baseDN, scope) && filter.matchesEntry(e))
         {
           sortMap.put(encodeVLVKey(sortKeys, e, id.longValue()), id);
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -26,8 +27,12 @@ import static org.opends.server.core.DirectoryServer.*;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 import java.util.zip.InflaterOutputStream;
 
@@ -44,13 +49,16 @@ import org.forgerock.util.Reject;
 import org.opends.server.api.CompressedSchema;
 import org.opends.server.backends.pluggable.spi.Cursor;
 import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.Storage;
 import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
 import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
 import org.opends.server.backends.pluggable.spi.WriteableTransaction;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.types.CryptoManagerException;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
+import org.opends.server.types.EntryEncodeConfig;
 import org.opends.server.types.LDAPException;
 
 /**
@@ -75,7 +83,7 @@ class ID2Entry extends AbstractTree
           new CursorTransformer.ValueTransformer<ByteString, ByteString, Entry, Exception>() {
     @Override
     public Entry transform(ByteString key, ByteString value) throws Exception {
-      return get0(value);
+      return get0(value, false);
     }
   };
 
@@ -104,7 +112,10 @@ class ID2Entry extends AbstractTree
     return codec;
   }
 
-  /** A cached set of ByteStringBuilder buffers and ASN1Writer used to encode entries. */
+  /**
+   * A cached set of ByteStringBuilder buffers and ASN1Writer used to encode entries, along with compressors and
+   * decompressors which are reset rather than recreated for each entry.
+   */
   private static final class EntryCodec
   {
     /**
@@ -122,11 +133,21 @@ class ID2Entry extends AbstractTree
 
     /** The format version for entry encoding. */
     static final byte FORMAT_VERSION_V2 = 0x02;
+    /** The format version for entries compressed with a compression dictionary. */
+    static final byte FORMAT_VERSION_V3 = 0x03;
 
     private final ByteStringBuilder encodedBuffer = new ByteStringBuilder();
     private final ByteStringBuilder entryBuffer = new ByteStringBuilder();
     private final ByteStringBuilder compressedEntryBuffer = new ByteStringBuilder();
     private final int maxBufferSize;
+    /** Compressor and decompressor of the version 2 format, which uses the zlib wrapper. */
+    private final Deflater deflater = new Deflater();
+    private final Inflater inflater = new Inflater();
+    /** Compressor and decompressor of the version 3 format, which uses raw deflate data. */
+    private final Deflater rawDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Inflater rawInflater = new Inflater(true);
+    private final byte[] deflatedBytes = new byte[BUFFER_INIT_SIZE];
+    private byte[] inflatedBytes = new byte[BUFFER_INIT_SIZE];
 
     private EntryCodec()
     {
@@ -138,18 +159,24 @@ class ID2Entry extends AbstractTree
       encodedBuffer.clearAndTruncate(maxBufferSize, BUFFER_INIT_SIZE);
       entryBuffer.clearAndTruncate(maxBufferSize, BUFFER_INIT_SIZE);
       compressedEntryBuffer.clearAndTruncate(maxBufferSize, BUFFER_INIT_SIZE);
+      if (inflatedBytes.length > maxBufferSize)
+      {
+        inflatedBytes = new byte[BUFFER_INIT_SIZE];
+      }
     }
 
-    private Entry decode(ByteString bytes, CompressedSchema compressedSchema)
-        throws DirectoryException, DecodeException, IOException
+    private Entry decode(ByteString bytes, CompressedSchema compressedSchema, CompressionDictionaries dictionaries,
+        boolean lazily) throws DirectoryException, DecodeException, IOException
     {
       final byte formatVersion = bytes.byteAt(0);
       switch(formatVersion)
       {
       case FORMAT_VERSION:
-        return decodeV1(bytes, compressedSchema);
+        return decodeV1(bytes, compressedSchema, lazily);
       case FORMAT_VERSION_V2:
-        return decodeV2(bytes, compressedSchema);
+        return decodeV2(bytes, compressedSchema, lazily);
+      case FORMAT_VERSION_V3:
+        return decodeV3(bytes, compressedSchema, dictionaries, lazily);
       default:
         throw DecodeException.error(ERR_INCOMPATIBLE_ENTRY_VERSION.get(formatVersion));
       }
@@ -180,13 +207,14 @@ class ID2Entry extends AbstractTree
      *
      * @param bytes A byte array containing the encoded tree value.
      * @param compressedSchema The compressed schema manager to use when decoding.
+     * @param lazily Whether the attribute values must be decoded on first access.
      * @return The decoded entry.
      * @throws DecodeException If the data is not in the expected ASN.1 encoding
      * format.
      * @throws DirectoryException If a Directory Server error occurs.
      * @throws IOException if an error occurs while reading the ASN1 sequence.
      */
-    private Entry decodeV1(ByteString bytes, CompressedSchema compressedSchema)
+    private Entry decodeV1(ByteString bytes, CompressedSchema compressedSchema, boolean lazily)
         throws DirectoryException, DecodeException, IOException
     {
       // Read the ASN1 sequence.
@@ -214,14 +242,18 @@ class ID2Entry extends AbstractTree
         // Since we are used the cached buffers (ByteStringBuilders),
         // the decoded attribute values will not refer back to the
         // original buffer.
+        if (lazily)
+        {
+          // Lazily decoded values would alias the reused buffer, so decode from a copy.
+          return Entry.decodeLazily(entryBuffer.toByteString(), compressedSchema);
+        }
         return Entry.decode(entryBuffer.asReader(), compressedSchema);
       }
       else
       {
         // Since we don't have to do any decompression, we can just decode
         // the entry directly.
-        ByteString encodedEntry = reader.readOctetString();
-        return Entry.decode(encodedEntry.asReader(), compressedSchema);
+        return decodeEntry(reader.readOctetString(), compressedSchema, lazily);
       }
     }
 
@@ -239,13 +271,14 @@ class ID2Entry extends AbstractTree
      *
      * @param bytes A byte array containing the encoded tree value.
      * @param compressedSchema The compressed schema manager to use when decoding.
+     * @param lazily Whether the attribute values must be decoded on first access.
      * @return The decoded entry.
      * @throws DecodeException If the data is not in the expected ASN.1 encoding
      * format or a decryption error occurs.
      * @throws DirectoryException If a Directory Server error occurs.
      * @throws IOException if an error occurs while reading the ASN1 sequence.
      */
-    private Entry decodeV2(ByteString bytes, CompressedSchema compressedSchema)
+    private Entry decodeV2(ByteString bytes, CompressedSchema compressedSchema, boolean lazily)
         throws DirectoryException, DecodeException, IOException
     {
       ByteSequenceReader reader = bytes.asReader();
@@ -257,7 +290,7 @@ class ID2Entry extends AbstractTree
       {
         if (format == PLAIN_ENTRY)
         {
-          return Entry.decode(reader, compressedSchema);
+          return decodeEntry(bytes.subSequence(reader.position(), bytes.length()), compressedSchema, lazily);
         }
         InputStream is = reader.asInputStream();
         if ((format & ENCRYPT_ENTRY) == ENCRYPT_ENTRY)
@@ -266,7 +299,8 @@ class ID2Entry extends AbstractTree
         }
         if ((format & COMPRESS_ENTRY) == COMPRESS_ENTRY)
         {
-          is = new InflaterInputStream(is);
+          inflater.reset();
+          is = new InflaterInputStream(is, inflater);
         }
         byte[] data = new byte[encodedEntryLen];
         int readBytes;
@@ -282,7 +316,7 @@ class ID2Entry extends AbstractTree
           position += readBytes;
           leftToRead -= readBytes;
         } while (leftToRead > 0 && readBytes > 0);
-        return Entry.decode(ByteString.wrap(data).asReader(), compressedSchema);
+        return decodeEntry(ByteString.wrap(data), compressedSchema, lazily);
       }
       catch (CryptoManagerException cme)
       {
@@ -291,6 +325,104 @@ class ID2Entry extends AbstractTree
       }
     }
 
+    /**
+     * Decodes an entry compressed with a compression dictionary.
+     * Entries are encoded according to the sequence
+     *   {VERSION_BYTE, FLAG_BYTE, COMPACT_INTEGER_DICTIONARY_ID, COMPACT_INTEGER_LENGTH, ID2ENTRY_VALUE}
+     * where
+     *
+     * ID2ENTRY_VALUE = raw deflate data of the encoding of Entry as in decodeV1(),
+     *     compressed with the dictionary, then optionally encrypted.
+     * VERSION_BYTE = 0x3
+     * FLAG_BYTE = bit field as in decodeV2(), where COMPRESS_ENTRY is always set.
+     * COMPACT_INTEGER_DICTIONARY_ID = identifier of the compression dictionary.
+     * COMPACT_INTEGER_LENGTH = length of the uncompressed encoding of Entry.
+     *
+     * @param bytes A byte array containing the encoded tree value.
+     * @param compressedSchema The compressed schema manager to use when decoding.
+     * @param dictionaries The compression dictionaries of the backend.
+     * @param lazily Whether the attribute values must be decoded on first access.
+     * @return The decoded entry.
+     * @throws DecodeException If the data is not in the expected format, if the
+     * compression dictionary is unknown or a decryption error occurs.
+     * @throws DirectoryException If a Directory Server error occurs.
+     * @throws IOException if an error occurs while reading the encrypted data.
+     */
+    private Entry decodeV3(ByteString bytes, CompressedSchema compressedSchema, CompressionDictionaries dictionaries,
+        boolean lazily) throws DirectoryException, DecodeException, IOException
+    {
+      ByteSequenceReader reader = bytes.asReader();
+      // skip version byte
+      reader.position(1);
+      int format = reader.readByte();
+      int dictionaryID = reader.readCompactUnsignedInt();
+      int encodedEntryLen = reader.readCompactUnsignedInt();
+      byte[] dictionary = dictionaries != null ? dictionaries.getDictionary(dictionaryID) : null;
+      if (dictionary == null)
+      {
+        throw DecodeException.error(ERR_UNKNOWN_COMPRESSION_DICTIONARY.get(dictionaryID));
+      }
+
+      if ((format & ENCRYPT_ENTRY) == ENCRYPT_ENTRY)
+      {
+        try
+        {
+          InputStream is = getCryptoManager().getCipherInputStream(reader.asInputStream());
+          while (compressedEntryBuffer.appendBytes(is, BUFFER_INIT_SIZE) != -1)
+          {
+            // Read until the end of the encrypted data.
+          }
+        }
+        catch (CryptoManagerException cme)
+        {
+          logger.traceException(cme);
+          throw DecodeException.error(cme.getMessageObject());
+        }
+      }
+      else
+      {
+        compressedEntryBuffer.appendBytes(reader, reader.remaining());
+      }
+
+      if (inflatedBytes.length < encodedEntryLen)
+      {
+        inflatedBytes = new byte[encodedEntryLen];
+      }
+      rawInflater.reset();
+      rawInflater.setDictionary(dictionary);
+      rawInflater.setInput(compressedEntryBuffer.getBackingArray(), 0, compressedEntryBuffer.length());
+      try
+      {
+        int position = 0;
+        while (position < encodedEntryLen)
+        {
+          int inflatedLen = rawInflater.inflate(inflatedBytes, position, encodedEntryLen - position);
+          if (inflatedLen == 0 && (rawInflater.finished() || rawInflater.needsInput()))
+          {
+            throw DecodeException.error(ERR_CANNOT_DECODE_ENTRY.get());
+          }
+          position += inflatedLen;
+        }
+      }
+      catch (DataFormatException e)
+      {
+        logger.traceException(e);
+        throw DecodeException.error(ERR_CANNOT_DECODE_ENTRY.get(), e);
+      }
+      // Copy the inflated entry so that the decoded attribute values do not refer back to the cached buffer.
+      return decodeEntry(ByteString.valueOfBytes(inflatedBytes, 0, encodedEntryLen), compressedSchema, lazily);
+    }
+
+    private Entry decodeEntry(ByteString encodedEntry, CompressedSchema compressedSchema, boolean lazily)
+        throws DirectoryException
+    {
+      if (lazily)
+      {
+        return Entry.decodeLazily(encodedEntry, compressedSchema);
+      }
+      return Entry.decode(encodedEntry.asReader(), compressedSchema);
+    }
+
     private ByteString encode(Entry entry, DataConfig dataConfig) throws DirectoryException
     {
       encodeVolatile(entry, dataConfig);
@@ -301,6 +433,15 @@ class ID2Entry extends AbstractTree
     {
       entry.encode(entryBuffer, dataConfig.getEntryEncodeConfig());
 
+      final CompressionDictionaries dictionaries = dataConfig.getCompressionDictionaries();
+      final int dictionaryID =
+          dataConfig.isCompressed() && dictionaries != null ? dictionaries.getCurrentDictionaryID() : 0;
+      if (dictionaryID != 0)
+      {
+        encodeV3(dataConfig, dictionaryID, dictionaries.getDictionary(dictionaryID));
+        return;
+      }
+
       OutputStream os = encodedBuffer.asOutputStream();
       try
       {
@@ -309,7 +450,8 @@ class ID2Entry extends AbstractTree
         encodedBuffer.appendCompactUnsigned(entryBuffer.length());
         if (dataConfig.isCompressed())
         {
-          os = new DeflaterOutputStream(os);
+          deflater.reset();
+          os = new DeflaterOutputStream(os, deflater);
           formatFlags[1] = COMPRESS_ENTRY;
         }
         if (dataConfig.isEncrypted())
@@ -339,6 +481,52 @@ class ID2Entry extends AbstractTree
         }
       }
     }
+
+    /** Encodes the entry held in the entry buffer in the format described in decodeV3(). */
+    private void encodeV3(DataConfig dataConfig, int dictionaryID, byte[] dictionary) throws DirectoryException
+    {
+      rawDeflater.reset();
+      rawDeflater.setDictionary(dictionary);
+      rawDeflater.setInput(entryBuffer.getBackingArray(), 0, entryBuffer.length());
+      rawDeflater.finish();
+      while (!rawDeflater.finished())
+      {
+        compressedEntryBuffer.appendBytes(deflatedBytes, 0, rawDeflater.deflate(deflatedBytes));
+      }
+
+      encodedBuffer.appendByte(FORMAT_VERSION_V3);
+      encodedBuffer.appendByte(dataConfig.isEncrypted() ? COMPRESS_ENTRY | ENCRYPT_ENTRY : COMPRESS_ENTRY);
+      encodedBuffer.appendCompactUnsigned(dictionaryID);
+      encodedBuffer.appendCompactUnsigned(entryBuffer.length());
+      if (!dataConfig.isEncrypted())
+      {
+        encodedBuffer.appendBytes(compressedEntryBuffer);
+        return;
+      }
+      try (OutputStream os = dataConfig.getCryptoSuite().getCipherOutputStream(encodedBuffer.asOutputStream()))
+      {
+        compressedEntryBuffer.copyTo(os);
+      }
+      catch (CryptoManagerException | IOException e)
+      {
+        logger.traceException(e);
+        throw new DirectoryException(UNWILLING_TO_PERFORM, ERR_CANNOT_ENCODE_ENTRY.get(e.getLocalizedMessage()));
+      }
+    }
+
+    /**
+     * Indicates whether the provided tree value is an entry compressed with the provided compression dictionary.
+     */
+    private static boolean isCompressedWith(ByteString bytes, int dictionaryID)
+    {
+      if (bytes.byteAt(0) != FORMAT_VERSION_V3)
+      {
+        return false;
+      }
+      ByteSequenceReader reader = bytes.asReader();
+      reader.position(2);
+      return reader.readCompactUnsignedInt() == dictionaryID;
+    }
   }
 
   /**
@@ -384,11 +572,35 @@ class ID2Entry extends AbstractTree
   Entry entryFromDatabase(ByteString bytes,
       CompressedSchema compressedSchema) throws DirectoryException,
       DecodeException, LDAPException, DataFormatException, IOException
+  {
+    return entryFromDatabase(bytes, compressedSchema, false);
+  }
+
+  /**
+   * Decodes an entry from its tree representation, optionally decoding the
+   * attribute values only when they are first accessed.
+   *
+   * @param bytes A byte array containing the encoded tree value.
+   * @param compressedSchema The compressed schema manager to use when decoding.
+   * @param lazily Whether the attribute values must be decoded on first access.
+   * @return The decoded entry.
+   * @throws DecodeException If the data is not in the expected ASN.1 encoding
+   * format.
+   * @throws LDAPException If the data is not in the expected ASN.1 encoding
+   * format.
+   * @throws DataFormatException If an error occurs while trying to decompress
+   * compressed data.
+   * @throws DirectoryException If a Directory Server error occurs.
+   * @throws IOException if an error occurs while reading the ASN1 sequence.
+   * @see Entry#decodeLazily(ByteString, CompressedSchema)
+   */
+  Entry entryFromDatabase(ByteString bytes, CompressedSchema compressedSchema, boolean lazily)
+      throws DirectoryException, DecodeException, LDAPException, DataFormatException, IOException
   {
     EntryCodec codec = acquireEntryCodec();
     try
     {
-      return codec.decode(bytes, compressedSchema);
+      return codec.decode(bytes, compressedSchema, dataConfig.getCompressionDictionaries(), lazily);
     }
     finally
     {
@@ -423,6 +635,98 @@ class ID2Entry extends AbstractTree
     return entryToDatabase(entry, dataConfig);
   }
 
+  /**
+   * Returns the encoding of an entry before compression and encryption, which can be used as a sample for training
+   * a compression dictionary.
+   *
+   * @param bytes A byte array containing the encoded tree value.
+   * @return The encoding of the entry before compression and encryption.
+   * @throws Exception If the entry cannot be decoded.
+   */
+  ByteString toCompressionSample(ByteString bytes) throws Exception
+  {
+    final EntryEncodeConfig encodeConfig = dataConfig.getEntryEncodeConfig();
+    final ByteStringBuilder sample = new ByteStringBuilder();
+    entryFromDatabase(bytes, encodeConfig.getCompressedSchema()).encode(sample, encodeConfig);
+    return sample.toByteString();
+  }
+
+  /**
+   * Re-encodes the entries which are not compressed with the current compression dictionary.
+   * <p>
+   * Entries are re-encoded in batches, each batch in its own transaction, so that the tree remains available to
+   * other operations while its entries are rewritten.
+   *
+   * @param storage The storage holding the entry tree.
+   * @param batchSize The maximum number of entries read in each transaction.
+   * @return The number of re-encoded entries.
+   * @throws Exception If an error occurs in the storage or if an entry cannot be decoded or encoded.
+   */
+  long recompressEntries(Storage storage, final int batchSize) throws Exception
+  {
+    final CompressionDictionaries dictionaries = dataConfig.getCompressionDictionaries();
+    if (!dataConfig.isCompressed() || dictionaries == null || dictionaries.getCurrentDictionaryID() == 0)
+    {
+      return 0;
+    }
+    final int dictionaryID = dictionaries.getCurrentDictionaryID();
+    final CompressedSchema compressedSchema = dataConfig.getEntryEncodeConfig().getCompressedSchema();
+
+    /** Reads a batch of entries after the last key of the previous batch, and re-encodes them if needed. */
+    final class RecompressBatch implements WriteOperation
+    {
+      private ByteString lastKey;
+      private boolean hasMoreEntries = true;
+      private int recompressedCount;
+
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        final List<ByteString> keys = new ArrayList<>(batchSize);
+        final List<ByteString> values = new ArrayList<>(batchSize);
+        try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+        {
+          boolean found = lastKey == null ? cursor.next() : cursor.positionToKeyOrNext(lastKey);
+          if (found && lastKey != null && lastKey.equals(cursor.getKey()))
+          {
+            found = cursor.next();
+          }
+          while (found && keys.size() < batchSize)
+          {
+            keys.add(cursor.getKey());
+            values.add(cursor.getValue());
+            found = cursor.next();
+          }
+          hasMoreEntries = found;
+        }
+
+        recompressedCount = 0;
+        for (int i = 0; i < keys.size(); i++)
+        {
+          final ByteString value = values.get(i);
+          if (!EntryCodec.isCompressedWith(value, dictionaryID))
+          {
+            txn.put(getName(), keys.get(i), entryToDatabase(entryFromDatabase(value, compressedSchema), dataConfig));
+            recompressedCount++;
+          }
+        }
+        if (!keys.isEmpty())
+        {
+          lastKey = keys.get(keys.size() - 1);
+        }
+      }
+    }
+
+    final RecompressBatch batch = new RecompressBatch();
+    long recompressedCount = 0;
+    while (batch.hasMoreEntries)
+    {
+      storage.write(batch);
+      recompressedCount += batch.recompressedCount;
+    }
+    return recompressedCount;
+  }
+
   /**
    * Write a record in the entry tree.
    *
@@ -457,10 +761,37 @@ class ID2Entry extends AbstractTree
    */
   public Entry get(ReadableTransaction txn, EntryID entryID)
        throws DirectoryException, StorageRuntimeException
+  {
+    return get(txn, entryID, false);
+  }
+
+  /**
+   * Fetch a record from the entry tree, decoding the attribute values only when
+   * they are first accessed.
+   * <p>
+   * This avoids decoding the values of the attributes which are neither
+   * evaluated by the search filter nor by access control nor returned to the
+   * client. The returned entry must not be shared between threads.
+   *
+   * @param txn a non null transaction
+   * @param entryID The desired entry ID which forms the key.
+   * @return The requested entry, or null if there is no such record.
+   * @throws DirectoryException If a problem occurs while getting the entry.
+   * @throws StorageRuntimeException If an error occurs in the storage.
+   * @see Entry#decodeLazily(ByteString, CompressedSchema)
+   */
+  Entry getLazily(ReadableTransaction txn, EntryID entryID)
+       throws DirectoryException, StorageRuntimeException
+  {
+    return get(txn, entryID, true);
+  }
+
+  private Entry get(ReadableTransaction txn, EntryID entryID, boolean lazily)
+       throws DirectoryException, StorageRuntimeException
   {
     try
     {
-      return get0(txn.read(getName(), entryID.toByteString()));
+      return get0(txn.read(getName(), entryID.toByteString()), lazily);
     }
     catch (Exception e)
     {
@@ -491,13 +822,13 @@ class ID2Entry extends AbstractTree
     }
   }
 
-  private Entry get0(ByteString value) throws Exception
+  private Entry get0(ByteString value, boolean lazily) throws Exception
   {
     if (value == null)
     {
       return null;
     }
-    final Entry entry = entryFromDatabase(value, dataConfig.getEntryEncodeConfig().getCompressedSchema());
+    final Entry entry = entryFromDatabase(value, dataConfig.getEntryEncodeConfig().getCompressedSchema(), lazily);
     entry.processVirtualAttributes();
     return entry;
   }
@@ -525,7 +856,7 @@ class ID2Entry extends AbstractTree
   {
     try
     {
-      return "\n" + get0(value).toString();
+      return "\n" + get0(value, false).toString();
     }
     catch (Exception e)
     {
@@ -27,6 +27,7 @@
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  * See the License for the specific language governing permissions and
  * limitations under the License.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -115,6 +116,7 @@ import org.opends.server.backends.pluggable.CursorTransformer.SequentialCursorAd
 import org.opends.server.backends.pluggable.DN2ID.TreeVisitor;
 import org.opends.server.backends.pluggable.ImportLDIFReader.EntryInformation;
 import org.opends.server.backends.pluggable.OnDiskMergeImporter.BufferPool.MemoryBuffer;
+import org.opends.server.backends.pluggable.VLVPageCounts.PageCountsImporter;
 import org.opends.server.backends.pluggable.spi.Cursor;
 import org.opends.server.backends.pluggable.spi.Importer;
 import org.opends.server.backends.pluggable.spi.ReadOperation;
@@ -326,12 +328,69 @@ final class OnDiskMergeImporter
         clearDegradedState(entryContainer, indexesToRebuild);
         logger.info(NOTE_REBUILD_CLEARDEGRADEDSTATE_FINAL_STATUS, rebuildConfig.getRebuildList());
       }
+      else if (rebuildConfig.isOnline())
+      {
+        rebuildIndexOnline(entryContainer, indexesToRebuild, rebuildConfig.getMaxEntriesPerSecond());
+      }
       else
       {
         rebuildIndex(entryContainer, rebuildConfig.getTmpDirectory(), indexesToRebuild, totalEntries);
       }
     }
 
+    /**
+     * Rebuilds the attribute and VLV indexes while the backend remains online. System indexes can not be rebuilt
+     * online because the entries can not be read without them.
+     */
+    private void rebuildIndexOnline(final EntryContainer entryContainer, final Set<String> indexesToRebuild,
+        final int maxEntriesPerSecond) throws InitializationException, ExecutionException, InterruptedException
+    {
+      final List<MatchingRuleIndex> attributeIndexes = new ArrayList<>();
+      for (final AttributeIndex attribute : entryContainer.getAttributeIndexes())
+      {
+        for (final MatchingRuleIndex index : attribute.getNameToIndexes().values())
+        {
+          if (indexesToRebuild.contains(index.getName().getIndexId()))
+          {
+            attributeIndexes.add(index);
+          }
+        }
+      }
+      final List<VLVIndex> vlvIndexes = new ArrayList<>();
+      for (final VLVIndex index : entryContainer.getVLVIndexes())
+      {
+        if (indexesToRebuild.contains(index.getName().getIndexId()))
+        {
+          vlvIndexes.add(index);
+        }
+      }
+      if (attributeIndexes.size() + vlvIndexes.size() != indexesToRebuild.size())
+      {
+        throw new InitializationException(ERR_REBUILD_BACKEND_ONLINE.get());
+      }
+      if (indexesToRebuild.isEmpty())
+      {
+        return;
+      }
+
+      final OnlineIndexBuilder builder = new OnlineIndexBuilder(
+          entryContainer, attributeIndexes, vlvIndexes, rootContainer.getStorage(), maxEntriesPerSecond);
+      final boolean completed;
+      try
+      {
+        completed = builder.build();
+      }
+      catch (Exception e)
+      {
+        throw new ExecutionException(e);
+      }
+      if (!completed)
+      {
+        throw new InterruptedException(NOTE_INDEX_ONLINE_BUILD_STOPPED.get(
+            Utils.joinAsString(", ", indexesToRebuild), builder.getProcessedEntries()).toString());
+      }
+    }
+
     private void clearDegradedState(final EntryContainer entryContainer, final Set<String> indexIds)
         throws ExecutionException
     {
@@ -2314,7 +2373,7 @@ final class OnDiskMergeImporter
     }
   }
 
-  /** Task to copy VLV's counter chunks into a database tree. */
+  /** Task to copy VLV's chunks into a database tree, computing its counter and page counts. */
   private static final class VLVIndexImporterTask implements Callable<Void>
   {
     private final PhaseTwoProgressReporter reporter;
@@ -2336,7 +2395,20 @@ final class OnDiskMergeImporter
       checkThreadNotInterrupted();
       try (final SequentialCursor<ByteString, ByteString> sourceCursor = trackCursorProgress(reporter, source.flip()))
       {
-        final long nbRecords = copyIntoChunk(sourceCursor, asChunk(vlvIndex.getName(), destination));
+        final Chunk vlvChunk = asChunk(vlvIndex.getName(), destination);
+        final PageCountsImporter pageCounts = vlvIndex.getPageCounts().newPageCountsImporter(destination);
+        long nbRecords = 0;
+        while (sourceCursor.next())
+        {
+          if (!vlvChunk.put(sourceCursor.getKey(), sourceCursor.getValue()))
+          {
+            throw new IllegalStateException("Destination chunk is full");
+          }
+          pageCounts.keyImported(sourceCursor.getKey());
+          nbRecords++;
+          checkThreadNotInterrupted();
+        }
+        pageCounts.importFinished();
         vlvIndex.importCount(destination, nbRecords);
         return null;
       }
@@ -0,0 +1,473 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.opends.messages.BackendMessages.*;
+import static org.opends.server.backends.pluggable.EntryIDSet.*;
+import static org.opends.server.core.DirectoryServer.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.util.Utils;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.backends.pluggable.AttributeIndex.MatchingRuleIndex;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.Storage;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.LockManager.DNLock;
+
+/**
+ * Builds attribute and VLV indexes in the background, from the entries of the entry tree, while the entries are
+ * being updated.
+ * <p>
+ * The indexes are first cleared. From then on, the updates of the entries are applied to the indexes although they
+ * are not trusted. The entries are then processed by batches in entry ID order: the entries of a batch are read
+ * locked, then re-read and added to the indexes. Adding an entry which is already indexed does not change the
+ * indexes, so that the indexes converge whatever the order in which the entries are updated and processed. The
+ * entries which cannot be locked in time, because other operations keep them locked, are processed again after the
+ * other entries. The indexes all become trusted at once when all the entries have been processed.
+ */
+final class OnlineIndexBuilder implements Runnable
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The number of entries locked and indexed in a single transaction. */
+  private static final int BATCH_SIZE = 100;
+
+  private final EntryContainer entryContainer;
+  private final Collection<MatchingRuleIndex> attributeIndexes;
+  private final Collection<VLVIndex> vlvIndexes;
+  private final Storage storage;
+  /** The maximum number of entries processed per second, or 0 if not limited. */
+  private final int maxEntriesPerSecond;
+  private final String indexNames;
+
+  private final Object stopLock = new Object();
+  private final CountDownLatch finished = new CountDownLatch(1);
+  private volatile boolean stopRequested;
+  private volatile Thread thread;
+  private volatile long totalEntries;
+  private volatile long processedEntries;
+
+  OnlineIndexBuilder(EntryContainer entryContainer, Collection<MatchingRuleIndex> attributeIndexes,
+      Collection<VLVIndex> vlvIndexes, Storage storage, int maxEntriesPerSecond)
+  {
+    this.entryContainer = entryContainer;
+    this.attributeIndexes = new ArrayList<>(attributeIndexes);
+    this.vlvIndexes = new ArrayList<>(vlvIndexes);
+    this.storage = storage;
+    this.maxEntriesPerSecond = maxEntriesPerSecond;
+
+    final List<String> names = new ArrayList<>();
+    for (Tree index : this.attributeIndexes)
+    {
+      names.add(index.getName().getIndexId());
+    }
+    for (Tree index : this.vlvIndexes)
+    {
+      names.add(index.getName().getIndexId());
+    }
+    this.indexNames = Utils.joinAsString(", ", names);
+  }
+
+  /** Starts building the indexes in a background thread. */
+  void start()
+  {
+    entryContainer.registerIndexBuilder(this);
+    thread = new DirectoryThread(this, "Online Index Builder " + indexNames);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops building the indexes, and waits for the current batch of entries to be processed. The indexes remain
+   * untrusted.
+   */
+  void stop()
+  {
+    synchronized (stopLock)
+    {
+      stopRequested = true;
+      stopLock.notifyAll();
+    }
+    final Thread builderThread = thread;
+    if (builderThread != null && builderThread != Thread.currentThread())
+    {
+      try
+      {
+        finished.await();
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Returns whether this builder builds the provided index.
+   *
+   * @param index
+   *          the index
+   * @return {@code true} if this builder builds the provided index
+   */
+  boolean isBuilding(Tree index)
+  {
+    return attributeIndexes.contains(index) || vlvIndexes.contains(index);
+  }
+
+  /**
+   * Returns the progress of this builder, for monitoring.
+   *
+   * @return the progress of this builder
+   */
+  String getProgress()
+  {
+    final long total = totalEntries;
+    final long processed = processedEntries;
+    final long percent = total > 0 ? Math.min(100, processed * 100 / total) : 0;
+    return indexNames + " processed:" + processed + " total:" + total + " percent:" + percent;
+  }
+
+  long getProcessedEntries()
+  {
+    return processedEntries;
+  }
+
+  @Override
+  public void run()
+  {
+    try
+    {
+      build();
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_INDEX_ONLINE_BUILD_FAILED, indexNames, stackTraceToSingleLineString(e));
+    }
+  }
+
+  /**
+   * Builds the indexes in the current thread.
+   *
+   * @return {@code true} if the indexes have been built and are now trusted, {@code false} if the build has been
+   *         stopped
+   * @throws Exception
+   *           if the indexes could not be built, they remain untrusted
+   */
+  boolean build() throws Exception
+  {
+    if (thread == null)
+    {
+      thread = Thread.currentThread();
+    }
+    final long startTime = System.currentTimeMillis();
+    final ID2Entry id2entry = entryContainer.getID2Entry();
+    long indexed = 0;
+    boolean completed = false;
+    entryContainer.registerIndexBuilder(this);
+    try
+    {
+      if (!clearIndexes())
+      {
+        logger.info(NOTE_INDEX_ONLINE_BUILD_STOPPED, indexNames, 0);
+        return false;
+      }
+      totalEntries = storage.read(new ReadOperation<Long>()
+      {
+        @Override
+        public Long run(ReadableTransaction txn) throws Exception
+        {
+          return id2entry.getRecordCount(txn);
+        }
+      });
+      logger.info(NOTE_INDEX_ONLINE_BUILD_STARTED, indexNames, totalEntries);
+
+      EntryID lastEntryID = null;
+      final Map<EntryID, DN> contendedEntries = new LinkedHashMap<>();
+      while (!stopRequested)
+      {
+        final Map<EntryID, DN> batch = readBatch(id2entry, lastEntryID);
+        if (batch.isEmpty())
+        {
+          break;
+        }
+        indexed += indexBatch(id2entry, batch, contendedEntries);
+        for (EntryID entryID : batch.keySet())
+        {
+          lastEntryID = entryID;
+        }
+        throttle(startTime);
+      }
+      while (!contendedEntries.isEmpty() && !stopRequested)
+      {
+        final Map<EntryID, DN> batch = new LinkedHashMap<>(contendedEntries);
+        contendedEntries.clear();
+        indexed += indexBatch(id2entry, batch, contendedEntries);
+        throttle(startTime);
+      }
+
+      completed = setTrusted();
+      if (!completed)
+      {
+        logger.info(NOTE_INDEX_ONLINE_BUILD_STOPPED, indexNames, processedEntries);
+        return false;
+      }
+      final long duration = (System.currentTimeMillis() - startTime) / 1000;
+      logger.info(NOTE_INDEX_ONLINE_BUILD_COMPLETED, indexNames, processedEntries, indexed, duration);
+      return true;
+    }
+    finally
+    {
+      if (!completed)
+      {
+        setBuilding(false);
+      }
+      entryContainer.deregisterIndexBuilder(this);
+      finished.countDown();
+    }
+  }
+
+  /** Empties the indexes, and starts applying the updates of the entries to them. */
+  private boolean clearIndexes() throws Exception
+  {
+    entryContainer.exclusiveLock.lock();
+    try
+    {
+      if (stopRequested)
+      {
+        return false;
+      }
+      storage.write(new WriteOperation()
+      {
+        @Override
+        public void run(WriteableTransaction txn) throws Exception
+        {
+          for (MatchingRuleIndex index : attributeIndexes)
+          {
+            index.delete(txn);
+            index.open(txn, true);
+            index.setTrusted(txn, false);
+          }
+          for (VLVIndex index : vlvIndexes)
+          {
+            index.delete(txn);
+            index.open(txn, true);
+            index.setTrusted(txn, false);
+          }
+        }
+      });
+      setBuilding(true);
+      return true;
+    }
+    finally
+    {
+      entryContainer.exclusiveLock.unlock();
+    }
+  }
+
+  private void setBuilding(boolean building)
+  {
+    for (MatchingRuleIndex index : attributeIndexes)
+    {
+      index.setBuilding(building);
+    }
+  }
+
+  /** Returns the IDs and DNs of the next entries to process. */
+  private Map<EntryID, DN> readBatch(final ID2Entry id2entry, final EntryID lastEntryID) throws Exception
+  {
+    return storage.read(new ReadOperation<Map<EntryID, DN>>()
+    {
+      @Override
+      public Map<EntryID, DN> run(ReadableTransaction txn) throws Exception
+      {
+        final Map<EntryID, DN> batch = new LinkedHashMap<>(BATCH_SIZE);
+        try (Cursor<ByteString, ByteString> cursor = txn.openCursor(id2entry.getName()))
+        {
+          boolean found = lastEntryID == null
+              ? cursor.next()
+              : cursor.positionToKeyOrNext(new EntryID(lastEntryID.longValue() + 1).toByteString());
+          while (found && batch.size() < BATCH_SIZE)
+          {
+            // Only the DN is needed, do not decode the attributes.
+            final Entry entry = id2entry.entryFromDatabase(
+                cursor.getValue(), entryContainer.getRootContainer().getCompressedSchema(), true);
+            batch.put(new EntryID(cursor.getKey()), entry.getName());
+            found = cursor.next();
+          }
+        }
+        return batch;
+      }
+    });
+  }
+
+  /**
+   * Adds the entries of the batch to the indexes, and returns the number of entries added to an index. The entries
+   * which cannot be locked in time are not processed, but added to the contended entries to be processed later.
+   */
+  private long indexBatch(final ID2Entry id2entry, final Map<EntryID, DN> batch,
+      final Map<EntryID, DN> contendedEntries) throws Exception
+  {
+    // Lock the entries before the entry container, like the operations updating the entries.
+    final Map<EntryID, DN> lockedEntries = new LinkedHashMap<>(batch.size());
+    final List<DNLock> locks = new ArrayList<>(batch.size());
+    try
+    {
+      for (Map.Entry<EntryID, DN> mapEntry : batch.entrySet())
+      {
+        final DNLock lock = getLockManager().tryReadLockEntry(mapEntry.getValue());
+        if (lock == null)
+        {
+          logger.trace("Entry %s is locked, it will be indexed later", mapEntry.getValue());
+          contendedEntries.put(mapEntry.getKey(), mapEntry.getValue());
+          continue;
+        }
+        locks.add(lock);
+        lockedEntries.put(mapEntry.getKey(), mapEntry.getValue());
+      }
+
+      entryContainer.sharedLock.lock();
+      try
+      {
+        if (stopRequested)
+        {
+          return 0;
+        }
+        final long[] indexed = new long[1];
+        storage.write(new WriteOperation()
+        {
+          @Override
+          public void run(WriteableTransaction txn) throws Exception
+          {
+            indexed[0] = 0;
+            for (Map.Entry<EntryID, DN> mapEntry : lockedEntries.entrySet())
+            {
+              // The entry may have been modified, renamed or deleted since the batch was read.
+              final Entry entry = id2entry.getLazily(txn, mapEntry.getKey());
+              if (entry != null
+                  && entry.getName().equals(mapEntry.getValue())
+                  && indexEntry(txn, mapEntry.getKey(), entry))
+              {
+                indexed[0]++;
+              }
+            }
+          }
+        });
+        processedEntries += lockedEntries.size();
+        return indexed[0];
+      }
+      finally
+      {
+        entryContainer.sharedLock.unlock();
+      }
+    }
+    finally
+    {
+      for (DNLock lock : locks)
+      {
+        lock.unlock();
+      }
+    }
+  }
+
+  private boolean indexEntry(WriteableTransaction txn, EntryID entryID, Entry entry) throws DirectoryException
+  {
+    boolean indexed = false;
+    for (MatchingRuleIndex index : attributeIndexes)
+    {
+      for (ByteString key : index.indexEntry(entry))
+      {
+        index.update(txn, key, null, newDefinedSet(entryID.longValue()));
+        indexed = true;
+      }
+    }
+    for (VLVIndex index : vlvIndexes)
+    {
+      indexed |= index.addEntryIfAbsent(txn, entryID, entry);
+    }
+    return indexed;
+  }
+
+  /** Waits until the processed entries are within the rate limit. */
+  private void throttle(long startTime) throws InterruptedException
+  {
+    if (maxEntriesPerSecond <= 0)
+    {
+      return;
+    }
+    final long delay = processedEntries * 1000 / maxEntriesPerSecond - (System.currentTimeMillis() - startTime);
+    if (delay > 0)
+    {
+      synchronized (stopLock)
+      {
+        if (!stopRequested)
+        {
+          stopLock.wait(delay);
+        }
+      }
+    }
+  }
+
+  /** Flips all the indexes to trusted at once, unless the build has been stopped. */
+  private boolean setTrusted() throws Exception
+  {
+    entryContainer.sharedLock.lock();
+    try
+    {
+      if (stopRequested)
+      {
+        return false;
+      }
+      storage.write(new WriteOperation()
+      {
+        @Override
+        public void run(WriteableTransaction txn) throws Exception
+        {
+          for (MatchingRuleIndex index : attributeIndexes)
+          {
+            index.setTrusted(txn, true);
+          }
+          for (VLVIndex index : vlvIndexes)
+          {
+            index.setTrusted(txn, true);
+          }
+        }
+      });
+      setBuilding(false);
+      return true;
+    }
+    finally
+    {
+      entryContainer.sharedLock.unlock();
+    }
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -23,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -32,11 +34,13 @@ import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.server.config.server.PluggableBackendCfg;
 import org.opends.server.api.CompressedSchema;
 import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
 import org.opends.server.backends.pluggable.spi.ReadOperation;
 import org.opends.server.backends.pluggable.spi.ReadableTransaction;
 import org.opends.server.backends.pluggable.spi.Storage;
@@ -79,6 +83,11 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
 
   /** The compressed schema manager for this backend. */
   private PersistentCompressedSchema compressedSchema;
+  /** The dictionaries used for compressing the entries of this backend. */
+  private CompressionDictionaries compressionDictionaries;
+
+  /** The number of entries re-encoded in each transaction after training a compression dictionary. */
+  private static final int RECOMPRESS_BATCH_SIZE = 1000;
 
   private final ServerContext serverContext;
 
@@ -137,6 +146,7 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
         public void run(WriteableTransaction txn) throws Exception
         {
           compressedSchema = new PersistentCompressedSchema(serverContext, storage, txn, accessMode);
+          compressionDictionaries = new CompressionDictionaries(storage, txn, accessMode);
           openAndRegisterEntryContainers(txn, config.getBaseDN(), accessMode);
         }
       });
@@ -255,6 +265,86 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
     return compressedSchema;
   }
 
+  /**
+   * Retrieves the dictionaries used for compressing the entries of this backend.
+   *
+   * @return The compression dictionaries of this backend.
+   */
+  CompressionDictionaries getCompressionDictionaries()
+  {
+    return compressionDictionaries;
+  }
+
+  /**
+   * Trains a new compression dictionary from a random sample of the entries of this backend, then re-encodes the
+   * entries of all the entry containers with the new dictionary. The entries are re-encoded in small batches, so that
+   * the backend remains available while its entries are rewritten.
+   *
+   * @param sampleSize
+   *          The maximum number of entries used for training the dictionary.
+   * @throws Exception
+   *           If entries compression is disabled, or if an error occurs while reading or writing the entries.
+   */
+  void trainCompressionDictionary(final int sampleSize) throws Exception
+  {
+    if (!config.isEntriesCompressed())
+    {
+      throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM,
+          ERR_COMPRESSION_DICTIONARY_REQUIRES_COMPRESSION.get(backendId));
+    }
+
+    final List<ByteString> samples = storage.read(new ReadOperation<List<ByteString>>()
+    {
+      @Override
+      public List<ByteString> run(ReadableTransaction txn) throws Exception
+      {
+        // Reservoir sampling, so that all the entries have the same probability to be part of the sample.
+        final List<ByteString> reservoir = new ArrayList<>(sampleSize);
+        final Random random = new Random();
+        long count = 0;
+        for (EntryContainer ec : getEntryContainers())
+        {
+          final ID2Entry id2entry = ec.getID2Entry();
+          try (Cursor<ByteString, ByteString> cursor = txn.openCursor(id2entry.getName()))
+          {
+            while (cursor.next())
+            {
+              count++;
+              if (reservoir.size() < sampleSize)
+              {
+                reservoir.add(id2entry.toCompressionSample(cursor.getValue()));
+              }
+              else
+              {
+                final long index = (long) (random.nextDouble() * count);
+                if (index < sampleSize)
+                {
+                  reservoir.set((int) index, id2entry.toCompressionSample(cursor.getValue()));
+                }
+              }
+            }
+          }
+        }
+        return reservoir;
+      }
+    });
+
+    final byte[] dictionary = CompressionDictionaries.train(samples, CompressionDictionaries.MAX_DICTIONARY_SIZE);
+    if (dictionary.length == 0)
+    {
+      logger.info(NOTE_COMPRESSION_DICTIONARY_NOT_TRAINED, backendId, samples.size());
+      return;
+    }
+    final int dictionaryID = compressionDictionaries.addDictionary(dictionary);
+    logger.info(NOTE_COMPRESSION_DICTIONARY_TRAINED, dictionaryID, dictionary.length, samples.size(), backendId);
+
+    for (EntryContainer ec : getEntryContainers())
+    {
+      final long count = ec.getID2Entry().recompressEntries(storage, RECOMPRESS_BATCH_SIZE);
+      logger.info(NOTE_ENTRIES_RECOMPRESSED, count, ec.getBaseDN(), dictionaryID);
+    }
+  }
+
   /**
    * Get the BackendMonitor object used by this root container.
    *
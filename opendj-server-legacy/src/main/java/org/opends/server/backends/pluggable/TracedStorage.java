@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -98,6 +99,15 @@ final class TracedStorage implements Storage
       return found;
     }
 
+    @Override
+    public boolean previous()
+    {
+      traceEnter("previous");
+      boolean found = cursor.previous();
+      traceLeave("previous", "found", found);
+      return found;
+    }
+
     @Override
     public boolean positionToIndex(final int index)
     {
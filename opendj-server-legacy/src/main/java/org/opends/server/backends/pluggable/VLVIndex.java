@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -95,6 +96,8 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
 
   /** The count of entries in this index. */
   private final ShardedCounter counter;
+  /** The count of entries in consecutive ranges of this index. */
+  private final VLVPageCounts pageCounts;
 
   private DN baseDN;
   private SearchScope scope;
@@ -116,6 +119,8 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
   {
     super(new TreeName(entryContainer.getTreePrefix(), "vlv." + config.getName()));
     this.counter = new ShardedCounter(new TreeName(entryContainer.getTreePrefix(), "counter.vlv." + config.getName()));
+    this.pageCounts =
+        new VLVPageCounts(new TreeName(entryContainer.getTreePrefix(), "pages.vlv." + config.getName()), getName());
     this.config = config;
     this.baseDN = config.getBaseDN();
     this.scope = convertScope(config.getScope());
@@ -162,12 +167,14 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
   void afterOpen(final WriteableTransaction txn, boolean createOnDemand) throws StorageRuntimeException
   {
     counter.open(txn, createOnDemand);
+    pageCounts.open(txn, createOnDemand);
   }
 
   @Override
   void beforeDelete(WriteableTransaction txn) throws StorageRuntimeException
   {
     counter.delete(txn);
+    pageCounts.delete(txn);
   }
 
   void importCount(Importer importer, long count)
@@ -175,6 +182,11 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     counter.importPut(importer, COUNT_KEY, count);
   }
 
+  VLVPageCounts getPageCounts()
+  {
+    return pageCounts;
+  }
+
   @Override
   public synchronized boolean isConfigurationChangeAcceptable(final BackendVLVIndexCfg cfg,
       final List<LocalizableMessage> unacceptableReasons)
@@ -379,6 +391,27 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     return ByteString.empty();
   }
 
+  /**
+   * Adds the entry to this index unless it is already indexed. Used while this index is being built online,
+   * concurrently with the updates of the entries.
+   *
+   * @return {@code true} if the entry has been added to this index
+   */
+  boolean addEntryIfAbsent(final WriteableTransaction txn, final EntryID entryID, final Entry entry)
+      throws StorageRuntimeException, DirectoryException
+  {
+    if (shouldInclude(entry))
+    {
+      final ByteString key = toKey(entry, entryID);
+      if (txn.read(getName(), key) == null)
+      {
+        insertKey(txn, key);
+        return true;
+      }
+    }
+    return false;
+  }
+
   private boolean shouldInclude(final Entry entry) throws DirectoryException
   {
     return entry.getName().isInScopeOf(baseDN, scope) && filter.matchesEntry(entry);
@@ -452,19 +485,29 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     {
       if (nextDeletedKey == null || (nextAddedKey != null && nextAddedKey.compareTo(nextDeletedKey) < 0))
       {
-        txn.put(getName(), nextAddedKey, toValue());
+        insertKey(txn, nextAddedKey);
         nextAddedKey = nextOrNull(ai);
-        counter.addCount(txn, COUNT_KEY, 1);
       }
       else
       {
-        txn.delete(getName(), nextDeletedKey);
+        // The key may be missing while this index is being built online.
+        if (txn.delete(getName(), nextDeletedKey))
+        {
+          counter.addCount(txn, COUNT_KEY, -1);
+          pageCounts.removeKey(txn, nextDeletedKey);
+        }
         nextDeletedKey = nextOrNull(di);
-        counter.addCount(txn, COUNT_KEY, -1);
       }
     }
   }
 
+  private void insertKey(final WriteableTransaction txn, final ByteString key)
+  {
+    txn.put(getName(), key, toValue());
+    counter.addCount(txn, COUNT_KEY, 1);
+    pageCounts.addKey(txn, key);
+  }
+
   private Iterator<ByteString> iteratorFor(final TreeSet<ByteString> sortValues)
   {
     return sortValues != null ? sortValues.iterator() : Collections.<ByteString> emptySet().iterator();
@@ -547,14 +590,30 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
         encodeTargetAssertion(sortKeys, assertion, searchOperation, currentCount);
     try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
     {
+      // Don't waste cycles looking for an assertion that does not match anything.
+      final boolean matches = cursor.positionToKeyOrNext(encodedTargetAssertion);
+      if (matches)
+      {
+        // Calculate the target position from the page counts, unless they are not consistent.
+        final long keysBefore = pageCounts.countKeysBefore(txn, cursor, encodedTargetAssertion, currentCount);
+        if (keysBefore >= 0)
+        {
+          final int targetPosition = (int) keysBefore;
+          final int startPos = Math.max(0, targetPosition - beforeCount);
+          final long[] selectedIDs = pageCounts.positionToIndex(txn, cursor, startPos, currentCount)
+              ? readRange(cursor, targetPosition - startPos + 1 + afterCount, null)
+              : new long[0];
+          addVLVResponseControl(searchOperation, targetPosition + 1, currentCount, LDAPResultCode.SUCCESS);
+          return newDefinedSet(selectedIDs); // FIXME not ordered like a defined EntryIDSet expects
+        }
+      }
+
       final LinkedList<Long> selectedIDs = new LinkedList<>();
       int targetPosition = 0;
-
-      // Don't waste cycles looking for an assertion that does not match anything.
-      if (cursor.positionToKeyOrNext(encodedTargetAssertion) && cursor.positionToIndex(0))
+      if (matches && cursor.positionToIndex(0))
       {
         /*
-         * Unfortunately we need to iterate from the start of the index in order to correctly
+         * Without page counts, we need to iterate from the start of the index in order to correctly
          * calculate the target position.
          */
         boolean targetFound = false;
@@ -692,7 +751,7 @@ class VLVIndex extends AbstractTree implements ConfigurationChangeListener<Backe
     final int count = 1 + beforeCount + afterCount;
     try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
     {
-      if (cursor.positionToIndex(startPos))
+      if (pageCounts.positionToIndex(txn, cursor, startPos, currentCount))
       {
         selectedIDs = readRange(cursor, count, debugBuilder);
       }
@@ -0,0 +1,490 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.opends.server.backends.pluggable.ShardedCounter.*;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.Importer;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.StorageRuntimeException;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.UpdateFunction;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+
+/**
+ * Order statistics of a VLV index, used to position on the n-th key of the VLV index without reading
+ * the n first keys.
+ * <p>
+ * The keys of the VLV index are partitioned into consecutive ranges, or pages. Each record maps the
+ * upper bound (inclusive) of a page, prefixed by {@link #PAGE_PREFIX}, to the number of VLV keys in the
+ * page. Since VLV keys end with an entry ID and the encoded sort values are terminated by a separator, a VLV
+ * key is never the prefix of another one, and the page of a VLV key is the first page whose key is greater
+ * than or equal to it.
+ * <p>
+ * The last page has no upper bound and receives all the keys added with increasing sort values. Its count
+ * is therefore sharded amongst up to {@link #LAST_PAGE_SHARD_COUNT} records prefixed by
+ * {@link #LAST_PAGE_PREFIX}, which sort after all the other pages, so that concurrent updates do not contend
+ * on a single record.
+ * <p>
+ * Pages are split in two when they hold more than {@link #MAX_PAGE_SIZE} keys, and removed when they become
+ * empty. Positioning on the n-th key therefore reads the page records, then at most {@link #MAX_PAGE_SIZE}
+ * keys of the VLV index, or a few more when the key belongs to the last page.
+ */
+final class VLVPageCounts extends AbstractTree
+{
+  /** The number of keys in the pages written by an import. */
+  static final int PAGE_SIZE = 1000;
+  /** The number of keys above which a page is split. */
+  static final int MAX_PAGE_SIZE = 2 * PAGE_SIZE;
+
+  private static final byte PAGE_PREFIX = 0x00;
+  private static final byte LAST_PAGE_PREFIX = 0x01;
+  private static final ByteString LAST_PAGE_KEY = ByteString.valueOfBytes(new byte[] { LAST_PAGE_PREFIX });
+  /**
+   * Must be a power of 2
+   * @see <a href="http://en.wikipedia.org/wiki/Modulo_operation#Performance_issues">Performance issues</a>
+   */
+  private static final int LAST_PAGE_SHARD_COUNT = 16;
+  /** The number of keys added to a shard of the last page between two reads of the size of the last page. */
+  private static final int LAST_PAGE_CHECK_INTERVAL = PAGE_SIZE / LAST_PAGE_SHARD_COUNT;
+
+  /** The name of the VLV index tree. */
+  private final TreeName vlvTreeName;
+
+  VLVPageCounts(TreeName name, TreeName vlvTreeName)
+  {
+    super(name);
+    this.vlvTreeName = vlvTreeName;
+  }
+
+  /**
+   * Records a key added to the VLV index.
+   *
+   * @param txn
+   *          a non null transaction
+   * @param vlvKey
+   *          the key added to the VLV index
+   */
+  void addKey(WriteableTransaction txn, ByteString vlvKey)
+  {
+    final ByteString pageKey = getPageKey(txn, vlvKey);
+    if (pageKey == null)
+    {
+      // Only read the other shards from time to time, since they are concurrently updated.
+      final long shardCount = addCount(txn, getLastPageShardKey(), 1);
+      if (shardCount % LAST_PAGE_CHECK_INTERVAL == 0 && getLastPageCount(txn) > MAX_PAGE_SIZE)
+      {
+        splitLastPage(txn);
+      }
+      return;
+    }
+    final long count = addCount(txn, pageKey, 1);
+    if (count > MAX_PAGE_SIZE)
+    {
+      split(txn, pageKey, count);
+    }
+  }
+
+  /**
+   * Records a key removed from the VLV index.
+   *
+   * @param txn
+   *          a non null transaction
+   * @param vlvKey
+   *          the key removed from the VLV index
+   */
+  void removeKey(WriteableTransaction txn, ByteString vlvKey)
+  {
+    final ByteString pageKey = getPageKey(txn, vlvKey);
+    if (pageKey == null)
+    {
+      addCount(txn, getLastPageShardKey(), -1);
+      return;
+    }
+    final long count = addCount(txn, pageKey, -1);
+    if (count == 0)
+    {
+      // The keys of this page range now belong to the next page.
+      txn.delete(getName(), pageKey);
+    }
+  }
+
+  /**
+   * Positions the cursor of the VLV index on the key at the provided index.
+   * <p>
+   * The cursor is positioned by reading all the keys up to the provided index if the page counts are
+   * not consistent with the number of keys in the VLV index, for example when the VLV index has been
+   * built before the page counts were maintained.
+   *
+   * @param txn
+   *          a non null transaction
+   * @param vlvCursor
+   *          the cursor on the VLV index
+   * @param index
+   *          the index of the key in the VLV index, starting at 0
+   * @param vlvKeyCount
+   *          the number of keys in the VLV index
+   * @return {@code true} if the cursor is positioned on the key, {@code false} if the index is beyond the
+   *         last key
+   */
+  boolean positionToIndex(ReadableTransaction txn, Cursor<ByteString, ByteString> vlvCursor, int index,
+      long vlvKeyCount)
+  {
+    long total = 0;
+    long keysToSkip = -1;
+    ByteString lowerBound = null;
+    ByteString targetLowerBound = null;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      final PageCursor pages = new PageCursor(cursor);
+      while (pages.next())
+      {
+        final long count = pages.getCount();
+        if (count < 0)
+        {
+          return vlvCursor.positionToIndex(index);
+        }
+        if (keysToSkip < 0 && index < total + count)
+        {
+          targetLowerBound = lowerBound;
+          keysToSkip = index - total;
+        }
+        total += count;
+        lowerBound = pages.getPageKey();
+      }
+    }
+
+    if (total != vlvKeyCount)
+    {
+      return vlvCursor.positionToIndex(index);
+    }
+    if (keysToSkip < 0)
+    {
+      return false;
+    }
+    boolean found = positionAfter(vlvCursor, targetLowerBound);
+    for (long i = 0; found && i < keysToSkip; i++)
+    {
+      found = vlvCursor.next();
+    }
+    return found;
+  }
+
+  /**
+   * Returns the number of keys of the VLV index which are lower than the provided key.
+   *
+   * @param txn
+   *          a non null transaction
+   * @param vlvCursor
+   *          the cursor on the VLV index
+   * @param key
+   *          the key, or prefix of a key, of the VLV index
+   * @param vlvKeyCount
+   *          the number of keys in the VLV index
+   * @return the number of keys lower than the provided key, or -1 if the page counts are not consistent
+   *         with the number of keys in the VLV index
+   */
+  long countKeysBefore(ReadableTransaction txn, Cursor<ByteString, ByteString> vlvCursor, ByteSequence key,
+      long vlvKeyCount)
+  {
+    final ByteString targetPageKey = toPageKey(key);
+    long total = 0;
+    long keysBefore = -1;
+    ByteString lowerBound = null;
+    ByteString targetLowerBound = null;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      final PageCursor pages = new PageCursor(cursor);
+      while (pages.next())
+      {
+        final long count = pages.getCount();
+        if (count < 0)
+        {
+          return -1;
+        }
+        if (keysBefore < 0 && (pages.getPageKey() == null || pages.getPageKey().compareTo(targetPageKey) >= 0))
+        {
+          targetLowerBound = lowerBound;
+          keysBefore = total;
+        }
+        total += count;
+        lowerBound = pages.getPageKey();
+      }
+    }
+
+    if (total != vlvKeyCount)
+    {
+      return -1;
+    }
+    if (keysBefore < 0)
+    {
+      return total;
+    }
+    // Count the keys of the page which are lower than the provided key.
+    boolean found = positionAfter(vlvCursor, targetLowerBound);
+    while (found && vlvCursor.getKey().compareTo(key) < 0)
+    {
+      keysBefore++;
+      found = vlvCursor.next();
+    }
+    return keysBefore;
+  }
+
+  /**
+   * Returns an object computing the page counts of a VLV index being imported.
+   *
+   * @param importer
+   *          the importer of the VLV index
+   * @return an object to which the imported keys must be provided in order
+   */
+  PageCountsImporter newPageCountsImporter(Importer importer)
+  {
+    return new PageCountsImporter(importer);
+  }
+
+  /** Computes the page counts of a VLV index being imported, from its keys provided in order. */
+  final class PageCountsImporter
+  {
+    private final Importer importer;
+    private long count;
+
+    private PageCountsImporter(Importer importer)
+    {
+      this.importer = importer;
+    }
+
+    void keyImported(ByteString vlvKey)
+    {
+      if (++count == PAGE_SIZE)
+      {
+        importer.put(getName(), toPageKey(vlvKey), encodeValue(count));
+        count = 0;
+      }
+    }
+
+    void importFinished()
+    {
+      if (count > 0)
+      {
+        importer.put(getName(), getLastPageShardKey(), encodeValue(count));
+      }
+    }
+  }
+
+  /** Returns the key of the page of the provided VLV key, or {@code null} if the key belongs to the last page. */
+  private ByteString getPageKey(ReadableTransaction txn, ByteString vlvKey)
+  {
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      return cursor.positionToKeyOrNext(toPageKey(vlvKey)) && !isLastPageKey(cursor.getKey()) ? cursor.getKey() : null;
+    }
+  }
+
+  private long getLastPageCount(ReadableTransaction txn)
+  {
+    long count = 0;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      for (boolean found = cursor.positionToKeyOrNext(LAST_PAGE_KEY); found; found = cursor.next())
+      {
+        count += decodeValue(cursor.getValue());
+      }
+    }
+    return count;
+  }
+
+  private long removeLastPageCount(WriteableTransaction txn)
+  {
+    long count = 0;
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      for (boolean found = cursor.positionToKeyOrNext(LAST_PAGE_KEY); found; found = cursor.next())
+      {
+        count += decodeValue(cursor.getValue());
+        cursor.delete();
+      }
+    }
+    return count;
+  }
+
+  private long addCount(WriteableTransaction txn, ByteString pageKey, final long delta)
+  {
+    final long[] newCount = new long[1];
+    txn.update(getName(), pageKey, new UpdateFunction()
+    {
+      @Override
+      public ByteSequence computeNewValue(ByteSequence oldValue)
+      {
+        newCount[0] = (oldValue == null ? 0 : decodeValue(oldValue.toByteString())) + delta;
+        return encodeValue(newCount[0]);
+      }
+    });
+    return newCount[0];
+  }
+
+  /** Splits the provided page in two pages holding half of its keys. */
+  private void split(WriteableTransaction txn, ByteString pageKey, long count) throws StorageRuntimeException
+  {
+    final long firstHalf = count / 2;
+    final ByteString newPageKey = getNewPageKey(txn, getPreviousPageKey(txn, pageKey), firstHalf);
+    if (newPageKey != null)
+    {
+      txn.put(getName(), newPageKey, encodeValue(firstHalf));
+      txn.put(getName(), pageKey, encodeValue(count - firstHalf));
+    }
+    // Otherwise the page counts are not consistent with the VLV index, and will not be used.
+  }
+
+  /** Splits the last page in two pages holding half of its keys, if it holds too many keys. */
+  private void splitLastPage(WriteableTransaction txn) throws StorageRuntimeException
+  {
+    // Merge the shards as they are read, so that concurrent updates of the last page are not lost.
+    long count = removeLastPageCount(txn);
+    if (count > MAX_PAGE_SIZE)
+    {
+      final long firstHalf = count / 2;
+      final ByteString newPageKey = getNewPageKey(txn, getPreviousPageKey(txn, LAST_PAGE_KEY), firstHalf);
+      if (newPageKey != null)
+      {
+        txn.put(getName(), newPageKey, encodeValue(firstHalf));
+        count -= firstHalf;
+      }
+    }
+    txn.put(getName(), getLastPageShardKey(), encodeValue(count));
+  }
+
+  /**
+   * Returns the key of a new page holding the provided number of keys following the provided page, or
+   * {@code null} if the VLV index does not hold that many keys after the provided page.
+   */
+  private ByteString getNewPageKey(ReadableTransaction txn, ByteString previousPageKey, long count)
+  {
+    try (Cursor<ByteString, ByteString> vlvCursor = txn.openCursor(vlvTreeName))
+    {
+      boolean found = positionAfter(vlvCursor, previousPageKey);
+      for (long i = 1; found && i < count; i++)
+      {
+        found = vlvCursor.next();
+      }
+      return found ? toPageKey(vlvCursor.getKey()) : null;
+    }
+  }
+
+  private ByteString getPreviousPageKey(ReadableTransaction txn, ByteString pageKey)
+  {
+    try (Cursor<ByteString, ByteString> cursor = txn.openCursor(getName()))
+    {
+      final boolean found = cursor.positionToKeyOrNext(pageKey) ? cursor.previous() : cursor.positionToLastKey();
+      return found ? cursor.getKey() : null;
+    }
+  }
+
+  /** Positions the cursor of the VLV index on the first key of the page following the provided page. */
+  private static boolean positionAfter(Cursor<ByteString, ByteString> vlvCursor, ByteString pageKey)
+  {
+    if (pageKey == null)
+    {
+      return vlvCursor.next();
+    }
+    final ByteSequence upperBound = pageKey.subSequence(1, pageKey.length());
+    if (!vlvCursor.positionToKeyOrNext(upperBound))
+    {
+      return false;
+    }
+    return !vlvCursor.getKey().equals(upperBound) || vlvCursor.next();
+  }
+
+  private static ByteString getLastPageShardKey()
+  {
+    final byte shard = (byte) (Thread.currentThread().getId() & (LAST_PAGE_SHARD_COUNT - 1));
+    return ByteString.valueOfBytes(new byte[] { LAST_PAGE_PREFIX, shard });
+  }
+
+  private static boolean isLastPageKey(ByteString key)
+  {
+    return key.byteAt(0) == LAST_PAGE_PREFIX;
+  }
+
+  private static ByteString toPageKey(ByteSequence vlvKey)
+  {
+    return new ByteStringBuilder(vlvKey.length() + 1).appendByte(PAGE_PREFIX).appendBytes(vlvKey).toByteString();
+  }
+
+  @Override
+  public String keyToString(ByteString key)
+  {
+    if (isLastPageKey(key))
+    {
+      return key.length() > 1 ? "last page shard " + key.byteAt(1) : "last page";
+    }
+    return key.subSequence(1, key.length()).toHexString();
+  }
+
+  @Override
+  public String valueToString(ByteString value)
+  {
+    return String.valueOf(decodeValue(value));
+  }
+
+  /** Iterates over the pages, merging the shards of the last page into a single page without upper bound. */
+  private static final class PageCursor
+  {
+    private final Cursor<ByteString, ByteString> cursor;
+    private boolean lastPageRead;
+    private ByteString pageKey;
+    private long count;
+
+    private PageCursor(Cursor<ByteString, ByteString> cursor)
+    {
+      this.cursor = cursor;
+    }
+
+    private boolean next()
+    {
+      if (lastPageRead || !cursor.next())
+      {
+        return false;
+      }
+      pageKey = cursor.getKey();
+      count = decodeValue(cursor.getValue());
+      if (isLastPageKey(pageKey))
+      {
+        pageKey = null;
+        while (cursor.next())
+        {
+          count += decodeValue(cursor.getValue());
+        }
+        lastPageRead = true;
+      }
+      return true;
+    }
+
+    /** Returns the upper bound of the current page, or {@code null} for the last page. */
+    private ByteString getPageKey()
+    {
+      return pageKey;
+    }
+
+    private long getCount()
+    {
+      return count;
+    }
+  }
+}
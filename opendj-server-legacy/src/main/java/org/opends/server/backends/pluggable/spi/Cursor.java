@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable.spi;
 
@@ -53,6 +54,14 @@ public interface Cursor<K,V> extends SequentialCursor<K, V>
    */
   boolean positionToLastKey();
 
+  /**
+   * Moves this cursor to the record preceding the current one in the tree.
+   *
+   * @return {@code true} if the cursor could be positioned to the previous record,
+   *         {@code false} otherwise
+   */
+  boolean previous();
+
   /**
    * Positions the cursor to the specified index within the tree. Implementations may take advantage
    * of optimizations provided by the underlying storage, such as counted B-Trees.
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.opends.server.backends.pluggable.spi;
@@ -54,6 +55,12 @@ public final class EmptyCursor<K, V> implements Cursor<K, V>
     return false;
   }
 
+  @Override
+  public boolean previous()
+  {
+    return false;
+  }
+
   @Override
   public boolean positionToIndex(int index)
   {
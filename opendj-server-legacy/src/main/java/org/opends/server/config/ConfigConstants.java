@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.config;
 
@@ -4329,6 +4330,20 @@ public final class ConfigConstants
   public static final String ATTR_REBUILD_TMP_DIRECTORY =
        NAME_PREFIX_TASK + "rebuild-tmp-directory";
 
+  /**
+   * The name of the attribute in an rebuild task definition that specifies
+   * whether the indexes are rebuilt while the backend remains online.
+   */
+  public static final String ATTR_REBUILD_ONLINE =
+       NAME_PREFIX_TASK + "rebuild-online";
+
+  /**
+   * The name of the attribute in an rebuild task definition that specifies the
+   * maximum number of entries processed per second by an online rebuild.
+   */
+  public static final String ATTR_REBUILD_MAX_ENTRIES_PER_SECOND =
+       NAME_PREFIX_TASK + "rebuild-max-entries-per-second";
+
   /**
    * Used to specify that the rebuild all boolean should be set.
    */
@@ -4421,5 +4436,23 @@ public final class ConfigConstants
 
   /** The name of the attribute in a reset change number task that specifies the basedn where the csn applies. */
   public static final String ATTR_TASK_RESET_CHANGE_NUMBER_BASE_DN = NAME_PREFIX_TASK + "reset-change-number-base-dn";
+
+  /** The name of the objectclass that will be used for a train compression dictionary task. */
+  public static final String OC_TRAIN_COMPRESSION_DICTIONARY_TASK =
+      NAME_PREFIX_TASK + "train-compression-dictionary";
+
+  /**
+   * The name of the attribute in a train compression dictionary task definition that specifies the backend whose
+   * entries must be compressed with a new dictionary.
+   */
+  public static final String ATTR_TASK_TRAIN_COMPRESSION_DICTIONARY_BACKEND_ID =
+      NAME_PREFIX_TASK + "train-compression-dictionary-backend-id";
+
+  /**
+   * The name of the attribute in a train compression dictionary task definition that specifies the maximum number of
+   * entries used for training the dictionary.
+   */
+  public static final String ATTR_TASK_TRAIN_COMPRESSION_DICTIONARY_SAMPLE_SIZE =
+      NAME_PREFIX_TASK + "train-compression-dictionary-sample-size";
 }
 
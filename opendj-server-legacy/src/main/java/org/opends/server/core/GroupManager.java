@@ -13,6 +13,7 @@
  *
  * Copyright 2007-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -23,10 +24,15 @@ import static org.opends.server.protocols.internal.Requests.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -39,6 +45,7 @@ import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.util.Utils;
@@ -48,11 +55,14 @@ import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.config.server.ConfigurationDeleteListener;
 import org.forgerock.opendj.server.config.meta.GroupImplementationCfgDefn;
 import org.forgerock.opendj.server.config.server.GroupImplementationCfg;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
 import org.forgerock.opendj.server.config.server.RootCfg;
 import org.opends.server.api.LocalBackend;
 import org.opends.server.api.LocalBackendInitializationListener;
 import org.opends.server.api.DITCacheMap;
 import org.opends.server.api.Group;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
 import org.opends.server.api.plugin.InternalDirectoryServerPlugin;
 import org.opends.server.api.plugin.PluginResult;
 import org.opends.server.api.plugin.PluginResult.PostOperation;
@@ -108,6 +118,16 @@ public class GroupManager extends InternalDirectoryServerPlugin
   /** A mapping between the DNs of all group entries and the corresponding group instances. */
   private DITCacheMap<Group<?>> groupInstances;
 
+  /** Reverse membership index of the group instances, kept in sync with {@link #groupInstances}. */
+  private final GroupMembershipIndex membershipIndex = new GroupMembershipIndex();
+
+  /** Publishes the state of the reverse membership index. */
+  private final MembershipIndexMonitor membershipIndexMonitor = new MembershipIndexMonitor();
+  /** Time spent by the last indexing of the registered groups, in milliseconds. */
+  private volatile long lastIndexRebuildDuration;
+  /** Time at which the registered groups were last indexed. */
+  private volatile long lastIndexRebuildTime;
+
   /** Lock to protect internal data structures. */
   private final ReadWriteLock lock;
 
@@ -163,6 +183,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
     RootCfg rootConfiguration = serverContext.getRootConfig();
     rootConfiguration.addGroupImplementationAddListener(this);
     rootConfiguration.addGroupImplementationDeleteListener(this);
+    DirectoryServer.registerMonitorProvider(membershipIndexMonitor);
 
     //Initialize the existing group implementations.
     for (String name : rootConfiguration.listGroupImplementations())
@@ -270,6 +291,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           if (g.getClass().getName().equals(group.getClass().getName()))
           {
             iterator.remove();
+            membershipIndex.remove(g.getGroupDN());
           }
         }
       }
@@ -331,6 +353,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
               if (g.getClass().getName().equals(group.getClass().getName()))
               {
                 iterator.remove();
+                membershipIndex.remove(g.getGroupDN());
               }
             }
           }
@@ -443,6 +466,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
   public void finalizeGroupManager()
   {
     DirectoryServer.deregisterInternalPlugin(this);
+    DirectoryServer.deregisterMonitorProvider(membershipIndexMonitor);
     serverContext.getBackendConfigManager().deregisterLocalBackendInitializationListener(this);
 
     deregisterAllGroups();
@@ -510,6 +534,201 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
   }
 
+  /**
+   * Retrieves the group instances of which the provided entry is a
+   * member, including the groups of which it is a member through
+   * nested groups.
+   * <BR><BR>
+   * The groups explicitly listing their members are looked up in the
+   * reverse membership index, only the other groups (e.g. dynamic
+   * groups) being asked whether the entry is one of their members.
+   *
+   * @param  entry  The entry for which to retrieve the groups.
+   *
+   * @return  The group instances of which the provided entry is a
+   *          member, which may be empty but never {@code null}.
+   */
+  public Set<Group<?>> getGroupInstancesWithMember(Entry entry)
+  {
+    indexPendingGroups();
+    Set<Group<?>> groups = new LinkedHashSet<>();
+    Deque<Group<?>> toExpand = new ArrayDeque<>();
+    List<Group<?>> unindexedGroups;
+    lock.readLock().lock();
+    try
+    {
+      addIndexedGroups(entry.getName().toNormalizedByteString(), groups, toExpand);
+      unindexedGroups = new ArrayList<>(membershipIndex.getUnindexedGroups());
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+
+    for (Group<?> group : unindexedGroups)
+    {
+      if (!groups.contains(group) && isMember(group, entry))
+      {
+        groups.add(group);
+        toExpand.add(group);
+      }
+    }
+
+    if (!toExpand.isEmpty())
+    {
+      lock.readLock().lock();
+      try
+      {
+        Group<?> group;
+        while ((group = toExpand.poll()) != null)
+        {
+          addIndexedGroups(group.getGroupDN().toNormalizedByteString(), groups, toExpand);
+        }
+      }
+      finally
+      {
+        lock.readLock().unlock();
+      }
+    }
+    return groups;
+  }
+
+  /**
+   * Indicates whether the provided entry is a member of at least one
+   * group instance.
+   *
+   * @param  entry  The entry for which to make the determination.
+   *
+   * @return  {@code true} if the provided entry is a member of at
+   *          least one group instance, or {@code false} if not.
+   */
+  public boolean isMemberOfAnyGroup(Entry entry)
+  {
+    indexPendingGroups();
+    List<Group<?>> unindexedGroups;
+    lock.readLock().lock();
+    try
+    {
+      if (!membershipIndex.getGroupDNs(entry.getName().toNormalizedByteString()).isEmpty())
+      {
+        return true;
+      }
+      unindexedGroups = new ArrayList<>(membershipIndex.getUnindexedGroups());
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+
+    for (Group<?> group : unindexedGroups)
+    {
+      if (isMember(group, entry))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Indexes the members of the groups registered since the reverse
+   * membership index was last used. The members of the groups are
+   * thus only loaded when they are first needed.
+   */
+  private void indexPendingGroups()
+  {
+    lock.readLock().lock();
+    try
+    {
+      if (!membershipIndex.hasPendingGroups())
+      {
+        return;
+      }
+    }
+    finally
+    {
+      lock.readLock().unlock();
+    }
+
+    lock.writeLock().lock();
+    try
+    {
+      if (membershipIndex.hasPendingGroups())
+      {
+        long startTime = System.currentTimeMillis();
+        membershipIndex.indexPendingGroups();
+        lastIndexRebuildTime = System.currentTimeMillis();
+        lastIndexRebuildDuration = lastIndexRebuildTime - startTime;
+      }
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds to the provided set the indexed groups explicitly listing the
+   * provided member, and queues the newly found groups so that the
+   * groups nesting them are also added. The read lock must be held.
+   */
+  private void addIndexedGroups(ByteString normalizedMemberDN, Set<Group<?>> groups, Deque<Group<?>> toExpand)
+  {
+    for (DN groupDN : membershipIndex.getGroupDNs(normalizedMemberDN))
+    {
+      Group<?> group = groupInstances.get(groupDN);
+      if (group != null && groups.add(group))
+      {
+        toExpand.add(group);
+      }
+    }
+  }
+
+  private static boolean isMember(Group<?> group, Entry entry)
+  {
+    try
+    {
+      return group.isMember(entry);
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return false;
+    }
+  }
+
+  /**
+   * Updates the reverse membership index after the members of the
+   * provided group instance have changed. This must be called by the
+   * groups providing indexable member DNs whenever their members
+   * change, while holding the lock serializing these changes, so that
+   * they are applied to the index in the order they were made. The lock
+   * of a group must therefore be acquired before the lock of the group
+   * manager, and never while holding it.
+   *
+   * @param  group             The group instance whose members have
+   *                           changed.
+   * @param  addedMemberDNs    The normalized DNs of the members added
+   *                           to the group.
+   * @param  removedMemberDNs  The normalized DNs of the members removed
+   *                           from the group.
+   *
+   * @see  Group#getIndexableMemberDNs()
+   */
+  public void updateMembershipIndex(Group<?> group, Collection<ByteString> addedMemberDNs,
+      Collection<ByteString> removedMemberDNs)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      membershipIndex.update(group, addedMemberDNs, removedMemberDNs);
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
   /**
    * {@inheritDoc}  In this case, the server will search the backend to find
    * all group instances that it may contain and register them with this group
@@ -581,6 +800,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
             {
               Group<?> groupInstance = groupImplementation.newInstance(serverContext, entry);
               groupInstances.put(entry.getName(), groupInstance);
+              membershipIndex.put(groupInstance);
               refreshToken++;
             }
             catch (DirectoryException e)
@@ -616,6 +836,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
         if (backend.handlesEntry(groupEntryDN))
         {
           iterator.remove();
+          membershipIndex.remove(groupEntryDN);
         }
       }
     }
@@ -680,8 +901,13 @@ public class GroupManager extends InternalDirectoryServerPlugin
     lock.writeLock().lock();
     try
     {
-      if (groupInstances.removeSubtree(entry.getName(), null))
+      Set<Group<?>> groupSet = new HashSet<>();
+      if (groupInstances.removeSubtree(entry.getName(), groupSet))
       {
+        for (Group<?> group : groupSet)
+        {
+          membershipIndex.remove(group.getGroupDN());
+        }
         refreshToken++;
       }
     }
@@ -741,6 +967,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
       lock.readLock().unlock();
     }
 
+    Group<?> groupToUpdate = null;
     lock.writeLock().lock();
     try
     {
@@ -752,23 +979,33 @@ public class GroupManager extends InternalDirectoryServerPlugin
             || updatesObjectClass(modifications))
         {
           groupInstances.remove(oldEntry.getName());
+          membershipIndex.remove(oldEntry.getName());
           // This updates the refreshToken
           createAndRegisterGroup(newEntry);
         }
         else
         {
-          group.updateMembers(modifications);
+          groupToUpdate = group;
         }
       }
     }
-    catch (UnsupportedOperationException | DirectoryException e)
-    {
-      logger.traceException(e);
-    }
     finally
     {
       lock.writeLock().unlock();
     }
+
+    if (groupToUpdate != null)
+    {
+      // Outside of the lock: groups acquire their own lock before this one
+      try
+      {
+        groupToUpdate.updateMembers(modifications);
+      }
+      catch (UnsupportedOperationException | DirectoryException e)
+      {
+        logger.traceException(e);
+      }
+    }
   }
 
   /**
@@ -797,8 +1034,10 @@ public class GroupManager extends InternalDirectoryServerPlugin
       {
         final DN groupDN = group.getGroupDN();
         final DN renamedGroupDN = groupDN.rename(oldDN, newDN);
+        membershipIndex.remove(groupDN);
         group.setGroupDN(renamedGroupDN);
         groupInstances.put(renamedGroupDN, group);
+        membershipIndex.put(group);
       }
       if (!groupSet.isEmpty())
       {
@@ -943,6 +1182,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           try
           {
             groupInstances.put(entry.getName(), groupInstance);
+            membershipIndex.put(groupInstance);
             refreshToken++;
           }
           finally
@@ -969,6 +1209,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
     try
     {
       groupInstances.clear();
+      membershipIndex.clear();
     }
     finally
     {
@@ -999,4 +1240,40 @@ public class GroupManager extends InternalDirectoryServerPlugin
   public long refreshToken() {
     return this.refreshToken;
   }
+
+  /** Publishes the size, the estimated memory use and the rebuild time of the reverse membership index. */
+  private final class MembershipIndexMonitor extends MonitorProvider<MonitorProviderCfg>
+  {
+    @Override
+    public String getMonitorInstanceName()
+    {
+      return "Group Membership Index";
+    }
+
+    @Override
+    public MonitorData getMonitorData()
+    {
+      final MonitorData attrs = new MonitorData(8);
+      lock.readLock().lock();
+      try
+      {
+        attrs.add("indexedGroups", membershipIndex.getGroupCount());
+        attrs.add("pendingGroups", membershipIndex.getPendingGroupCount());
+        attrs.add("unindexedGroups", membershipIndex.getUnindexedGroupCount());
+        attrs.add("indexedMembers", membershipIndex.getMemberCount());
+        attrs.add("indexedMemberships", membershipIndex.getMembershipCount());
+        attrs.add("estimatedMemorySize", membershipIndex.getEstimatedMemorySize());
+      }
+      finally
+      {
+        lock.readLock().unlock();
+      }
+      attrs.add("lastRebuildDurationMillis", lastIndexRebuildDuration);
+      if (lastIndexRebuildTime != 0)
+      {
+        attrs.add("lastRebuildTime", new Date(lastIndexRebuildTime));
+      }
+      return attrs;
+    }
+  }
 }
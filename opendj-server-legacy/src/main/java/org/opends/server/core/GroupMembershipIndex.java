@@ -0,0 +1,314 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.api.Group;
+
+/**
+ * Reverse membership index maintained by the {@link GroupManager}: it maps the normalized DN of each entry
+ * explicitly listed as a member of a group to the DNs of the groups listing it.
+ * <p>
+ * Only the groups whose membership is entirely determined by a list of member DNs are indexed, see
+ * {@link Group#getIndexableMemberDNs()}. The other groups are kept aside, their membership having to be
+ * checked entry by entry. Nested groups are not expanded in the index: the closure is computed
+ * by following the index from the member to its groups, then from these groups to their own groups, each
+ * step being a lookup.
+ * <p>
+ * Registered groups are only indexed when the index is first needed, so that the members of groups which
+ * are never looked up through the index are not loaded. Once indexed, a group is kept up to date by applying
+ * the changes of its members. The index keeps the set of member DNs it has indexed for each group: changes are
+ * applied against this set, and a group is unindexed by iterating over it rather than over the current members
+ * of the group, which may already have changed.
+ * <p>
+ * This class is not thread safe: all accesses are protected by the group manager lock.
+ */
+final class GroupMembershipIndex
+{
+  /**
+   * Rough estimate, in bytes, of the memory used by each distinct member: the hash map entry, the byte string
+   * and its array, and the set of group DNs.
+   */
+  private static final int MEMBER_OVERHEAD = 160;
+  /**
+   * Rough estimate, in bytes, of the memory used by each (member, group) pair held in the index: the entry in
+   * the set of group DNs of the member and the entry in the set of member DNs of the group.
+   */
+  private static final int MEMBERSHIP_OVERHEAD = 96;
+
+  /** The DNs of the indexed groups, keyed by the normalized DN of their members. */
+  private final Map<ByteString, Set<DN>> groupsByMember = new HashMap<>();
+  /** The indexed groups, with the normalized DNs of the members indexed for each of them. */
+  private final Map<DN, IndexedGroup> indexedGroups = new HashMap<>();
+  /** The groups which have been registered but not indexed yet. */
+  private final Map<DN, Group<?>> pendingGroups = new HashMap<>();
+  /** The groups whose membership cannot be indexed. */
+  private final Map<DN, Group<?>> unindexedGroups = new HashMap<>();
+  /** The number of (member, group) pairs held in the index. */
+  private long membershipCount;
+  /** The total length of the normalized member DNs held in the index. */
+  private long memberDNsLength;
+
+  /**
+   * Registers the provided group, replacing any group registered with the same DN. The group will be indexed
+   * by the next call to {@link #indexPendingGroups()}.
+   *
+   * @param group
+   *          The group to register.
+   */
+  void put(Group<?> group)
+  {
+    final DN groupDN = group.getGroupDN();
+    remove(groupDN);
+    pendingGroups.put(groupDN, group);
+  }
+
+  /**
+   * Indicates whether some registered groups have not been indexed yet.
+   *
+   * @return {@code true} if some registered groups have not been indexed yet
+   */
+  boolean hasPendingGroups()
+  {
+    return !pendingGroups.isEmpty();
+  }
+
+  /** Indexes the members of the registered groups which have not been indexed yet. */
+  void indexPendingGroups()
+  {
+    for (Group<?> group : pendingGroups.values())
+    {
+      final Iterable<ByteString> memberDNs = group.getIndexableMemberDNs();
+      if (memberDNs == null)
+      {
+        unindexedGroups.put(group.getGroupDN(), group);
+        continue;
+      }
+      final IndexedGroup indexedGroup = new IndexedGroup(group);
+      indexedGroups.put(group.getGroupDN(), indexedGroup);
+      for (ByteString memberDN : memberDNs)
+      {
+        addMember(indexedGroup, memberDN);
+      }
+    }
+    pendingGroups.clear();
+  }
+
+  /**
+   * Applies the changes of the members of the provided group, if it is indexed. The changes of a group must be
+   * applied in the order they were made to its members.
+   *
+   * @param group
+   *          The group whose members have changed.
+   * @param addedMemberDNs
+   *          The normalized DNs of the members added to the group.
+   * @param removedMemberDNs
+   *          The normalized DNs of the members removed from the group.
+   */
+  void update(Group<?> group, Collection<ByteString> addedMemberDNs, Collection<ByteString> removedMemberDNs)
+  {
+    final IndexedGroup indexedGroup = indexedGroups.get(group.getGroupDN());
+    if (indexedGroup == null || indexedGroup.group != group)
+    {
+      // Not indexed yet, or not the registered instance: nothing to do
+      return;
+    }
+    for (ByteString memberDN : removedMemberDNs)
+    {
+      removeMember(indexedGroup, memberDN);
+    }
+    for (ByteString memberDN : addedMemberDNs)
+    {
+      addMember(indexedGroup, memberDN);
+    }
+  }
+
+  private void addMember(IndexedGroup indexedGroup, ByteString memberDN)
+  {
+    if (!indexedGroup.memberDNs.add(memberDN))
+    {
+      return;
+    }
+    final DN groupDN = indexedGroup.group.getGroupDN();
+    Set<DN> groupDNs = groupsByMember.get(memberDN);
+    if (groupDNs == null)
+    {
+      groupDNs = new HashSet<>(2);
+      groupsByMember.put(memberDN, groupDNs);
+      memberDNsLength += memberDN.length();
+    }
+    if (groupDNs.add(groupDN))
+    {
+      membershipCount++;
+    }
+  }
+
+  private void removeMember(IndexedGroup indexedGroup, ByteString memberDN)
+  {
+    if (indexedGroup.memberDNs.remove(memberDN))
+    {
+      removeGroupDN(memberDN, indexedGroup.group.getGroupDN());
+    }
+  }
+
+  private void removeGroupDN(ByteString memberDN, DN groupDN)
+  {
+    final Set<DN> groupDNs = groupsByMember.get(memberDN);
+    if (groupDNs != null && groupDNs.remove(groupDN))
+    {
+      membershipCount--;
+      if (groupDNs.isEmpty())
+      {
+        groupsByMember.remove(memberDN);
+        memberDNsLength -= memberDN.length();
+      }
+    }
+  }
+
+  /**
+   * Unregisters the group with the provided DN, removing its members from the index.
+   *
+   * @param groupDN
+   *          The DN of the group to unregister.
+   */
+  void remove(DN groupDN)
+  {
+    pendingGroups.remove(groupDN);
+    unindexedGroups.remove(groupDN);
+    final IndexedGroup indexedGroup = indexedGroups.remove(groupDN);
+    if (indexedGroup != null)
+    {
+      for (ByteString memberDN : indexedGroup.memberDNs)
+      {
+        removeGroupDN(memberDN, groupDN);
+      }
+    }
+  }
+
+  /** Unregisters all the groups. */
+  void clear()
+  {
+    groupsByMember.clear();
+    indexedGroups.clear();
+    pendingGroups.clear();
+    unindexedGroups.clear();
+    membershipCount = 0;
+    memberDNsLength = 0;
+  }
+
+  /**
+   * Returns the DNs of the indexed groups explicitly listing the provided member.
+   *
+   * @param normalizedMemberDN
+   *          The normalized DN of the member.
+   * @return The DNs of the indexed groups listing the member, never {@code null}
+   */
+  Set<DN> getGroupDNs(ByteString normalizedMemberDN)
+  {
+    final Set<DN> groupDNs = groupsByMember.get(normalizedMemberDN);
+    return groupDNs != null ? groupDNs : Collections.<DN> emptySet();
+  }
+
+  /**
+   * Returns the groups whose membership cannot be indexed.
+   *
+   * @return the groups whose membership cannot be indexed
+   */
+  Collection<Group<?>> getUnindexedGroups()
+  {
+    return unindexedGroups.values();
+  }
+
+  /**
+   * Returns the number of indexed groups.
+   *
+   * @return the number of indexed groups
+   */
+  int getGroupCount()
+  {
+    return indexedGroups.size();
+  }
+
+  /**
+   * Returns the number of groups which have been registered but not indexed yet.
+   *
+   * @return the number of groups which have been registered but not indexed yet
+   */
+  int getPendingGroupCount()
+  {
+    return pendingGroups.size();
+  }
+
+  /**
+   * Returns the number of groups whose membership cannot be indexed.
+   *
+   * @return the number of groups whose membership cannot be indexed
+   */
+  int getUnindexedGroupCount()
+  {
+    return unindexedGroups.size();
+  }
+
+  /**
+   * Returns the number of distinct members held in the index.
+   *
+   * @return the number of distinct members held in the index
+   */
+  int getMemberCount()
+  {
+    return groupsByMember.size();
+  }
+
+  /**
+   * Returns the number of (member, group) pairs held in the index.
+   *
+   * @return the number of (member, group) pairs held in the index
+   */
+  long getMembershipCount()
+  {
+    return membershipCount;
+  }
+
+  /**
+   * Returns a rough estimate of the memory used by the index, in bytes.
+   *
+   * @return a rough estimate of the memory used by the index, in bytes
+   */
+  long getEstimatedMemorySize()
+  {
+    return memberDNsLength + groupsByMember.size() * (long) MEMBER_OVERHEAD + membershipCount * MEMBERSHIP_OVERHEAD;
+  }
+
+  /** An indexed group, with the normalized DNs of its members held in the index. */
+  private static final class IndexedGroup
+  {
+    private final Group<?> group;
+    private final Set<ByteString> memberDNs = new HashSet<>();
+
+    private IndexedGroup(Group<?> group)
+    {
+      this.group = group;
+    }
+  }
+}
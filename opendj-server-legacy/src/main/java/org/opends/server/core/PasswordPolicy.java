@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -523,6 +524,30 @@ public abstract class PasswordPolicy extends AuthenticationPolicy
    */
   public abstract StateUpdateFailurePolicy getStateUpdateFailurePolicy();
 
+  /**
+   * Returns the cache of the passwords successfully verified for the users of
+   * this password policy.
+   *
+   * @return the cache of the verified passwords, or {@code null} if verified
+   *         passwords are not cached
+   */
+  PasswordVerificationCache getPasswordVerificationCache()
+  {
+    return null;
+  }
+
+  /**
+   * Returns the updater deferring the password policy state updates made by
+   * the binds of the users of this password policy.
+   *
+   * @return the password policy state updater, or {@code null} if the state
+   *         updates are written before the binds complete
+   */
+  PasswordPolicyStateUpdater getStateUpdater()
+  {
+    return null;
+  }
+
   @Override
   public boolean isPasswordPolicy()
   {
@@ -535,4 +560,24 @@ public abstract class PasswordPolicy extends AuthenticationPolicy
   {
     return new PasswordPolicyState(this, userEntry, time);
   }
+
+  /**
+   * Returns the password policy state of a user who is binding. Unlike the
+   * state returned by {@link #createAuthenticationPolicyState(Entry)}, it
+   * includes the state updates made by the previous binds of the user which
+   * have not been written to its entry yet.
+   *
+   * @param userEntry
+   *          The user's entry.
+   * @return The password policy state of the binding user.
+   * @throws DirectoryException
+   *           If a problem occurs while attempting to determine the password
+   *           policy state for the user.
+   */
+  public PasswordPolicyState createBindPolicyState(Entry userEntry) throws DirectoryException
+  {
+    final PasswordPolicyStateUpdater stateUpdater = getStateUpdater();
+    return createAuthenticationPolicyState(
+        stateUpdater != null ? stateUpdater.applyPendingUpdates(userEntry) : userEntry);
+  }
 }
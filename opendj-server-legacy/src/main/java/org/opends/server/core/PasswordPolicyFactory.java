@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -33,6 +34,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -96,12 +98,19 @@ public final class PasswordPolicyFactory implements
     /** The the time by which all users will be required to change their passwords. */
     private long requireChangeByTime;
 
+    /** The cache of the verified passwords, {@code null} if disabled. */
+    private volatile PasswordVerificationCache verificationCache;
+    /** The updater deferring the bind state updates, {@code null} if disabled. */
+    private volatile PasswordPolicyStateUpdater stateUpdater;
+
     private final ServerContext serverContext;
 
     @Override
     public void finalizeAuthenticationPolicy()
     {
       configuration.removePasswordPolicyChangeListener(this);
+      setPasswordVerificationCache(null);
+      setStateUpdater(null);
     }
 
     @Override
@@ -380,9 +389,83 @@ public final class PasswordPolicyFactory implements
         this.passwordGenerator = passwordGenerator;
         this.passwordValidators = passwordValidators;
         this.requireChangeByTime = requireChangeByTime;
+        updatePasswordVerificationCache(configuration);
+        updateStateUpdater(configuration);
+      }
+    }
+
+    private void updateStateUpdater(PasswordPolicyCfg configuration)
+    {
+      final long writeBehindInterval = configuration.getStateUpdateWriteBehindInterval();
+      final int writeBehindThreshold = configuration.getStateUpdateWriteBehindThreshold();
+      final PasswordPolicyStateUpdater currentUpdater = stateUpdater;
+      if (writeBehindInterval == 0)
+      {
+        setStateUpdater(null);
+      }
+      else if (currentUpdater == null
+          || currentUpdater.getWriteBehindIntervalMillis() != writeBehindInterval
+          || currentUpdater.getWriteBehindThreshold() != writeBehindThreshold)
+      {
+        final String policyName = configuration.dn().rdn().getFirstAVA().getAttributeValue().toString();
+        setStateUpdater(new PasswordPolicyStateUpdater(this, policyName, writeBehindInterval, writeBehindThreshold));
+      }
+    }
+
+    private void setStateUpdater(PasswordPolicyStateUpdater newUpdater)
+    {
+      final PasswordPolicyStateUpdater oldUpdater = stateUpdater;
+      stateUpdater = newUpdater;
+      if (oldUpdater != null)
+      {
+        oldUpdater.stop();
       }
     }
 
+    @Override
+    PasswordPolicyStateUpdater getStateUpdater()
+    {
+      return stateUpdater;
+    }
+
+    private void updatePasswordVerificationCache(PasswordPolicyCfg configuration)
+    {
+      final int cacheSize = configuration.getBindVerificationCacheSize();
+      final long cacheTTLMillis = TimeUnit.SECONDS.toMillis(configuration.getBindVerificationCacheTTL());
+      final PasswordVerificationCache currentCache = verificationCache;
+      if (cacheSize == 0)
+      {
+        setPasswordVerificationCache(null);
+      }
+      else if (currentCache == null
+          || currentCache.getMaxSize() != cacheSize
+          || currentCache.getTTLMillis() != cacheTTLMillis)
+      {
+        final String policyName = configuration.dn().rdn().getFirstAVA().getAttributeValue().toString();
+        setPasswordVerificationCache(new PasswordVerificationCache(policyName, cacheSize, cacheTTLMillis));
+      }
+    }
+
+    private void setPasswordVerificationCache(PasswordVerificationCache newCache)
+    {
+      final PasswordVerificationCache oldCache = verificationCache;
+      verificationCache = newCache;
+      if (oldCache != null)
+      {
+        DirectoryServer.deregisterMonitorProvider(oldCache);
+      }
+      if (newCache != null)
+      {
+        DirectoryServer.registerMonitorProvider(newCache);
+      }
+    }
+
+    @Override
+    PasswordVerificationCache getPasswordVerificationCache()
+    {
+      return verificationCache;
+    }
+
     @Override
     public boolean isAuthPasswordSyntax()
     {
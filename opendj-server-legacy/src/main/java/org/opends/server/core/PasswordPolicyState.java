@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -375,6 +376,18 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
       logger.trace("Setting password changed time for user %s to current time of %d", userDNString, currentTime);
     }
 
+    final PasswordVerificationCache verificationCache = passwordPolicy.getPasswordVerificationCache();
+    if (verificationCache != null)
+    {
+      verificationCache.invalidate(userEntry.getName());
+    }
+    final PasswordPolicyStateUpdater stateUpdater = passwordPolicy.getStateUpdater();
+    if (stateUpdater != null)
+    {
+      // the deferred failures and lockout were for the previous password
+      stateUpdater.discard(userEntry.getName());
+    }
+
     // passwordChangedTime is computed in the constructor from values in the entry.
     if (getPasswordChangedTime() != passwordChangedTime)
     {
@@ -1963,6 +1976,14 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
       return false;
     }
 
+    final PasswordVerificationCache verificationCache = passwordPolicy.getPasswordVerificationCache();
+    final byte[] passwordDigest = verificationCache != null ? verificationCache.digest(password) : null;
+    if (verificationCache != null && verificationCache.isVerified(userEntry.getName(), attrList, passwordDigest))
+    {
+      logger.trace("Returning true for user %s because the provided password was recently verified", userDNString);
+      return true;
+    }
+
     for (Attribute a : attrList)
     {
       for (ByteString v : a)
@@ -1983,8 +2004,13 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
             continue;
           }
 
+          final long startTime = System.nanoTime();
           if (passwordMatches(password, pwComponents, scheme))
           {
+            if (verificationCache != null)
+            {
+              verificationCache.verified(userEntry.getName(), v, passwordDigest, System.nanoTime() - startTime);
+            }
             if (logger.isTraceEnabled())
             {
               logger.trace("Returning true for user %s because the provided password matches a value " +
@@ -2758,6 +2784,13 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
       return;
     }
 
+    final PasswordPolicyStateUpdater stateUpdater = passwordPolicy.getStateUpdater();
+    if (stateUpdater != null)
+    {
+      finalizeStateAfterBind(stateUpdater);
+      return;
+    }
+
     // Convert the set of modifications to a set of LDAP modifications.
     ArrayList<RawModification> modList = new ArrayList<>();
     for (Modification m : modifications)
@@ -2771,20 +2804,40 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
     ResultCode resultCode = internalModify.getResultCode();
     if (resultCode != ResultCode.SUCCESS)
     {
-      LocalizableMessage message = ERR_PWPSTATE_CANNOT_UPDATE_USER_ENTRY.get(
-          userDNString, internalModify.getErrorMessage());
+      handleStateUpdateFailure(resultCode,
+          ERR_PWPSTATE_CANNOT_UPDATE_USER_ENTRY.get(userDNString, internalModify.getErrorMessage()));
+    }
+  }
 
-      // If this is a root user, or if the password policy says that we should ignore these problems,
-      // then log a warning message.  Otherwise, cause the bind to fail.
-      if (DirectoryServer.isRootDN(userEntry.getName())
-          || passwordPolicy.getStateUpdateFailurePolicy() == PasswordPolicyCfgDefn.StateUpdateFailurePolicy.IGNORE)
-      {
-        logger.error(message);
-      }
-      else
-      {
-        throw new DirectoryException(resultCode, message);
-      }
+  private void finalizeStateAfterBind(PasswordPolicyStateUpdater stateUpdater) throws DirectoryException
+  {
+    if (stateUpdater.defer(userEntry.getName(), modifications))
+    {
+      return;
+    }
+
+    try
+    {
+      stateUpdater.write(userEntry.getName(), modifications);
+    }
+    catch (DirectoryException e)
+    {
+      handleStateUpdateFailure(e.getResultCode(), e.getMessageObject());
+    }
+  }
+
+  private void handleStateUpdateFailure(ResultCode resultCode, LocalizableMessage message) throws DirectoryException
+  {
+    // If this is a root user, or if the password policy says that we should ignore these problems,
+    // then log a warning message.  Otherwise, cause the bind to fail.
+    if (DirectoryServer.isRootDN(userEntry.getName())
+        || passwordPolicy.getStateUpdateFailurePolicy() == PasswordPolicyCfgDefn.StateUpdateFailurePolicy.IGNORE)
+    {
+      logger.error(message);
+    }
+    else
+    {
+      throw new DirectoryException(resultCode, message);
     }
   }
 }
@@ -0,0 +1,503 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import static org.opends.messages.CoreMessages.*;
+import static org.opends.server.config.ConfigConstants.*;
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+import static org.opends.server.util.ServerConstants.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ModificationType;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.plugin.InternalDirectoryServerPlugin;
+import org.opends.server.api.plugin.PluginResult.PostOperation;
+import org.opends.server.api.plugin.PluginType;
+import org.opends.server.protocols.ldap.LDAPControl;
+import org.opends.server.types.Control;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+import org.opends.server.types.Modification;
+import org.opends.server.types.operation.PostOperationDeleteOperation;
+import org.opends.server.types.operation.PostOperationModifyDNOperation;
+import org.opends.server.types.operation.PostOperationModifyOperation;
+import org.opends.server.types.operation.PostSynchronizationDeleteOperation;
+import org.opends.server.types.operation.PostSynchronizationModifyDNOperation;
+import org.opends.server.types.operation.PostSynchronizationModifyOperation;
+
+/**
+ * Defers the password policy state updates made by binds, so that the updates
+ * made by repeated binds of the same users are written to their entries in
+ * batches.
+ * <p>
+ * Only the updates of the last login time, of the authentication failure times
+ * and of the failure lockout time are deferred. The pending updates of a user
+ * are applied to its entry whenever it binds, so that the failure lockout is
+ * always evaluated against the authentication failures which have not been
+ * written yet. Pending updates are written at a fixed interval, when enough
+ * users have pending updates, and before any other password policy state
+ * update of their user made by a bind.
+ * <p>
+ * Pending updates are discarded when their user entry is deleted or renamed,
+ * or when the deferred attributes are modified by another operation, for
+ * example when an administrator unlocks the account, so that writing them
+ * does not undo that operation.
+ */
+final class PasswordPolicyStateUpdater
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Makes the configuration DN of the internal plugin of each updater unique. */
+  private static final AtomicInteger UPDATER_COUNT = new AtomicInteger();
+
+  /** Discards the pending updates of the users whose entry is updated by other operations. */
+  private final class ExternalUpdateListener extends InternalDirectoryServerPlugin
+  {
+    private ExternalUpdateListener(DN configurationDN)
+    {
+      super(configurationDN, EnumSet.of(
+          PluginType.POST_OPERATION_DELETE,
+          PluginType.POST_OPERATION_MODIFY,
+          PluginType.POST_OPERATION_MODIFY_DN,
+          PluginType.POST_SYNCHRONIZATION_DELETE,
+          PluginType.POST_SYNCHRONIZATION_MODIFY,
+          PluginType.POST_SYNCHRONIZATION_MODIFY_DN), true);
+    }
+
+    @Override
+    public PostOperation doPostOperation(PostOperationDeleteOperation deleteOperation)
+    {
+      if (deleteOperation.getResultCode() == ResultCode.SUCCESS)
+      {
+        discard(deleteOperation.getEntryDN());
+      }
+      return PostOperation.continueOperationProcessing();
+    }
+
+    @Override
+    public PostOperation doPostOperation(PostOperationModifyOperation modifyOperation)
+    {
+      if (modifyOperation.getResultCode() == ResultCode.SUCCESS)
+      {
+        doPostModify(modifyOperation.getEntryDN(), modifyOperation.getModifications());
+      }
+      return PostOperation.continueOperationProcessing();
+    }
+
+    @Override
+    public PostOperation doPostOperation(PostOperationModifyDNOperation modifyDNOperation)
+    {
+      if (modifyDNOperation.getResultCode() == ResultCode.SUCCESS)
+      {
+        discard(modifyDNOperation.getEntryDN());
+      }
+      return PostOperation.continueOperationProcessing();
+    }
+
+    @Override
+    public void doPostSynchronization(PostSynchronizationDeleteOperation deleteOperation)
+    {
+      discard(deleteOperation.getEntryDN());
+    }
+
+    @Override
+    public void doPostSynchronization(PostSynchronizationModifyOperation modifyOperation)
+    {
+      doPostModify(modifyOperation.getEntryDN(), modifyOperation.getModifications());
+    }
+
+    @Override
+    public void doPostSynchronization(PostSynchronizationModifyDNOperation modifyDNOperation)
+    {
+      discard(modifyDNOperation.getEntryDN());
+    }
+
+    private void doPostModify(DN entryDN, List<Modification> modifications)
+    {
+      if (pendingUpdates.containsKey(entryDN) && modifiesDeferredAttributes(modifications))
+      {
+        /*
+         * The writes of this updater also get here: discarding the pending
+         * updates being written is harmless.
+         */
+        discard(entryDN);
+      }
+    }
+  }
+
+  /** Pending updates of a user. */
+  private static final class PendingUpdates
+  {
+    /** The modifications to apply to the user entry, in order. */
+    private final List<Modification> modifications = new ArrayList<>();
+    /** Whether these updates have been written and removed from the pending updates. */
+    private boolean written;
+
+    private void add(List<Modification> newModifications)
+    {
+      for (Modification newMod : newModifications)
+      {
+        if (newMod.getModificationType() == ModificationType.REPLACE)
+        {
+          // the replaced values do not need to be written
+          final AttributeType type = newMod.getAttribute().getAttributeDescription().getAttributeType();
+          for (Iterator<Modification> it = modifications.iterator(); it.hasNext();)
+          {
+            if (it.next().getAttribute().getAttributeDescription().getAttributeType().equals(type))
+            {
+              it.remove();
+            }
+          }
+        }
+        modifications.add(newMod);
+      }
+    }
+  }
+
+  private final PasswordPolicy passwordPolicy;
+  private final long writeBehindIntervalMillis;
+  private final int writeBehindThreshold;
+  private final Map<DN, PendingUpdates> pendingUpdates = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService writer;
+  private final AtomicBoolean writeRequested = new AtomicBoolean();
+  private final ExternalUpdateListener externalUpdateListener;
+  private volatile boolean stopped;
+
+  private final Runnable writeAllTask = new Runnable()
+  {
+    @Override
+    public void run()
+    {
+      writeRequested.set(false);
+      writeAll();
+    }
+  };
+
+  /**
+   * Creates and starts a new password policy state updater.
+   *
+   * @param passwordPolicy
+   *          the password policy whose state updates are deferred
+   * @param policyName
+   *          the name of the password policy
+   * @param writeBehindIntervalMillis
+   *          how long updates may be pending before they are written
+   * @param writeBehindThreshold
+   *          the number of users with pending updates which triggers writing
+   *          them
+   */
+  PasswordPolicyStateUpdater(PasswordPolicy passwordPolicy, String policyName, long writeBehindIntervalMillis,
+      int writeBehindThreshold)
+  {
+    this.passwordPolicy = passwordPolicy;
+    this.writeBehindIntervalMillis = writeBehindIntervalMillis;
+    this.writeBehindThreshold = writeBehindThreshold;
+    this.writer = new ScheduledThreadPoolExecutor(1,
+        new DirectoryThread.Factory("Password Policy State Updater for " + policyName));
+    this.writer.scheduleWithFixedDelay(
+        writeAllTask, writeBehindIntervalMillis, writeBehindIntervalMillis, TimeUnit.MILLISECONDS);
+    this.externalUpdateListener = new ExternalUpdateListener(
+        passwordPolicy.getDN().child("cn", "State Updater " + UPDATER_COUNT.incrementAndGet()));
+    DirectoryServer.registerInternalPlugin(externalUpdateListener);
+  }
+
+  long getWriteBehindIntervalMillis()
+  {
+    return writeBehindIntervalMillis;
+  }
+
+  int getWriteBehindThreshold()
+  {
+    return writeBehindThreshold;
+  }
+
+  /**
+   * Returns the provided user entry with the pending updates of the user
+   * applied.
+   *
+   * @param userEntry
+   *          the user entry, as read from its backend
+   * @return the provided user entry if the user has no pending updates, a copy
+   *         with the pending updates applied otherwise
+   */
+  Entry applyPendingUpdates(Entry userEntry)
+  {
+    final PendingUpdates pending = pendingUpdates.get(userEntry.getName());
+    if (pending == null)
+    {
+      return userEntry;
+    }
+
+    final List<Modification> modifications;
+    synchronized (pending)
+    {
+      modifications = new ArrayList<>(pending.modifications);
+    }
+    final Entry updatedEntry = userEntry.duplicate(false);
+    for (Modification mod : modifications)
+    {
+      try
+      {
+        // the user entry may already contain some of the values being written
+        updatedEntry.applyModification(mod, true);
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+      }
+    }
+    return updatedEntry;
+  }
+
+  /**
+   * Defers the provided password policy state updates made by a bind, if
+   * possible.
+   *
+   * @param userDN
+   *          the DN of the user
+   * @param modifications
+   *          the password policy state updates made by the bind
+   * @return {@code true} if the updates have been deferred, {@code false} if
+   *         they must be written now with {@link #write(DN, List)}
+   */
+  boolean defer(DN userDN, List<Modification> modifications)
+  {
+    if (stopped || !isDeferrable(modifications))
+    {
+      return false;
+    }
+
+    for (;;)
+    {
+      PendingUpdates pending = pendingUpdates.get(userDN);
+      if (pending == null)
+      {
+        final PendingUpdates newPending = new PendingUpdates();
+        pending = pendingUpdates.putIfAbsent(userDN, newPending);
+        if (pending == null)
+        {
+          pending = newPending;
+        }
+      }
+      synchronized (pending)
+      {
+        if (pending.written)
+        {
+          // raced with a writer: retry with new pending updates
+          continue;
+        }
+        pending.add(modifications);
+      }
+      break;
+    }
+
+    if (stopped)
+    {
+      // raced with stop(): nobody else will write these updates
+      writeAll();
+    }
+    else if (pendingUpdates.size() >= writeBehindThreshold && writeRequested.compareAndSet(false, true))
+    {
+      try
+      {
+        writer.execute(writeAllTask);
+      }
+      catch (RejectedExecutionException e)
+      {
+        // stopped concurrently, which writes all the pending updates
+        logger.traceException(e);
+      }
+    }
+    return true;
+  }
+
+  private boolean isDeferrable(List<Modification> modifications)
+  {
+    for (Modification mod : modifications)
+    {
+      if (!isDeferredAttribute(mod))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean modifiesDeferredAttributes(List<Modification> modifications)
+  {
+    for (Modification mod : modifications)
+    {
+      if (isDeferredAttribute(mod))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isDeferredAttribute(Modification mod)
+  {
+    final AttributeType type = mod.getAttribute().getAttributeDescription().getAttributeType();
+    return type.equals(passwordPolicy.getLastLoginTimeAttribute())
+        || type.hasName(OP_ATTR_PWPOLICY_FAILURE_TIME)
+        || type.hasName(OP_ATTR_PWPOLICY_LOCKED_TIME);
+  }
+
+  /**
+   * Writes the provided password policy state updates of a user, after its
+   * pending updates.
+   *
+   * @param userDN
+   *          the DN of the user
+   * @param modifications
+   *          the password policy state updates to write
+   * @throws DirectoryException
+   *           if the updates could not be written
+   */
+  void write(DN userDN, List<Modification> modifications) throws DirectoryException
+  {
+    final PendingUpdates pending = pendingUpdates.get(userDN);
+    if (pending == null)
+    {
+      writeModifications(userDN, modifications);
+      return;
+    }
+
+    synchronized (pending)
+    {
+      final List<Modification> allModifications = new ArrayList<>(pending.modifications);
+      allModifications.addAll(modifications);
+      try
+      {
+        writeModifications(userDN, allModifications);
+      }
+      finally
+      {
+        removePendingUpdates(userDN, pending);
+      }
+    }
+  }
+
+  /**
+   * Discards the pending updates of a user, for example because its password
+   * changed or because an administrator unlocked its account.
+   *
+   * @param userDN
+   *          the DN of the user
+   */
+  void discard(DN userDN)
+  {
+    final PendingUpdates pending = pendingUpdates.get(userDN);
+    if (pending != null)
+    {
+      synchronized (pending)
+      {
+        removePendingUpdates(userDN, pending);
+      }
+    }
+  }
+
+  /** Writes all the pending updates. */
+  void writeAll()
+  {
+    for (Map.Entry<DN, PendingUpdates> mapEntry : pendingUpdates.entrySet())
+    {
+      final DN userDN = mapEntry.getKey();
+      final PendingUpdates pending = mapEntry.getValue();
+      synchronized (pending)
+      {
+        if (pending.written)
+        {
+          continue;
+        }
+        try
+        {
+          writeModifications(userDN, pending.modifications);
+        }
+        catch (DirectoryException e)
+        {
+          // the bind already completed: there is nobody to report the failure to
+          logger.traceException(e);
+          logger.error(e.getMessageObject());
+        }
+        finally
+        {
+          removePendingUpdates(userDN, pending);
+        }
+      }
+    }
+  }
+
+  /** Stops this updater, after writing all the pending updates. */
+  void stop()
+  {
+    stopped = true;
+    DirectoryServer.deregisterInternalPlugin(externalUpdateListener);
+    writer.shutdown();
+    try
+    {
+      writer.awaitTermination(writeBehindIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    writeAll();
+  }
+
+  /** Must be called while holding the lock on the pending updates. */
+  private void removePendingUpdates(DN userDN, PendingUpdates pending)
+  {
+    pending.written = true;
+    pendingUpdates.remove(userDN, pending);
+  }
+
+  private static void writeModifications(DN userDN, List<Modification> modifications) throws DirectoryException
+  {
+    if (modifications.isEmpty())
+    {
+      return;
+    }
+
+    // deferred updates may add values which are already present, or delete values which are already absent
+    final List<Control> controls = Collections.<Control> singletonList(new LDAPControl(OID_PERMISSIVE_MODIFY_CONTROL));
+    final ModifyOperation internalModify =
+        getRootConnection().processModify(userDN, new ArrayList<>(modifications), controls);
+    final ResultCode resultCode = internalModify.getResultCode();
+    if (resultCode != ResultCode.SUCCESS)
+    {
+      throw new DirectoryException(resultCode,
+          ERR_PWPSTATE_CANNOT_UPDATE_USER_ENTRY.get(userDN, internalModify.getErrorMessage()));
+    }
+  }
+}
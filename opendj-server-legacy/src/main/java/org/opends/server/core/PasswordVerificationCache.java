@@ -0,0 +1,263 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.types.Attribute;
+
+/**
+ * Cache of the passwords successfully verified for the users of a password
+ * policy.
+ * <p>
+ * Verifying a password against an expensive storage scheme, such as PBKDF2 or
+ * Bcrypt, costs far more than the rest of a simple bind. For each user, this
+ * cache remembers the stored password value which was last successfully
+ * verified, together with a keyed digest of the provided password. The digest
+ * key is generated when the server starts and is never persisted. Only
+ * successful verifications are cached: wrong passwords always go through the
+ * password storage scheme.
+ */
+final class PasswordVerificationCache extends MonitorProvider<MonitorProviderCfg>
+{
+  private static final String DIGEST_ALGORITHM = "HmacSHA256";
+  /** The key of the password digests, only valid until the server stops. */
+  private static final SecretKeySpec DIGEST_KEY = newDigestKey();
+  private static final ThreadLocal<Mac> DIGESTS = new ThreadLocal<Mac>()
+  {
+    @Override
+    protected Mac initialValue()
+    {
+      try
+      {
+        final Mac mac = Mac.getInstance(DIGEST_ALGORITHM);
+        mac.init(DIGEST_KEY);
+        return mac;
+      }
+      catch (GeneralSecurityException e)
+      {
+        // HmacSHA256 is supported by all Java platforms
+        throw new IllegalStateException(e);
+      }
+    }
+  };
+
+  /** A successful password verification. */
+  private static final class Verification
+  {
+    private final ByteString storedPassword;
+    private final byte[] passwordDigest;
+    private final long expirationTime;
+    /** How long the password storage scheme took to verify the password. */
+    private final long verificationTimeNanos;
+
+    private Verification(ByteString storedPassword, byte[] passwordDigest, long expirationTime,
+        long verificationTimeNanos)
+    {
+      this.storedPassword = storedPassword;
+      this.passwordDigest = passwordDigest;
+      this.expirationTime = expirationTime;
+      this.verificationTimeNanos = verificationTimeNanos;
+    }
+  }
+
+  private final String monitorName;
+  private final int maxSize;
+  private final long ttlMillis;
+  private final ConcurrentHashMap<DN, Verification> verifications = new ConcurrentHashMap<>();
+
+  private final AtomicLong tries = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong savedTimeNanos = new AtomicLong();
+
+  /**
+   * Creates a new password verification cache.
+   *
+   * @param policyName
+   *          the name of the password policy using this cache
+   * @param maxSize
+   *          the maximum number of users whose verified password is cached
+   * @param ttlMillis
+   *          how long a verified password may be used from the cache
+   */
+  PasswordVerificationCache(String policyName, int maxSize, long ttlMillis)
+  {
+    this.monitorName = policyName + " Password Verification Cache";
+    this.maxSize = maxSize;
+    this.ttlMillis = ttlMillis;
+  }
+
+  private static SecretKeySpec newDigestKey()
+  {
+    final byte[] key = new byte[32];
+    new SecureRandom().nextBytes(key);
+    return new SecretKeySpec(key, DIGEST_ALGORITHM);
+  }
+
+  int getMaxSize()
+  {
+    return maxSize;
+  }
+
+  long getTTLMillis()
+  {
+    return ttlMillis;
+  }
+
+  /**
+   * Returns the keyed digest of the provided password, to use with the other
+   * methods of this cache.
+   *
+   * @param password
+   *          the password provided by the user
+   * @return the keyed digest of the provided password
+   */
+  byte[] digest(ByteSequence password)
+  {
+    return DIGESTS.get().doFinal(password.toByteArray());
+  }
+
+  /**
+   * Returns whether the password with the provided digest was recently verified
+   * against one of the stored passwords of the user.
+   *
+   * @param userDN
+   *          the DN of the user
+   * @param storedPasswords
+   *          the current values of the password attribute of the user
+   * @param passwordDigest
+   *          the digest of the password provided by the user
+   * @return {@code true} if the password provided by the user was recently
+   *         verified against one of its current stored passwords
+   */
+  boolean isVerified(DN userDN, List<Attribute> storedPasswords, byte[] passwordDigest)
+  {
+    tries.incrementAndGet();
+    final Verification verification = verifications.get(userDN);
+    if (verification == null)
+    {
+      return false;
+    }
+    if (verification.expirationTime <= System.currentTimeMillis())
+    {
+      verifications.remove(userDN, verification);
+      return false;
+    }
+    if (!MessageDigest.isEqual(verification.passwordDigest, passwordDigest)
+        || !contains(storedPasswords, verification.storedPassword))
+    {
+      return false;
+    }
+    hits.incrementAndGet();
+    savedTimeNanos.addAndGet(verification.verificationTimeNanos);
+    return true;
+  }
+
+  private static boolean contains(List<Attribute> attributes, ByteString value)
+  {
+    // do not use Attribute.contains(): the password equality matching rule would verify the password again
+    for (Attribute a : attributes)
+    {
+      for (ByteString v : a)
+      {
+        if (v.equals(value))
+        {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Records that the password with the provided digest matched one of the
+   * stored passwords of the user.
+   *
+   * @param userDN
+   *          the DN of the user
+   * @param storedPassword
+   *          the stored password which matched
+   * @param passwordDigest
+   *          the digest of the password provided by the user
+   * @param verificationTimeNanos
+   *          how long the password storage scheme took to verify the password
+   */
+  void verified(DN userDN, ByteString storedPassword, byte[] passwordDigest, long verificationTimeNanos)
+  {
+    if (!verifications.containsKey(userDN))
+    {
+      // evict arbitrary users until there is room for this one
+      final Iterator<DN> it = verifications.keySet().iterator();
+      while (verifications.size() >= maxSize && it.hasNext())
+      {
+        it.next();
+        it.remove();
+      }
+    }
+    verifications.put(userDN, new Verification(
+        storedPassword, passwordDigest, System.currentTimeMillis() + ttlMillis, verificationTimeNanos));
+  }
+
+  /**
+   * Discards the verified password of the user, for example because the user
+   * password changed.
+   *
+   * @param userDN
+   *          the DN of the user
+   */
+  void invalidate(DN userDN)
+  {
+    verifications.remove(userDN);
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return monitorName;
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    final long cacheTries = tries.get();
+    final long cacheHits = hits.get();
+
+    final MonitorData attrs = new MonitorData(6);
+    attrs.add("verificationCacheHits", cacheHits);
+    attrs.add("verificationCacheTries", cacheTries);
+    attrs.add("verificationCacheHitRatio", cacheTries > 0 ? cacheHits * 100 / cacheTries : 0L);
+    attrs.add("currentVerificationCacheCount", verifications.size());
+    attrs.add("maxVerificationCacheCount", maxSize);
+    attrs.add("savedVerificationTimeMillis", TimeUnit.NANOSECONDS.toMillis(savedTimeNanos.get()));
+    return attrs;
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -393,6 +394,18 @@ public final class SubentryPasswordPolicy extends PasswordPolicy
     return getDefaultPasswordPolicy().isAllowMultiplePasswordValues();
   }
 
+  @Override
+  PasswordVerificationCache getPasswordVerificationCache()
+  {
+    return getDefaultPasswordPolicy().getPasswordVerificationCache();
+  }
+
+  @Override
+  PasswordPolicyStateUpdater getStateUpdater()
+  {
+    return getDefaultPasswordPolicy().getStateUpdater();
+  }
+
   @Override
   public boolean isAllowPreEncodedPasswords()
   {
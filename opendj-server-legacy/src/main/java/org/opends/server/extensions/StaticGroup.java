@@ -13,19 +13,23 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.extensions;
 
 import static com.forgerock.opendj.util.StaticUtils.getBytes;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -74,6 +78,12 @@ import static org.opends.server.util.ServerConstants.*;
  * A static group implementation, in which the DNs of all members are explicitly
  * listed.
  * <p>
+ * The member DNs are kept in a concurrent set which is updated in place, so
+ * that adding or removing a member of a very large group does not copy the
+ * whole set, and member lists iterate over it without holding any lock. The
+ * member attribute values of the group entry are only decoded the first time
+ * the membership of the group is needed.
+ * <p>
  * There are three variants of static groups:
  * <ul>
  *   <li>one based on the {@code groupOfNames} object class: which stores the
@@ -94,8 +104,17 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   /** The DN of the entry that holds the definition for this group. */
   private DN groupEntryDN;
 
-  /** The set of the DNs of the members for this group. */
-  private HashSet<CompactDn> memberDNs;
+  /**
+   * The set of the DNs of the members for this group, which must be accessed
+   * through {@link #getMemberDNs()} as it is loaded on first use.
+   */
+  private final Set<CompactDn> memberDNs;
+
+  /**
+   * The member attributes of the group entry, or {@code null} once they have
+   * been decoded into {@link #memberDNs}.
+   */
+  private volatile List<Attribute> memberAttributes;
 
   /** The list of nested group DNs for this group. */
   private LinkedList<DN> nestedGroups = new LinkedList<>();
@@ -103,7 +122,13 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   /** Passed to the group manager to see if the nested group list needs to be refreshed. */
   private long nestedGroupRefreshToken = DirectoryServer.getGroupManager().refreshToken();
 
-  /** Read/write lock protecting memberDNs and nestedGroups. */
+  /**
+   * Read/write lock serializing the changes of memberDNs and nestedGroups with
+   * the reload of the nested groups. The changes of memberDNs are reported to
+   * the reverse membership index of the group manager before this lock is
+   * released, so that they are applied in order: this lock must therefore
+   * always be acquired before the group manager lock, never after.
+   */
   private ReadWriteLock lock = new ReentrantReadWriteLock();
 
   private ServerContext serverContext;
@@ -115,6 +140,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   public StaticGroup()
   {
     super();
+    this.memberDNs = newMemberDNSet(0);
   }
 
   /**
@@ -124,19 +150,27 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
    *                              for this group.
    * @param  memberAttributeType  The attribute type used to hold the membership
    *                              list for this group.
-   * @param  memberDNs            The set of the DNs of the members for this
-   *                              group.
+   * @param  memberAttributes     The member attributes of the group entry,
+   *                              which will be decoded on first use.
+   * @param  membersCount         The number of values of the member
+   *                              attributes.
    */
   private StaticGroup(ServerContext serverContext, DN groupEntryDN, AttributeType memberAttributeType,
-      LinkedHashSet<CompactDn> memberDNs)
+      List<Attribute> memberAttributes, int membersCount)
   {
     super();
-    Reject.ifNull(groupEntryDN, memberAttributeType, memberDNs);
+    Reject.ifNull(groupEntryDN, memberAttributeType, memberAttributes);
 
     this.serverContext       = serverContext;
     this.groupEntryDN        = groupEntryDN;
     this.memberAttributeType = memberAttributeType;
-    this.memberDNs           = memberDNs;
+    this.memberDNs           = newMemberDNSet(membersCount);
+    this.memberAttributes    = memberAttributes;
+  }
+
+  private static Set<CompactDn> newMemberDNSet(int expectedSize)
+  {
+    return Collections.newSetFromMap(new ConcurrentHashMap<CompactDn, Boolean>(Math.max(16, expectedSize)));
   }
 
   @Override
@@ -202,14 +236,39 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     {
       membersCount += a.size();
     }
-    LinkedHashSet<CompactDn> someMemberDNs = new LinkedHashSet<>(membersCount);
-    for (Attribute a : memberAttrList)
+    return new StaticGroup(serverContext, groupEntry.getName(), someMemberAttributeType, memberAttrList, membersCount);
+  }
+
+  /**
+   * Returns the set of the DNs of the members for this group, decoding the
+   * member attributes of the group entry if this has not been done yet.
+   */
+  private Set<CompactDn> getMemberDNs()
+  {
+    if (memberAttributes != null)
+    {
+      synchronized (memberDNs)
+      {
+        List<Attribute> attributes = memberAttributes;
+        if (attributes != null)
+        {
+          loadMemberDNs(attributes);
+          memberAttributes = null;
+        }
+      }
+    }
+    return memberDNs;
+  }
+
+  private void loadMemberDNs(List<Attribute> attributes)
+  {
+    for (Attribute a : attributes)
     {
       for (ByteString v : a)
       {
         try
         {
-          someMemberDNs.add(new CompactDn(DN.valueOf(v.toString())));
+          memberDNs.add(new CompactDn(DN.valueOf(v)));
         }
         catch (LocalizedIllegalArgumentException e)
         {
@@ -217,13 +276,12 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
           if (DirectoryServer.getCoreConfigManager().getSyntaxEnforcementPolicy() == AcceptRejectWarn.REJECT)
           {
             logger.error(ERR_STATICGROUP_CANNOT_DECODE_MEMBER_VALUE_AS_DN,
-              v, someMemberAttributeType.getNameOrOID(), groupEntry.getName(), e.getMessageObject());
+              v, memberAttributeType.getNameOrOID(), groupEntryDN, e.getMessageObject());
           }
           // else just ignore this value (issue OPENDJ-2833)
         }
       }
     }
-    return new StaticGroup(serverContext, groupEntry.getName(), someMemberAttributeType, someMemberDNs);
   }
 
   @Override
@@ -313,12 +371,47 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     }
   }
 
+  @Override
+  public Iterable<ByteString> getIndexableMemberDNs()
+  {
+    final Set<CompactDn> members = getMemberDNs();
+    return new Iterable<ByteString>()
+    {
+      @Override
+      public Iterator<ByteString> iterator()
+      {
+        final Iterator<CompactDn> iterator = members.iterator();
+        return new Iterator<ByteString>()
+        {
+          @Override
+          public boolean hasNext()
+          {
+            return iterator.hasNext();
+          }
+
+          @Override
+          public ByteString next()
+          {
+            return iterator.next().toNormalizedByteString();
+          }
+
+          @Override
+          public void remove()
+          {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
   @Override
   public void addNestedGroup(DN nestedGroupDN)
          throws UnsupportedOperationException, DirectoryException
   {
     Reject.ifNull(nestedGroupDN);
 
+    CompactDn compactNestedGroupDN = new CompactDn(nestedGroupDN);
     lock.writeLock().lock();
     try
     {
@@ -341,9 +434,11 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       newNestedGroups.add(nestedGroupDN);
       nestedGroups = newNestedGroups;
       //Add it to the member DN list.
-      HashSet<CompactDn> newMemberDNs = new HashSet<>(memberDNs);
-      newMemberDNs.add(new CompactDn(nestedGroupDN));
-      memberDNs = newMemberDNs;
+      if (getMemberDNs().add(compactNestedGroupDN))
+      {
+        updateMembershipIndex(Collections.singletonList(compactNestedGroupDN.toNormalizedByteString()),
+            Collections.<ByteString> emptyList());
+      }
     }
     finally
     {
@@ -357,6 +452,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   {
     Reject.ifNull(nestedGroupDN);
 
+    CompactDn compactNestedGroupDN = new CompactDn(nestedGroupDN);
     lock.writeLock().lock();
     try
     {
@@ -379,9 +475,11 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       newNestedGroups.remove(nestedGroupDN);
       nestedGroups = newNestedGroups;
       //Remove it from the member DN list.
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>(memberDNs);
-      newMemberDNs.remove(new CompactDn(nestedGroupDN));
-      memberDNs = newMemberDNs;
+      if (getMemberDNs().remove(compactNestedGroupDN))
+      {
+        updateMembershipIndex(Collections.<ByteString> emptyList(),
+            Collections.singletonList(compactNestedGroupDN.toNormalizedByteString()));
+      }
     }
     finally
     {
@@ -394,13 +492,13 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   {
     reloadIfNeeded();
     CompactDn compactUserDN = new CompactDn(userDN);
+    if (getMemberDNs().contains(compactUserDN))
+    {
+      return true;
+    }
     lock.readLock().lock();
     try
     {
-      if (memberDNs.contains(compactUserDN))
-      {
-        return true;
-      }
       if (nestedGroups.isEmpty()) {
         return false;
       }
@@ -467,7 +565,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
         }
         else if (thisGroup != this)
         {
-          LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>();
+          Set<CompactDn> newMemberDNs = new HashSet<>();
           MemberList memberList = thisGroup.getMembers();
           while (memberList.hasMoreMembers())
           {
@@ -480,18 +578,20 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
               // TODO: should we throw an exception there instead of silently fail ?
             }
           }
-          memberDNs = newMemberDNs;
+          getMemberDNs().retainAll(newMemberDNs);
+          memberDNs.addAll(newMemberDNs);
         }
-        nestedGroups.clear();
-        for (CompactDn compactDn : memberDNs)
+        LinkedList<DN> newNestedGroups = new LinkedList<>();
+        for (CompactDn compactDn : getMemberDNs())
         {
           DN dn = compactDn.toDn(serverContext);
           Group<?> group = DirectoryServer.getGroupManager().getGroupInstance(dn);
           if (group != null)
           {
-            nestedGroups.add(group.getGroupDN());
+            newNestedGroups.add(group.getGroupDN());
           }
         }
+        nestedGroups = newNestedGroups;
         nestedGroupRefreshToken = DirectoryServer.getGroupManager().refreshToken();
       }
       finally
@@ -505,34 +605,18 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   public MemberList getMembers() throws DirectoryException
   {
     reloadIfNeeded();
-    lock.readLock().lock();
-    try
-    {
-      return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, memberDNs);
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
+    return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, getMemberDNs());
   }
 
   @Override
   public MemberList getMembers(DN baseDN, SearchScope scope, SearchFilter filter) throws DirectoryException
   {
     reloadIfNeeded();
-    lock.readLock().lock();
-    try
-    {
-      if (baseDN == null && filter == null)
-      {
-        return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, memberDNs);
-      }
-      return new FilteredStaticGroupMemberList(serverContext, groupEntryDN, memberDNs, baseDN, scope, filter);
-    }
-    finally
+    if (baseDN == null && filter == null)
     {
-      lock.readLock().unlock();
+      return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, getMemberDNs());
     }
+    return new FilteredStaticGroupMemberList(serverContext, groupEntryDN, getMemberDNs(), baseDN, scope, filter);
   }
 
   @Override
@@ -545,13 +629,15 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
   public void updateMembers(List<Modification> modifications)
          throws UnsupportedOperationException, DirectoryException
   {
-    Reject.ifNull(memberDNs);
     Reject.ifNull(nestedGroups);
 
     reloadIfNeeded();
+    List<ByteString> addedDNs = new ArrayList<>();
+    List<ByteString> removedDNs = new ArrayList<>();
     lock.writeLock().lock();
     try
     {
+      Set<CompactDn> members = getMemberDNs();
       for (Modification mod : modifications)
       {
         Attribute attribute = mod.getAttribute();
@@ -563,7 +649,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
               for (ByteString v : attribute)
               {
                 DN member = DN.valueOf(v);
-                memberDNs.add(new CompactDn(member));
+                addMemberDN(members, new CompactDn(member), addedDNs);
                 if (DirectoryServer.getGroupManager().getGroupInstance(member) != null)
                 {
                   nestedGroups.add(member);
@@ -573,7 +659,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             case DELETE:
               if (attribute.isEmpty())
               {
-                memberDNs.clear();
+                removeAllMemberDNs(members, removedDNs);
                 nestedGroups.clear();
               }
               else
@@ -581,45 +667,97 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
                 for (ByteString v : attribute)
                 {
                   DN member = DN.valueOf(v);
-                  memberDNs.remove(new CompactDn(member));
+                  removeMemberDN(members, new CompactDn(member), removedDNs);
                   nestedGroups.remove(member);
                 }
               }
               break;
             case REPLACE:
-              memberDNs.clear();
+              Set<CompactDn> newMembers = new HashSet<>();
               nestedGroups.clear();
               for (ByteString v : attribute)
               {
                 DN member = DN.valueOf(v);
-                memberDNs.add(new CompactDn(member));
+                newMembers.add(new CompactDn(member));
                 if (DirectoryServer.getGroupManager().getGroupInstance(member) != null)
                 {
                   nestedGroups.add(member);
                 }
               }
+              // Only apply the differences, so that replacing the members of a
+              // large group with almost the same values stays cheap
+              for (Iterator<CompactDn> it = members.iterator(); it.hasNext();)
+              {
+                CompactDn memberDN = it.next();
+                if (!newMembers.contains(memberDN))
+                {
+                  it.remove();
+                  removedDNs.add(memberDN.toNormalizedByteString());
+                }
+              }
+              for (CompactDn memberDN : newMembers)
+              {
+                addMemberDN(members, memberDN, addedDNs);
+              }
               break;
           }
         }
       }
+      updateMembershipIndex(addedDNs, removedDNs);
     }
     finally {
       lock.writeLock().unlock();
     }
   }
 
+  private static void addMemberDN(Set<CompactDn> members, CompactDn memberDN, List<ByteString> addedDNs)
+  {
+    if (members.add(memberDN))
+    {
+      addedDNs.add(memberDN.toNormalizedByteString());
+    }
+  }
+
+  private static void removeMemberDN(Set<CompactDn> members, CompactDn memberDN, List<ByteString> removedDNs)
+  {
+    if (members.remove(memberDN))
+    {
+      removedDNs.add(memberDN.toNormalizedByteString());
+    }
+  }
+
+  private static void removeAllMemberDNs(Set<CompactDn> members, List<ByteString> removedDNs)
+  {
+    for (Iterator<CompactDn> it = members.iterator(); it.hasNext();)
+    {
+      removedDNs.add(it.next().toNormalizedByteString());
+      it.remove();
+    }
+  }
+
+  /**
+   * Reports the member changes to the reverse membership index of the group
+   * manager. The write lock must be held.
+   */
+  private void updateMembershipIndex(Collection<ByteString> addedDNs, Collection<ByteString> removedDNs)
+  {
+    if (!addedDNs.isEmpty() || !removedDNs.isEmpty())
+    {
+      getGroupManager().updateMembershipIndex(this, addedDNs, removedDNs);
+    }
+  }
+
   @Override
   public void addMember(Entry userEntry) throws UnsupportedOperationException, DirectoryException
   {
     Reject.ifNull(userEntry);
 
+    DN userDN = userEntry.getName();
+    CompactDn compactUserDN = new CompactDn(userDN);
     lock.writeLock().lock();
     try
     {
-      DN userDN = userEntry.getName();
-      CompactDn compactUserDN = new CompactDn(userDN);
-
-      if (memberDNs.contains(compactUserDN))
+      if (getMemberDNs().contains(compactUserDN))
       {
         LocalizableMessage message = ERR_STATICGROUP_ADD_MEMBER_ALREADY_EXISTS.get(userDN, groupEntryDN);
         throw new DirectoryException(ResultCode.ATTRIBUTE_OR_VALUE_EXISTS, message);
@@ -633,9 +771,9 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             ERR_STATICGROUP_ADD_MEMBER_UPDATE_FAILED.get(userDN, groupEntryDN, modifyOperation.getErrorMessage()));
       }
 
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<CompactDn>(memberDNs);
-      newMemberDNs.add(compactUserDN);
-      memberDNs = newMemberDNs;
+      memberDNs.add(compactUserDN);
+      updateMembershipIndex(Collections.singletonList(compactUserDN.toNormalizedByteString()),
+          Collections.<ByteString> emptyList());
     }
     finally
     {
@@ -652,7 +790,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     lock.writeLock().lock();
     try
     {
-      if (! memberDNs.contains(compactUserDN))
+      if (! getMemberDNs().contains(compactUserDN))
       {
         LocalizableMessage message = ERR_STATICGROUP_REMOVE_MEMBER_NO_SUCH_MEMBER.get(userDN, groupEntryDN);
         throw new DirectoryException(ResultCode.NO_SUCH_ATTRIBUTE, message);
@@ -666,9 +804,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             ERR_STATICGROUP_REMOVE_MEMBER_UPDATE_FAILED.get(userDN, groupEntryDN, modifyOperation.getErrorMessage()));
       }
 
-      LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>(memberDNs);
-      newMemberDNs.remove(compactUserDN);
-      memberDNs = newMemberDNs;
+      memberDNs.remove(compactUserDN);
       //If it is in the nested group list remove it.
       if (nestedGroups.contains(userDN))
       {
@@ -676,6 +812,8 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
         newNestedGroups.remove(userDN);
         nestedGroups = newNestedGroups;
       }
+      updateMembershipIndex(Collections.<ByteString> emptyList(),
+          Collections.singletonList(compactUserDN.toNormalizedByteString()));
     }
     finally
     {
@@ -758,6 +896,16 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       return DN.valueOf(toString(), serverContext.getSchema());
     }
 
+    /**
+     * Returns the normalized byte string of the DN corresponding to this compact representation.
+     *
+     * @return the normalized byte string, as returned by {@link DN#toNormalizedByteString()}
+     */
+    ByteString toNormalizedByteString()
+    {
+      return ByteString.wrap(normalizedValue);
+    }
+
     @Override
     public int hashCode()
     {
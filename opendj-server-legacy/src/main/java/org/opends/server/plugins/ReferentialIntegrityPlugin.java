@@ -14,9 +14,12 @@
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
  * Portions copyright 2011 profiq s.r.o.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.plugins;
 
+import static java.util.concurrent.TimeUnit.*;
+
 import static org.opends.messages.PluginMessages.*;
 import static org.opends.server.core.BackendConfigManager.NamingContextFilter.PUBLIC;
 import static org.opends.server.core.BackendConfigManager.NamingContextFilter.TOP_LEVEL;
@@ -31,7 +34,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -39,6 +42,14 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
@@ -55,10 +66,13 @@ import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.server.config.meta.PluginCfgDefn;
 import org.forgerock.opendj.server.config.meta.ReferentialIntegrityPluginCfgDefn.CheckReferencesScopeCriteria;
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
 import org.forgerock.opendj.server.config.server.PluginCfg;
 import org.forgerock.opendj.server.config.server.ReferentialIntegrityPluginCfg;
 import org.opends.server.api.LocalBackend;
 import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
 import org.opends.server.api.ServerShutdownListener;
 import org.opends.server.api.plugin.DirectoryServerPlugin;
 import org.opends.server.api.plugin.PluginResult;
@@ -67,11 +81,10 @@ import org.opends.server.core.BackendConfigManager;
 import org.opends.server.core.DeleteOperation;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.ModifyOperation;
-import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.SearchRequest;
 import org.opends.server.types.Attribute;
-import org.opends.server.types.Attributes;
+import org.opends.server.types.AttributeBuilder;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 import org.opends.server.types.IndexType;
@@ -140,6 +153,27 @@ public class ReferentialIntegrityPlugin
   /** The Thread class that the background thread corresponds to. */
   private Thread backGroundThread;
 
+  /** The name of the threads searching several base DNs concurrently. */
+  private static final String SEARCH_THREAD_NAME = "Referential Integrity Search";
+
+  /** The maximum number of threads searching several base DNs concurrently. */
+  private static final int MAX_SEARCH_THREADS = 4;
+
+  /** The maximum number of equality components in a reference search filter. */
+  private static final int MAX_FILTER_COMPONENTS = 256;
+
+  /** The maximum number of log file records processed at once by the background thread. */
+  private static final int MAX_BATCH_SIZE = 4096;
+
+  /** The executor searching several base DNs concurrently, created on first use. */
+  private ExecutorService searchExecutor;
+
+  /** The referential integrity processing statistics. */
+  private final Statistics statistics = new Statistics();
+
+  /** The monitor provider exposing the processing statistics. */
+  private ReferentialIntegrityMonitor monitor;
+
   /**
    * Used to save a map in the modifyDN operation attachment map that holds
    * the old entry DNs and the new entry DNs related to a modify DN rename to
@@ -179,6 +213,9 @@ public class ReferentialIntegrityPlugin
     setUpLogFile(pluginCfg.getLogFile());
     interval=pluginCfg.getUpdateInterval();
 
+    monitor = new ReferentialIntegrityMonitor(pluginCfg.dn());
+    DirectoryServer.registerMonitorProvider(monitor);
+
     //Set up background processing if interval > 0.
     if(interval > 0)
     {
@@ -527,31 +564,26 @@ public class ReferentialIntegrityPlugin
       }
       else
       {
-        for(DN baseDN : getBaseDNsToSearch())
-        {
-          doBaseDN(baseDN, modDNMap);
-        }
+        processReferences(modDNMap);
       }
     }
   }
 
   /**
-   * Used by both the background thread and the delete post operation to
-   * process a delete operation on the specified entry DN.  The
-   * boolean "log" is used to determine if the DN is written to the log file
-   * for the background thread to pick up. This value is set to false if the
-   * background thread is processing changes. If this method is being called
-   * by a delete post operation, then setting the "log" value to false will
-   * cause the DN to be processed in foreground
+   * Used by the delete post operation to process a delete operation on the
+   * specified entry DNs.  The boolean "log" is used to determine if the DNs
+   * are written to the log file for the background thread to pick up.
+   * Setting the "log" value to false will cause the DNs to be processed in
+   * foreground.
    * <p>
-   * If the DN is to be processed, than each base DN or public naming
+   * If the DNs are to be processed, than each base DN or public naming
    * context (if the base DN configuration is empty) is checked to see if
-   * entries under it contain references to the deleted entry DN that need
+   * entries under it contain references to the deleted entry DNs that need
    * to be removed.
    *
-   * @param entryDN  The DN of the deleted entry.
+   * @param deleteDNset  The DNs of the deleted entries.
    *
-   * @param log Set to <code>true</code> if the DN should be written to a log
+   * @param log Set to <code>true</code> if the DNs should be written to a log
    *            file so that the background thread can process the change at
    *            a later time.
    */
@@ -563,28 +595,12 @@ public class ReferentialIntegrityPlugin
     }
     else
     {
-      for(DN baseDN : getBaseDNsToSearch())
+      Map<DN, DN> deleteDNmap = new LinkedHashMap<>();
+      for (DN deletedEntryDN : deleteDNset)
       {
-        doBaseDN(baseDN, deleteDNset);
+        deleteDNmap.put(deletedEntryDN, null);
       }
-    }
-  }
-
-  /**
-   * Used by the background thread to process the specified old entry DN and
-   * new entry DN. Each base DN or public naming context (if the base DN
-   * configuration is empty) is checked to see  if they contain entries with
-   * references to the old entry DN that need to be changed to the new entry DN.
-   *
-   * @param oldEntryDN  The entry DN before the modify DN operation.
-   *
-   * @param newEntryDN The entry DN after the modify DN operation.
-   */
-  private void processModifyDN(DN oldEntryDN, DN newEntryDN)
-  {
-    for(DN baseDN : getBaseDNsToSearch())
-    {
-      searchBaseDN(baseDN, oldEntryDN, newEntryDN);
+      processReferences(deleteDNmap);
     }
   }
 
@@ -606,133 +622,321 @@ public class ReferentialIntegrityPlugin
   }
 
   /**
-   * Search a base DN using a filter built from the configured attribute
-   * types and the specified old entry DN. For each entry that is found from
-   * the search, delete the old entry DN from the entry. If the new entry
-   * DN is not null, then add it to the entry.
-   *
-   * @param baseDN  The DN to base the search at.
-   *
-   * @param oldEntryDN The old entry DN that needs to be deleted or replaced.
+   * Removes or replaces all the references to the specified DNs. Every base
+   * DN to search is searched for referencing entries, in parallel when there
+   * is more than one. The changes found for each referencing entry are then
+   * merged so that each of them is updated by a single modify operation,
+   * whatever the number of references it holds.
    *
-   * @param newEntryDN The new entry DN that needs to be added. May be null
-   *                   if the original operation was a delete.
+   * @param dnMap  The map of old entry DNs to new entry DNs. The new entry DN
+   *               is null if the entry was deleted.
    */
-  private void searchBaseDN(DN baseDN, DN oldEntryDN, DN newEntryDN)
+  private void processReferences(Map<DN, DN> dnMap)
   {
-    //Build an equality search with all of the configured attribute types
-    //and the old entry DN.
-    HashSet<SearchFilter> componentFilters=new HashSet<>();
-    for(AttributeType attributeType : attributeTypes)
+    if (dnMap.isEmpty())
     {
-      componentFilters.add(SearchFilter.createEqualityFilter(attributeType,
-          ByteString.valueOfUtf8(oldEntryDN.toString())));
+      return;
     }
+    final long startTime = System.nanoTime();
 
-    SearchFilter orFilter = SearchFilter.createORFilter(componentFilters);
-    final SearchRequest request = newSearchRequest(baseDN, SearchScope.WHOLE_SUBTREE, orFilter);
-    InternalSearchOperation operation = getRootConnection().processSearch(request);
+    final ConcurrentMap<DN, ReferenceUpdate> updates = new ConcurrentHashMap<>();
+    final Set<DN> baseDNsToSearch = getBaseDNsToSearch();
+    if (baseDNsToSearch.size() > 1)
+    {
+      searchBaseDNsInParallel(baseDNsToSearch, dnMap, updates);
+    }
+    else
+    {
+      for (DN baseDN : baseDNsToSearch)
+      {
+        searchBaseDN(baseDN, dnMap, updates);
+      }
+    }
 
-    switch (operation.getResultCode().asEnum())
+    for (ReferenceUpdate update : updates.values())
     {
-      case SUCCESS:
-        break;
+      update.apply();
+    }
 
-      case NO_SUCH_OBJECT:
-        logger.debug(INFO_PLUGIN_REFERENT_SEARCH_NO_SUCH_OBJECT, baseDN);
-        return;
+    statistics.batchProcessed(dnMap.size(), System.nanoTime() - startTime);
+  }
 
-      default:
-        logger.error(ERR_PLUGIN_REFERENT_SEARCH_FAILED, operation.getErrorMessage());
-        return;
+  /**
+   * Searches the specified base DNs concurrently using the search executor.
+   * This method returns once all the searches have completed.
+   *
+   * @param baseDNsToSearch The DNs to base the searches at.
+   *
+   * @param dnMap The map of old entry DNs to new entry DNs.
+   *
+   * @param updates The map where the changes to make to referencing entries
+   *                are collected.
+   */
+  private void searchBaseDNsInParallel(Set<DN> baseDNsToSearch, final Map<DN, DN> dnMap,
+      final ConcurrentMap<DN, ReferenceUpdate> updates)
+  {
+    final List<Future<?>> futures = new ArrayList<>(baseDNsToSearch.size());
+    final ExecutorService executor = getSearchExecutor();
+    for (final DN baseDN : baseDNsToSearch)
+    {
+      futures.add(executor.submit(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          searchBaseDN(baseDN, dnMap, updates);
+        }
+      }));
     }
 
-    for (SearchResultEntry entry : operation.getSearchEntries())
+    for (Future<?> future : futures)
     {
-      deleteAddAttributesEntry(entry, oldEntryDN, newEntryDN);
+      try
+      {
+        future.get();
+      }
+      catch (InterruptedException e)
+      {
+        logger.traceException(e);
+        Thread.currentThread().interrupt();
+        return;
+      }
+      catch (ExecutionException e)
+      {
+        logger.traceException(e);
+        logger.error(ERR_PLUGIN_REFERENT_SEARCH_FAILED, stackTraceToSingleLineString(e.getCause()));
+      }
     }
   }
 
   /**
-   * This method is used in foreground processing of a modify DN operation.
-   * It uses the specified map to perform base DN searching for each map
-   * entry. The key is the old entry DN and the value is the
-   * new entry DN.
-   *
-   * @param baseDN The DN to base the search at.
+   * Returns the executor used to search several base DNs concurrently,
+   * creating it if needed.
    *
-   * @param modifyDNmap The map containing the modify DN old and new entry DNs.
+   * @return The executor used to search several base DNs concurrently.
    */
-  private void doBaseDN(DN baseDN, Map<DN,DN> modifyDNmap)
+  private synchronized ExecutorService getSearchExecutor()
   {
-    for(Map.Entry<DN,DN> mapEntry: modifyDNmap.entrySet())
+    if (searchExecutor == null)
     {
-      searchBaseDN(baseDN, mapEntry.getKey(), mapEntry.getValue());
+      final int nbThreads = Math.min(MAX_SEARCH_THREADS, Runtime.getRuntime().availableProcessors());
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor(nbThreads, nbThreads, 60, SECONDS,
+          new LinkedBlockingQueue<Runnable>(), new DirectoryThread.Factory(SEARCH_THREAD_NAME));
+      executor.allowCoreThreadTimeOut(true);
+      searchExecutor = executor;
     }
+    return searchExecutor;
   }
 
   /**
-   * This method is used in foreground processing of a delete operation.
-   * It uses the specified set to perform base DN searching for each
-   * element.
+   * Search a base DN for the entries referencing any of the old entry DNs in
+   * the specified map. The old entry DNs are grouped into OR filters made of
+   * at most {@link #MAX_FILTER_COMPONENTS} equality components, one per
+   * configured attribute type and old entry DN. For each entry that is found,
+   * the references to delete and to add are merged into the update collected
+   * for this entry.
+   *
+   * @param baseDN  The DN to base the search at.
    *
-   * @param baseDN The DN to base the search at.
+   * @param dnMap The map of old entry DNs to new entry DNs. The new entry DN
+   *              is null if the original operation was a delete.
    *
-   * @param deleteDNset The set containing the delete DNs.
+   * @param updates The map where the changes to make to referencing entries
+   *                are collected.
    */
-  private void doBaseDN(DN baseDN, Set<DN> deleteDNset)
+  private void searchBaseDN(DN baseDN, Map<DN, DN> dnMap, ConcurrentMap<DN, ReferenceUpdate> updates)
   {
-    for(DN deletedEntryDN : deleteDNset)
+    final Set<AttributeType> types = attributeTypes;
+    final int dnsPerSearch = Math.max(1, MAX_FILTER_COMPONENTS / Math.max(1, types.size()));
+
+    final Map<ByteString, DN> batch = new LinkedHashMap<>();
+    for (Map.Entry<DN, DN> mapEntry : dnMap.entrySet())
+    {
+      batch.put(ByteString.valueOfUtf8(mapEntry.getKey().toString()), mapEntry.getValue());
+      if (batch.size() == dnsPerSearch)
+      {
+        if (!searchBaseDN(baseDN, types, batch, updates))
+        {
+          return;
+        }
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty())
     {
-      searchBaseDN(baseDN, deletedEntryDN, null);
+      searchBaseDN(baseDN, types, batch, updates);
     }
   }
 
   /**
-   * For each attribute type, delete the specified old entry DN and
-   * optionally add the specified new entry DN if the DN is not null.
-   * The specified entry is used to see if it contains each attribute type so
-   * those types that the entry contains can be modified. An internal modify
-   * is performed to change the entry.
+   * Search a base DN using a filter built from the specified attribute types
+   * and old entry DNs, and collect the changes to make to the returned
+   * entries.
+   *
+   * @param baseDN  The DN to base the search at.
+   *
+   * @param types The attribute types holding references.
    *
-   * @param e The entry that contains the old references.
+   * @param batch The map of old entry DN values to new entry DNs.
    *
-   * @param oldEntryDN The old entry DN to remove references to.
+   * @param updates The map where the changes to make to referencing entries
+   *                are collected.
    *
-   * @param newEntryDN The new entry DN to add a reference to, if it is not
-   *                   null.
+   * @return <code>true</code> if the remaining DNs should be searched for
+   *         under this base DN.
    */
-  private void deleteAddAttributesEntry(Entry e, DN oldEntryDN, DN newEntryDN)
+  private boolean searchBaseDN(DN baseDN, Set<AttributeType> types, Map<ByteString, DN> batch,
+      ConcurrentMap<DN, ReferenceUpdate> updates)
   {
-    LinkedList<Modification> mods = new LinkedList<>();
-    DN entryDN=e.getName();
-    for(AttributeType type : attributeTypes)
+    //Build an equality search with all of the configured attribute types
+    //and the old entry DNs.
+    List<SearchFilter> componentFilters = new ArrayList<>(types.size() * batch.size());
+    for (AttributeType attributeType : types)
     {
-      if(e.hasAttribute(type))
+      for (ByteString oldValue : batch.keySet())
       {
-        ByteString value = ByteString.valueOfUtf8(oldEntryDN.toString());
-        if (e.hasValue(type, value))
-        {
-          mods.add(new Modification(ModificationType.DELETE, Attributes
-              .create(type, value)));
+        componentFilters.add(SearchFilter.createEqualityFilter(attributeType, oldValue));
+      }
+    }
+
+    SearchFilter orFilter = SearchFilter.createORFilter(componentFilters);
+    final SearchRequest request = newSearchRequest(baseDN, SearchScope.WHOLE_SUBTREE, orFilter);
+    InternalSearchOperation operation = getRootConnection().processSearch(request);
+    statistics.searches.incrementAndGet();
+
+    switch (operation.getResultCode().asEnum())
+    {
+      case SUCCESS:
+        break;
+
+      case NO_SUCH_OBJECT:
+        logger.debug(INFO_PLUGIN_REFERENT_SEARCH_NO_SUCH_OBJECT, baseDN);
+        return false;
 
-          // If the new entry DN exists, create an ADD modification for it.
-          if(newEntryDN != null)
+      default:
+        logger.error(ERR_PLUGIN_REFERENT_SEARCH_FAILED, operation.getErrorMessage());
+        return false;
+    }
+
+    for (SearchResultEntry entry : operation.getSearchEntries())
+    {
+      ReferenceUpdate update = new ReferenceUpdate(entry.getName());
+      ReferenceUpdate existingUpdate = updates.putIfAbsent(entry.getName(), update);
+      if (existingUpdate != null)
+      {
+        update = existingUpdate;
+      }
+      update.addReferences(entry, types, batch);
+    }
+    return true;
+  }
+
+  /**
+   * The changes to make to an entry referencing deleted or renamed entries.
+   * The references are collected from all the searches returning the entry
+   * and then removed or replaced with a single modify operation.
+   */
+  private final class ReferenceUpdate
+  {
+    /** The DN of the referencing entry. */
+    private final DN entryDN;
+    /** The values to delete, per attribute type. */
+    private final Map<AttributeType, Set<ByteString>> valuesToDelete = new LinkedHashMap<>();
+    /** The values to add, per attribute type. */
+    private final Map<AttributeType, Set<ByteString>> valuesToAdd = new LinkedHashMap<>();
+
+    private ReferenceUpdate(DN entryDN)
+    {
+      this.entryDN = entryDN;
+    }
+
+    /**
+     * Collects the references held by the specified entry to the old entry
+     * DNs of a search batch.
+     *
+     * @param e The entry that contains the old references.
+     *
+     * @param types The attribute types holding references.
+     *
+     * @param batch The map of old entry DN values to new entry DNs.
+     */
+    private synchronized void addReferences(Entry e, Set<AttributeType> types, Map<ByteString, DN> batch)
+    {
+      for (AttributeType type : types)
+      {
+        if (!e.hasAttribute(type))
+        {
+          continue;
+        }
+        for (Map.Entry<ByteString, DN> mapEntry : batch.entrySet())
+        {
+          if (e.hasValue(type, mapEntry.getKey()))
           {
-            mods.add(new Modification(ModificationType.ADD, Attributes
-                .create(type, newEntryDN.toString())));
+            getValues(valuesToDelete, type).add(mapEntry.getKey());
+
+            // If the new entry DN exists, add a reference to it.
+            DN newEntryDN = mapEntry.getValue();
+            if (newEntryDN != null)
+            {
+              ByteString newValue = ByteString.valueOfUtf8(newEntryDN.toString());
+              if (!e.hasValue(type, newValue))
+              {
+                getValues(valuesToAdd, type).add(newValue);
+              }
+            }
           }
         }
       }
     }
 
-    InternalClientConnection conn =
-            InternalClientConnection.getRootConnection();
-    ModifyOperation modifyOperation =
-            conn.processModify(entryDN, mods);
-    if(modifyOperation.getResultCode() != ResultCode.SUCCESS)
+    private Set<ByteString> getValues(Map<AttributeType, Set<ByteString>> valuesMap, AttributeType type)
     {
-      logger.error(ERR_PLUGIN_REFERENT_MODIFY_FAILED, entryDN, modifyOperation.getErrorMessage());
+      Set<ByteString> values = valuesMap.get(type);
+      if (values == null)
+      {
+        values = new LinkedHashSet<>();
+        valuesMap.put(type, values);
+      }
+      return values;
+    }
+
+    /**
+     * Removes the old references from the entry and adds the new ones with a
+     * single internal modify operation.
+     */
+    private synchronized void apply()
+    {
+      List<Modification> mods = new ArrayList<>(valuesToDelete.size() + valuesToAdd.size());
+      for (Map.Entry<AttributeType, Set<ByteString>> mapEntry : valuesToDelete.entrySet())
+      {
+        mods.add(new Modification(ModificationType.DELETE, newAttribute(mapEntry.getKey(), mapEntry.getValue())));
+      }
+      for (Map.Entry<AttributeType, Set<ByteString>> mapEntry : valuesToAdd.entrySet())
+      {
+        mods.add(new Modification(ModificationType.ADD, newAttribute(mapEntry.getKey(), mapEntry.getValue())));
+      }
+      if (mods.isEmpty())
+      {
+        return;
+      }
+
+      ModifyOperation modifyOperation = getRootConnection().processModify(entryDN, mods);
+      if (modifyOperation.getResultCode() == ResultCode.SUCCESS)
+      {
+        statistics.modifiedEntries.incrementAndGet();
+      }
+      else
+      {
+        statistics.failedModifications.incrementAndGet();
+        logger.error(ERR_PLUGIN_REFERENT_MODIFY_FAILED, entryDN, modifyOperation.getErrorMessage());
+      }
+    }
+
+    private Attribute newAttribute(AttributeType type, Set<ByteString> values)
+    {
+      AttributeBuilder builder = new AttributeBuilder(type);
+      builder.addAll(values);
+      return builder.toAttribute();
     }
   }
 
@@ -758,6 +962,7 @@ public class ReferentialIntegrityPlugin
       {
         logFile.createNewFile();
       }
+      statistics.backlog.set(countLogRecords());
     }
     catch (IOException io)
     {
@@ -794,6 +999,7 @@ public class ReferentialIntegrityPlugin
           writer.write(mapEntry.getKey() + "\t" + mapEntry.getValue());
           writer.newLine();
         }
+        statistics.backlog.addAndGet(modDNmap.size());
       }
       catch (IOException io)
       {
@@ -818,6 +1024,7 @@ public class ReferentialIntegrityPlugin
           writer.write(deletedEntryDN.toString());
           writer.newLine();
         }
+        statistics.backlog.addAndGet(deleteDNset.size());
       }
       catch (IOException io)
       {
@@ -829,11 +1036,11 @@ public class ReferentialIntegrityPlugin
   /**
    * Process all of the records in the log file. Each line of the file is read
    * and parsed to determine if it was a delete operation (a single normalized
-   * DN) or a modify DN operation (two normalized DNs separated by a tab). The
-   * corresponding operation method is called to perform the referential
-   * integrity processing as though the operation was just processed. After
-   * all of the records in log file have been processed, the log file is
-   * cleared so that new records can be added.
+   * DN) or a modify DN operation (two normalized DNs separated by a tab).
+   * Consecutive records are processed in batches of at most
+   * {@link #MAX_BATCH_SIZE} DNs, as though the corresponding operations were
+   * just processed. After all of the records in log file have been processed,
+   * the log file is cleared so that new records can be added.
    */
   private void processLog() {
     synchronized(logFile) {
@@ -845,17 +1052,31 @@ public class ReferentialIntegrityPlugin
 
         try (BufferedReader reader = new BufferedReader(new FileReader(logFile)))
         {
+          Map<DN, DN> batch = new LinkedHashMap<>();
+          Set<DN> batchNewDNs = new HashSet<>();
           String line;
           while((line=reader.readLine()) != null) {
             try {
               String[] a=line.split("[\t]");
               DN origDn = DN.valueOf(a[0]);
               //If there is only a single DN string than it must be a delete.
-              if(a.length == 1) {
-                processDelete(Collections.singleton(origDn), false);
-              } else {
-                DN movedDN=DN.valueOf(a[1]);
-                processModifyDN(origDn, movedDN);
+              DN movedDN = a.length == 1 ? null : DN.valueOf(a[1]);
+
+              // A DN already part of the batch must be processed after the
+              // pending records, e.g. an entry renamed twice.
+              if (batch.containsKey(origDn) || batchNewDNs.contains(origDn)
+                  || (movedDN != null && (batch.containsKey(movedDN) || batchNewDNs.contains(movedDN))))
+              {
+                processLogBatch(batch, batchNewDNs);
+              }
+              batch.put(origDn, movedDN);
+              if (movedDN != null)
+              {
+                batchNewDNs.add(movedDN);
+              }
+              if (batch.size() >= MAX_BATCH_SIZE)
+              {
+                processLogBatch(batch, batchNewDNs);
               }
             } catch (LocalizedIllegalArgumentException e) {
               //This exception should rarely happen since the plugin wrote the DN
@@ -863,15 +1084,57 @@ public class ReferentialIntegrityPlugin
               logger.error(ERR_PLUGIN_REFERENT_CANNOT_DECODE_STRING_AS_DN, e.getMessage());
             }
           }
+          processLogBatch(batch, batchNewDNs);
         }
         logFile.delete();
         logFile.createNewFile();
+        statistics.backlog.set(0);
       } catch (IOException io) {
         logger.error(ERR_PLUGIN_REFERENT_REPLACE_LOGFILE, io.getMessage());
       }
     }
   }
 
+  /**
+   * Processes a batch of records read from the log file, then clears it.
+   *
+   * @param batch The map of old entry DNs to new entry DNs read from the log file.
+   *
+   * @param batchNewDNs The new entry DNs of the batch.
+   */
+  private void processLogBatch(Map<DN, DN> batch, Set<DN> batchNewDNs)
+  {
+    processReferences(batch);
+    statistics.backlog.addAndGet(-batch.size());
+    batch.clear();
+    batchNewDNs.clear();
+  }
+
+  /**
+   * Returns the number of records in the log file.
+   *
+   * @return The number of records in the log file.
+   */
+  private long countLogRecords()
+  {
+    synchronized (logFile)
+    {
+      long count = 0;
+      try (BufferedReader reader = new BufferedReader(new FileReader(logFile)))
+      {
+        while (reader.readLine() != null)
+        {
+          count++;
+        }
+      }
+      catch (IOException io)
+      {
+        logger.traceException(io);
+      }
+      return count;
+    }
+  }
+
   /**
    * Return the listener name.
    *
@@ -889,6 +1152,19 @@ public class ReferentialIntegrityPlugin
     {
       processServerShutdown(null);
     }
+    if (monitor != null)
+    {
+      DirectoryServer.deregisterMonitorProvider(monitor);
+      monitor = null;
+    }
+    synchronized (this)
+    {
+      if (searchExecutor != null)
+      {
+        searchExecutor.shutdown();
+        searchExecutor = null;
+      }
+    }
   }
 
   /**
@@ -1167,4 +1443,73 @@ public class ReferentialIntegrityPlugin
 
     return namingContext;
   }
+
+  /** The statistics about the referential integrity processing. */
+  private static final class Statistics
+  {
+    /** The number of DNs written to the log file and not yet processed. */
+    private final AtomicLong backlog = new AtomicLong();
+    /** The number of deleted or renamed DNs processed. */
+    private final AtomicLong processedDNs = new AtomicLong();
+    /** The number of batches processed. */
+    private final AtomicLong batches = new AtomicLong();
+    /** The number of reference searches performed. */
+    private final AtomicLong searches = new AtomicLong();
+    /** The number of referencing entries successfully modified. */
+    private final AtomicLong modifiedEntries = new AtomicLong();
+    /** The number of modifications of referencing entries which failed. */
+    private final AtomicLong failedModifications = new AtomicLong();
+    /** The time spent processing batches, in nanoseconds. */
+    private final AtomicLong processingTimeNanos = new AtomicLong();
+    /** The number of DNs in the last processed batch. */
+    private volatile long lastBatchSize;
+    /** The time spent processing the last batch, in nanoseconds. */
+    private volatile long lastBatchTimeNanos;
+
+    private void batchProcessed(int nbDNs, long durationNanos)
+    {
+      processedDNs.addAndGet(nbDNs);
+      batches.incrementAndGet();
+      processingTimeNanos.addAndGet(durationNanos);
+      lastBatchSize = nbDNs;
+      lastBatchTimeNanos = durationNanos;
+    }
+  }
+
+  /** The monitor provider exposing the referential integrity processing statistics. */
+  private final class ReferentialIntegrityMonitor extends MonitorProvider<MonitorProviderCfg>
+  {
+    private final String instanceName;
+
+    private ReferentialIntegrityMonitor(DN configDN)
+    {
+      this.instanceName = configDN.rdn().getFirstAVA().getAttributeValue() + " Plugin";
+    }
+
+    @Override
+    public String getMonitorInstanceName()
+    {
+      return instanceName;
+    }
+
+    @Override
+    public MonitorData getMonitorData()
+    {
+      final long processed = statistics.processedDNs.get();
+      final long processingTimeNanos = statistics.processingTimeNanos.get();
+
+      final MonitorData attrs = new MonitorData(10);
+      attrs.add("backlog", statistics.backlog.get());
+      attrs.add("processedDNs", processed);
+      attrs.add("processedBatches", statistics.batches.get());
+      attrs.add("referenceSearches", statistics.searches.get());
+      attrs.add("modifiedEntries", statistics.modifiedEntries.get());
+      attrs.add("failedModifications", statistics.failedModifications.get());
+      attrs.add("processingTimeMillis", NANOSECONDS.toMillis(processingTimeNanos));
+      attrs.add("processedDNsPerSecond", processingTimeNanos > 0 ? processed * 1000000000L / processingTimeNanos : 0);
+      attrs.add("lastBatchSize", statistics.lastBatchSize);
+      attrs.add("lastBatchTimeMillis", NANOSECONDS.toMillis(statistics.lastBatchTimeNanos));
+      return attrs;
+    }
+  }
 }
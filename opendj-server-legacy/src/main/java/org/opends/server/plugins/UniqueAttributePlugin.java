@@ -13,17 +13,19 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.plugins;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -31,10 +33,13 @@ import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.AVA;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DecodeException;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.MatchingRule;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.server.config.meta.PluginCfgDefn;
 import org.forgerock.opendj.server.config.server.PluginCfg;
@@ -48,7 +53,6 @@ import org.opends.server.api.plugin.PluginResult.PreOperation;
 import org.opends.server.api.plugin.PluginType;
 import org.opends.server.core.BackendConfigManager;
 import org.opends.server.core.DirectoryServer;
-import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.SearchRequest;
 import org.opends.server.schema.SchemaConstants;
@@ -120,6 +124,9 @@ public class UniqueAttributePlugin
    */
   private ConcurrentHashMap<ByteString,DN> uniqueAttrValue2Dn;
 
+  /** The values recently found to be absent below the base DNs. */
+  private final AbsentValueCache absentValues = new AbsentValueCache();
+
 
 
   @Override
@@ -201,24 +208,16 @@ public class UniqueAttributePlugin
       return PluginResult.PreOperation.continueOperationProcessing();
     }
 
-    DN entryDN = entry.getName();
-    List<ByteString> recordedValues = new LinkedList<>();
+    Map<ByteString, AttributeType> values = new LinkedHashMap<>();
     for (AttributeType t : config.getType())
     {
       for (Attribute a : entry.getAllAttributes(t))
       {
-        for (ByteString v : a)
-        {
-          PreOperation stop = checkUniqueness(entryDN, t, v, baseDNs, recordedValues, config);
-          if (stop != null)
-          {
-            return stop;
-          }
-        }
+        addValues(values, t, a);
       }
     }
 
-    return PluginResult.PreOperation.continueOperationProcessing();
+    return checkUniqueness(entry.getName(), values, baseDNs, config);
   }
 
 
@@ -237,7 +236,7 @@ public class UniqueAttributePlugin
       return PluginResult.PreOperation.continueOperationProcessing();
     }
 
-    List<ByteString> recordedValues = new LinkedList<>();
+    Map<ByteString, AttributeType> values = new LinkedHashMap<>();
     for (Modification m : modifyOperation.getModifications())
     {
       Attribute a = m.getAttribute();
@@ -251,15 +250,7 @@ public class UniqueAttributePlugin
       {
         case ADD:
         case REPLACE:
-          for (ByteString v : a)
-          {
-            PreOperation stop =
-              checkUniqueness(entryDN, t, v, baseDNs, recordedValues, config);
-            if (stop != null)
-            {
-              return stop;
-            }
-          }
+          addValues(values, t, a);
           break;
 
         case INCREMENT:
@@ -267,14 +258,7 @@ public class UniqueAttributePlugin
           Attribute updatedAttr = modifyOperation.getModifiedEntry().getAttribute(a.getAttributeDescription());
           if (updatedAttr != null)
           {
-            for (ByteString v : updatedAttr)
-            {
-              PreOperation stop = checkUniqueness(entryDN, t, v, baseDNs, recordedValues, config);
-              if (stop != null)
-              {
-                return stop;
-              }
-            }
+            addValues(values, t, updatedAttr);
           }
           break;
 
@@ -285,41 +269,100 @@ public class UniqueAttributePlugin
       }
     }
 
-    return PluginResult.PreOperation.continueOperationProcessing();
+    return checkUniqueness(entryDN, values, baseDNs, config);
+  }
+
+  private void addValues(Map<ByteString, AttributeType> values, AttributeType t, Attribute a)
+  {
+    for (ByteString v : a)
+    {
+      if (!values.containsKey(v))
+      {
+        values.put(v, t);
+      }
+    }
   }
 
 
 
-  private PreOperation checkUniqueness(DN entryDN, AttributeType t,
-      ByteString v, Set<DN> baseDNs, List<ByteString> recordedValues,
-      UniqueAttributePluginCfg config)
+  /**
+   * Checks that none of the provided values is used by another entry below
+   * the base DNs. The values are first recorded as in-flight values, so that
+   * conflicting concurrent operations are rejected. The values which are not
+   * known to be absent are then checked all at once.
+   *
+   * @param  entryDN  The DN of the entry targeted by the operation.
+   * @param  values   The values to check, with the attribute type holding them.
+   * @param  baseDNs  The set of base DNs below which the values must be unique.
+   * @param  config   The plugin configuration.
+   *
+   * @return  The result stopping the operation if a conflict was found or if
+   *          the check failed, or the result continuing the operation
+   *          otherwise.
+   */
+  private PreOperation checkUniqueness(DN entryDN, Map<ByteString, AttributeType> values,
+      Set<DN> baseDNs, UniqueAttributePluginCfg config)
   {
+    if (values.isEmpty())
+    {
+      return PluginResult.PreOperation.continueOperationProcessing();
+    }
+
+    List<ByteString> recordedValues = new ArrayList<>(values.size());
     try
     {
       //Raise an exception if a conflicting concurrent operation is
-      //in progress. Otherwise, store this attribute value with its
+      //in progress. Otherwise, store the attribute values with their
       //corresponding DN and proceed.
-      DN conflictDN = uniqueAttrValue2Dn.putIfAbsent(v, entryDN);
-      if (conflictDN == null)
+      List<ByteString> valuesToCheck = new ArrayList<>(values.size());
+      for (Map.Entry<ByteString, AttributeType> value : values.entrySet())
       {
+        ByteString v = value.getKey();
+        DN conflictDN = uniqueAttrValue2Dn.putIfAbsent(v, entryDN);
+        if (conflictDN != null)
+        {
+          return notUnique(value.getValue(), v, conflictDN, recordedValues);
+        }
         recordedValues.add(v);
-        conflictDN = getConflictingEntryDN(baseDNs, entryDN,
-                                            config, v);
+        if (!absentValues.isAbsent(config.getType(), v))
+        {
+          valuesToCheck.add(v);
+        }
       }
-      if (conflictDN != null)
+
+      if (valuesToCheck.isEmpty())
+      {
+        return PluginResult.PreOperation.continueOperationProcessing();
+      }
+
+      List<DN> matchingDNs = getMatchingEntryDNs(baseDNs, entryDN, config, valuesToCheck);
+      if (matchingDNs.isEmpty())
+      {
+        absentValues.putAbsent(config.getType(), valuesToCheck);
+        return PluginResult.PreOperation.continueOperationProcessing();
+      }
+      DN conflictDN = getConflictingEntryDN(matchingDNs, entryDN);
+      if (conflictDN == null)
+      {
+        return PluginResult.PreOperation.continueOperationProcessing();
+      }
+
+      // Find out which value is conflicting, one value at a time.
+      ByteString conflictValue = valuesToCheck.get(0);
+      if (valuesToCheck.size() > 1)
       {
-        // Before returning, we need to remove all values added
-        // in the uniqueAttrValue2Dn map, because PostOperation
-        // plugin does not get called.
-        for (ByteString v2 : recordedValues)
+        for (ByteString v : valuesToCheck)
         {
-          uniqueAttrValue2Dn.remove(v2);
+          DN valueConflictDN = getConflictingEntryDN(baseDNs, entryDN, config, v);
+          if (valueConflictDN != null)
+          {
+            conflictValue = v;
+            conflictDN = valueConflictDN;
+            break;
+          }
         }
-        LocalizableMessage msg = ERR_PLUGIN_UNIQUEATTR_ATTR_NOT_UNIQUE.get(
-            t.getNameOrOID(), v, conflictDN);
-        return PluginResult.PreOperation.stopProcessing(
-            ResultCode.CONSTRAINT_VIOLATION, msg);
       }
+      return notUnique(values.get(conflictValue), conflictValue, conflictDN, recordedValues);
     }
     catch (DirectoryException de)
     {
@@ -329,15 +372,31 @@ public class UniqueAttributePlugin
           de.getResultCode(), de.getMessageObject());
 
       // Try some cleanup before returning, to avoid memory leaks
-      for (ByteString v2 : recordedValues)
-      {
-        uniqueAttrValue2Dn.remove(v2);
-      }
+      removeRecordedValues(recordedValues);
 
       return PluginResult.PreOperation.stopProcessing(
           DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), message);
     }
-    return null;
+  }
+
+  private PreOperation notUnique(AttributeType t, ByteString v, DN conflictDN, List<ByteString> recordedValues)
+  {
+    // Before returning, we need to remove all values added
+    // in the uniqueAttrValue2Dn map, because PostOperation
+    // plugin does not get called.
+    removeRecordedValues(recordedValues);
+    LocalizableMessage msg = ERR_PLUGIN_UNIQUEATTR_ATTR_NOT_UNIQUE.get(
+        t.getNameOrOID(), v, conflictDN);
+    return PluginResult.PreOperation.stopProcessing(
+        ResultCode.CONSTRAINT_VIOLATION, msg);
+  }
+
+  private void removeRecordedValues(List<ByteString> recordedValues)
+  {
+    for (ByteString v : recordedValues)
+    {
+      uniqueAttrValue2Dn.remove(v);
+    }
   }
 
   @Override
@@ -354,26 +413,17 @@ public class UniqueAttributePlugin
       return PluginResult.PreOperation.continueOperationProcessing();
     }
 
-    List<ByteString> recordedValues = new LinkedList<>();
+    Map<ByteString, AttributeType> values = new LinkedHashMap<>();
     for (AVA ava : modifyDNOperation.getNewRDN())
     {
       AttributeType t = ava.getAttributeType();
-      if (!isModifyingUniqueAttribute(t, config))
-      {
-        continue;
-      }
-
-      ByteString v = ava.getAttributeValue();
-      DN entryDN = modifyDNOperation.getEntryDN();
-      PreOperation stop =
-          checkUniqueness(entryDN, t, v, baseDNs, recordedValues, config);
-      if (stop != null)
+      if (isModifyingUniqueAttribute(t, config) && !values.containsKey(ava.getAttributeValue()))
       {
-        return stop;
+        values.put(ava.getAttributeValue(), t);
       }
     }
 
-    return PluginResult.PreOperation.continueOperationProcessing();
+    return checkUniqueness(modifyDNOperation.getEntryDN(), values, baseDNs, config);
   }
 
   private boolean isModifyingUniqueAttribute(AttributeType t, UniqueAttributePluginCfg config)
@@ -500,6 +550,8 @@ public class UniqueAttributePlugin
       DN entryDN, DN updatedEntryDN, AttributeType t, ByteString v,
       Set<DN> baseDNs, UniqueAttributePluginCfg config)
   {
+    // The value has been written by the replicated operation.
+    absentValues.remove(t, v);
     try
     {
       DN conflictDN = uniqueAttrValue2Dn.get(v);
@@ -593,56 +645,153 @@ public class UniqueAttributePlugin
                                    ByteString value)
           throws DirectoryException
   {
-    SearchFilter filter;
+    return getConflictingEntryDN(getMatchingEntryDNs(baseDNs, targetDN, config,
+        Collections.singletonList(value)), targetDN);
+  }
+
+
+
+  private static DN getConflictingEntryDN(List<DN> matchingDNs, DN targetDN)
+  {
+    for (DN dn : matchingDNs)
+    {
+      if (! dn.equals(targetDN))
+      {
+        return dn;
+      }
+    }
+    return null;
+  }
+
+
+
+  /**
+   * Retrieves the DNs of the entries containing any of the provided values
+   * for any of the unique attribute types.  Whenever possible, the equality
+   * indexes of the backend holding a base DN are probed directly, which is
+   * much cheaper than an internal search.  The returned list is not
+   * exhaustive: the base DNs are no longer searched once an entry other than
+   * the target entry has been found.
+   *
+   * @param  baseDNs   The set of base DNs below which the search is to be
+   *                   performed.
+   * @param  targetDN  The DN of the entry at which the change is targeted.
+   * @param  config    The plugin configuration to use when making the
+   *                   determination.
+   * @param  values    The values for which to identify any matching entries.
+   *
+   * @return  The DNs of entries containing any of the provided values, which
+   *          is empty if no entry contains them.
+   *
+   * @throws  DirectoryException  If a problem occurred while attempting to
+   *                              make the determination.
+   */
+  private List<DN> getMatchingEntryDNs(Set<DN> baseDNs, DN targetDN,
+                                       UniqueAttributePluginCfg config,
+                                       List<ByteString> values)
+          throws DirectoryException
+  {
     Set<AttributeType> attrTypes = config.getType();
-    if (attrTypes.size() == 1)
+    List<DN> matchingDNs = new ArrayList<>(2);
+    for (DN baseDN : baseDNs)
     {
-      filter = SearchFilter.createEqualityFilter(attrTypes.iterator().next(),
-                                                 value);
+      List<DN> dns = findEntriesByEqualityIndex(baseDN, attrTypes, values);
+      if (dns == null)
+      {
+        dns = searchEntries(baseDN, attrTypes, values);
+      }
+      matchingDNs.addAll(dns);
+      if (getConflictingEntryDN(matchingDNs, targetDN) != null)
+      {
+        break;
+      }
     }
-    else
+    return matchingDNs;
+  }
+
+
+
+  /**
+   * Probes the equality indexes of the local backend holding the provided
+   * base DN for at most two entries containing any of the values.  Returns
+   * {@code null} if the indexes cannot be probed directly, for instance
+   * because the base DN has subordinate backends.
+   */
+  private List<DN> findEntriesByEqualityIndex(DN baseDN, Set<AttributeType> attrTypes, List<ByteString> values)
+      throws DirectoryException
+  {
+    BackendConfigManager backendConfigManager =
+        DirectoryServer.getInstance().getServerContext().getBackendConfigManager();
+    LocalBackend<?> backend = backendConfigManager.findLocalBackendForEntry(baseDN);
+    if (backend == null || !backendConfigManager.getSubordinateBackends(backend).isEmpty())
     {
-      List<SearchFilter> equalityFilters = new ArrayList<>(attrTypes.size());
-      for (AttributeType t : attrTypes)
+      return null;
+    }
+    try
+    {
+      return backend.findEntriesByEqualityIndex(baseDN, attrTypes, values, 2);
+    }
+    catch (DirectoryException de)
+    {
+      if (de.getResultCode() == ResultCode.UNDEFINED)
       {
-        equalityFilters.add(SearchFilter.createEqualityFilter(t, value));
+        // The base DN does not belong to any entry container of this backend.
+        return null;
       }
-      filter = SearchFilter.createORFilter(equalityFilters);
+      throw de;
     }
+  }
 
-    InternalClientConnection conn = getRootConnection();
-    for (DN baseDN : baseDNs)
+
+
+  /** Searches the provided base DN for at most two entries containing any of the values. */
+  private List<DN> searchEntries(DN baseDN, Set<AttributeType> attrTypes, List<ByteString> values)
+      throws DirectoryException
+  {
+    SearchFilter filter;
+    if (attrTypes.size() == 1 && values.size() == 1)
+    {
+      filter = SearchFilter.createEqualityFilter(attrTypes.iterator().next(),
+                                                 values.get(0));
+    }
+    else
     {
-      final SearchRequest request = newSearchRequest(baseDN, SearchScope.WHOLE_SUBTREE, filter)
-          .setSizeLimit(2)
-          .addAttribute(SEARCH_ATTRS);
-      InternalSearchOperation searchOperation = conn.processSearch(request);
-      for (SearchResultEntry e : searchOperation.getSearchEntries())
+      List<SearchFilter> equalityFilters = new ArrayList<>(attrTypes.size() * values.size());
+      for (AttributeType t : attrTypes)
       {
-        if (! e.getName().equals(targetDN))
+        for (ByteString value : values)
         {
-          return e.getName();
+          equalityFilters.add(SearchFilter.createEqualityFilter(t, value));
         }
       }
+      filter = SearchFilter.createORFilter(equalityFilters);
+    }
 
-      switch (searchOperation.getResultCode().asEnum())
-      {
-        case SUCCESS:
-        case NO_SUCH_OBJECT:
-          // These are fine.  Either the search was successful or the base DN
-          // didn't exist.
-          break;
-
-        default:
-          // An error occurred that prevented the search from completing
-          // successfully.
-          throw new DirectoryException(searchOperation.getResultCode(),
-                         searchOperation.getErrorMessage().toMessage());
-      }
+    final SearchRequest request = newSearchRequest(baseDN, SearchScope.WHOLE_SUBTREE, filter)
+        .setSizeLimit(2)
+        .addAttribute(SEARCH_ATTRS);
+    InternalSearchOperation searchOperation = getRootConnection().processSearch(request);
+    List<DN> dns = new ArrayList<>(2);
+    for (SearchResultEntry e : searchOperation.getSearchEntries())
+    {
+      dns.add(e.getName());
     }
 
-    // If we've gotten here, then no conflict was found.
-    return null;
+    switch (searchOperation.getResultCode().asEnum())
+    {
+      case SUCCESS:
+      case NO_SUCH_OBJECT:
+      case SIZE_LIMIT_EXCEEDED:
+        // These are fine.  Either the search was successful, the base DN
+        // didn't exist or there were more matching entries than needed.
+        return dns;
+
+      default:
+        // An error occurred that prevented the search from completing
+        // successfully.
+        throw new DirectoryException(searchOperation.getResultCode(),
+                       searchOperation.getErrorMessage().toMessage());
+    }
   }
 
 
@@ -718,6 +867,7 @@ public class UniqueAttributePlugin
                                  UniqueAttributePluginCfg newConfiguration)
   {
     currentConfiguration = newConfiguration;
+    absentValues.clear();
     return new ConfigChangeResult();
   }
 
@@ -775,7 +925,7 @@ public class UniqueAttributePlugin
       {
         for (ByteString v : a)
         {
-          uniqueAttrValue2Dn.remove(v);
+          releaseValue(t, v);
         }
       }
     }
@@ -815,7 +965,7 @@ public class UniqueAttributePlugin
         case REPLACE:
           for (ByteString v : a)
           {
-            uniqueAttrValue2Dn.remove(v);
+            releaseValue(t, v);
           }
           break;
 
@@ -826,7 +976,7 @@ public class UniqueAttributePlugin
           {
             for (ByteString v : updatedAttr)
             {
-              uniqueAttrValue2Dn.remove(v);
+              releaseValue(t, v);
             }
           }
           break;
@@ -861,10 +1011,121 @@ public class UniqueAttributePlugin
       AttributeType t = ava.getAttributeType();
       if (isModifyingUniqueAttribute(t, config))
       {
-        uniqueAttrValue2Dn.remove(ava.getAttributeValue());
+        releaseValue(t, ava.getAttributeValue());
       }
     }
     return PostOperation.continueOperationProcessing();
   }
+
+
+
+  /**
+   * Releases a value written by an operation: it is no longer known to be
+   * absent, and other operations may now check it.
+   */
+  private void releaseValue(AttributeType t, ByteString v)
+  {
+    absentValues.remove(t, v);
+    uniqueAttrValue2Dn.remove(v);
+  }
+
+
+
+  /**
+   * A short-lived cache of the values known to be absent below the base DNs,
+   * which avoids probing the indexes again for the same values, for instance
+   * during bulk loads.  A value is evicted as soon as an operation seen by
+   * this plugin writes it.  The time to live bounds how long the cache may be
+   * stale after changes this plugin does not see, such as LDIF imports.
+   */
+  private static final class AbsentValueCache
+  {
+    /** The time to live of a cached value, in nanoseconds. */
+    private static final long TIME_TO_LIVE_NANOS = TimeUnit.SECONDS.toNanos(2);
+    /** The maximum number of cached values before the cache is cleared. */
+    private static final int MAX_SIZE = 10000;
+
+    /**
+     * The expiration times, keyed by attribute type OID and normalized value,
+     * since a value is absent only if no attribute type has an equal value.
+     */
+    private final ConcurrentHashMap<ByteString, Long> expirationTimes = new ConcurrentHashMap<>();
+
+    private boolean isAbsent(Set<AttributeType> attrTypes, ByteString value)
+    {
+      final long now = System.nanoTime();
+      for (AttributeType t : attrTypes)
+      {
+        ByteString key = getKey(t, value);
+        Long expirationTime = key != null ? expirationTimes.get(key) : null;
+        if (expirationTime == null)
+        {
+          return false;
+        }
+        if (expirationTime - now < 0)
+        {
+          expirationTimes.remove(key, expirationTime);
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void putAbsent(Set<AttributeType> attrTypes, List<ByteString> values)
+    {
+      if (expirationTimes.size() >= MAX_SIZE)
+      {
+        expirationTimes.clear();
+      }
+      final Long expirationTime = System.nanoTime() + TIME_TO_LIVE_NANOS;
+      for (AttributeType t : attrTypes)
+      {
+        for (ByteString value : values)
+        {
+          ByteString key = getKey(t, value);
+          if (key != null)
+          {
+            expirationTimes.put(key, expirationTime);
+          }
+        }
+      }
+    }
+
+    private void remove(AttributeType t, ByteString value)
+    {
+      ByteString key = getKey(t, value);
+      if (key != null)
+      {
+        expirationTimes.remove(key);
+      }
+    }
+
+    private void clear()
+    {
+      expirationTimes.clear();
+    }
+
+    private static ByteString getKey(AttributeType t, ByteString value)
+    {
+      MatchingRule rule = t.getEqualityMatchingRule();
+      if (rule == null)
+      {
+        return null;
+      }
+      try
+      {
+        return new ByteStringBuilder()
+            .appendUtf8(t.getOID())
+            .appendByte(0)
+            .appendBytes(rule.normalizeAttributeValue(value))
+            .toByteString();
+      }
+      catch (DecodeException e)
+      {
+        logger.traceException(e);
+        return null;
+      }
+    }
+  }
 }
 
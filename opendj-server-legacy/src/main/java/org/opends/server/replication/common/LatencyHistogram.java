@@ -0,0 +1,97 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe histogram of latencies, used for monitoring the round-trip time
+ * of assured replication acknowledgments.
+ * <p>
+ * Latencies are counted in buckets of exponentially growing upper bounds, from
+ * 1 ms up to 5 s, the last bucket counting all the latencies above 5 s.
+ */
+public final class LatencyHistogram
+{
+  /** Upper bounds of the buckets, in milliseconds. */
+  private static final long[] UPPER_BOUNDS_MILLIS =
+    { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 };
+
+  private final AtomicLongArray counts = new AtomicLongArray(UPPER_BOUNDS_MILLIS.length + 1);
+
+  /**
+   * Records a latency.
+   *
+   * @param latencyMillis
+   *          the latency to record, in milliseconds
+   */
+  public void record(long latencyMillis)
+  {
+    int i = 0;
+    while (i < UPPER_BOUNDS_MILLIS.length && latencyMillis > UPPER_BOUNDS_MILLIS[i])
+    {
+      i++;
+    }
+    counts.incrementAndGet(i);
+  }
+
+  /**
+   * Returns the number of recorded latencies.
+   *
+   * @return the number of recorded latencies
+   */
+  public long getCount()
+  {
+    long count = 0;
+    for (int i = 0; i < counts.length(); i++)
+    {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the non empty buckets of this histogram, formatted for the monitor
+   * as "&lt;=upper-bound:count", for instance "&lt;=5ms:12", the last bucket
+   * being formatted as "&gt;5000ms:count".
+   *
+   * @return the non empty buckets of this histogram, in increasing latency
+   *         order
+   */
+  public List<String> toMonitorValues()
+  {
+    final List<String> values = new ArrayList<>();
+    for (int i = 0; i < counts.length(); i++)
+    {
+      final long count = counts.get(i);
+      if (count > 0)
+      {
+        values.add(i < UPPER_BOUNDS_MILLIS.length
+            ? "<=" + UPPER_BOUNDS_MILLIS[i] + "ms:" + count
+            : ">" + UPPER_BOUNDS_MILLIS[UPPER_BOUNDS_MILLIS.length - 1] + "ms:" + count);
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + toMonitorValues();
+  }
+}
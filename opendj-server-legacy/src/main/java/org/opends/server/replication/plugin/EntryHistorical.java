@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -116,7 +117,14 @@ public class EntryHistorical
   public String toString()
   {
     StringBuilder builder = new StringBuilder();
-    builder.append(encodeAndPurge());
+    builder.append(HISTORICAL_ATTRIBUTE_NAME).append(": {");
+    String separator = "";
+    for (ByteString value : encodeAndPurge())
+    {
+      builder.append(separator).append(HistoricalAttributeValue.valueOf(value));
+      separator = ", ";
+    }
+    builder.append("}");
     return builder.toString();
   }
 
@@ -262,25 +270,25 @@ public class EntryHistorical
   {
     Schema schema = DirectoryServer.getInstance().getServerContext().getSchema();
     AttributeType attrType = schema.getAttributeType(HISTORICAL_ATTRIBUTE_NAME);
-    String attrValue = encodeHistorical(OperationContext.getCSN(addOperation), "add");
+    ByteString attrValue = encodeHistorical(OperationContext.getCSN(addOperation), false);
     List<Attribute> attrs = Attributes.createAsList(attrType, attrValue);
     addOperation.setAttribute(attrType, attrs);
   }
 
   /**
    * Builds an attributeValue for the supplied historical information and
-   * operation type . For ADD Operation : "dn:changeNumber:add", for MODDN
-   * Operation : "dn:changeNumber:moddn", etc.
+   * operation type, in the binary form of the ADD Operation ("dn:changeNumber:add")
+   * or of the MODDN Operation ("dn:changeNumber:moddn").
    *
    * @param csn
    *          The date when the ADD Operation happened.
-   * @param operationType
-   *          the operation type to encode
+   * @param isModDN
+   *          whether the operation to encode is a MODDN or an ADD
    * @return The attribute value containing the historical information for the Operation type.
    */
-  private static String encodeHistorical(CSN csn, String operationType)
+  private static ByteString encodeHistorical(CSN csn, boolean isModDN)
   {
-    return "dn:" + csn + ":" + operationType;
+    return HistoricalAttributeValue.encodeEntryOperation(csn, isModDN);
   }
 
   /**
@@ -334,7 +342,7 @@ public class EntryHistorical
    * purge it from the values older than the purge delay.
    *
    * @return The historical information encoded in an operational attribute.
-   * @see HistoricalAttributeValue#HistoricalAttributeValue(String) the decode
+   * @see HistoricalAttributeValue#valueOf(ByteString) the decode
    *      operation in HistoricalAttributeValue
    */
   public Attribute encodeAndPurge()
@@ -354,7 +362,6 @@ public class EntryHistorical
     for (Map.Entry<AttributeDescription, AttrHistorical> mapEntry : attributesHistorical.entrySet())
     {
       AttributeDescription attrDesc = mapEntry.getKey();
-      String options = attrDesc.toString();
       AttrHistorical attrHist = mapEntry.getValue();
 
       CSN deleteTime = attrHist.getDeleteTime();
@@ -373,8 +380,8 @@ public class EntryHistorical
             // this hist must be purged now, so skip its encoding
             continue;
           }
-          String strValue = encode(DEL, options, attrValHist.getValueDeleteTime(), value);
-          builder.add(strValue);
+          ByteString encodedValue = encode(DEL, attrDesc, attrValHist.getValueDeleteTime(), value);
+          builder.add(encodedValue);
         }
         else if (attrValHist.getValueUpdateTime() != null)
         {
@@ -384,27 +391,27 @@ public class EntryHistorical
             continue;
           }
 
-          String strValue;
+          ByteString encodedValue;
           final CSN updateTime = attrValHist.getValueUpdateTime();
           // FIXME very suspicious use of == in the next if statement,
           // unit tests do not like changing it
           if (attrDel && updateTime == deleteTime && value != null)
           {
-            strValue = encode(REPL, options, updateTime, value);
+            encodedValue = encode(REPL, attrDesc, updateTime, value);
             attrDel = false;
           }
           else if (value != null)
           {
-            strValue = encode(ADD, options, updateTime, value);
+            encodedValue = encode(ADD, attrDesc, updateTime, value);
           }
           else
           {
             // "add" without any value is suspicious. Tests never go there.
             // Is this used to encode "add" with an empty string?
-            strValue = encode(ADD, options, updateTime);
+            encodedValue = encode(ADD, attrDesc, updateTime);
           }
 
-          builder.add(strValue);
+          builder.add(encodedValue);
         }
       }
 
@@ -415,7 +422,7 @@ public class EntryHistorical
           // this hist must be purged now, so skip its encoding
           continue;
         }
-        builder.add(encode(ATTRDEL, options, deleteTime));
+        builder.add(encode(ATTRDEL, attrDesc, deleteTime));
       }
     }
 
@@ -423,14 +430,14 @@ public class EntryHistorical
     {
       // Encode the historical information for the ADD Operation.
       // Stores the ADDDate when not older than the purge delay
-      builder.add(encodeHistorical(entryADDDate, "add"));
+      builder.add(encodeHistorical(entryADDDate, false));
     }
 
     if (entryMODDNDate != null && !needsPurge(entryMODDNDate, purgeDate))
     {
       // Encode the historical information for the MODDN Operation.
       // Stores the MODDNDate when not older than the purge delay
-      builder.add(encodeHistorical(entryMODDNDate, "moddn"));
+      builder.add(encodeHistorical(entryMODDNDate, true));
     }
 
     return builder.toAttribute();
@@ -447,14 +454,15 @@ public class EntryHistorical
     return needsPurge;
   }
 
-  private String encode(HistAttrModificationKey modKey, String options, CSN changeTime)
+  private ByteString encode(HistAttrModificationKey modKey, AttributeDescription attrDesc, CSN changeTime)
   {
-    return options + ":" + changeTime + ":" + modKey;
+    return HistoricalAttributeValue.encode(attrDesc, changeTime, modKey, null);
   }
 
-  private String encode(HistAttrModificationKey modKey, String options, CSN changeTime, ByteString value)
+  private ByteString encode(HistAttrModificationKey modKey, AttributeDescription attrDesc, CSN changeTime,
+      ByteString value)
   {
-    return options + ":" + changeTime + ":" + modKey + ":" + value;
+    return HistoricalAttributeValue.encode(attrDesc, changeTime, modKey, value);
   }
 
   /**
@@ -541,7 +549,7 @@ public class EntryHistorical
         for (ByteString histAttrValueFromEntry : histAttrFromEntry)
         {
           // From each value of the hist attr, create an object
-          final HistoricalAttributeValue histVal = new HistoricalAttributeValue(histAttrValueFromEntry.toString());
+          final HistoricalAttributeValue histVal = HistoricalAttributeValue.valueOf(histAttrValueFromEntry);
           final CSN csn = histVal.getCSN();
 
           // update the oldest CSN stored in the new entry historical
@@ -615,7 +623,7 @@ public class EntryHistorical
     {
       for (ByteString val : attr)
       {
-        HistoricalAttributeValue histVal = new HistoricalAttributeValue(val.toString());
+        HistoricalAttributeValue histVal = HistoricalAttributeValue.valueOf(val);
         if (histVal.isADDOperation())
         {
           // Found some historical information indicating that this entry was just added.
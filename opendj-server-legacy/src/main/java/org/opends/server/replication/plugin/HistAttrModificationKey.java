@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -25,29 +26,64 @@ package org.opends.server.replication.plugin;
  * ds-sync-hist: attrName1:changeNumber2:del:deletedValue
  * ds-sync-hist: attrName3:changeNumber3:add:newAddedvalue
  * ds-sync-hist: attrName3:changeNumber4:attrDel
+ *
+ * The key string and the code of each key are persisted in the values of the
+ * replication historical information: they must never be changed nor reused.
  */
 public enum HistAttrModificationKey
 {
   /** The key for attribute value deletion. */
-  DEL("del"),
+  DEL("del", 0),
   /** The key for attribute deletion. */
-  ATTRDEL("attrDel"),
+  ATTRDEL("attrDel", 1),
   /** The key for attribute replace. */
-  REPL("repl"),
+  REPL("repl", 2),
   /** The key for attribute value addition. */
-  ADD("add");
+  ADD("add", 3);
 
   /** The string representation of this key. */
   private String key;
+  /** The code of this key in the binary form of the historical information. */
+  private final int code;
 
   /**
-   * Creates a new HistKey type with the provided key string.
+   * Creates a new HistKey type with the provided key string and code.
    *
    * @param histkey The key string
+   * @param code The code used in the binary form
    */
-  private HistAttrModificationKey(String histkey)
+  private HistAttrModificationKey(String histkey, int code)
   {
     this.key = histkey;
+    this.code = code;
+  }
+
+  /**
+   * Get a key from its code in the binary form.
+   *
+   * @param code the code to decode
+   * @return the key from the enum type, or {@code null} if the code is unknown
+   */
+  static HistAttrModificationKey decodeCode(int code)
+  {
+    for (HistAttrModificationKey histKey : values())
+    {
+      if (histKey.code == code)
+      {
+        return histKey;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Retrieves the code of this HistKey in the binary form.
+   *
+   * @return The code of this HistKey in the binary form.
+   */
+  int getCode()
+  {
+    return code;
   }
 
   /**
@@ -13,14 +13,20 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
+import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.replication.plugin.HistAttrModificationKey.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
 import org.forgerock.opendj.ldap.ModificationType;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.types.Attribute;
@@ -58,9 +64,30 @@ import org.opends.server.types.Modification;
  *  options are stored with the attribute names using; as a separator
  *  example :
  *  description;FR;France:00000108b3a65541000000000001:add:added_value
+ *
+ * Historical information is now written in a compact binary form which starts
+ * with a byte that can never start the String form, followed by:
+ *  the record type, with the high bit set when a value follows
+ *  the CSN timestamp, sequence number and server id as compact unsigned numbers
+ *  the attribute description as a compact length and its UTF-8 bytes,
+ *    only for attribute records
+ *  the raw attribute value, up to the end of the value
+ * Both forms are decoded, so that the String form is migrated to the binary
+ * form the next time the historical information of an entry is written.
  */
 class HistoricalAttributeValue
 {
+  /** First byte of the binary form, never found at the start of the String form. */
+  private static final byte BINARY_FORM_V1 = 0x01;
+  /** Record type of the historical information for an ADD operation. */
+  private static final int ENTRY_ADD_RECORD = 0;
+  /** Record type of the historical information for a MODDN operation. */
+  private static final int ENTRY_MODDN_RECORD = 1;
+  /** Record type of the attribute modification key with code 0, followed by the others by code. */
+  private static final int ATTRIBUTE_RECORD = 2;
+  /** Flag set on the record type when an attribute value follows. */
+  private static final int HAS_VALUE_FLAG = 0x80;
+
   private final AttributeDescription attrDesc;
   /** The lowercase attribute string representation. */
   private final String attrString;
@@ -68,7 +95,7 @@ class HistoricalAttributeValue
   private final CSN csn;
   private final HistAttrModificationKey histKey;
   private final String stringValue;
-  private boolean attrTypeIsNull;
+  private final boolean attrTypeIsNull;
   /**
    * This flag indicates that this value was generated to store the last date
    * when the entry was renamed.
@@ -116,6 +143,163 @@ class HistoricalAttributeValue
     }
   }
 
+  private HistoricalAttributeValue(AttributeDescription attrDesc, CSN csn, HistAttrModificationKey histKey,
+      ByteString attributeValue, boolean isModDN)
+  {
+    this.attrDesc = attrDesc;
+    this.attrString = toLowerCase(attrDesc.getNameOrOID());
+    this.attrTypeIsNull = attrString.equals("dn");
+    this.isModDN = isModDN;
+    this.csn = csn;
+    this.histKey = histKey;
+    this.attributeValue = attributeValue;
+    this.stringValue = attributeValue != null ? attributeValue.toString() : null;
+  }
+
+  /**
+   * Decodes a value of the historical attribute, whether it is in the binary
+   * form or in the String form.
+   *
+   * @param value
+   *          the value of the historical attribute
+   * @return the decoded historical attribute value
+   * @throws LocalizedIllegalArgumentException
+   *           if the record type of the binary form is unknown
+   * @see #encode(AttributeDescription, CSN, HistAttrModificationKey, ByteString)
+   */
+  static HistoricalAttributeValue valueOf(ByteString value)
+  {
+    if (!isBinaryForm(value))
+    {
+      return new HistoricalAttributeValue(value.toString());
+    }
+
+    final ByteSequenceReader reader = value.asReader();
+    reader.skip(1);
+    final int recordType = reader.readByte() & 0xFF;
+    final CSN csn = readCSN(reader);
+    final int type = recordType & ~HAS_VALUE_FLAG;
+    if (type == ENTRY_ADD_RECORD || type == ENTRY_MODDN_RECORD)
+    {
+      final boolean isModDN = type == ENTRY_MODDN_RECORD;
+      return new HistoricalAttributeValue(AttributeDescription.valueOf("dn"), csn, isModDN ? null : ADD, null, isModDN);
+    }
+
+    final HistAttrModificationKey histKey = HistAttrModificationKey.decodeCode(type - ATTRIBUTE_RECORD);
+    if (histKey == null)
+    {
+      throw new LocalizedIllegalArgumentException(ERR_UNKNOWN_HISTORICAL_RECORD_TYPE.get(value.toHexString(), type));
+    }
+    final AttributeDescription attrDesc =
+        AttributeDescription.valueOf(reader.readStringUtf8(reader.readCompactUnsignedInt()));
+    final ByteString attributeValue =
+        (recordType & HAS_VALUE_FLAG) != 0 && histKey != ATTRDEL ? reader.readByteString(reader.remaining()) : null;
+    return new HistoricalAttributeValue(attrDesc, csn, histKey, attributeValue, false);
+  }
+
+  /**
+   * Encodes the historical information of an attribute modification in the
+   * binary form.
+   *
+   * @param attrDesc
+   *          the description of the modified attribute
+   * @param csn
+   *          the CSN of the modification
+   * @param histKey
+   *          the type of modification
+   * @param attributeValue
+   *          the modified value, can be {@code null}
+   * @return the binary form of the historical information
+   */
+  static ByteString encode(AttributeDescription attrDesc, CSN csn, HistAttrModificationKey histKey,
+      ByteString attributeValue)
+  {
+    final int recordType = ATTRIBUTE_RECORD + histKey.getCode();
+    final ByteStringBuilder builder = new ByteStringBuilder();
+    builder.appendByte(BINARY_FORM_V1);
+    builder.appendByte(attributeValue != null ? recordType | HAS_VALUE_FLAG : recordType);
+    appendCSN(builder, csn);
+    final ByteString attrName = ByteString.valueOfUtf8(attrDesc.toString());
+    builder.appendCompactUnsigned(attrName.length());
+    builder.appendBytes(attrName);
+    if (attributeValue != null)
+    {
+      builder.appendBytes(attributeValue);
+    }
+    return builder.toByteString();
+  }
+
+  /**
+   * Encodes the historical information of an ADD or MODDN operation in the
+   * binary form.
+   *
+   * @param csn
+   *          the CSN of the operation
+   * @param isModDN
+   *          whether the operation is a MODDN operation or an ADD operation
+   * @return the binary form of the historical information
+   */
+  static ByteString encodeEntryOperation(CSN csn, boolean isModDN)
+  {
+    final ByteStringBuilder builder = new ByteStringBuilder();
+    builder.appendByte(BINARY_FORM_V1);
+    builder.appendByte(isModDN ? ENTRY_MODDN_RECORD : ENTRY_ADD_RECORD);
+    appendCSN(builder, csn);
+    return builder.toByteString();
+  }
+
+  /**
+   * Returns the CSN of a value of the historical attribute in the binary form.
+   *
+   * @param value
+   *          the value of the historical attribute
+   * @return the CSN, or {@code null} if the value is in the String form
+   */
+  static CSN decodeCSN(ByteSequence value)
+  {
+    if (!isBinaryForm(value))
+    {
+      return null;
+    }
+    final ByteSequenceReader reader = value.asReader();
+    reader.skip(2);
+    return readCSN(reader);
+  }
+
+  private static boolean isBinaryForm(ByteSequence value)
+  {
+    return value.length() > 0 && value.byteAt(0) == BINARY_FORM_V1;
+  }
+
+  private static void appendCSN(ByteStringBuilder builder, CSN csn)
+  {
+    builder.appendCompactUnsigned(csn.getTime());
+    builder.appendCompactUnsigned(csn.getSeqnum());
+    builder.appendCompactUnsigned(csn.getServerId());
+  }
+
+  private static CSN readCSN(ByteSequenceReader reader)
+  {
+    final long time = reader.readCompactUnsignedLong();
+    final int seqNum = reader.readCompactUnsignedInt();
+    final int serverId = reader.readCompactUnsignedInt();
+    return new CSN(time, seqNum, serverId);
+  }
+
+  /**
+   * Returns the binary form of this historical attribute value.
+   *
+   * @return the binary form of this historical attribute value
+   */
+  ByteString toByteString()
+  {
+    if (attrTypeIsNull)
+    {
+      return encodeEntryOperation(csn, isModDN);
+    }
+    return encode(attrDesc, csn, histKey, attributeValue);
+  }
+
   /**
    * Get the String form of the attribute type.
    *
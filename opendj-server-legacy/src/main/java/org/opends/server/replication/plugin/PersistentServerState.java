@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -342,7 +343,7 @@ class PersistentServerState
         for (ByteString attrValue : resEntry.getAllAttributes(HISTORICAL_ATTRIBUTE_NAME).iterator().next())
         {
           HistoricalAttributeValue histVal =
-              new HistoricalAttributeValue(attrValue.toString());
+              HistoricalAttributeValue.valueOf(attrValue);
           CSN csn = histVal.getCSN();
           if (csn != null
               && csn.getServerId() == serverId
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -43,6 +44,11 @@ import org.opends.server.replication.common.CSN;
  *
  * AckMsg messages are sent all along the reverse path of the path followed
  * an update message.
+ *
+ * Starting with {@link ProtocolVersion#REPLICATION_PROTOCOL_V9}, a replication
+ * server may send a cumulative AckMsg to a directory server: it acknowledges
+ * without errors all the assured updates published by the directory server
+ * up to and including the CSN, like a TCP cumulative acknowledgment.
  */
 public class AckMsg extends ReplicationMsg
 {
@@ -74,6 +80,12 @@ public class AckMsg extends ReplicationMsg
    */
   private List<Integer> failedServers = new ArrayList<>();
 
+  /**
+   * Does this ack acknowledge all the assured updates of the replica up to and
+   * including the CSN?
+   */
+  private boolean cumulative;
+
   /**
    * Creates a new AckMsg from a CSN (no errors).
    *
@@ -103,6 +115,23 @@ public class AckMsg extends ReplicationMsg
     this.failedServers = failedServers;
   }
 
+  /**
+   * Creates a new cumulative AckMsg, acknowledging without errors all the
+   * assured updates of the replica up to and including the provided CSN. Such
+   * an ack can only be sent to servers using
+   * {@link ProtocolVersion#REPLICATION_PROTOCOL_V9} or later.
+   *
+   * @param csn
+   *          The CSN of the most recent acknowledged update.
+   * @return the new cumulative AckMsg
+   */
+  public static AckMsg newCumulativeAck(CSN csn)
+  {
+    final AckMsg ack = new AckMsg(csn);
+    ack.cumulative = true;
+    return ack;
+  }
+
   /**
    * Sets the timeout marker for this message.
    * @param hasTimeout True if some timeout occurred
@@ -155,10 +184,11 @@ public class AckMsg extends ReplicationMsg
      */
     final ByteArrayScanner scanner = new ByteArrayScanner(in);
     final byte msgType = scanner.nextByte();
-    if (msgType != MSG_TYPE_ACK)
+    if (msgType != MSG_TYPE_ACK && msgType != MSG_TYPE_CUMULATIVE_ACK)
     {
       throw new DataFormatException("byte[] is not a valid modify msg");
     }
+    cumulative = msgType == MSG_TYPE_CUMULATIVE_ACK;
 
     csn = scanner.nextCSNUTF8();
     hasTimeout = scanner.nextBoolean();
@@ -185,13 +215,17 @@ public class AckMsg extends ReplicationMsg
   @Override
   public byte[] getBytes(short protocolVersion)
   {
+    if (cumulative && protocolVersion < ProtocolVersion.REPLICATION_PROTOCOL_V9)
+    {
+      return null;
+    }
     /*
      * The message is stored in the form:
      * <operation type><CSN><has timeout><has degraded><has replay
      * error><failed server ids>
      */
     final ByteArrayBuilder builder = new ByteArrayBuilder();
-    builder.appendByte(MSG_TYPE_ACK);
+    builder.appendByte(cumulative ? MSG_TYPE_CUMULATIVE_ACK : MSG_TYPE_ACK);
     builder.appendCSNUTF8(csn);
     builder.appendBoolean(hasTimeout);
     builder.appendBoolean(hasWrongStatus);
@@ -203,6 +237,16 @@ public class AckMsg extends ReplicationMsg
     return builder.toByteArray();
   }
 
+  /**
+   * Tells if this ack acknowledges all the assured updates of the replica up to
+   * and including its CSN.
+   * @return true if this ack is cumulative
+   */
+  public boolean isCumulative()
+  {
+    return cumulative;
+  }
+
   /**
    * Tells if the matching update had timeout.
    * @return true if the matching update had timeout
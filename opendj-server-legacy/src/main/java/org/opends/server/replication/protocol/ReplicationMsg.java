@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -84,6 +85,9 @@ public abstract class ReplicationMsg
   /** @since {@link ProtocolVersion#REPLICATION_PROTOCOL_V8} */
   static final byte MSG_TYPE_REPLICA_OFFLINE = 37;
 
+  /** @since {@link ProtocolVersion#REPLICATION_PROTOCOL_V9} */
+  static final byte MSG_TYPE_CUMULATIVE_ACK = 38;
+
   // Adding a new type of message here probably requires to
   // change accordingly generateMsg method below
 
@@ -149,6 +153,7 @@ public abstract class ReplicationMsg
     case MSG_TYPE_MODIFYDN_V1:
       return new ModifyDNMsg(buffer);
     case MSG_TYPE_ACK:
+    case MSG_TYPE_CUMULATIVE_ACK:
       return new AckMsg(buffer);
     case MSG_TYPE_SERVER_START:
       return new ServerStartMsg(buffer);
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -428,6 +429,25 @@ public final class Session extends DirectoryThread implements Closeable
     }
   }
 
+  /**
+   * Tells whether some data received from the remote peer can be read without
+   * blocking. Like {@link #receive()}, this method must only be called by the
+   * thread receiving the messages.
+   *
+   * @return true if some received data is available, false otherwise.
+   */
+  public boolean hasAvailableInput()
+  {
+    try
+    {
+      return input.available() > 0;
+    }
+    catch (final IOException e)
+    {
+      return false;
+    }
+  }
+
   private void read(byte[] buffer) throws IOException
   {
     final int totalLength = buffer.length;
@@ -13,13 +13,16 @@
  *
  * Copyright 2008-2009 Sun Microsystems, Inc.
  * Portions Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.opends.server.replication.server;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.opends.server.replication.common.AssuredMode;
 import org.opends.server.replication.common.CSN;
@@ -34,6 +37,10 @@ import org.opends.server.replication.protocol.AckMsg;
  * the sender of the update message.
  *
  * It is expected to have one sub-class per assured replication sub mode.
+ *
+ * Instances are accessed concurrently, without locking, by the threads
+ * processing the acks of the expected servers and by the assured timeout task:
+ * sub-classes must process the received acks in a thread safe way.
  */
 public abstract class ExpectedAcksInfo
 {
@@ -49,15 +56,29 @@ public abstract class ExpectedAcksInfo
   /** The CSN of the assured update message we want acks for. */
   protected CSN csn;
 
+  /** The expected acks are still being received. */
+  private static final int PENDING = 0;
+  /** Every expected ack has been received in time. */
+  private static final int ACKNOWLEDGED = 1;
+  /** The timeout occurred before every expected ack was received. */
+  private static final int TIMED_OUT = 2;
+  /**
+   * Every expected ack has been received in time, but the final ack reports
+   * errors and must be sent on its own.
+   */
+  private static final int ACKNOWLEDGED_WITH_ERRORS = 3;
+
   /**
    * Is the treatment of the acks for the update message completed or not ?
    * This is used for concurrent access to this object by either the assured
    * timeout task or the code for processing an ack for the matching update
-   * message. This should be set to true when the treatment of the expected
-   * acks is completed or an ack timeout has occurred and we are going to
-   * remove this object from the map where it is stored.
+   * message: only the code moving the state out of PENDING must send the final
+   * ack and remove this object from the map where it is stored.
    */
-  private boolean completed;
+  private final AtomicInteger state = new AtomicInteger(PENDING);
+
+  /** The time at which this object was created, used for monitoring latency. */
+  private final long creationNanos = System.nanoTime();
 
   /**
    * This gives the list of servers we are willing to wait acks from and the
@@ -66,7 +87,7 @@ public abstract class ExpectedAcksInfo
    * value: a boolean true if we received the ack from the server,
    * false otherwise.
    */
-  protected Map<Integer,Boolean> expectedServersAckStatus = new HashMap<>();
+  protected ConcurrentMap<Integer,Boolean> expectedServersAckStatus = new ConcurrentHashMap<>();
 
   /**
    * Facility for monitoring:
@@ -129,8 +150,21 @@ public abstract class ExpectedAcksInfo
     return assuredMode;
   }
 
+  /**
+   * Marks the ack from the provided server as received.
+   * @param ackingServerId The id of the server that sent the ack
+   * @return True if this is the first ack received from this expected server,
+   * false if the server is not expected or if its ack was already received
+   */
+  protected boolean markAckReceived(int ackingServerId)
+  {
+    return expectedServersAckStatus.replace(ackingServerId, false, true);
+  }
+
   /**
    * Process the received ack from a server we are waiting an ack from.
+   * This method may be called concurrently for acks coming from different
+   * servers: it must return true for exactly one of them.
    * @param ackingServer The server handler of the server that sent the ack
    * @param ackMsg The ack message to process
    * @return True if the expected number of acks has just been reached
@@ -157,15 +191,54 @@ public abstract class ExpectedAcksInfo
    */
   public boolean isCompleted()
   {
-    return completed;
+    return state.get() != PENDING;
+  }
+
+  /**
+   * Tells whether every expected ack has been received in time, without any
+   * error to report, so that the final ack can be merged in a cumulative ack.
+   * @return True if treatment of this object has been completed without
+   * timeout nor error.
+   */
+  public boolean isAcknowledged()
+  {
+    return state.get() == ACKNOWLEDGED;
   }
 
   /**
    * Signal that treatment of this object has been completed and that it is
-   * going to be removed from the map where it is stored.
+   * going to be removed from the map where it is stored. Only one of the
+   * concurrent callers succeeds.
+   * @param timeout True if the timeout occurred before every expected ack was
+   * received.
+   * @return True if the caller completed the treatment and must send the
+   * final ack, false if the treatment had already been completed.
+   */
+  public boolean complete(boolean timeout)
+  {
+    return state.compareAndSet(PENDING, timeout ? TIMED_OUT : ACKNOWLEDGED);
+  }
+
+  /**
+   * Signal that every expected ack has been received in time but that the
+   * final ack reports errors, so it must be sent on its own before this object
+   * is removed from the map where it is stored. Only one of the concurrent
+   * callers of this method and {@link #complete(boolean)} succeeds.
+   * @return True if the caller completed the treatment and must send the
+   * final ack, false if the treatment had already been completed.
+   */
+  public boolean completeWithErrors()
+  {
+    return state.compareAndSet(PENDING, ACKNOWLEDGED_WITH_ERRORS);
+  }
+
+  /**
+   * Returns the time elapsed since the update message was received.
+   * @return The time elapsed since the update message was received, in
+   * milliseconds.
    */
-  public void completed()
+  public long getElapsedTimeMillis()
   {
-    completed = true;
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - creationNanos);
   }
 }
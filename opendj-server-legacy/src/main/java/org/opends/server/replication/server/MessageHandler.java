@@ -13,6 +13,7 @@
  *
  * Copyright 2009-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -32,10 +33,12 @@ import org.opends.server.core.DirectoryServer;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.ServerState;
 import org.opends.server.replication.protocol.UpdateMsg;
+import org.opends.server.replication.server.UpdateSequence.RoutedUpdate;
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.replication.server.changelog.api.DBCursor;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.InitializationException;
+import org.opends.server.util.TimeThread;
 
 /**
  * This class implements a buffering/producer/consumer mechanism of
@@ -45,10 +48,9 @@ import org.opends.server.types.InitializationException;
  * current RS.
  *
  * MessageHandlers are registered into Replication server domains.
- * When an update message is received by a domain, the domain forwards
- * the message to the registered message handlers.
- * LocalizableMessage are buffered into a queue.
- * Consumers are expected to come and consume the UpdateMsg from the queue.
+ * When an update message is received by a domain, the domain appends it once
+ * to its {@link UpdateSequence}.
+ * Each handler consumes the UpdateMsg from the sequence through its own cursor.
  */
 class MessageHandler extends MonitorProvider<MonitorProviderCfg>
 {
@@ -56,9 +58,29 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
   private static final int MINIMUM_TRESHOLD_MSG_QUEUE_SIZE = 5;
+  /**
+   * Maximum number of updates of the domain sequence inspected to compute the
+   * monitoring values of a following handler.
+   */
+  private static final int MAX_SCANNED_UPDATES = 1000;
 
-  /** UpdateMsg queue. */
-  private final MsgQueue msgQueue = new MsgQueue();
+  /**
+   * Position in the update sequence of the domain of the next update to
+   * consume. Only meaningful while following.
+   */
+  private volatile long cursor;
+  /**
+   * Position in the update sequence from which to follow once the late queue
+   * is consumed, or -1 if the changelog still has to be read.
+   */
+  private volatile long resumeCursor = -1;
+  /**
+   * Position in the update sequence from which to follow if the changelog
+   * being read holds no more updates, or -1 if the changelog is not being read.
+   * The domain must keep the updates from this position while this handler
+   * reads the changelog.
+   */
+  private volatile long pendingResumeCursor = -1;
   /**
    * Late queue. All access to the lateQueue in getNextMessage() is
    * single-threaded. However, reads from threads calling getOlderUpdateCN()
@@ -78,7 +100,7 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   /** Specifies the max queue size in bytes for this handler. */
   private final int maxQueueBytesSize;
   /** Specifies whether the consumer is following the producer (is not late). */
-  private boolean following;
+  private volatile boolean following;
   /** Specifies the current serverState of this handler. */
   private ServerState serverState;
   /** Specifies the baseDN of the domain. */
@@ -105,50 +127,6 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
     this.replicationServer = replicationServer;
   }
 
-  /**
-   * Add an update to the list of updates that must be sent to the server
-   * managed by this Handler.
-   *
-   * @param update The update that must be added to the list of updates of
-   * this handler.
-   */
-  void add(UpdateMsg update)
-  {
-    synchronized (msgQueue)
-    {
-      /*
-       * If queue was empty the writer thread was probably asleep
-       * waiting for some changes, wake it up
-       */
-      if (msgQueue.isEmpty())
-      {
-        msgQueue.notify();
-      }
-
-      msgQueue.add(update);
-
-      // TODO : size should be configurable and larger than max-receive-queue-size
-      while (isMsgQueueAboveThreshold())
-      {
-        following = false;
-        msgQueue.removeFirst();
-      }
-    }
-  }
-
-  private boolean isMsgQueueAboveThreshold()
-  {
-    final long count = msgQueue.count();
-    // ensure there is a minimum number of messages in queue to avoid wrong behavior
-    return count > maxQueueSize
-        || (count >= MINIMUM_TRESHOLD_MSG_QUEUE_SIZE && msgQueue.bytesCount() > maxQueueBytesSize);
-  }
-
-  private boolean isMsgQueueBelowThreshold()
-  {
-    return !isMsgQueueAboveThreshold();
-  }
-
   /**
    * Set the shut down flag to true and returns the previous value of the flag.
    * @return The previous value of the shut down flag
@@ -198,11 +176,17 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   @Override
   public MonitorData getMonitorData()
   {
-    MonitorData attributes = new MonitorData(4);
+    MonitorData attributes = new MonitorData(6);
     attributes.add("handler", getMonitorInstanceName());
-    attributes.add("queue-size", msgQueue.count());
-    attributes.add("queue-size-bytes", msgQueue.bytesCount());
+    attributes.add("queue-size", getRcvMsgQueueSize());
     attributes.add("following", following);
+    if (replicationServerDomain != null)
+    {
+      attributes.add("lag-updates", getLagUpdates());
+      CSN olderUpdateCSN = getOlderUpdateCSN();
+      attributes.add("lag-millis",
+          olderUpdateCSN != null ? Math.max(0, TimeThread.getTime() - olderUpdateCSN.getTime()) : 0);
+    }
     return attributes;
   }
 
@@ -227,150 +211,155 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   protected UpdateMsg getNextMessage() throws ChangelogException
   {
+    final UpdateSequence sequence = replicationServerDomain.getUpdateSequence();
     while (activeConsumer)
     {
       if (!following)
       {
         /* this server is late with regard to some other masters
          * in the topology or just joined the topology.
-         * In such cases, we can't keep all changes in the queue
-         * without saturating the memory, we therefore use
+         * In such cases, we can't keep all changes in memory
+         * without saturating it, we therefore use
          * a lateQueue that is filled with a few changes from the changelogDB
          * If this server is able to close the gap, it will start using again
-         * the regular msgQueue later.
+         * the update sequence of the domain later.
          */
         if (lateQueue.isEmpty())
         {
-          /*
-           * Start from the server State
-           * Loop until the queue high mark or until no more changes
-           *   for each known LDAP master
-           *      get the next CSN after this last one :
-           *         - try to get next from the file
-           *         - if not found in the file
-           *             - try to get the next from the queue
-           *   select the smallest of changes
-           *   check if it is in the memory tree
-           *     yes : lock memory tree.
-           *           check all changes from the list, remove the ones that
-           *           are already sent
-           *           unlock memory tree
-           *           restart as usual
-           *   load this change on the delayList
-           */
-          fillLateQueue();
-          if (lateQueue.isEmpty())
+          if (resumeCursor != -1)
           {
-            // we could not find any messages in the changelog
-            // so the remote server is not late anymore.
-            synchronized (msgQueue)
-            {
-              // Ensure we are below threshold so this server will follow the
-              // msgQueue without fearing the msgQueue gets trimmed
-              if (isMsgQueueBelowThreshold())
-              {
-                following = true;
-              }
-            }
+            // the changelog has been read up to the point where the update
+            // sequence takes over: follow the sequence from there
+            cursor = resumeCursor;
+            following = true;
+            resumeCursor = -1;
+            pendingResumeCursor = -1;
+            continue;
           }
-          else
+          /*
+           * Every update claimed in the sequence before this point has already
+           * been published to the changelog, so reading the changelog up to its
+           * end then following the sequence from this point does not miss any
+           * update. Updates present on both sides are only sent once thanks to
+           * the server state.
+           * Reserve this point before reading the changelog, so that the
+           * handlers following the sequence do not trim it in the meantime.
+           */
+          final long head = sequence.getHead();
+          pendingResumeCursor = head;
+          if (fillLateQueue())
           {
-            /*
-             * if the first change in the lateQueue is also on the regular queue,
-             * we can resume the processing from the regular queue
-             * -> set following to true and empty the lateQueue.
-             */
-            UpdateMsg msg = lateQueue.first();
-            synchronized (msgQueue)
-            {
-              if (msgQueue.contains(msg))
-              {
-                /* we finally catch up with the regular queue */
-                following = true;
-                lateQueue.clear();
-                msgQueue.consumeUpTo(msg);
-                if (updateServerState(msg))
-                {
-                  return msg;
-                }
-              }
-            }
+            resumeCursor = head;
           }
         }
         else
         {
           // get the next change from the lateQueue
           UpdateMsg msg;
-          synchronized (msgQueue) // TODO JNR why synchronize(msgQueue) here?
+          synchronized (lateQueue)
           {
             msg = lateQueue.removeFirst();
-            // By default a server is always not following. A weird case where messages not representing
-            // an operation may happen, making the late queue repeatedly fill and be emptied without ever
-            // getting the server out of state "not following".
-            if (lateQueue.isEmpty() && msgQueue.isEmpty())
-            {
-              following = true;
-            }
           }
           if (updateServerState(msg))
           {
             return msg;
           }
-          continue;
         }
+        continue;
       }
 
-      synchronized (msgQueue)
+      final long position = cursor;
+      final RoutedUpdate routedUpdate = sequence.get(position);
+      if (routedUpdate == null)
       {
-        if (following)
+        if (sequence.isOverwritten(position))
         {
-          try
-          {
-            while (msgQueue.isEmpty() && following)
-            {
-              msgQueue.wait(500);
-              if (!activeConsumer)
-              {
-                return null;
-              }
-            }
-          } catch (InterruptedException e)
-          {
-            return null;
-          }
-          UpdateMsg msg = msgQueue.removeFirst();
-          if (updateServerState(msg))
-          {
-            /*
-             * Only push the message if it has not yet been seen
-             * by the other server.
-             * Otherwise just loop to select the next message.
-             */
-            return msg;
-          }
+          // the update has been overwritten before this server could get it
+          following = false;
+          continue;
+        }
+        // this server is up to date: release the updates no server needs anymore
+        replicationServerDomain.trimUpdateSequence(position);
+        try
+        {
+          sequence.await(position, 500);
         }
+        catch (InterruptedException e)
+        {
+          return null;
+        }
+        continue;
+      }
+
+      if (isLagAboveThreshold(sequence, routedUpdate))
+      {
+        // too many updates are waiting for this server: read the changelog
+        following = false;
+        continue;
+      }
+      cursor = position + 1;
+      final UpdateMsg msg = replicationServerDomain.selectUpdate(routedUpdate, this);
+      if (msg != null && updateServerState(msg))
+      {
+        /*
+         * Only push the message if it has not yet been seen
+         * by the other server.
+         * Otherwise just loop to select the next message.
+         */
+        return msg;
       }
-      /*
-       * Need to loop because following flag may have gone to false between the
-       * first check at the beginning of this method and the second check just
-       * above.
-       */
     }
     return null;
   }
 
+  private boolean isLagAboveThreshold(UpdateSequence sequence, RoutedUpdate routedUpdate)
+  {
+    final long count = sequence.getHead() - routedUpdate.getSequence();
+    // ensure there is a minimum number of messages in queue to avoid wrong behavior
+    return count > maxQueueSize
+        || (count >= MINIMUM_TRESHOLD_MSG_QUEUE_SIZE && sequence.getBytesFrom(routedUpdate) > maxQueueBytesSize);
+  }
+
+  /**
+   * Returns the position in the update sequence of the domain from which this
+   * handler still needs the updates.
+   *
+   * @return the position in the update sequence of the domain from which this
+   *         handler still needs the updates, or -1 if it does not need any
+   */
+  long getUpdateSequencePosition()
+  {
+    if (following)
+    {
+      return cursor;
+    }
+    final long position = resumeCursor;
+    return position != -1 ? position : pendingResumeCursor;
+  }
+
   /**
    * Fills the late queue with the most recent changes, accepting only the
    * messages from provided replica ids.
+   *
+   * @return {@code true} if all the changes left in the changelog have been
+   *         added to the late queue
    */
-  private void fillLateQueue() throws ChangelogException
+  private boolean fillLateQueue() throws ChangelogException
   {
     try (DBCursor<UpdateMsg> cursor = replicationServerDomain.getCursorFrom(serverState);)
     {
-      while (cursor.next() && isLateQueueBelowThreshold())
+      while (isLateQueueBelowThreshold())
       {
-        lateQueue.add(cursor.getRecord());
+        if (!cursor.next())
+        {
+          return true;
+        }
+        synchronized (lateQueue)
+        {
+          lateQueue.add(cursor.getRecord());
+        }
       }
+      return false;
     }
   }
 
@@ -386,35 +375,65 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   public CSN getOlderUpdateCSN()
   {
-    synchronized (msgQueue)
+    if (following)
     {
-      if (following)
+      final UpdateMsg msg = findFirstPendingUpdate();
+      return msg != null ? msg.getCSN() : null;
+    }
+    synchronized (lateQueue)
+    {
+      if (!lateQueue.isEmpty())
       {
-        if (!msgQueue.isEmpty())
-        {
-          return msgQueue.first().getCSN();
-        }
+        return lateQueue.first().getCSN();
       }
-      else
+    }
+    /*
+    following is false AND lateQueue is empty
+    We may be at the very moment when the writer has emptied the
+    lateQueue when it sent the last update. The writer will fill again
+    the lateQueue when it will send the next update but we are not yet
+    there. So let's take the last change not sent directly from the db.
+    */
+    return findOldestCSNFromReplicaDBs();
+  }
+
+  /**
+   * Returns the first update of the domain sequence that is still to be sent
+   * to this server. If none is found in the first {@link #MAX_SCANNED_UPDATES}
+   * updates, the last scanned update is returned, which overestimates the lag.
+   */
+  private UpdateMsg findFirstPendingUpdate()
+  {
+    final UpdateSequence sequence = replicationServerDomain.getUpdateSequence();
+    final long end = Math.min(sequence.getHead(), cursor + MAX_SCANNED_UPDATES);
+    RoutedUpdate lastUpdate = null;
+    for (long position = cursor; position < end; position++)
+    {
+      final RoutedUpdate routedUpdate = sequence.get(position);
+      if (routedUpdate != null)
       {
-        if (!lateQueue.isEmpty())
+        final UpdateMsg msg = replicationServerDomain.selectUpdate(routedUpdate, this);
+        if (msg != null && !serverState.cover(msg.getCSN()))
         {
-          return lateQueue.first().getCSN();
-        }
-        else
-        {
-          /*
-          following is false AND lateQueue is empty
-          We may be at the very moment when the writer has emptied the
-          lateQueue when it sent the last update. The writer will fill again
-          the lateQueue when it will send the next update but we are not yet
-          there. So let's take the last change not sent directly from the db.
-          */
-          return findOldestCSNFromReplicaDBs();
+          return msg;
         }
+        lastUpdate = routedUpdate;
       }
     }
-    return null;
+    return end < sequence.getHead() && lastUpdate != null ? lastUpdate.getUpdateMsg() : null;
+  }
+
+  /**
+   * Returns the number of updates appended to the domain sequence that this
+   * server has not consumed yet, whether they must be sent to it or not.
+   */
+  private long getLagUpdates()
+  {
+    if (following)
+    {
+      return Math.max(0, replicationServerDomain.getUpdateSequence().getHead() - cursor);
+    }
+    return getRcvMsgQueueSize();
   }
 
   private CSN findOldestCSNFromReplicaDBs()
@@ -452,27 +471,48 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   public int getRcvMsgQueueSize()
   {
-    synchronized (msgQueue)
+    if (replicationServerDomain == null)
+    {
+      return 0;
+    }
+    /*
+     * When the server is up to date or close to be up to date,
+     * the number of updates to be sent is the number of updates of the
+     * domain sequence that are meant for this server.
+     * Only the first updates are inspected, and the proportion of them meant
+     * for this server is applied to the following ones.
+     */
+    if (following)
     {
-      /*
-       * When the server is up to date or close to be up to date,
-       * the number of updates to be sent is the size of the receive queue.
-       */
-      if (following)
+      final UpdateSequence sequence = replicationServerDomain.getUpdateSequence();
+      final long position = cursor;
+      final long lag = sequence.getHead() - position;
+      if (lag <= 0)
       {
-        return msgQueue.count();
+        return 0;
       }
-
-      /*
-       * When the server is not able to follow, the msgQueue may become too
-       * large and therefore won't contain all the changes. Some changes may
-       * only be stored in the backing DB of the servers.
-       * The total size of the receive queue is calculated by doing the sum of
-       * the number of missing changes for every replicaDB.
-       */
-      ServerState latestState = replicationServerDomain.getLatestServerState();
-      return ServerState.diffChanges(latestState, serverState);
+      final int scanned = (int) Math.min(lag, MAX_SCANNED_UPDATES);
+      int count = 0;
+      for (int i = 0; i < scanned; i++)
+      {
+        final RoutedUpdate routedUpdate = sequence.get(position + i);
+        if (routedUpdate != null && replicationServerDomain.selectUpdate(routedUpdate, this) != null)
+        {
+          count++;
+        }
+      }
+      return (int) (count * lag / scanned);
     }
+
+    /*
+     * When the server is not able to follow, the update sequence may
+     * not contain all the changes anymore. Some changes may
+     * only be stored in the backing DB of the servers.
+     * The total size of the receive queue is calculated by doing the sum of
+     * the number of missing changes for every replicaDB.
+     */
+    ServerState latestState = replicationServerDomain.getLatestServerState();
+    return ServerState.diffChanges(latestState, serverState);
   }
 
   /**
@@ -571,11 +611,9 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   /** Shutdown this handler. */
   public void shutdown()
   {
-    synchronized (msgQueue)
+    if (replicationServerDomain != null)
     {
-      msgQueue.clear();
-      msgQueue.notify();
-      msgQueue.notifyAll();
+      replicationServerDomain.getUpdateSequence().wakeUpConsumers();
     }
 
     DirectoryServer.deregisterMonitorProvider(this);
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -1077,6 +1078,17 @@ public class ReplicationServer
     return (byte) this.config.getGroupId();
   }
 
+  /**
+   * Get the maximum number of updates kept in memory for each connected server.
+   *
+   * @return The maximum number of updates kept in memory for each connected
+   *         server.
+   */
+  public int getQueueSize()
+  {
+    return this.config.getQueueSize();
+  }
+
   /**
    * Get the degraded status threshold value for status analyzer.
    * <p>
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -24,10 +25,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -43,6 +44,7 @@ import org.opends.server.api.MonitorProvider;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.DSInfo;
+import org.opends.server.replication.common.LatencyHistogram;
 import org.opends.server.replication.common.RSInfo;
 import org.opends.server.replication.common.ServerState;
 import org.opends.server.replication.common.ServerStatus;
@@ -58,6 +60,7 @@ import org.opends.server.replication.protocol.ResetGenerationIdMsg;
 import org.opends.server.replication.protocol.RoutableMsg;
 import org.opends.server.replication.protocol.TopologyMsg;
 import org.opends.server.replication.protocol.UpdateMsg;
+import org.opends.server.replication.server.UpdateSequence.RoutedUpdate;
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.replication.server.changelog.api.DBCursor;
 import org.opends.server.replication.server.changelog.api.DBCursor.CursorOptions;
@@ -124,6 +127,13 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
    */
   private final Map<Integer, ReplicationServerHandler> connectedRSs = new ConcurrentHashMap<>();
 
+  /**
+   * The updates received by this domain. Each update is appended once and the
+   * connected servers consume it through their own cursor, so routing an update
+   * does not lock nor copy anything per connected server.
+   */
+  private final UpdateSequence updateSequence;
+
   private final ReplicationDomainDB domainDB;
   /** The ReplicationServer that created the current instance. */
   private final ReplicationServer localReplicationServer;
@@ -148,6 +158,12 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
   /** The tracer object for the debug logger. */
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** Upper bound of the number of updates kept in memory by the update sequence. */
+  private static final int MAX_UPDATE_SEQUENCE_CAPACITY = 1 << 22;
+
+  /** Tick of the assured timeout wheel, in milliseconds. */
+  private static final long ASSURED_TIMEOUT_TICK_MILLIS = 10;
+
   /**
    * The needed info for each received assured update message we are waiting
    * acks for.
@@ -158,21 +174,33 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
    * Value: The object holding every info needed about the already received acks
    * as well as the acks to be received.
    *
+   * The map is sorted by CSN so that the acks of the updates received from a
+   * DS supporting cumulative acks can be sent in CSN order, see
+   * {@link #flushAcks()}.
+   *
    * @see ExpectedAcksInfo For more details, see ExpectedAcksInfo and its sub
    *      classes javadoc.
    */
-  private final Map<CSN, ExpectedAcksInfo> waitingAcks = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<CSN, ExpectedAcksInfo> waitingAcks = new ConcurrentSkipListMap<>();
 
   /**
-   * The timer used to run the timeout code (timer tasks) for the assured update
-   * messages we are waiting acks for.
+   * Whether some updates of waitingAcks have been acknowledged and are waiting
+   * for {@link #flushAcks()} to send the matching cumulative ack.
    */
-  private final Timer assuredTimeoutTimer;
+  private final AtomicBoolean acksToFlush = new AtomicBoolean();
+
   /**
-   * Counter used to purge the timer tasks references in assuredTimeoutTimer,
-   * every n number of treated assured messages.
+   * The timer wheel used to run the timeout code (timeout tasks) for the
+   * assured update messages we are waiting acks for. It also flushes the acks
+   * not flushed yet by the threads processing the acks.
    */
-  private int assuredTimeoutTimerPurgeCounter;
+  private final TimeoutWheel assuredTimeoutWheel;
+
+  /**
+   * The round-trip time of the acks requested for the assured update messages,
+   * from the reception of the update to the reception of the last expected ack.
+   */
+  private final LatencyHistogram assuredAckLatency = new LatencyHistogram();
 
   /**
    * Stores pending status messages such as DS change time heartbeats for future
@@ -276,16 +304,35 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
   {
     this.baseDN = baseDN;
     this.localReplicationServer = localReplicationServer;
-    this.assuredTimeoutTimer = new Timer("Replication server RS("
+    this.assuredTimeoutWheel = new TimeoutWheel("Replication server RS("
         + localReplicationServer.getServerId()
-        + ") assured timer for domain \"" + baseDN + "\"", true);
+        + ") assured timer for domain \"" + baseDN + "\"",
+        ASSURED_TIMEOUT_TICK_MILLIS, new Runnable()
+        {
+          @Override
+          public void run()
+          {
+            flushAcks();
+          }
+        });
+    this.assuredTimeoutWheel.start();
     this.domainDB =
         localReplicationServer.getChangelogDB().getReplicationDomainDB();
+    this.updateSequence = new UpdateSequence(getUpdateSequenceCapacity(localReplicationServer.getQueueSize()));
     this.statusAnalyzer = new StatusAnalyzer(this);
     this.statusAnalyzer.start();
     DirectoryServer.registerMonitorProvider(this);
   }
 
+  /**
+   * Keeps twice the queue size of the handlers so that a handler going late
+   * because of its queue size still finds its pending updates in the sequence.
+   */
+  private static int getUpdateSequenceCapacity(int queueSize)
+  {
+    return (int) Math.min(2L * queueSize, MAX_UPDATE_SEQUENCE_CAPACITY);
+  }
+
   /**
    * Add an update that has been received to the list of
    * updates that must be forwarded to all other servers.
@@ -344,32 +391,97 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     final NotAssuredUpdateMsg notAssuredUpdateMsg =
         preparedAssuredInfo != null ? new NotAssuredUpdateMsg(updateMsg) : null;
 
-    // Push the message to the replication servers
-    if (sourceHandler.isDataServer())
+    // Publish the message once, the handlers pick it up through their cursor
+    updateSequence.append(updateMsg, notAssuredUpdateMsg, assuredServers, sourceHandler);
+  }
+
+  /**
+   * Returns the sequence of the updates received by this domain.
+   *
+   * @return the sequence of the updates received by this domain
+   */
+  UpdateSequence getUpdateSequence()
+  {
+    return updateSequence;
+  }
+
+  /**
+   * Clears the updates of the update sequence which all the connected servers
+   * have consumed, so that they are not kept in memory for nothing. The updates
+   * from which a server reading the changelog will resume are kept.
+   *
+   * @param position
+   *          the position in the update sequence of the handler calling this
+   *          method, which is up to date
+   */
+  void trimUpdateSequence(long position)
+  {
+    if (updateSequence.getTrimmedPosition() >= position)
     {
-      for (ReplicationServerHandler rsHandler : connectedRSs.values())
+      return;
+    }
+    long trimPosition = getMinUpdateSequencePosition(connectedDSs.values(), position);
+    trimPosition = getMinUpdateSequencePosition(connectedRSs.values(), trimPosition);
+    updateSequence.trimTo(trimPosition);
+  }
+
+  /**
+   * Returns the lowest of the provided position and of the positions from which
+   * the provided handlers still need the updates of the update sequence.
+   */
+  static long getMinUpdateSequencePosition(Collection<? extends MessageHandler> handlers, long position)
+  {
+    long minPosition = position;
+    for (MessageHandler handler : handlers)
+    {
+      final long handlerPosition = handler.getUpdateSequencePosition();
+      if (handlerPosition != -1)
       {
-        /**
-         * Ignore updates to RS with bad gen id
-         * (no system managed status for a RS)
-         */
-        if (!isDifferentGenerationId(rsHandler, updateMsg))
-        {
-          addUpdate(rsHandler, updateMsg, notAssuredUpdateMsg, assuredServers);
-        }
+        minPosition = Math.min(minPosition, handlerPosition);
       }
     }
+    return minPosition;
+  }
 
-    // Push the message to the LDAP servers
-    for (DataServerHandler dsHandler : connectedDSs.values())
+  /**
+   * Returns the update message that the provided handler must send for an
+   * update routed by this domain.
+   * <p>
+   * The filters are evaluated when the handler consumes the update, which is
+   * when the update used to be dequeued from its per handler queue.
+   *
+   * @param routedUpdate
+   *          the update routed by this domain
+   * @param handler
+   *          the handler consuming the update
+   * @return the update message to send, or {@code null} if the update must not
+   *         be sent to the server managed by the provided handler
+   */
+  UpdateMsg selectUpdate(RoutedUpdate routedUpdate, MessageHandler handler)
+  {
+    final UpdateMsg updateMsg = routedUpdate.getUpdateMsg();
+    final ServerHandler sourceHandler = routedUpdate.getSourceHandler();
+    if (handler instanceof ReplicationServerHandler)
     {
+      // Push the message to the replication servers
+      // Ignore updates to RS with bad gen id (no system managed status for a RS)
+      final ReplicationServerHandler rsHandler = (ReplicationServerHandler) handler;
+      if (sourceHandler.isDataServer() && !isDifferentGenerationId(rsHandler, updateMsg))
+      {
+        return routedUpdate.getUpdateMsgFor(rsHandler.getServerId());
+      }
+    }
+    else if (handler instanceof DataServerHandler)
+    {
+      // Push the message to the LDAP servers
       // Do not forward the change to the server that just sent it
-      if (dsHandler != sourceHandler
-          && !isUpdateMsgFiltered(updateMsg, dsHandler))
+      final DataServerHandler dsHandler = (DataServerHandler) handler;
+      if (dsHandler != sourceHandler && !isUpdateMsgFiltered(updateMsg, dsHandler))
       {
-        addUpdate(dsHandler, updateMsg, notAssuredUpdateMsg, assuredServers);
+        return routedUpdate.getUpdateMsgFor(dsHandler.getServerId());
       }
     }
+    return null;
   }
 
   private boolean isDifferentGenerationId(ReplicationServerHandler rsHandler,
@@ -476,14 +588,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
       waitingAcks.put(csn, preparedAssuredInfo.expectedAcksInfo);
 
       // Arm timer for this assured update message (wait for acks until it times out)
-      final AssuredTimeoutTask assuredTimeoutTask = new AssuredTimeoutTask(csn);
-      assuredTimeoutTimer.schedule(assuredTimeoutTask, localReplicationServer.getAssuredTimeout());
-      // Purge timer every 100 treated messages
-      assuredTimeoutTimerPurgeCounter++;
-      if ((assuredTimeoutTimerPurgeCounter % 100) == 0)
-      {
-        assuredTimeoutTimer.purge();
-      }
+      assuredTimeoutWheel.schedule(new AssuredTimeoutTask(csn), localReplicationServer.getAssuredTimeout());
     }
 
     return expectedServers != null ? expectedServers : Collections.<Integer> emptyList();
@@ -534,22 +639,6 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     }
   }
 
-  private void addUpdate(ServerHandler sHandler, UpdateMsg updateMsg,
-      NotAssuredUpdateMsg notAssuredUpdateMsg, List<Integer> assuredServers)
-  {
-    // Assured mode: post an assured or not assured matching update message
-    // according to what has been computed for the destination server
-    if (notAssuredUpdateMsg != null
-        && !assuredServers.contains(sHandler.getServerId()))
-    {
-      sHandler.add(notAssuredUpdateMsg);
-    }
-    else
-    {
-      sHandler.add(updateMsg);
-    }
-  }
-
   /**
    * Helper class to be the return type of a method that processes a just
    * received assured update message:
@@ -790,6 +879,13 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
 
   /**
    * Process an ack received from a given server.
+   * <p>
+   * No lock is taken: the processing of the acks of the expected servers and
+   * the timeout task race to complete the expected acks info, and only the
+   * winner sends the final ack. The final acks without error for a DS
+   * supporting cumulative acks are not sent here but by {@link #flushAcks()}.
+   * A final ack reporting errors is always sent on its own, after the
+   * cumulative ack of the preceding updates.
    *
    * @param ack The ack message received.
    * @param ackingServer The server handler of the server that sent the ack.
@@ -801,54 +897,152 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     CSN csn = ack.getCSN();
     ExpectedAcksInfo expectedAcksInfo = waitingAcks.get(csn);
 
-    if (expectedAcksInfo != null)
+    /*
+     * If the timeout occurred for the update matching this CSN, the ack with
+     * timeout error has probably already been sent. Else, nothing is sent until
+     * this is the last ack we were waiting from.
+     */
+    if (expectedAcksInfo == null
+        || !expectedAcksInfo.processReceivedAck(ackingServer, ack))
+    {
+      return;
+    }
+
+    /*
+     * Immediately create and send the final ack to the original server, unless
+     * the timeout code is already sending a timeout ack.
+     */
+
+    ServerHandler origServer = expectedAcksInfo.getRequesterServer();
+    AckMsg finalAck = expectedAcksInfo.createAck(false);
+    boolean cumulative = supportsCumulativeAcks(origServer);
+    boolean batched = cumulative && !hasErrors(finalAck);
+    if (!(batched ? expectedAcksInfo.complete(false) : expectedAcksInfo.completeWithErrors()))
+    {
+      return;
+    }
+
+    assuredAckLatency.record(expectedAcksInfo.getElapsedTimeMillis());
+    if (batched)
+    {
+      // Keep the object in the map, flushAcks() will send the ack
+      acksToFlush.set(true);
+    }
+    else if (cumulative)
+    {
+      /*
+       * flushAcks() stops at this update until it is removed from the map:
+       * acknowledge the preceding updates first, then send the error ack and
+       * release the following updates.
+       */
+      acksToFlush.set(true);
+      flushAcks();
+      sendAck(origServer, finalAck, csn);
+      waitingAcks.remove(csn);
+      acksToFlush.set(true);
+      flushAcks();
+    }
+    else
+    {
+      // Remove the object from the map as no more needed
+      waitingAcks.remove(csn);
+      sendAck(origServer, finalAck, csn);
+    }
+  }
+
+  /**
+   * Tells whether the provided final ack reports an error, in which case it
+   * cannot be merged in a cumulative ack.
+   */
+  private static boolean hasErrors(AckMsg finalAck)
+  {
+    return finalAck.hasTimeout()
+        || finalAck.hasWrongStatus()
+        || finalAck.hasReplayError()
+        || !finalAck.getFailedServers().isEmpty();
+  }
+
+  /**
+   * Tells whether the provided server is a DS accepting cumulative acks for
+   * the assured updates it sends.
+   */
+  private boolean supportsCumulativeAcks(ServerHandler requester)
+  {
+    return requester.isDataServer()
+        && requester.getProtocolVersion() >= REPLICATION_PROTOCOL_V9;
+  }
+
+  /**
+   * Sends the acks for the assured updates acknowledged by every expected
+   * server, which were received from DSs supporting cumulative acks.
+   * <p>
+   * A DS publishes its updates in CSN order. For each DS, the acknowledged
+   * updates are removed from waitingAcks in CSN order, up to the first update
+   * still waiting for acks, timing out or reporting errors, and a single
+   * cumulative ack is sent for the last removed update. The timeout or error
+   * ack of an update is always sent before the update is removed from
+   * waitingAcks, so a cumulative ack never overtakes it.
+   * <p>
+   * This is called once the acks immediately available have been processed,
+   * so that the acks received in a burst are acknowledged at once to the DS,
+   * and by the assured timer.
+   */
+  void flushAcks()
+  {
+    if (!acksToFlush.compareAndSet(true, false))
     {
-      // Prevent concurrent access from processAck() or AssuredTimeoutTask.run()
-      synchronized (expectedAcksInfo)
+      return;
+    }
+
+    final Map<ServerHandler, CSN> lastAckedCSNs = new HashMap<>();
+    final Collection<ServerHandler> blockedRequesters = new ArrayList<>();
+    for (Map.Entry<CSN, ExpectedAcksInfo> entry : waitingAcks.entrySet())
+    {
+      final ExpectedAcksInfo expectedAcksInfo = entry.getValue();
+      final ServerHandler requester = expectedAcksInfo.getRequesterServer();
+      if (!supportsCumulativeAcks(requester)
+          || blockedRequesters.contains(requester))
       {
-        if (expectedAcksInfo.isCompleted())
-        {
-          // Timeout code is sending a timeout ack, do nothing and let him
-          // remove object from the map
-          return;
-        }
-        /**
-         *
-         * If this is the last ack we were waiting from, immediately create and
-         * send the final ack to the original server
-         */
-        if (expectedAcksInfo.processReceivedAck(ackingServer, ack))
-        {
-          // Remove the object from the map as no more needed
-          waitingAcks.remove(csn);
-          AckMsg finalAck = expectedAcksInfo.createAck(false);
-          ServerHandler origServer = expectedAcksInfo.getRequesterServer();
-          try
-          {
-            origServer.send(finalAck);
-          } catch (IOException e)
-          {
-            /**
-             * An error happened trying the send back an ack to the server.
-             * Log an error and close the connection to this server.
-             */
-            LocalizableMessageBuilder mb = new LocalizableMessageBuilder();
-            mb.append(ERR_RS_ERROR_SENDING_ACK.get(
-                localReplicationServer.getServerId(), origServer.getServerId(), csn, baseDN));
-            mb.append(" ");
-            mb.append(stackTraceToSingleLineString(e));
-            logger.error(mb.toMessage());
-            stopServer(origServer, false);
-          }
-          // Mark the ack info object as completed to prevent potential timeout
-          // code parallel run
-          expectedAcksInfo.completed();
-        }
+        continue;
+      }
+      if (!expectedAcksInfo.isAcknowledged())
+      {
+        // Following updates must wait for this one
+        blockedRequesters.add(requester);
+      }
+      else if (waitingAcks.remove(entry.getKey(), expectedAcksInfo))
+      {
+        lastAckedCSNs.put(requester, entry.getKey());
       }
+      // else concurrently flushed
+    }
+
+    for (Map.Entry<ServerHandler, CSN> entry : lastAckedCSNs.entrySet())
+    {
+      final CSN csn = entry.getValue();
+      sendAck(entry.getKey(), AckMsg.newCumulativeAck(csn), csn);
+    }
+  }
+
+  private void sendAck(ServerHandler origServer, AckMsg finalAck, CSN csn)
+  {
+    try
+    {
+      origServer.send(finalAck);
+    } catch (IOException e)
+    {
+      /**
+       * An error happened trying the send back an ack to the server.
+       * Log an error and close the connection to this server.
+       */
+      LocalizableMessageBuilder mb = new LocalizableMessageBuilder();
+      mb.append(ERR_RS_ERROR_SENDING_ACK.get(
+          localReplicationServer.getServerId(), origServer.getServerId(), csn, baseDN));
+      mb.append(" ");
+      mb.append(stackTraceToSingleLineString(e));
+      logger.error(mb.toMessage());
+      stopServer(origServer, false);
     }
-    /* Else the timeout occurred for the update matching this CSN
-     * and the ack with timeout error has probably already been sent.
-     */
   }
 
   /**
@@ -856,7 +1050,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
    * eligible servers. This basically sends a timeout ack (with any additional
    * error info) to the original server that sent an assured update message.
    */
-  private class AssuredTimeoutTask extends TimerTask
+  private class AssuredTimeoutTask implements Runnable
   {
     private CSN csn;
 
@@ -877,83 +1071,64 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     {
       ExpectedAcksInfo expectedAcksInfo = waitingAcks.get(csn);
 
-      if (expectedAcksInfo != null)
+      // If already completed, processAck() code is sending the ack, do nothing
+      // and let him remove object from the map
+      if (expectedAcksInfo != null && expectedAcksInfo.complete(true))
       {
-        synchronized (expectedAcksInfo)
+        // Create the timeout ack and send him to the server the assured
+        // update message came from
+        AckMsg finalAck = expectedAcksInfo.createAck(true);
+        ServerHandler origServer = expectedAcksInfo.getRequesterServer();
+        if (logger.isTraceEnabled())
         {
-          if (expectedAcksInfo.isCompleted())
-          {
-            // processAck() code is sending the ack, do nothing and let him
-            // remove object from the map
-            return;
-          }
-          // Remove the object from the map as no more needed
-          waitingAcks.remove(csn);
-          // Create the timeout ack and send him to the server the assured
-          // update message came from
-          AckMsg finalAck = expectedAcksInfo.createAck(true);
-          ServerHandler origServer = expectedAcksInfo.getRequesterServer();
-          if (logger.isTraceEnabled())
-          {
-            debug("sending timeout for assured update with CSN " + csn
-                + " to serverId=" + origServer.getServerId());
-          }
-          try
-          {
-            origServer.send(finalAck);
-          } catch (IOException e)
-          {
-            /**
-             * An error happened trying the send back an ack to the server.
-             * Log an error and close the connection to this server.
-             */
-            LocalizableMessageBuilder mb = new LocalizableMessageBuilder();
-            mb.append(ERR_RS_ERROR_SENDING_ACK.get(
-                localReplicationServer.getServerId(), origServer.getServerId(), csn, baseDN));
-            mb.append(" ");
-            mb.append(stackTraceToSingleLineString(e));
-            logger.error(mb.toMessage());
-            stopServer(origServer, false);
-          }
-          // Increment assured counters
-          boolean safeRead =
-              expectedAcksInfo instanceof SafeReadExpectedAcksInfo;
-          if (safeRead)
-          {
-            origServer.incrementAssuredSrReceivedUpdatesTimeout();
-          }
-          else if (origServer.isDataServer())
+          debug("sending timeout for assured update with CSN " + csn
+              + " to serverId=" + origServer.getServerId());
+        }
+        sendAck(origServer, finalAck, csn);
+        // Remove the object from the map as no more needed, only once the
+        // timeout ack is sent (see flushAcks())
+        waitingAcks.remove(csn);
+        if (supportsCumulativeAcks(origServer))
+        {
+          // Acks of the following updates may have been waiting for this one
+          acksToFlush.set(true);
+        }
+
+        // Increment assured counters
+        boolean safeRead =
+            expectedAcksInfo instanceof SafeReadExpectedAcksInfo;
+        if (safeRead)
+        {
+          origServer.incrementAssuredSrReceivedUpdatesTimeout();
+        }
+        else if (origServer.isDataServer())
+        {
+          origServer.incrementAssuredSdReceivedUpdatesTimeout();
+        }
+        //   retrieve expected servers in timeout to increment their counter
+        List<Integer> serversInTimeout = expectedAcksInfo.getTimeoutServers();
+        for (Integer serverId : serversInTimeout)
+        {
+          ServerHandler expectedDSInTimeout = connectedDSs.get(serverId);
+          ServerHandler expectedRSInTimeout = connectedRSs.get(serverId);
+          if (expectedDSInTimeout != null)
           {
-            origServer.incrementAssuredSdReceivedUpdatesTimeout();
-          }
-          //   retrieve expected servers in timeout to increment their counter
-          List<Integer> serversInTimeout = expectedAcksInfo.getTimeoutServers();
-          for (Integer serverId : serversInTimeout)
+            if (safeRead)
+            {
+              expectedDSInTimeout.incrementAssuredSrSentUpdatesTimeout();
+            } // else no SD update sent to a DS (meaningless)
+          } else if (expectedRSInTimeout != null)
           {
-            ServerHandler expectedDSInTimeout = connectedDSs.get(serverId);
-            ServerHandler expectedRSInTimeout = connectedRSs.get(serverId);
-            if (expectedDSInTimeout != null)
+            if (safeRead)
             {
-              if (safeRead)
-              {
-                expectedDSInTimeout.incrementAssuredSrSentUpdatesTimeout();
-              } // else no SD update sent to a DS (meaningless)
-            } else if (expectedRSInTimeout != null)
+              expectedRSInTimeout.incrementAssuredSrSentUpdatesTimeout();
+            }
+            else
             {
-              if (safeRead)
-              {
-                expectedRSInTimeout.incrementAssuredSrSentUpdatesTimeout();
-              }
-              else
-              {
-                expectedRSInTimeout.incrementAssuredSdSentUpdatesTimeout();
-              }
+              expectedRSInTimeout.incrementAssuredSdSentUpdatesTimeout();
             }
-            // else server disappeared ? Let's forget about it.
           }
-          // Mark the ack info object as completed to prevent potential
-          // processAck() code parallel run
-          expectedAcksInfo.completed();
+          // else server disappeared ? Let's forget about it.
         }
       }
     }
@@ -1586,7 +1761,7 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     DirectoryServer.deregisterMonitorProvider(this);
 
     // Terminate the assured timer
-    assuredTimeoutTimer.cancel();
+    assuredTimeoutWheel.shutdown();
 
     stopAllServers(true);
     statusAnalyzer.shutdown();
@@ -2251,6 +2426,10 @@ public class ReplicationServerDomain extends MonitorProvider<MonitorProviderCfg>
     attributes.add("domain-name", baseDN);
     attributes.add("generation-id", baseDN + " " + generationId);
     attributes.add("missing-changes", getDomainMonitorData().getMissingChangesRS(serverId));
+    if (assuredAckLatency.getCount() > 0)
+    {
+      attributes.add("assured-ack-latency-histogram", assuredAckLatency.toMonitorValues());
+    }
     return attributes;
   }
 
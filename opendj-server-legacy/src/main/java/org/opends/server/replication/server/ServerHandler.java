@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -1102,6 +1103,14 @@ public abstract class ServerHandler extends MessageHandler
     replicationServerDomain.processAck(ack, this);
   }
 
+  /**
+   * Sends the acks batched while processing the received acks.
+   */
+  void flushAcks()
+  {
+    replicationServerDomain.flushAcks();
+  }
+
   /**
    * Get the reference generation id (associated with the changes in the db).
    * @return the reference generation id.
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -94,6 +95,11 @@ public class ServerReader extends DirectoryThread
           {
             handler.checkWindow();
             handler.processAck((AckMsg) msg);
+            if (!session.hasAvailableInput())
+            {
+              // No more acks to process right now: send the batched acks
+              handler.flushAcks();
+            }
           }
           else if (msg instanceof UpdateMsg)
           {
@@ -0,0 +1,187 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.opends.server.api.DirectoryThread;
+
+/**
+ * Hashed timer wheel running the timeout tasks of the assured updates a
+ * replication server domain is waiting acknowledgments for.
+ * <p>
+ * Contrary to {@link java.util.Timer}, scheduling a task is a lock-free
+ * constant time operation: the task is queued and moved to its wheel slot by
+ * the wheel thread on its next tick. Tasks are never cancelled, the tasks of
+ * the updates acknowledged in time simply find there is nothing left to do
+ * when they run. This removes the need to purge the timer queue.
+ * <p>
+ * Tasks run on the wheel thread with a precision of one tick. A tick task can
+ * also be provided, which is run on the wheel thread after each tick.
+ */
+final class TimeoutWheel extends DirectoryThread
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Number of slots of the wheel, must be a power of 2. */
+  private static final int WHEEL_SIZE = 512;
+
+  /** A task scheduled on the wheel. */
+  private static final class Timeout
+  {
+    private final Runnable task;
+    private final long deadlineNanos;
+    private long deadlineTick;
+
+    private Timeout(Runnable task, long deadlineNanos)
+    {
+      this.task = task;
+      this.deadlineNanos = deadlineNanos;
+    }
+  }
+
+  private final long tickNanos;
+  private final Runnable tickTask;
+  /** Tasks scheduled since the last tick, not yet moved to their wheel slot. */
+  private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+  /** The wheel slots, only accessed by the wheel thread. */
+  private final List<LinkedList<Timeout>> wheel = new ArrayList<>(WHEEL_SIZE);
+  private final long startNanos = System.nanoTime();
+  /** The current tick, only accessed by the wheel thread. */
+  private long tick;
+
+  /**
+   * Creates a new timer wheel. The wheel thread must be started before any
+   * scheduled task can run.
+   *
+   * @param threadName
+   *          the name of the wheel thread
+   * @param tickMillis
+   *          the duration of a tick, in milliseconds
+   * @param tickTask
+   *          the task to run after each tick, may be null
+   */
+  TimeoutWheel(String threadName, long tickMillis, Runnable tickTask)
+  {
+    super(threadName);
+    this.tickNanos = MILLISECONDS.toNanos(tickMillis);
+    this.tickTask = tickTask;
+    for (int i = 0; i < WHEEL_SIZE; i++)
+    {
+      wheel.add(new LinkedList<Timeout>());
+    }
+    setDaemon(true);
+  }
+
+  /**
+   * Schedules a task to run after the provided delay.
+   *
+   * @param task
+   *          the task to run
+   * @param delayMillis
+   *          the delay after which to run the task, in milliseconds
+   */
+  void schedule(Runnable task, long delayMillis)
+  {
+    newTimeouts.add(new Timeout(task, System.nanoTime() + MILLISECONDS.toNanos(delayMillis)));
+  }
+
+  @Override
+  public void run()
+  {
+    try
+    {
+      while (!isShutdownInitiated())
+      {
+        waitForNextTick();
+        transferNewTimeouts();
+        expireTimeouts(wheel.get((int) (tick & (WHEEL_SIZE - 1))));
+        tick++;
+        if (tickTask != null)
+        {
+          runTask(tickTask);
+        }
+      }
+    }
+    catch (InterruptedException e)
+    {
+      // Forcefully stopped.
+    }
+  }
+
+  private void waitForNextTick() throws InterruptedException
+  {
+    final long sleepNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+    if (sleepNanos > 0)
+    {
+      NANOSECONDS.sleep(sleepNanos);
+    }
+  }
+
+  private void transferNewTimeouts()
+  {
+    Timeout timeout;
+    while ((timeout = newTimeouts.poll()) != null)
+    {
+      // The slot of a tick is processed at the end of the tick.
+      // Tasks whose deadline already passed go to the current slot
+      timeout.deadlineTick = Math.max(tick, (timeout.deadlineNanos - startNanos) / tickNanos);
+      wheel.get((int) (timeout.deadlineTick & (WHEEL_SIZE - 1))).add(timeout);
+    }
+  }
+
+  private void expireTimeouts(LinkedList<Timeout> slot)
+  {
+    for (Iterator<Timeout> it = slot.iterator(); it.hasNext();)
+    {
+      final Timeout timeout = it.next();
+      // Tasks with a deadline in a later round of the wheel stay in the slot
+      if (timeout.deadlineTick <= tick)
+      {
+        it.remove();
+        runTask(timeout.task);
+      }
+    }
+  }
+
+  private void runTask(Runnable task)
+  {
+    try
+    {
+      task.run();
+    }
+    catch (RuntimeException e)
+    {
+      // Do not let a failing task stop the wheel
+      logger.traceException(e);
+    }
+  }
+
+  /** Stops the wheel thread. The tasks not run yet are discarded. */
+  void shutdown()
+  {
+    initiateShutdown();
+    interrupt();
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.opends.server.replication.protocol.UpdateMsg;
+
+/**
+ * Sequence of the updates routed by a replication server domain.
+ * <p>
+ * Each update received by the domain is appended exactly once to this sequence and every
+ * {@link MessageHandler} consumes it through its own cursor, instead of having the domain copy the
+ * update into one queue per connected server. Appending does not take any lock: producers claim a
+ * sequence number, then publish the update in the slot of a fixed-size ring. Consumers which fall
+ * more than the ring capacity behind have their updates overwritten and must fall back to reading
+ * the changelog.
+ * <p>
+ * The updates consumed by all the consumers are cleared from the ring with {@link #trimTo(long)}, so
+ * that the ring does not keep them in memory once the consumers are up to date.
+ */
+class UpdateSequence
+{
+  /** An update appended to the sequence together with what is needed to route it. */
+  static final class RoutedUpdate
+  {
+    private final long sequence;
+    /** The number of bytes of the updates appended before this one. */
+    private final long bytesBefore;
+    private final UpdateMsg updateMsg;
+    private final UpdateMsg notAssuredUpdateMsg;
+    private final List<Integer> assuredServers;
+    private final ServerHandler sourceHandler;
+
+    private RoutedUpdate(long sequence, long bytesBefore, UpdateMsg updateMsg, UpdateMsg notAssuredUpdateMsg,
+        List<Integer> assuredServers, ServerHandler sourceHandler)
+    {
+      this.sequence = sequence;
+      this.bytesBefore = bytesBefore;
+      this.updateMsg = updateMsg;
+      this.notAssuredUpdateMsg = notAssuredUpdateMsg;
+      this.assuredServers = assuredServers;
+      this.sourceHandler = sourceHandler;
+    }
+
+    /**
+     * Returns the position of this update in the sequence.
+     *
+     * @return the position of this update in the sequence
+     */
+    long getSequence()
+    {
+      return sequence;
+    }
+
+    /**
+     * Returns the update as received by the domain.
+     *
+     * @return the update as received by the domain
+     */
+    UpdateMsg getUpdateMsg()
+    {
+      return updateMsg;
+    }
+
+    /**
+     * Returns the update message to send to the provided server: the original one if the server is
+     * expected to acknowledge it, a copy with the assured flag off otherwise.
+     *
+     * @param serverId
+     *          the server the update is sent to
+     * @return the update message to send to the provided server
+     */
+    UpdateMsg getUpdateMsgFor(int serverId)
+    {
+      if (notAssuredUpdateMsg != null && !assuredServers.contains(serverId))
+      {
+        return notAssuredUpdateMsg;
+      }
+      return updateMsg;
+    }
+
+    /**
+     * Returns the handler of the server which sent this update.
+     *
+     * @return the handler of the server which sent this update
+     */
+    ServerHandler getSourceHandler()
+    {
+      return sourceHandler;
+    }
+
+    @Override
+    public String toString()
+    {
+      return sequence + ":" + updateMsg.getCSN();
+    }
+  }
+
+  private final AtomicReferenceArray<RoutedUpdate> slots;
+  private final int mask;
+  /** Next sequence number to be claimed by a producer. */
+  private final AtomicLong next = new AtomicLong();
+  /** Number of bytes of all the updates appended so far. */
+  private final AtomicLong appendedBytes = new AtomicLong();
+  /** Sequence number before which all the updates have been cleared from the ring. */
+  private final AtomicLong trimmed = new AtomicLong();
+  /** Number of consumers waiting for an update to be published. */
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final Object publishLock = new Object();
+
+  /**
+   * Creates a sequence keeping at least the provided number of updates.
+   *
+   * @param minCapacity
+   *          the minimum number of updates kept by the sequence before they are overwritten
+   */
+  UpdateSequence(int minCapacity)
+  {
+    int capacity = Integer.highestOneBit(Math.max(minCapacity, 2) - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(capacity);
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Returns the number of updates kept by this sequence before they are overwritten.
+   *
+   * @return the number of updates kept by this sequence
+   */
+  int getCapacity()
+  {
+    return slots.length();
+  }
+
+  /**
+   * Returns the sequence number that the next appended update will get. All the updates before it
+   * have been claimed, although they may not be published yet.
+   *
+   * @return the sequence number that the next appended update will get
+   */
+  long getHead()
+  {
+    return next.get();
+  }
+
+  /**
+   * Appends an update to this sequence and wakes up the consumers waiting for it.
+   *
+   * @param updateMsg
+   *          the update received by the domain
+   * @param notAssuredUpdateMsg
+   *          the copy of the update with the assured flag off, or {@code null} if the update is not
+   *          assured
+   * @param assuredServers
+   *          the servers expected to acknowledge the update
+   * @param sourceHandler
+   *          the handler of the server which sent the update
+   * @return the sequence number of the appended update
+   */
+  long append(UpdateMsg updateMsg, UpdateMsg notAssuredUpdateMsg, List<Integer> assuredServers,
+      ServerHandler sourceHandler)
+  {
+    final long sequence = next.getAndIncrement();
+    final long bytesBefore = appendedBytes.getAndAdd(updateMsg.size());
+    slots.set(index(sequence),
+        new RoutedUpdate(sequence, bytesBefore, updateMsg, notAssuredUpdateMsg, assuredServers, sourceHandler));
+    if (waiters.get() > 0)
+    {
+      wakeUpConsumers();
+    }
+    return sequence;
+  }
+
+  /**
+   * Returns the update published at the provided sequence number.
+   *
+   * @param sequence
+   *          the sequence number of the update to read
+   * @return the update, or {@code null} if it is not published yet or has been overwritten, which
+   *         {@link #isOverwritten(long)} tells apart
+   */
+  RoutedUpdate get(long sequence)
+  {
+    final RoutedUpdate update = slots.get(index(sequence));
+    return update != null && update.sequence == sequence ? update : null;
+  }
+
+  /**
+   * Returns the number of bytes of the provided update and of all the updates appended after it.
+   * <p>
+   * Concurrent producers may account for their updates in a different order than they claim
+   * their sequence numbers, so the returned value is an approximation.
+   *
+   * @param update
+   *          an update of this sequence
+   * @return the number of bytes of the updates from the provided one up to the head of this sequence
+   */
+  long getBytesFrom(RoutedUpdate update)
+  {
+    return appendedBytes.get() - update.bytesBefore;
+  }
+
+  /**
+   * Returns whether the update at the provided sequence number has been overwritten by a more
+   * recent one, or cleared by {@link #trimTo(long)}.
+   *
+   * @param sequence
+   *          the sequence number of the update
+   * @return {@code true} if the update is no longer available in this sequence
+   */
+  boolean isOverwritten(long sequence)
+  {
+    final RoutedUpdate update = slots.get(index(sequence));
+    return (update != null && update.sequence > sequence)
+        || next.get() - sequence > slots.length()
+        || sequence < trimmed.get();
+  }
+
+  /**
+   * Returns the sequence number before which all the updates have been cleared from this sequence.
+   *
+   * @return the sequence number before which all the updates have been cleared
+   */
+  long getTrimmedPosition()
+  {
+    return trimmed.get();
+  }
+
+  /**
+   * Clears the updates before the provided sequence number, which all the consumers have consumed.
+   *
+   * @param sequence
+   *          the sequence number before which the updates are no longer needed
+   */
+  void trimTo(long sequence)
+  {
+    long from = trimmed.get();
+    while (from < sequence)
+    {
+      if (trimmed.compareAndSet(from, sequence))
+      {
+        for (long position = Math.max(from, sequence - slots.length()); position < sequence; position++)
+        {
+          final int index = index(position);
+          final RoutedUpdate update = slots.get(index);
+          if (update != null && update.sequence == position)
+          {
+            slots.compareAndSet(index, update, null);
+          }
+        }
+        return;
+      }
+      from = trimmed.get();
+    }
+  }
+
+  /**
+   * Waits until the update at the provided sequence number is published, the timeout expires or
+   * the consumers are woken up.
+   *
+   * @param sequence
+   *          the sequence number of the awaited update
+   * @param timeoutMillis
+   *          the maximum time to wait in milliseconds
+   * @throws InterruptedException
+   *           if the current thread is interrupted while waiting
+   */
+  void await(long sequence, long timeoutMillis) throws InterruptedException
+  {
+    waiters.incrementAndGet();
+    try
+    {
+      synchronized (publishLock)
+      {
+        if (get(sequence) == null && !isOverwritten(sequence))
+        {
+          publishLock.wait(timeoutMillis);
+        }
+      }
+    }
+    finally
+    {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /** Wakes up all the consumers waiting for an update, for instance because they are stopping. */
+  void wakeUpConsumers()
+  {
+    synchronized (publishLock)
+    {
+      publishLock.notifyAll();
+    }
+  }
+
+  private int index(long sequence)
+  {
+    return (int) sequence & mask;
+  }
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.api;
 
@@ -116,6 +117,7 @@ public interface DBCursor<T> extends Closeable
     private final KeyMatchingStrategy keyMatchingStrategy;
     private final PositionStrategy positionStrategy;
     private final CSN defaultCSN;
+    private final UpdateMsgFilter filter;
 
     /**
      * Creates options with provided strategies.
@@ -142,10 +144,31 @@ public interface DBCursor<T> extends Closeable
      *          use for replicas which do not have an associated CSN
      */
     public CursorOptions(KeyMatchingStrategy keyMatchingStrategy, PositionStrategy positionStrategy, CSN defaultCSN)
+    {
+      this(keyMatchingStrategy, positionStrategy, defaultCSN, null);
+    }
+
+    /**
+     * Creates options with provided strategies, default CSN and filter.
+     *
+     * @param keyMatchingStrategy
+     *          The key matching strategy
+     * @param positionStrategy
+     *          The position strategy
+     * @param defaultCSN
+     *          When creating a replica DB Cursor, this is the default CSN to
+     *          use for replicas which do not have an associated CSN
+     * @param filter
+     *          The filter used by replica DB cursors to skip the update
+     *          messages which cannot match, {@code null} to return all of them
+     */
+    public CursorOptions(KeyMatchingStrategy keyMatchingStrategy, PositionStrategy positionStrategy, CSN defaultCSN,
+        UpdateMsgFilter filter)
     {
       this.keyMatchingStrategy = keyMatchingStrategy;
       this.positionStrategy = positionStrategy;
       this.defaultCSN = defaultCSN;
+      this.filter = filter;
     }
 
     /**
@@ -178,6 +201,16 @@ public interface DBCursor<T> extends Closeable
       return defaultCSN;
     }
 
+    /**
+     * Returns the filter pushed down to the replica DB cursors.
+     *
+     * @return the filter, or {@code null} if the cursors return all the update messages
+     */
+    public UpdateMsgFilter getFilter()
+    {
+      return filter;
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -188,7 +221,8 @@ public interface DBCursor<T> extends Closeable
         CursorOptions other = (CursorOptions) obj;
         return keyMatchingStrategy == other.keyMatchingStrategy
             && positionStrategy == other.positionStrategy
-            && Objects.equals(defaultCSN, other.defaultCSN);
+            && Objects.equals(defaultCSN, other.defaultCSN)
+            && Objects.equals(filter, other.filter);
       }
       return false;
     }
@@ -201,6 +235,7 @@ public interface DBCursor<T> extends Closeable
       result = prime * result + ((keyMatchingStrategy == null) ? 0 : keyMatchingStrategy.hashCode());
       result = prime * result + ((positionStrategy == null) ? 0 : positionStrategy.hashCode());
       result = prime * result + ((defaultCSN == null) ? 0 : defaultCSN.hashCode());
+      result = prime * result + ((filter == null) ? 0 : filter.hashCode());
       return result;
     }
 
@@ -210,7 +245,8 @@ public interface DBCursor<T> extends Closeable
       return getClass().getSimpleName()
           + " [keyMatchingStrategy=" + keyMatchingStrategy
           + ", positionStrategy=" + positionStrategy
-          + ", defaultCSN=" + defaultCSN + "]";
+          + ", defaultCSN=" + defaultCSN
+          + ", filter=" + filter + "]";
     }
   }
 
@@ -0,0 +1,39 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server.changelog.api;
+
+import org.opends.server.replication.protocol.UpdateMsg;
+
+/**
+ * Filter pushed down to the replica DB cursors, so that they skip the update
+ * messages that cannot match a search before any entry is built from them.
+ * <p>
+ * Implementations are expected to only look at the header of the update
+ * messages (target DN, entryUUID, CSN and message type) which is decoded
+ * without the modifications or attributes carried by the messages.
+ */
+public interface UpdateMsgFilter
+{
+  /**
+   * Indicates whether the provided update message may match.
+   *
+   * @param updateMsg
+   *          the update message read from the changelog
+   * @return {@code false} if the update message can be skipped, {@code true}
+   *         if it may match and must be returned by the cursor
+   */
+  boolean mayMatch(UpdateMsg updateMsg);
+}
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -115,7 +116,7 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
 
   private static final RepositionableCursor<CSN, UpdateMsg> EMPTY_CURSOR = Log.getEmptyCursor();
   private static final DBCursor<UpdateMsg> EMPTY_CURSOR_REPLICA_DB =
-      new FileReplicaDBCursor(EMPTY_CURSOR, null, AFTER_MATCHING_KEY);
+      new FileReplicaDBCursor(EMPTY_CURSOR, null, AFTER_MATCHING_KEY, null);
 
   private final CryptoSuite cryptoSuite;
   /**
@@ -747,7 +748,7 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
     {
       final CSN actualStartCSN = startCSN != null ? startCSN : options.getDefaultCSN();
       final DBCursor<UpdateMsg> cursor = replicaDB.generateCursorFrom(
-          actualStartCSN, options.getKeyMatchingStrategy(), options.getPositionStrategy());
+          actualStartCSN, options.getKeyMatchingStrategy(), options.getPositionStrategy(), options.getFilter());
       final CSN offlineCSN = getOfflineCSN(baseDN, serverId, actualStartCSN);
       final ReplicaId replicaId = ReplicaId.of(baseDN, serverId);
       final ReplicaCursor replicaCursor = new ReplicaCursor(cursor, offlineCSN, replicaId, this);
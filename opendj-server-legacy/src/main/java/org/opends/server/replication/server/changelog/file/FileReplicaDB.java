@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -41,6 +42,7 @@ import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.replication.server.changelog.api.DBCursor;
 import org.opends.server.replication.server.changelog.api.DBCursor.KeyMatchingStrategy;
 import org.opends.server.replication.server.changelog.api.DBCursor.PositionStrategy;
+import org.opends.server.replication.server.changelog.api.UpdateMsgFilter;
 import org.opends.server.replication.server.changelog.file.Log.RepositionableCursor;
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.types.CryptoManagerException;
@@ -206,10 +208,35 @@ class FileReplicaDB
    */
   DBCursor<UpdateMsg> generateCursorFrom(final CSN startCSN, final KeyMatchingStrategy matchingStrategy,
       final PositionStrategy positionStrategy) throws ChangelogException
+  {
+    return generateCursorFrom(startCSN, matchingStrategy, positionStrategy, null);
+  }
+
+  /**
+   * Generate a new {@link DBCursor} that allows to browse the db managed by
+   * this ReplicaDB and starting at the position defined by a given CSN,
+   * skipping the update messages rejected by the provided filter.
+   *
+   * @param startCSN
+   *          The position where the cursor must start. If null, start from the
+   *          oldest CSN
+   * @param matchingStrategy
+   *          Cursor key matching strategy
+   * @param positionStrategy
+   *          Cursor position strategy
+   * @param filter
+   *          The filter of the update messages to return, {@code null} to
+   *          return all of them
+   * @return a new {@link DBCursor} to retrieve update messages.
+   * @throws ChangelogException
+   *           if a database problem happened
+   */
+  DBCursor<UpdateMsg> generateCursorFrom(final CSN startCSN, final KeyMatchingStrategy matchingStrategy,
+      final PositionStrategy positionStrategy, final UpdateMsgFilter filter) throws ChangelogException
   {
     RepositionableCursor<CSN, UpdateMsg> cursor = log.getCursor(startCSN, matchingStrategy, positionStrategy);
     CSN actualStartCSN = (startCSN != null && startCSN.getServerId() == serverId) ? startCSN : null;
-    return new FileReplicaDBCursor(cursor, actualStartCSN, positionStrategy);
+    return new FileReplicaDBCursor(cursor, actualStartCSN, positionStrategy, filter);
   }
 
   /** Shutdown this ReplicaDB. */
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -24,6 +25,7 @@ import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.protocol.UpdateMsg;
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.replication.server.changelog.api.DBCursor;
+import org.opends.server.replication.server.changelog.api.UpdateMsgFilter;
 import org.opends.server.replication.server.changelog.file.Log.RepositionableCursor;
 
 /**
@@ -63,6 +65,9 @@ class FileReplicaDBCursor implements DBCursor<UpdateMsg>
 
   private PositionStrategy positionStrategy;
 
+  /** The filter of the records to return, {@code null} to return all of them. */
+  private final UpdateMsgFilter filter;
+
   /**
    * Creates the cursor from provided log cursor and start CSN.
    *
@@ -74,14 +79,19 @@ class FileReplicaDBCursor implements DBCursor<UpdateMsg>
    * @param positionStrategy
    *          Cursor position strategy, which allow to choose if cursor must
    *          start from the provided CSN or just after the provided CSN.
+   * @param filter
+   *          The filter of the records to return, {@code null} to return all
+   *          of them.
    */
   FileReplicaDBCursor(
       final RepositionableCursor<CSN, UpdateMsg> cursor,
       final CSN startCSN,
-      final PositionStrategy positionStrategy) {
+      final PositionStrategy positionStrategy,
+      final UpdateMsgFilter filter) {
     this.cursor = cursor;
     this.lastNonNullCurrentCSN = startCSN;
     this.positionStrategy = positionStrategy;
+    this.filter = filter;
   }
 
   /** {@inheritDoc} */
@@ -94,6 +104,19 @@ class FileReplicaDBCursor implements DBCursor<UpdateMsg>
   /** {@inheritDoc} */
   @Override
   public boolean next() throws ChangelogException
+  {
+    while (nextRecord())
+    {
+      if (filter == null || filter.mayMatch(nextRecord.getValue()))
+      {
+        return true;
+      }
+      // skipped records still move the restart point forward
+    }
+    return false;
+  }
+
+  private boolean nextRecord() throws ChangelogException
   {
     if (cursor.next())
     {
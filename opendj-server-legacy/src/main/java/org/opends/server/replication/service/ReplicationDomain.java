@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.service;
 
@@ -38,7 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -59,6 +60,7 @@ import org.opends.server.replication.common.AssuredMode;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.CSNGenerator;
 import org.opends.server.replication.common.DSInfo;
+import org.opends.server.replication.common.LatencyHistogram;
 import org.opends.server.replication.common.RSInfo;
 import org.opends.server.replication.common.ServerState;
 import org.opends.server.replication.common.ServerStatus;
@@ -250,9 +252,9 @@ public abstract class ReplicationDomain
   /**
    * This Map is used to store all outgoing assured messages in order
    * to be able to correlate all the coming back acks to the original
-   * operation.
+   * operation. It is sorted by CSN for processing cumulative acks.
    */
-  private final Map<CSN, UpdateMsg> waitingAckMsgs = new ConcurrentHashMap<>();
+  private final ConcurrentSkipListMap<CSN, UpdateMsg> waitingAckMsgs = new ConcurrentSkipListMap<>();
   /**
    * The context related to an import or export being processed
    * Null when none is being processed.
@@ -341,6 +343,11 @@ public abstract class ReplicationDomain
    * String format: &lt;server id&gt;:&lt;number of failed updates&gt;
    */
   private final Map<Integer, Integer> assuredSdServerTimeoutUpdates = new HashMap<>();
+  /**
+   * Round-trip time of the updates sent in Assured Mode, from their sending
+   * to the reception of their ack.
+   */
+  private LatencyHistogram assuredAckLatency = new LatencyHistogram();
 
   /* Status related monitoring fields */
 
@@ -932,7 +939,25 @@ public abstract class ReplicationDomain
   private void receiveAck(AckMsg ack)
   {
     CSN csn = ack.getCSN();
+    if (ack.isCumulative())
+    {
+      // The RS acknowledges at once all our updates up to this CSN
+      for (CSN waitingCSN : waitingAckMsgs.headMap(csn, true).keySet())
+      {
+        if (waitingCSN.getServerId() == csn.getServerId())
+        {
+          receiveAck(waitingCSN, ack);
+        }
+      }
+    }
+    else
+    {
+      receiveAck(csn, ack);
+    }
+  }
 
+  private void receiveAck(CSN csn, AckMsg ack)
+  {
     // Remove the message for pending ack list (this may already make the thread
     // that is waiting for the ack be aware of its reception)
     UpdateMsg update = waitingAckMsgs.remove(csn);
@@ -2867,6 +2892,16 @@ public abstract class ReplicationDomain
     }
   }
 
+  /**
+   * Gets the round-trip time of the updates sent in assured mode, from their
+   * sending to the reception of their ack.
+   * @return The histogram of the round-trip time of the assured updates.
+   */
+  public LatencyHistogram getAssuredAckLatency()
+  {
+    return assuredAckLatency;
+  }
+
   /**
    * Gets the date of the last status change.
    * @return The date of the last status change.
@@ -2903,6 +2938,7 @@ public abstract class ReplicationDomain
     {
       assuredSdServerTimeoutUpdates.clear();
     }
+    assuredAckLatency = new LatencyHistogram();
   }
 
   /*
@@ -3370,6 +3406,10 @@ public abstract class ReplicationDomain
               + getAssuredTimeout() + " ms.");
         }
       }
+      if (!waitingAckMsgs.containsKey(csn))
+      {
+        assuredAckLatency.record(System.currentTimeMillis() - startTime);
+      }
     }
   }
 
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.service;
 
@@ -24,6 +25,7 @@ import java.util.Map.Entry;
 import org.opends.server.api.MonitorData;
 import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
 import org.opends.server.api.MonitorProvider;
+import org.opends.server.replication.common.LatencyHistogram;
 import org.opends.server.replication.service.ReplicationDomain.ImportExportContext;
 
 /**
@@ -121,6 +123,11 @@ public class ReplicationMonitor extends MonitorProvider<MonitorProviderCfg>
     attributes.add("assured-sd-acknowledged-updates", domain.getAssuredSdAcknowledgedUpdates());
     attributes.add("assured-sd-timeout-updates", domain.getAssuredSdTimeoutUpdates());
     addMonitorData(attributes, "assured-sd-server-timeout-updates", domain.getAssuredSdServerTimeoutUpdates());
+    final LatencyHistogram assuredAckLatency = domain.getAssuredAckLatency();
+    if (assuredAckLatency.getCount() > 0)
+    {
+      attributes.add("assured-ack-latency-histogram", assuredAckLatency.toMonitorValues());
+    }
 
     // Status related monitoring fields
     attributes.add("last-status-change-date", domain.getLastStatusChangeDate());
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.tasks;
 
@@ -57,6 +58,8 @@ public class RebuildTask extends Task
   private String tmpDirectory;
   private RebuildMode rebuildMode = RebuildMode.USER_DEFINED;
   private boolean isClearDegradedState;
+  private boolean isOnline;
+  private int maxEntriesPerSecond;
 
   @Override
   public LocalizableMessage getDisplayName()
@@ -88,6 +91,21 @@ public class RebuildTask extends Task
     tmpDirectory = asString(taskEntry, ATTR_REBUILD_TMP_DIRECTORY);
     final String val = asString(taskEntry, ATTR_REBUILD_INDEX_CLEARDEGRADEDSTATE);
     isClearDegradedState = Boolean.parseBoolean(val);
+    isOnline = Boolean.parseBoolean(asString(taskEntry, ATTR_REBUILD_ONLINE));
+    final String maxRate = asString(taskEntry, ATTR_REBUILD_MAX_ENTRIES_PER_SECOND);
+    try
+    {
+      maxEntriesPerSecond = maxRate != null ? Integer.parseInt(maxRate) : 0;
+    }
+    catch (NumberFormatException e)
+    {
+      maxEntriesPerSecond = -1;
+    }
+    if (maxEntriesPerSecond < 0)
+    {
+      throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM,
+          ERR_TASK_INDEXREBUILD_INVALID_MAX_ENTRIES_PER_SECOND.get(maxRate));
+    }
     indexes = TaskUtils.getMultiValueString(taskEntry.getAllAttributes(ATTR_REBUILD_INDEX));
 
     rebuildMode = getRebuildMode(indexes);
@@ -154,6 +172,8 @@ public class RebuildTask extends Task
     }
     rebuildConfig.setTmpDirectory(tmpDirectory);
     rebuildConfig.setRebuildMode(rebuildMode);
+    rebuildConfig.setOnline(isOnline);
+    rebuildConfig.setMaxEntriesPerSecond(maxEntriesPerSecond);
 
     final LocalBackend<?> backend =
         getServerContext().getBackendConfigManager().getLocalBackendWithBaseDN(rebuildConfig.getBaseDN());
@@ -168,6 +188,12 @@ public class RebuildTask extends Task
       return TaskState.STOPPED_BY_ERROR;
     }
 
+    if (isOnline)
+    {
+      // The backend remains enabled and keeps its lock while the indexes are rebuilt.
+      return rebuildOnline(backend, rebuildConfig);
+    }
+
     // If we are rebuilding one or more system indexes, we have
     // to acquire exclusive lock. Shared lock in 'cleardegradedstate' mode.
     String lockFile = LockFileManager.getBackendLockFileName(backend);
@@ -290,4 +316,19 @@ public class RebuildTask extends Task
 
     return returnCode;
   }
+
+  private TaskState rebuildOnline(LocalBackend<?> backend, RebuildConfig rebuildConfig)
+  {
+    try
+    {
+      backend.rebuildBackend(rebuildConfig, DirectoryServer.getInstance().getServerContext());
+      return TaskState.COMPLETED_SUCCESSFULLY;
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_REBUILDINDEX_ERROR_DURING_REBUILD, getExceptionMessage(e));
+      return TaskState.STOPPED_BY_ERROR;
+    }
+  }
 }
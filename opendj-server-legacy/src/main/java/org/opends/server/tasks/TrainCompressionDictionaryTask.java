@@ -0,0 +1,104 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.tasks;
+
+import static org.forgerock.opendj.ldap.ResultCode.*;
+import static org.opends.messages.TaskMessages.*;
+import static org.opends.server.config.ConfigConstants.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.opends.server.api.LocalBackend;
+import org.opends.server.backends.pluggable.BackendImpl;
+import org.opends.server.backends.task.Task;
+import org.opends.server.backends.task.TaskState;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.types.Entry;
+
+/**
+ * This class provides an implementation of a Directory Server task that trains a new dictionary for compressing the
+ * entries of a pluggable backend from a sample of its entries, then re-encodes the existing entries with the new
+ * dictionary while the backend remains online.
+ */
+public class TrainCompressionDictionaryTask extends Task
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The default maximum number of entries used for training the dictionary. */
+  private static final int DEFAULT_SAMPLE_SIZE = 1000;
+
+  private String backendID;
+  private int sampleSize;
+  private BackendImpl<?> backend;
+
+  @Override
+  public LocalizableMessage getDisplayName()
+  {
+    return INFO_TASK_TRAIN_COMPRESSION_DICTIONARY_NAME.get();
+  }
+
+  @Override
+  public void initializeTask() throws DirectoryException
+  {
+    if (TaskState.isDone(getTaskState()))
+    {
+      return;
+    }
+
+    final Entry taskEntry = getTaskEntry();
+    backendID = TaskUtils.getSingleValueString(
+        taskEntry.getAllAttributes(ATTR_TASK_TRAIN_COMPRESSION_DICTIONARY_BACKEND_ID));
+    sampleSize = TaskUtils.getSingleValueInteger(
+        taskEntry.getAllAttributes(ATTR_TASK_TRAIN_COMPRESSION_DICTIONARY_SAMPLE_SIZE), DEFAULT_SAMPLE_SIZE);
+    if (sampleSize < 1)
+    {
+      throw new DirectoryException(UNWILLING_TO_PERFORM,
+          ERR_TASK_TRAIN_COMPRESSION_DICTIONARY_INVALID_SAMPLE_SIZE.get(sampleSize));
+    }
+
+    final LocalBackend<?> localBackend = getServerContext().getBackendConfigManager().getLocalBackendById(backendID);
+    if (localBackend == null)
+    {
+      throw new DirectoryException(NO_SUCH_OBJECT,
+          ERR_TASK_TRAIN_COMPRESSION_DICTIONARY_NO_SUCH_BACKEND.get(backendID));
+    }
+    if (!(localBackend instanceof BackendImpl))
+    {
+      throw new DirectoryException(UNWILLING_TO_PERFORM,
+          ERR_TASK_TRAIN_COMPRESSION_DICTIONARY_UNSUPPORTED_BACKEND.get(backendID));
+    }
+    backend = (BackendImpl<?>) localBackend;
+  }
+
+  @Override
+  protected TaskState runTask()
+  {
+    logger.trace("Train compression dictionary task is starting on backend %s with a sample of %d entries",
+        backendID, sampleSize);
+    try
+    {
+      backend.trainCompressionDictionary(sampleSize);
+      return TaskState.COMPLETED_SUCCESSFULLY;
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      logger.error(ERR_TASK_TRAIN_COMPRESSION_DICTIONARY_FAILED, backendID, getExceptionMessage(e));
+      return TaskState.STOPPED_BY_ERROR;
+    }
+  }
+}
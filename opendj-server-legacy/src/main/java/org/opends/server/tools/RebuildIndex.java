@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.tools;
 
@@ -51,6 +52,7 @@ import org.opends.server.util.cli.LDAPConnectionArgumentParser;
 
 import com.forgerock.opendj.cli.ArgumentException;
 import com.forgerock.opendj.cli.BooleanArgument;
+import com.forgerock.opendj.cli.IntegerArgument;
 import com.forgerock.opendj.cli.StringArgument;
 
 /**
@@ -71,6 +73,8 @@ public class RebuildIndex extends TaskTool
   private BooleanArgument rebuildAll;
   private BooleanArgument rebuildDegraded;
   private BooleanArgument clearDegradedState;
+  private BooleanArgument online;
+  private IntegerArgument maxEntriesPerSecond;
 
   private final LDAPConnectionArgumentParser argParser = createArgParser(
       "org.opends.server.tools.RebuildIndex",
@@ -195,6 +199,18 @@ public class RebuildIndex extends TaskTool
       return 1;
     }
 
+    if (online.isPresent() && runOffline())
+    {
+      argParser.displayMessageAndUsageReference(err, ERR_REBUILDINDEX_ONLINE_REQUIRES_TASK.get());
+      return 1;
+    }
+
+    if (maxEntriesPerSecond.isPresent() && !online.isPresent())
+    {
+      argParser.displayMessageAndUsageReference(err, ERR_REBUILDINDEX_MAX_ENTRIES_PER_SECOND_REQUIRES_ONLINE.get());
+      return 1;
+    }
+
     // Checks the version - if upgrade required, the tool is unusable
     try
     {
@@ -260,6 +276,17 @@ public class RebuildIndex extends TaskTool
             BooleanArgument.builder("clearDegradedState")
                     .description(INFO_REBUILDINDEX_DESCRIPTION_CLEAR_DEGRADED_STATE.get())
                     .buildAndAddToParser(argParser);
+    online =
+            BooleanArgument.builder("online")
+                    .description(INFO_REBUILDINDEX_DESCRIPTION_ONLINE.get())
+                    .buildAndAddToParser(argParser);
+    maxEntriesPerSecond =
+            IntegerArgument.builder("maxEntriesPerSecond")
+                    .description(INFO_REBUILDINDEX_DESCRIPTION_MAX_ENTRIES_PER_SECOND.get())
+                    .lowerBound(0)
+                    .defaultValue(0)
+                    .valuePlaceholder(INFO_REBUILDINDEX_MAX_ENTRIES_PER_SECOND_PLACEHOLDER.get())
+                    .buildAndAddToParser(argParser);
     tmpDirectory =
             StringArgument.builder("tmpdirectory")
                     .description(INFO_REBUILDINDEX_DESCRIPTION_TEMP_DIRECTORY.get())
@@ -623,6 +650,16 @@ public class RebuildIndex extends TaskTool
     {
       addLdapAttribute(attributes, ATTR_REBUILD_INDEX_CLEARDEGRADEDSTATE, "true");
     }
+
+    if (hasNonDefaultValue(online))
+    {
+      addLdapAttribute(attributes, ATTR_REBUILD_ONLINE, "true");
+    }
+
+    if (maxEntriesPerSecond.isPresent())
+    {
+      addLdapAttribute(attributes, ATTR_REBUILD_MAX_ENTRIES_PER_SECOND, maxEntriesPerSecond.getValue());
+    }
   }
 
   private void addLdapAttribute(List<RawAttribute> attributes, String attrType, String attrValue)
@@ -13,12 +13,16 @@
  *
  * Copyright 2006-2008 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
 import java.util.Collection;
+import java.util.List;
 
+import org.forgerock.opendj.ldap.Assertion;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.DecodeException;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.MatchingRule;
@@ -37,6 +41,54 @@ public abstract class AbstractAttribute implements Attribute
     // No implementation required.
   }
 
+  /**
+   * Indicates whether this attribute has a value matching the provided assertion, already built with
+   * the equality matching rule of this attribute type. This allows search filter matchers to build the
+   * assertion once for all the entries they are applied to. The default implementation ignores the
+   * assertion and calls {@link #matchesEqualityAssertion(ByteString)}.
+   */
+  ConditionResult matchesEqualityAssertion(Assertion assertion, ByteString assertionValue)
+  {
+    return matchesEqualityAssertion(assertionValue);
+  }
+
+  /**
+   * Same as {@link #greaterThanOrEqualTo(ByteString)}, with an assertion already built with the ordering
+   * matching rule of this attribute type.
+   */
+  ConditionResult greaterThanOrEqualTo(Assertion assertion, ByteString assertionValue)
+  {
+    return greaterThanOrEqualTo(assertionValue);
+  }
+
+  /**
+   * Same as {@link #lessThanOrEqualTo(ByteString)}, with an assertion already built with the ordering
+   * matching rule of this attribute type.
+   */
+  ConditionResult lessThanOrEqualTo(Assertion assertion, ByteString assertionValue)
+  {
+    return lessThanOrEqualTo(assertionValue);
+  }
+
+  /**
+   * Same as {@link #approximatelyEqualTo(ByteString)}, with an assertion already built with the approximate
+   * matching rule of this attribute type.
+   */
+  ConditionResult approximatelyEqualTo(Assertion assertion, ByteString assertionValue)
+  {
+    return approximatelyEqualTo(assertionValue);
+  }
+
+  /**
+   * Same as {@link #matchesSubstring(ByteString, List, ByteString)}, with an assertion already built with the
+   * substring matching rule of this attribute type.
+   */
+  ConditionResult matchesSubstring(Assertion assertion, ByteString subInitial, List<ByteString> subAny,
+      ByteString subFinal)
+  {
+    return matchesSubstring(subInitial, subAny, subFinal);
+  }
+
   @Override
   public boolean containsAll(Collection<?> values)
   {
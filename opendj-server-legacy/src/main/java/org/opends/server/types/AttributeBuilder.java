@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -142,7 +143,17 @@ public final class AttributeBuilder implements Iterable<ByteString>
         logger.traceException(e);
         return ConditionResult.UNDEFINED;
       }
+      return approximatelyEqualTo(matchingRule, assertion);
+    }
 
+    @Override
+    final ConditionResult approximatelyEqualTo(Assertion assertion, ByteString assertionValue)
+    {
+      return approximatelyEqualTo(getAttributeType().getApproximateMatchingRule(), assertion);
+    }
+
+    private ConditionResult approximatelyEqualTo(MatchingRule matchingRule, Assertion assertion)
+    {
       ConditionResult result = ConditionResult.FALSE;
       for (AttributeValue v : values)
       {
@@ -176,7 +187,19 @@ public final class AttributeBuilder implements Iterable<ByteString>
       try
       {
         MatchingRule eqRule = getAttributeType().getEqualityMatchingRule();
-        final Assertion assertion = eqRule.getAssertion(assertionValue);
+        return matchesEqualityAssertion(eqRule.getAssertion(assertionValue), assertionValue);
+      }
+      catch (DecodeException e)
+      {
+        return ConditionResult.UNDEFINED;
+      }
+    }
+
+    @Override
+    final ConditionResult matchesEqualityAssertion(Assertion assertion, ByteString assertionValue)
+    {
+      try
+      {
         for (AttributeValue value : values)
         {
           if (assertion.matches(value.getNormalizedValue()).toBoolean())
@@ -217,7 +240,23 @@ public final class AttributeBuilder implements Iterable<ByteString>
         logger.traceException(e);
         return ConditionResult.UNDEFINED;
       }
+      return matchesOrderingAssertion(matchingRule, assertion);
+    }
+
+    @Override
+    final ConditionResult greaterThanOrEqualTo(Assertion assertion, ByteString assertionValue)
+    {
+      return matchesOrderingAssertion(getAttributeType().getOrderingMatchingRule(), assertion);
+    }
 
+    @Override
+    final ConditionResult lessThanOrEqualTo(Assertion assertion, ByteString assertionValue)
+    {
+      return matchesOrderingAssertion(getAttributeType().getOrderingMatchingRule(), assertion);
+    }
+
+    private ConditionResult matchesOrderingAssertion(MatchingRule matchingRule, Assertion assertion)
+    {
       ConditionResult result = ConditionResult.FALSE;
       for (AttributeValue v : values)
       {
@@ -272,28 +311,7 @@ public final class AttributeBuilder implements Iterable<ByteString>
         logger.traceException(e);
         return ConditionResult.UNDEFINED;
       }
-
-      ConditionResult result = ConditionResult.FALSE;
-      for (AttributeValue v : values)
-      {
-        try
-        {
-          if (assertion.matches(matchingRule.normalizeAttributeValue(v.getValue())).toBoolean())
-          {
-            return ConditionResult.TRUE;
-          }
-        }
-        catch (Exception e)
-        {
-          logger.traceException(e);
-
-          // We could not normalize one of the attribute values.
-          // If we cannot find a definite match, then we should return "undefined".
-          result = ConditionResult.UNDEFINED;
-        }
-      }
-
-      return result;
+      return matchesOrderingAssertion(matchingRule, assertion);
     }
 
 
@@ -318,7 +336,18 @@ public final class AttributeBuilder implements Iterable<ByteString>
         logger.traceException(e);
         return ConditionResult.UNDEFINED;
       }
+      return matchesSubstring(matchingRule, assertion);
+    }
+
+    @Override
+    final ConditionResult matchesSubstring(Assertion assertion, ByteString subInitial, List<ByteString> subAny,
+        ByteString subFinal)
+    {
+      return matchesSubstring(getAttributeType().getSubstringMatchingRule(), assertion);
+    }
 
+    private ConditionResult matchesSubstring(MatchingRule matchingRule, Assertion assertion)
+    {
       ConditionResult result = ConditionResult.FALSE;
       for (AttributeValue value : values)
       {
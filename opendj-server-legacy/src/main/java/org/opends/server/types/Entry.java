@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -3342,6 +3343,52 @@ public class Entry
   public static Entry decode(ByteSequenceReader entryBuffer,
                              CompressedSchema compressedSchema)
          throws DirectoryException
+  {
+    return decode(entryBuffer, null, compressedSchema);
+  }
+
+
+
+  /**
+   * Decodes the provided byte string as an entry whose attribute
+   * values are decoded lazily.
+   * <p>
+   * Only the DN, the object classes and the attribute descriptions
+   * are decoded upfront. The values of an attribute type are decoded
+   * the first time the attribute type is accessed, so that large
+   * values which are neither used for filter evaluation nor for
+   * access control nor returned to the client are never decoded.
+   * <p>
+   * The returned entry is not thread safe until all of its
+   * attributes have been accessed, and must not be shared between
+   * threads, e.g. in an entry cache.
+   *
+   * @param  encodedEntry      The byte string containing the data to
+   *                           be decoded. The attribute values will
+   *                           refer to it, so it must not be modified
+   *                           afterwards.
+   * @param  compressedSchema  The compressed schema manager to use
+   *                           when decoding tokenized schema
+   *                           elements.
+   *
+   * @return  The decoded entry.
+   *
+   * @throws  DirectoryException  If the provided byte string cannot
+   *                              be decoded as an entry.
+   */
+  public static Entry decodeLazily(ByteString encodedEntry,
+                                   CompressedSchema compressedSchema)
+         throws DirectoryException
+  {
+    return decode(encodedEntry.asReader(), encodedEntry, compressedSchema);
+  }
+
+
+
+  private static Entry decode(ByteSequenceReader entryBuffer,
+                              ByteString lazilyDecodedEntry,
+                              CompressedSchema compressedSchema)
+         throws DirectoryException
   {
     try
     {
@@ -3399,10 +3446,20 @@ public class Entry
 
       // Now, we should iterate through the user and operational attributes and
       // decode each one.
-      Map<AttributeType, List<Attribute>> userAttributes =
-          decodeAttributes(version, entryBuffer, config);
-      Map<AttributeType, List<Attribute>> operationalAttributes =
-          decodeAttributes(version, entryBuffer, config);
+      Map<AttributeType, List<Attribute>> userAttributes;
+      Map<AttributeType, List<Attribute>> operationalAttributes;
+      if (lazilyDecodedEntry != null)
+      {
+        userAttributes = LazyAttributeMap.decodeDescriptions(
+            version, entryBuffer, lazilyDecodedEntry, config);
+        operationalAttributes = LazyAttributeMap.decodeDescriptions(
+            version, entryBuffer, lazilyDecodedEntry, config);
+      }
+      else
+      {
+        userAttributes = decodeAttributes(version, entryBuffer, config);
+        operationalAttributes = decodeAttributes(version, entryBuffer, config);
+      }
 
 
       // We've got everything that we need, so create and return the entry.
@@ -3539,69 +3596,113 @@ public class Entry
 
     // Now, we should iterate through the attributes and decode each one.
     Map<AttributeType, List<Attribute>> attributes = new LinkedHashMap<>(attrs);
-    if (config.compressAttributeDescriptions())
+    for (int i=0; i < attrs; i++)
     {
-      for (int i=0; i < attrs; i++)
+      Attribute a = decodeAttribute(ver, entryBuffer, config);
+      AttributeType attrType = a.getAttributeDescription().getAttributeType();
+      List<Attribute> attrList = attributes.get(attrType);
+      if (attrList == null)
       {
-        if(ver < 0x03)
-        {
-          // Version 2 includes a total attribute length
-          entryBuffer.readBERLength();
-        }
-        // Decode the attribute.
-        Attribute a = config.getCompressedSchema().decodeAttribute(entryBuffer);
-        AttributeType attrType = a.getAttributeDescription().getAttributeType();
-        List<Attribute> attrList = attributes.get(attrType);
-        if (attrList == null)
-        {
-          attrList = new ArrayList<>(1);
-          attributes.put(attrType, attrList);
-        }
-        attrList.add(a);
+        attrList = new ArrayList<>(1);
+        attributes.put(attrType, attrList);
       }
+      attrList.add(a);
     }
-    else
+
+    return attributes;
+  }
+
+  /**
+   * Decodes the attribute of an encoded entry at the current position.
+   *
+   * @param  ver The version of the entry encoding.
+   * @param  entryBuffer The byte sequence containing the encoded
+   *                     entry.
+   * @param  config  The configuration that may be used to control how
+   *                 the entry is encoded.
+   *
+   * @return  The decoded attribute.
+   * @throws  DirectoryException  If a problem occurs while attempting
+   *                              to decode the attribute.
+   */
+  static Attribute decodeAttribute(byte ver, ByteSequenceReader entryBuffer,
+      EntryEncodeConfig config) throws DirectoryException
+  {
+    if (config.compressAttributeDescriptions())
     {
-      int startPos;
-      int endPos;
-      for (int i=0; i < attrs; i++)
+      if(ver < 0x03)
       {
-        // First, we have the zero-terminated attribute name.
-        startPos = entryBuffer.position();
-        while (entryBuffer.readByte() != 0x00)
-        {}
-        endPos = entryBuffer.position()-1;
-        entryBuffer.position(startPos);
-        String name = entryBuffer.readStringUtf8(endPos - startPos);
-        entryBuffer.skip(1);
-
-        final AttributeBuilder builder = new AttributeBuilder(name);
-
-        // Next, we have the number of values.
-        int numValues = entryBuffer.readBERLength();
-
-        // Next, we have the sequence of length-value pairs.
-        for (int j=0; j < numValues; j++)
-        {
-          int valueLength = entryBuffer.readBERLength();
-          builder.add(entryBuffer.readByteSequence(valueLength).toByteString());
-        }
+        // Version 2 includes a total attribute length
+        entryBuffer.readBERLength();
+      }
+      return config.getCompressedSchema().decodeAttribute(entryBuffer);
+    }
 
+    // First, we have the zero-terminated attribute name.
+    final AttributeBuilder builder = new AttributeBuilder(readAttributeName(entryBuffer));
 
-        // Create the attribute and add it to the set of attributes.
-        Attribute a = builder.toAttribute();
-        AttributeType attributeType = a.getAttributeDescription().getAttributeType();
-        List<Attribute> attrList = attributes.get(attributeType);
-        if (attrList == null)
-        {
-          attrList = new ArrayList<>(1);
-          attributes.put(attributeType, attrList);
-        }
-        attrList.add(a);
+    // Next, we have the number of values.
+    int numValues = entryBuffer.readBERLength();
+
+    // Next, we have the sequence of length-value pairs.
+    for (int j=0; j < numValues; j++)
+    {
+      int valueLength = entryBuffer.readBERLength();
+      builder.add(entryBuffer.readByteSequence(valueLength).toByteString());
+    }
+    return builder.toAttribute();
+  }
+
+  /**
+   * Decodes the attribute type of the attribute of an encoded entry at
+   * the current position, and skips its values.
+   *
+   * @param  ver The version of the entry encoding.
+   * @param  entryBuffer The byte sequence containing the encoded
+   *                     entry.
+   * @param  config  The configuration that may be used to control how
+   *                 the entry is encoded.
+   *
+   * @return  The attribute type of the skipped attribute.
+   * @throws  DirectoryException  If a problem occurs while attempting
+   *                              to decode the attribute.
+   */
+  static AttributeType skipAttribute(byte ver, ByteSequenceReader entryBuffer,
+      EntryEncodeConfig config) throws DirectoryException
+  {
+    final AttributeType attrType;
+    if (config.compressAttributeDescriptions())
+    {
+      if(ver < 0x03)
+      {
+        // Version 2 includes a total attribute length
+        entryBuffer.readBERLength();
       }
+      attrType = config.getCompressedSchema().decodeAttributeDescription(entryBuffer).getAttributeType();
+    }
+    else
+    {
+      attrType = AttributeDescription.valueOf(readAttributeName(entryBuffer)).getAttributeType();
     }
 
-    return attributes;
+    int numValues = entryBuffer.readBERLength();
+    for (int j=0; j < numValues; j++)
+    {
+      entryBuffer.skip(entryBuffer.readBERLength());
+    }
+    return attrType;
+  }
+
+  private static String readAttributeName(ByteSequenceReader entryBuffer)
+  {
+    int startPos = entryBuffer.position();
+    while (entryBuffer.readByte() != 0x00)
+    {}
+    int endPos = entryBuffer.position()-1;
+    entryBuffer.position(startPos);
+    String name = entryBuffer.readStringUtf8(endPos - startPos);
+    entryBuffer.skip(1);
+    return name;
   }
 
   /**
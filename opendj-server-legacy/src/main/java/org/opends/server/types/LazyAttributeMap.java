@@ -0,0 +1,288 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.types;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+
+/**
+ * The attributes of an entry, decoded lazily from the encoded entry.
+ * <p>
+ * Only the attribute descriptions are decoded when the map is created: the
+ * values of an attribute type are decoded the first time the attribute type is
+ * retrieved from the map. Iterating over the keys of the map does not decode
+ * any value.
+ * <p>
+ * This map is not thread safe, even for read-only accesses.
+ */
+final class LazyAttributeMap extends AbstractMap<AttributeType, List<Attribute>>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** The encoded entry, the positions of the attributes are relative to its start. */
+  private final ByteString encodedEntry;
+  /** The version of the entry encoding. */
+  private final byte version;
+  /** The configuration used to encode the entry. */
+  private final EntryEncodeConfig config;
+  /**
+   * The attributes of the entry, where values are either a decoded {@code List<Attribute>} or
+   * the {@code int[]} positions of the encoded attributes of the attribute type.
+   */
+  private final Map<AttributeType, Object> attributes;
+
+  private LazyAttributeMap(ByteString encodedEntry, byte version, EntryEncodeConfig config, int size)
+  {
+    this.encodedEntry = encodedEntry;
+    this.version = version;
+    this.config = config;
+    this.attributes = new LinkedHashMap<>(size);
+  }
+
+  /**
+   * Decodes the attribute descriptions of a list of attributes of an encoded entry and skips their values.
+   *
+   * @param version
+   *          The version of the entry encoding.
+   * @param entryBuffer
+   *          The reader of the encoded entry, positioned on the list of attributes.
+   * @param encodedEntry
+   *          The encoded entry read by the reader.
+   * @param config
+   *          The configuration used to encode the entry.
+   * @return The map of the attributes whose values will be decoded on first access.
+   * @throws DirectoryException
+   *           If a problem occurs while decoding the attribute descriptions.
+   */
+  static LazyAttributeMap decodeDescriptions(byte version, ByteSequenceReader entryBuffer, ByteString encodedEntry,
+      EntryEncodeConfig config) throws DirectoryException
+  {
+    final int attrs = entryBuffer.readBERLength();
+    final LazyAttributeMap map = new LazyAttributeMap(encodedEntry, version, config, attrs);
+    for (int i = 0; i < attrs; i++)
+    {
+      final int position = entryBuffer.position();
+      final AttributeType attrType = Entry.skipAttribute(version, entryBuffer, config);
+      final int[] positions = (int[]) map.attributes.get(attrType);
+      if (positions == null)
+      {
+        map.attributes.put(attrType, new int[] { position });
+      }
+      else
+      {
+        // Several attributes with different options share the same attribute type.
+        final int[] newPositions = Arrays.copyOf(positions, positions.length + 1);
+        newPositions[positions.length] = position;
+        map.attributes.put(attrType, newPositions);
+      }
+    }
+    return map;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Attribute> toAttributes(Object value)
+  {
+    if (!(value instanceof int[]))
+    {
+      return (List<Attribute>) value;
+    }
+
+    final int[] positions = (int[]) value;
+    final List<Attribute> attrList = new ArrayList<>(positions.length);
+    final ByteSequenceReader reader = encodedEntry.asReader();
+    try
+    {
+      for (int position : positions)
+      {
+        reader.position(position);
+        attrList.add(Entry.decodeAttribute(version, reader, config));
+      }
+    }
+    catch (DirectoryException e)
+    {
+      // The attribute descriptions have already been successfully decoded
+      logger.traceException(e);
+      throw new IllegalStateException(e);
+    }
+    return attrList;
+  }
+
+  private List<Attribute> decode(Map.Entry<AttributeType, Object> mapEntry)
+  {
+    final Object value = mapEntry.getValue();
+    if (value instanceof int[])
+    {
+      final List<Attribute> attrList = toAttributes(value);
+      mapEntry.setValue(attrList);
+      return attrList;
+    }
+    return toAttributes(value);
+  }
+
+  @Override
+  public List<Attribute> get(Object key)
+  {
+    final Object value = attributes.get(key);
+    if (value instanceof int[])
+    {
+      final List<Attribute> attrList = toAttributes(value);
+      attributes.put((AttributeType) key, attrList);
+      return attrList;
+    }
+    return toAttributes(value);
+  }
+
+  @Override
+  public boolean containsKey(Object key)
+  {
+    return attributes.containsKey(key);
+  }
+
+  @Override
+  public List<Attribute> put(AttributeType key, List<Attribute> value)
+  {
+    return toAttributes(attributes.put(key, value));
+  }
+
+  @Override
+  public List<Attribute> remove(Object key)
+  {
+    return toAttributes(attributes.remove(key));
+  }
+
+  @Override
+  public int size()
+  {
+    return attributes.size();
+  }
+
+  @Override
+  public void clear()
+  {
+    attributes.clear();
+  }
+
+  @Override
+  public Set<Map.Entry<AttributeType, List<Attribute>>> entrySet()
+  {
+    return new AbstractSet<Map.Entry<AttributeType, List<Attribute>>>()
+    {
+      @Override
+      public Iterator<Map.Entry<AttributeType, List<Attribute>>> iterator()
+      {
+        final Iterator<Map.Entry<AttributeType, Object>> it = attributes.entrySet().iterator();
+        return new Iterator<Map.Entry<AttributeType, List<Attribute>>>()
+        {
+          @Override
+          public boolean hasNext()
+          {
+            return it.hasNext();
+          }
+
+          @Override
+          public Map.Entry<AttributeType, List<Attribute>> next()
+          {
+            return new LazyEntry(it.next());
+          }
+
+          @Override
+          public void remove()
+          {
+            it.remove();
+          }
+        };
+      }
+
+      @Override
+      public int size()
+      {
+        return attributes.size();
+      }
+
+      @Override
+      public void clear()
+      {
+        attributes.clear();
+      }
+    };
+  }
+
+  /** A map entry whose attributes are decoded when its value is first retrieved. */
+  private final class LazyEntry implements Map.Entry<AttributeType, List<Attribute>>
+  {
+    private final Map.Entry<AttributeType, Object> mapEntry;
+
+    private LazyEntry(Map.Entry<AttributeType, Object> mapEntry)
+    {
+      this.mapEntry = mapEntry;
+    }
+
+    @Override
+    public AttributeType getKey()
+    {
+      return mapEntry.getKey();
+    }
+
+    @Override
+    public List<Attribute> getValue()
+    {
+      return decode(mapEntry);
+    }
+
+    @Override
+    public List<Attribute> setValue(List<Attribute> value)
+    {
+      final List<Attribute> oldValue = decode(mapEntry);
+      mapEntry.setValue(value);
+      return oldValue;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof Map.Entry))
+      {
+        return false;
+      }
+      final Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return getKey().equals(e.getKey()) && getValue().equals(e.getValue());
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return getKey().hashCode() ^ getValue().hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
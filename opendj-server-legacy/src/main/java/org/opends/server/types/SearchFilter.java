@@ -14,6 +14,7 @@
  * Copyright 2006-2009 Sun Microsystems, Inc.
  * Portions Copyright 2014-2016 ForgeRock AS.
  * Portions Copyright 2013-2014 Manuel Gaupp
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -90,6 +91,9 @@ public final class SearchFilter
   /** The matching rule ID for this search filter. */
   private final String matchingRuleID;
 
+  /** The compiled form of this filter, built on first evaluation. */
+  private volatile SearchFilterMatcher matcher;
+
   private SearchFilter(FilterType filterType,
                       Collection<SearchFilter> filterComponents,
                       SearchFilter notComponent,
@@ -2012,7 +2016,8 @@ public final class SearchFilter
 
   /**
    * Retrieves the set of filter components for this AND or OR filter.
-   * The returned list can be modified by the caller.
+   * The returned list can be modified by the caller, but only before
+   * this filter is first matched against an entry.
    *
    * @return  The set of filter components for this AND or OR filter.
    */
@@ -2047,6 +2052,17 @@ public final class SearchFilter
     return attributeDescription != null ? attributeDescription.getAttributeType() : null;
   }
 
+  /**
+   * Retrieves the attribute description for this filter.
+   *
+   * @return  The attribute description for this filter, or
+   *          <CODE>null</CODE> if there is none.
+   */
+  AttributeDescription getAttributeDescription()
+  {
+    return attributeDescription;
+  }
+
 
 
   /**
@@ -2128,6 +2144,8 @@ public final class SearchFilter
 
   /**
    * Indicates whether this search filter matches the provided entry.
+   * The filter is compiled on its first evaluation, so that matching
+   * rules and assertions are not resolved again for each entry.
    *
    * @param  entry  The entry for which to make the determination.
    *
@@ -2140,7 +2158,9 @@ public final class SearchFilter
   public boolean matchesEntry(Entry entry)
          throws DirectoryException
   {
-    ConditionResult result = matchesEntryInternal(this, entry, 0);
+    ConditionResult result = logger.isTraceEnabled()
+        ? matchesEntryInternal(this, entry, 0)
+        : getMatcher().matches(entry);
     switch (result)
     {
       case TRUE:
@@ -2156,6 +2176,26 @@ public final class SearchFilter
 
 
 
+  /**
+   * Returns the compiled form of this filter, compiling it if needed.
+   * Concurrent first evaluations may compile it more than once, which
+   * is harmless.
+   *
+   * @return  The compiled form of this filter.
+   */
+  private SearchFilterMatcher getMatcher()
+  {
+    SearchFilterMatcher m = matcher;
+    if (m == null)
+    {
+      m = SearchFilterMatcher.compile(this);
+      matcher = m;
+    }
+    return m;
+  }
+
+
+
   /**
    * Indicates whether the this filter matches the provided entry.
    *
@@ -2176,7 +2216,7 @@ public final class SearchFilter
    * @throws  DirectoryException  If a problem is encountered during
    *                              processing.
    */
-  private ConditionResult matchesEntryInternal(
+  ConditionResult matchesEntryInternal(
                                SearchFilter completeFilter,
                                Entry entry, int depth)
           throws DirectoryException
@@ -0,0 +1,410 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.types;
+
+import static org.opends.server.util.CollectionUtils.*;
+import static org.opends.server.util.ServerConstants.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.Assertion;
+import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ConditionResult;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.MatchingRule;
+
+/**
+ * A search filter compiled into a tree of matchers.
+ * <p>
+ * The matching rules of the filter attribute types are resolved and the assertions are built once, when the
+ * filter is compiled, instead of once per candidate entry and per attribute. Each node then only iterates
+ * over the attributes of the entry. Compound filters keep the same short-circuit and undefined semantics as
+ * {@link SearchFilter#matchesEntry(Entry)}.
+ * <p>
+ * Extensible match filters, invalid filters and too deeply nested filters are not compiled: they are
+ * evaluated by the interpreted {@link SearchFilter} code, which also reports the errors.
+ */
+abstract class SearchFilterMatcher
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /**
+   * Indicates whether the compiled filter matches the provided entry.
+   *
+   * @param entry
+   *          The entry for which to make the determination.
+   * @return {@code TRUE} if the filter matches the provided entry, {@code FALSE} if it does not, or
+   *         {@code UNDEFINED} if the result is undefined.
+   * @throws DirectoryException
+   *           If a problem is encountered during processing.
+   */
+  abstract ConditionResult matches(Entry entry) throws DirectoryException;
+
+  /**
+   * Compiles the provided search filter.
+   *
+   * @param filter
+   *          The search filter to compile.
+   * @return The compiled search filter.
+   */
+  static SearchFilterMatcher compile(SearchFilter filter)
+  {
+    return compile(filter, filter, 0);
+  }
+
+  private static SearchFilterMatcher compile(SearchFilter completeFilter, SearchFilter filter, int depth)
+  {
+    final AttributeType attributeType = filter.getAttributeType();
+    final ByteString assertionValue = filter.getAssertionValue();
+    switch (filter.getFilterType())
+    {
+    case AND:
+    case OR:
+      final Set<SearchFilter> components = filter.getFilterComponents();
+      if (components == null || (!components.isEmpty() && depth >= MAX_NESTED_FILTER_DEPTH))
+      {
+        break;
+      }
+      final SearchFilterMatcher[] matchers = new SearchFilterMatcher[components.size()];
+      int i = 0;
+      for (SearchFilter component : components)
+      {
+        matchers[i++] = compile(completeFilter, component, depth + 1);
+      }
+      return filter.getFilterType() == FilterType.AND ? new And(matchers) : new Or(matchers);
+
+    case NOT:
+      if (filter.getNotComponent() == null || depth >= MAX_NESTED_FILTER_DEPTH)
+      {
+        break;
+      }
+      return new Not(compile(completeFilter, filter.getNotComponent(), depth + 1));
+
+    case PRESENT:
+      if (attributeType == null)
+      {
+        break;
+      }
+      return new Present(filter.getAttributeDescription());
+
+    case EQUALITY:
+      if (attributeType == null || assertionValue == null)
+      {
+        break;
+      }
+      if (attributeType.getEqualityMatchingRule() == null)
+      {
+        return new EqualityWithoutMatchingRule(filter.getAttributeDescription());
+      }
+      return new AttributeValueMatcher(filter);
+
+    case SUBSTRING:
+      final List<ByteString> subAny = filter.getSubAnyElements();
+      if (attributeType == null
+          || (filter.getSubInitialElement() == null && filter.getSubFinalElement() == null
+              && (subAny == null || subAny.isEmpty())))
+      {
+        break;
+      }
+      return new AttributeValueMatcher(filter);
+
+    case GREATER_OR_EQUAL:
+    case LESS_OR_EQUAL:
+    case APPROXIMATE_MATCH:
+      if (attributeType == null || assertionValue == null)
+      {
+        break;
+      }
+      return new AttributeValueMatcher(filter);
+
+    default:
+      break;
+    }
+    return new Interpreted(completeFilter, filter, depth);
+  }
+
+  /** Evaluates a filter which could not be compiled with the interpreted search filter code. */
+  private static final class Interpreted extends SearchFilterMatcher
+  {
+    private final SearchFilter completeFilter;
+    private final SearchFilter filter;
+    private final int depth;
+
+    private Interpreted(SearchFilter completeFilter, SearchFilter filter, int depth)
+    {
+      this.completeFilter = completeFilter;
+      this.filter = filter;
+      this.depth = depth;
+    }
+
+    @Override
+    ConditionResult matches(Entry entry) throws DirectoryException
+    {
+      return filter.matchesEntryInternal(completeFilter, entry, depth);
+    }
+  }
+
+  /** An AND filter, which is true for an empty set of components. */
+  private static final class And extends SearchFilterMatcher
+  {
+    private final SearchFilterMatcher[] components;
+
+    private And(SearchFilterMatcher[] components)
+    {
+      this.components = components;
+    }
+
+    @Override
+    ConditionResult matches(Entry entry) throws DirectoryException
+    {
+      for (SearchFilterMatcher component : components)
+      {
+        final ConditionResult result = component.matches(entry);
+        if (result != ConditionResult.TRUE)
+        {
+          return result;
+        }
+      }
+      return ConditionResult.TRUE;
+    }
+  }
+
+  /** An OR filter, which is false for an empty set of components. */
+  private static final class Or extends SearchFilterMatcher
+  {
+    private final SearchFilterMatcher[] components;
+
+    private Or(SearchFilterMatcher[] components)
+    {
+      this.components = components;
+    }
+
+    @Override
+    ConditionResult matches(Entry entry) throws DirectoryException
+    {
+      ConditionResult result = ConditionResult.FALSE;
+      for (SearchFilterMatcher component : components)
+      {
+        switch (component.matches(entry))
+        {
+        case TRUE:
+          return ConditionResult.TRUE;
+        case UNDEFINED:
+          result = ConditionResult.UNDEFINED;
+          break;
+        default:
+          break;
+        }
+      }
+      return result;
+    }
+  }
+
+  /** A NOT filter. */
+  private static final class Not extends SearchFilterMatcher
+  {
+    private final SearchFilterMatcher component;
+
+    private Not(SearchFilterMatcher component)
+    {
+      this.component = component;
+    }
+
+    @Override
+    ConditionResult matches(Entry entry) throws DirectoryException
+    {
+      return ConditionResult.not(component.matches(entry));
+    }
+  }
+
+  /** A presence filter. */
+  private static final class Present extends SearchFilterMatcher
+  {
+    private final AttributeDescription attributeDescription;
+
+    private Present(AttributeDescription attributeDescription)
+    {
+      this.attributeDescription = attributeDescription;
+    }
+
+    @Override
+    ConditionResult matches(Entry entry)
+    {
+      return ConditionResult.valueOf(entry.hasAttribute(attributeDescription));
+    }
+  }
+
+  /** An equality filter on an attribute type which has no equality matching rule. */
+  private static final class EqualityWithoutMatchingRule extends SearchFilterMatcher
+  {
+    private final AttributeDescription attributeDescription;
+
+    private EqualityWithoutMatchingRule(AttributeDescription attributeDescription)
+    {
+      this.attributeDescription = attributeDescription;
+    }
+
+    @Override
+    ConditionResult matches(Entry entry)
+    {
+      return isEmpty(entry.getAllAttributes(attributeDescription))
+          ? ConditionResult.FALSE
+          : ConditionResult.UNDEFINED;
+    }
+  }
+
+  /**
+   * A filter matching the values of the attributes of an entry with an assertion: equality, substring,
+   * greater-or-equal, less-or-equal and approximate filters.
+   * <p>
+   * The assertion is built once with the matching rule of the filter attribute type. It is only used with
+   * attributes whose type has the very same matching rule, the attribute subtypes with a different matching
+   * rule and the virtual attributes being matched with their usual methods.
+   */
+  private static final class AttributeValueMatcher extends SearchFilterMatcher
+  {
+    private final FilterType filterType;
+    private final AttributeDescription attributeDescription;
+    private final ByteString assertionValue;
+    private final ByteString subInitial;
+    private final List<ByteString> subAny;
+    private final ByteString subFinal;
+    private final MatchingRule matchingRule;
+    /** The assertion, or {@code null} if it could not be built, in which case the attributes report it. */
+    private final Assertion assertion;
+
+    private AttributeValueMatcher(SearchFilter filter)
+    {
+      this.filterType = filter.getFilterType();
+      this.attributeDescription = filter.getAttributeDescription();
+      this.assertionValue = filter.getAssertionValue();
+      this.subInitial = filter.getSubInitialElement();
+      this.subAny = filter.getSubAnyElements();
+      this.subFinal = filter.getSubFinalElement();
+      this.matchingRule = getMatchingRule(attributeDescription.getAttributeType());
+      this.assertion = createAssertion();
+    }
+
+    private MatchingRule getMatchingRule(AttributeType attributeType)
+    {
+      switch (filterType)
+      {
+      case EQUALITY:
+        return attributeType.getEqualityMatchingRule();
+      case SUBSTRING:
+        return attributeType.getSubstringMatchingRule();
+      case GREATER_OR_EQUAL:
+      case LESS_OR_EQUAL:
+        return attributeType.getOrderingMatchingRule();
+      case APPROXIMATE_MATCH:
+        return attributeType.getApproximateMatchingRule();
+      default:
+        throw new IllegalStateException("Unexpected filter type " + filterType);
+      }
+    }
+
+    private Assertion createAssertion()
+    {
+      if (matchingRule == null)
+      {
+        return null;
+      }
+      try
+      {
+        switch (filterType)
+        {
+        case SUBSTRING:
+          return matchingRule.getSubstringAssertion(subInitial, subAny, subFinal);
+        case GREATER_OR_EQUAL:
+          return matchingRule.getGreaterOrEqualAssertion(assertionValue);
+        case LESS_OR_EQUAL:
+          return matchingRule.getLessOrEqualAssertion(assertionValue);
+        default:
+          return matchingRule.getAssertion(assertionValue);
+        }
+      }
+      catch (DecodeException e)
+      {
+        logger.traceException(e);
+        return null;
+      }
+    }
+
+    @Override
+    ConditionResult matches(Entry entry)
+    {
+      ConditionResult result = ConditionResult.FALSE;
+      for (Attribute a : entry.getAllAttributes(attributeDescription))
+      {
+        final ConditionResult cr = canUseAssertion(a) ? matchesAssertion((AbstractAttribute) a) : matchesValues(a);
+        if (cr == ConditionResult.TRUE)
+        {
+          return ConditionResult.TRUE;
+        }
+        else if (cr == ConditionResult.UNDEFINED)
+        {
+          result = ConditionResult.UNDEFINED;
+        }
+      }
+      return result;
+    }
+
+    private boolean canUseAssertion(Attribute a)
+    {
+      return assertion != null
+          && a instanceof AbstractAttribute
+          && getMatchingRule(a.getAttributeDescription().getAttributeType()) == matchingRule;
+    }
+
+    private ConditionResult matchesAssertion(AbstractAttribute a)
+    {
+      switch (filterType)
+      {
+      case EQUALITY:
+        return a.matchesEqualityAssertion(assertion, assertionValue);
+      case SUBSTRING:
+        return a.matchesSubstring(assertion, subInitial, subAny, subFinal);
+      case GREATER_OR_EQUAL:
+        return a.greaterThanOrEqualTo(assertion, assertionValue);
+      case LESS_OR_EQUAL:
+        return a.lessThanOrEqualTo(assertion, assertionValue);
+      default:
+        return a.approximatelyEqualTo(assertion, assertionValue);
+      }
+    }
+
+    private ConditionResult matchesValues(Attribute a)
+    {
+      switch (filterType)
+      {
+      case EQUALITY:
+        return a.matchesEqualityAssertion(assertionValue);
+      case SUBSTRING:
+        return a.matchesSubstring(subInitial, subAny, subFinal);
+      case GREATER_OR_EQUAL:
+        return a.greaterThanOrEqualTo(assertionValue);
+      case LESS_OR_EQUAL:
+        return a.lessThanOrEqualTo(assertionValue);
+      default:
+        return a.approximatelyEqualTo(assertionValue);
+      }
+    }
+  }
+}
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.workflowelement.localbackend;
 
@@ -28,6 +29,7 @@ import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.Schema;
 import org.forgerock.opendj.server.config.meta.PasswordPolicyCfgDefn;
+import org.opends.server.api.AuthenticationPolicy;
 import org.opends.server.api.AuthenticationPolicyState;
 import org.opends.server.api.LocalBackend;
 import org.opends.server.api.ClientConnection;
@@ -398,7 +400,7 @@ public class LocalBackendBindOperation
 
     // Check to see if the user has a password. If not, then fail.
     // FIXME -- We need to have a way to enable/disable debugging.
-    authPolicyState = AuthenticationPolicyState.forUser(userEntry, false);
+    authPolicyState = getBindPolicyState(userEntry);
     if (authPolicyState.isPasswordPolicy())
     {
       // Account is managed locally.
@@ -613,8 +615,7 @@ public class LocalBackendBindOperation
       setUserEntryDN(saslAuthUserEntry.getName());
 
       // FIXME -- Need to have a way to enable debugging.
-      authPolicyState = AuthenticationPolicyState.forUser(
-          saslAuthUserEntry, false);
+      authPolicyState = getBindPolicyState(saslAuthUserEntry);
       if (authPolicyState.isPasswordPolicy())
       {
         // Account is managed locally: perform password policy checks that can
@@ -693,6 +694,19 @@ public class LocalBackendBindOperation
     return true;
   }
 
+  /**
+   * Returns the authentication policy state of the binding user, including the
+   * password policy state updates of its previous binds which have not been
+   * written to its entry yet.
+   */
+  private static AuthenticationPolicyState getBindPolicyState(Entry userEntry) throws DirectoryException
+  {
+    final AuthenticationPolicy policy = AuthenticationPolicy.forUser(userEntry, false);
+    return policy.isPasswordPolicy()
+        ? ((PasswordPolicy) policy).createBindPolicyState(userEntry)
+        : policy.createAuthenticationPolicyState(userEntry);
+  }
+
   private void updateFailureCount(Entry userEntry, PasswordPolicyState pwPolicyState)
   {
     if (pwPolicyState.lockedDueToFailures())
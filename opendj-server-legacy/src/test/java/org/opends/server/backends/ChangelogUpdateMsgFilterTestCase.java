@@ -0,0 +1,89 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.protocol.DeleteMsg;
+import org.opends.server.replication.protocol.UpdateMsg;
+import org.opends.server.types.SearchFilter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/** Tests the filter pushed down to the changelog cursors. */
+@SuppressWarnings("javadoc")
+public class ChangelogUpdateMsgFilterTestCase extends BackendTestCase
+{
+  private UpdateMsg deleteMsg;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    deleteMsg = new DeleteMsg(DN.valueOf("uid=user.1,o=test"), new CSN(1000, 1, 42), "uuid-1");
+  }
+
+  @DataProvider
+  public Object[][] filtersWithoutHeaderItem()
+  {
+    return new Object[][] {
+      { "(objectClass=*)" },
+      { "(changeNumber>=10)" },
+      { "(&(objectClass=changeLogEntry)(changes=*))" },
+      { "(targetDN:dn:=o=test)" },
+    };
+  }
+
+  @Test(dataProvider = "filtersWithoutHeaderItem")
+  public void nothingToPushDown(String filter) throws Exception
+  {
+    assertThat(ChangelogUpdateMsgFilter.newInstance(SearchFilter.createFilterFromString(filter))).isNull();
+  }
+
+  @DataProvider
+  public Object[][] filters()
+  {
+    return new Object[][] {
+      { "(targetDN=uid=user.1,o=test)", true },
+      { "(targetDN=uid=user.2,o=test)", false },
+      { "(changeType=delete)", true },
+      { "(changeType=add)", false },
+      { "(targetEntryUUID=uuid-1)", true },
+      { "(replicaIdentifier=42)", true },
+      { "(replicaIdentifier=43)", false },
+      { "(!(replicaIdentifier=42))", false },
+      { "(&(changeType=delete)(changes=*))", true },
+      { "(&(changeType=add)(changes=*))", false },
+      { "(|(changeType=add)(changes=*))", true },
+      { "(|(changeType=add)(replicaIdentifier=43))", false },
+      // "changes" may be present, so the negation may also be true
+      { "(!(&(changeType=delete)(changes=*)))", true },
+    };
+  }
+
+  @Test(dataProvider = "filters")
+  public void mayMatch(String filter, boolean expected) throws Exception
+  {
+    final ChangelogUpdateMsgFilter updateMsgFilter =
+        ChangelogUpdateMsgFilter.newInstance(SearchFilter.createFilterFromString(filter));
+    assertThat(updateMsgFilter).isNotNull();
+    assertThat(updateMsgFilter.mayMatch(deleteMsg)).isEqualTo(expected);
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.core.DirectoryServer.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Entry;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
+public class CompressionDictionariesTest extends DirectoryServerTestCase
+{
+  private final List<Entry> entries = new ArrayList<>();
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    for (int i = 0; i < 100; i++)
+    {
+      entries.add(TestCaseUtils.makeEntry(
+          "dn: uid=user." + i + ",ou=People,dc=example,dc=com",
+          "objectClass: top",
+          "objectClass: person",
+          "objectClass: organizationalPerson",
+          "objectClass: inetOrgPerson",
+          "uid: user." + i,
+          "cn: Aaccf Amar " + i,
+          "sn: Amar " + i,
+          "givenName: Aaccf",
+          "mail: user." + i + "@maildomain.net",
+          "telephoneNumber: +1 685 622 " + (1000 + i),
+          "postalAddress: Aaccf Amar$01251 Chestnut Street$Panama City, DE  50369",
+          "description: This is the description for Aaccf Amar " + i + "."));
+    }
+  }
+
+  @Test
+  public void testTrainSelectsCommonContent()
+  {
+    final List<ByteString> samples = Arrays.asList(
+        ByteString.valueOfUtf8("objectClass=inetOrgPerson,uid=alice,ou=People,dc=example,dc=com"),
+        ByteString.valueOfUtf8("objectClass=inetOrgPerson,uid=bob,ou=People,dc=example,dc=com"),
+        ByteString.valueOfUtf8("objectClass=inetOrgPerson,uid=carol,ou=People,dc=example,dc=com"));
+
+    final String dictionary = ByteString.wrap(CompressionDictionaries.train(samples, 1024)).toString();
+    assertThat(dictionary).contains("objectClass=inetOrgPerson,uid=");
+    assertThat(dictionary).contains(",ou=People,dc=example,dc=com");
+  }
+
+  @Test
+  public void testTrainWithoutCommonContent()
+  {
+    final List<ByteString> samples = Arrays.asList(
+        ByteString.valueOfUtf8("abcdefghijklmnopqrstuvwxyz"), ByteString.valueOfUtf8("0123456789ABCDEFGHIJKLMNOPQ"));
+    assertThat(CompressionDictionaries.train(samples, 1024)).isEmpty();
+  }
+
+  @Test
+  public void testTrainHonorsMaximumSize() throws Exception
+  {
+    assertThat(CompressionDictionaries.train(encodeSamples(newDataConfig(true, null)), 64).length)
+        .isLessThanOrEqualTo(64);
+  }
+
+  @Test
+  public void testEntryCompressedWithDictionary() throws Exception
+  {
+    final CompressionDictionaries dictionaries = new CompressionDictionaries();
+    final DataConfig dataConfig = newDataConfig(true, dictionaries);
+    final ID2Entry id2entry = new ID2Entry(new TreeName("dc=example,dc=com", "id2entry"), dataConfig);
+    final ByteString deflated = id2entry.entryToDatabase(entries.get(0), dataConfig);
+
+    final int dictionaryID = dictionaries.addDictionary(
+        CompressionDictionaries.train(encodeSamples(dataConfig), CompressionDictionaries.MAX_DICTIONARY_SIZE));
+    assertThat(dictionaries.getCurrentDictionaryID()).isEqualTo(dictionaryID);
+
+    final ByteString compressed = id2entry.entryToDatabase(entries.get(0), dataConfig);
+    assertThat(compressed.byteAt(0)).isEqualTo((byte) 0x03);
+    assertThat(compressed.length()).isLessThan(deflated.length());
+    assertEntryEquals(id2entry.entryFromDatabase(compressed, getDefaultCompressedSchema()), entries.get(0));
+
+    // Entries compressed without a dictionary remain readable.
+    assertEntryEquals(id2entry.entryFromDatabase(deflated, getDefaultCompressedSchema()), entries.get(0));
+  }
+
+  @DataProvider
+  public Object[][] decodeModes()
+  {
+    return new Object[][] { { false }, { true } };
+  }
+
+  @Test(dataProvider = "decodeModes")
+  public void testDecodedEntryIsNotOverwrittenByNextDecode(boolean lazily) throws Exception
+  {
+    final CompressionDictionaries dictionaries = new CompressionDictionaries();
+    final DataConfig dataConfig = newDataConfig(true, dictionaries);
+    dictionaries.addDictionary(
+        CompressionDictionaries.train(encodeSamples(dataConfig), CompressionDictionaries.MAX_DICTIONARY_SIZE));
+    final ID2Entry id2entry = new ID2Entry(new TreeName("dc=example,dc=com", "id2entry"), dataConfig);
+    final ByteString first = id2entry.entryToDatabase(entries.get(0), dataConfig);
+    final ByteString second = id2entry.entryToDatabase(entries.get(1), dataConfig);
+    assertThat(first.byteAt(0)).isEqualTo((byte) 0x03);
+    assertThat(second.byteAt(0)).isEqualTo((byte) 0x03);
+
+    // Both entries are decoded by this thread's codec, which reuses its inflate buffer.
+    final Entry firstEntry = id2entry.entryFromDatabase(first, getDefaultCompressedSchema(), lazily);
+    final Entry secondEntry = id2entry.entryFromDatabase(second, getDefaultCompressedSchema(), lazily);
+
+    assertEntryValuesEqual(firstEntry, entries.get(0));
+    assertEntryValuesEqual(secondEntry, entries.get(1));
+  }
+
+  @Test
+  public void testDictionaryIsNotUsedWithoutCompression() throws Exception
+  {
+    final CompressionDictionaries dictionaries = new CompressionDictionaries();
+    final DataConfig dataConfig = newDataConfig(false, dictionaries);
+    dictionaries.addDictionary(
+        CompressionDictionaries.train(encodeSamples(dataConfig), CompressionDictionaries.MAX_DICTIONARY_SIZE));
+    final ID2Entry id2entry = new ID2Entry(new TreeName("dc=example,dc=com", "id2entry"), dataConfig);
+
+    final ByteString encoded = id2entry.entryToDatabase(entries.get(0), dataConfig);
+    assertThat(encoded.byteAt(0)).isEqualTo((byte) 0x02);
+    assertEntryEquals(id2entry.entryFromDatabase(encoded, getDefaultCompressedSchema()), entries.get(0));
+  }
+
+  @Test(expectedExceptions = DecodeException.class)
+  public void testUnknownDictionary() throws Exception
+  {
+    final CompressionDictionaries dictionaries = new CompressionDictionaries();
+    final DataConfig dataConfig = newDataConfig(true, dictionaries);
+    dictionaries.addDictionary(
+        CompressionDictionaries.train(encodeSamples(dataConfig), CompressionDictionaries.MAX_DICTIONARY_SIZE));
+    final ByteString compressed = new ID2Entry(new TreeName("dc=example,dc=com", "id2entry"), dataConfig)
+        .entryToDatabase(entries.get(0), dataConfig);
+
+    final DataConfig otherDataConfig = newDataConfig(true, new CompressionDictionaries());
+    new ID2Entry(new TreeName("dc=example,dc=com", "id2entry"), otherDataConfig)
+        .entryFromDatabase(compressed, getDefaultCompressedSchema());
+  }
+
+  private DataConfig newDataConfig(boolean compressed, CompressionDictionaries dictionaries)
+  {
+    return new DataConfig.Builder().compress(compressed).compressionDictionaries(dictionaries).build();
+  }
+
+  private List<ByteString> encodeSamples(DataConfig dataConfig) throws Exception
+  {
+    final List<ByteString> samples = new ArrayList<>();
+    for (Entry entry : entries)
+    {
+      final ByteStringBuilder sample = new ByteStringBuilder();
+      entry.encode(sample, dataConfig.getEntryEncodeConfig());
+      samples.add(sample.toByteString());
+    }
+    return samples;
+  }
+
+  private void assertEntryValuesEqual(Entry actual, Entry expected)
+  {
+    assertEntryEquals(actual, expected);
+    for (Attribute attribute : expected.getAllAttributes())
+    {
+      final Attribute actualAttribute = actual.getAttribute(attribute.getAttributeDescription());
+      assertThat(actualAttribute.size()).isEqualTo(attribute.size());
+      for (ByteString value : attribute)
+      {
+        assertThat(actualAttribute.contains(value)).as(value.toString()).isTrue();
+      }
+    }
+  }
+
+  private void assertEntryEquals(Entry actual, Entry expected)
+  {
+    assertThat(actual.getName()).isEqualTo(expected.getName());
+    assertThat(actual.getAllAttributes()).hasSameSizeAs(expected.getAllAttributes());
+    assertThat(actual.getObjectClasses()).isEqualTo(expected.getObjectClasses());
+  }
+}
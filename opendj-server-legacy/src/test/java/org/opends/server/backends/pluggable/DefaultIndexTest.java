@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -228,6 +229,12 @@ public class DefaultIndexTest extends DirectoryServerTestCase
           return true;
         }
 
+        @Override
+        public boolean previous()
+        {
+          throw new UnsupportedOperationException();
+        }
+
         @Override
         public boolean positionToIndex(int index)
         {
@@ -0,0 +1,137 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.core.DirectoryServer.*;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Entry;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
+public class LazyEntryDecodingTest extends DirectoryServerTestCase
+{
+  private Entry entry;
+  private Entry otherEntry;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    entry = TestCaseUtils.makeEntry(
+        "dn: uid=user.0,ou=People,dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.0",
+        "cn: Aaccf Amar",
+        "cn;lang-fr: Aaccf Amar",
+        "sn: Amar",
+        "mail: user.0@maildomain.net",
+        "description: first value",
+        "description: second value",
+        "jpegPhoto:: /9j/4AAQSkZJRgABAQEASABIAAD/2wBDAAMCAgMCAgMDAwMEAwMEBQgFBQQEBQoHBwYI",
+        "createTimestamp: 20260101000000Z");
+    otherEntry = TestCaseUtils.makeEntry(
+        "dn: uid=user.1,ou=People,dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: person",
+        "uid: user.1",
+        "cn: Bbbbb Bbbb",
+        "sn: Bbbb");
+  }
+
+  @DataProvider
+  public Object[][] dataConfigs()
+  {
+    return new Object[][] {
+      { new DataConfig.Builder().build() },
+      { new DataConfig.Builder().compress(true).build() },
+      { new DataConfig.Builder().encode(true).schema(getDefaultCompressedSchema()).build() },
+      { new DataConfig.Builder().encode(true).compress(true).schema(getDefaultCompressedSchema()).build() },
+    };
+  }
+
+  @Test(dataProvider = "dataConfigs")
+  public void testLazilyDecodedEntryEqualsDecodedEntry(DataConfig dataConfig) throws Exception
+  {
+    final ID2Entry id2entry = new ID2Entry(new TreeName("dc=example,dc=com", "id2entry"), dataConfig);
+    final ByteString encoded = id2entry.entryToDatabase(entry, dataConfig);
+
+    final Entry decoded = id2entry.entryFromDatabase(encoded, getDefaultCompressedSchema());
+    final Entry lazilyDecoded = id2entry.entryFromDatabase(encoded, getDefaultCompressedSchema(), true);
+    assertThat(lazilyDecoded.getName()).isEqualTo(decoded.getName());
+    assertThat(lazilyDecoded.getObjectClasses()).isEqualTo(decoded.getObjectClasses());
+    assertThat(lazilyDecoded.getUserAttributes().keySet()).isEqualTo(decoded.getUserAttributes().keySet());
+    assertThat(lazilyDecoded.getOperationalAttributes().keySet())
+        .isEqualTo(decoded.getOperationalAttributes().keySet());
+    for (Attribute attribute : decoded.getAllAttributes())
+    {
+      assertThat(lazilyDecoded.getAllAttributes(attribute.getAttributeDescription())).containsOnly(attribute);
+    }
+    assertThat(lazilyDecoded.toLDIFString()).isEqualTo(decoded.toLDIFString());
+  }
+
+  @Test
+  public void testLazilyDecodedEntryIsModifiable() throws Exception
+  {
+    final DataConfig dataConfig = new DataConfig.Builder().compress(true).build();
+    final ID2Entry id2entry = new ID2Entry(new TreeName("dc=example,dc=com", "id2entry"), dataConfig);
+    final Entry lazilyDecoded =
+        id2entry.entryFromDatabase(id2entry.entryToDatabase(entry, dataConfig), getDefaultCompressedSchema(), true);
+
+    final AttributeType descriptionType = getInstance().getServerContext().getSchema().getAttributeType("description");
+    final AttributeType photoType = getInstance().getServerContext().getSchema().getAttributeType("jpegPhoto");
+    lazilyDecoded.removeAttribute(photoType);
+    lazilyDecoded.replaceAttribute(TestCaseUtils.makeEntry(
+        "dn: uid=user.0,ou=People,dc=example,dc=com",
+        "objectClass: top",
+        "description: replaced").getAttribute(descriptionType).get(0));
+
+    assertThat(lazilyDecoded.hasAttribute(photoType)).isFalse();
+    assertThat(lazilyDecoded.getAttribute(descriptionType)).hasSize(1);
+    assertThat(lazilyDecoded.getAttribute(descriptionType).get(0).iterator().next().toString())
+        .isEqualTo("replaced");
+    assertThat(lazilyDecoded.getUserAttributes()).hasSize(entry.getUserAttributes().size() - 1);
+  }
+
+  @Test(dataProvider = "dataConfigs")
+  public void testDecodedValuesDoNotShareCachedBuffers(DataConfig dataConfig) throws Exception
+  {
+    final ID2Entry id2entry = new ID2Entry(new TreeName("dc=example,dc=com", "id2entry"), dataConfig);
+    final ByteString encoded = id2entry.entryToDatabase(entry, dataConfig);
+    final ByteString otherEncoded = id2entry.entryToDatabase(otherEntry, dataConfig);
+
+    final Entry lazilyDecoded = id2entry.entryFromDatabase(encoded, getDefaultCompressedSchema(), true);
+    final Entry decoded = id2entry.entryFromDatabase(encoded, getDefaultCompressedSchema());
+    final String expected = decoded.toLDIFString();
+    // Decoding another entry reuses the buffers of the entry codec.
+    id2entry.entryFromDatabase(otherEncoded, getDefaultCompressedSchema());
+
+    assertThat(lazilyDecoded.toLDIFString()).isEqualTo(expected);
+    assertThat(decoded.toLDIFString()).isEqualTo(expected);
+  }
+}
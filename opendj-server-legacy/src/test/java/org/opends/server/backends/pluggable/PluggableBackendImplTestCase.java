@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.backends.pluggable;
 
@@ -35,6 +36,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
@@ -1100,6 +1106,227 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     assertThat(backend.verifyBackend(config)).isEqualTo(0);
   }
 
+  @Test
+  public void testRebuildIndexOnline() throws Exception
+  {
+    final EntryContainer entryContainer =  backend.getRootContainer().getEntryContainers().iterator().next();
+
+    final Set<String> dirtyIndexes = new HashSet<>(Arrays.asList("sn", "uid", "telephoneNumber"));
+    assertThat(backendIndexes.keySet()).containsAll(dirtyIndexes);
+
+    // Empty and degrade the indexes
+    backend.getRootContainer().getStorage().write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        for (AttributeIndex attribute : entryContainer.getAttributeIndexes())
+        {
+          if (dirtyIndexes.contains(attribute.getAttributeType().getNameOrOID()))
+          {
+            for (Index idx : attribute.getNameToIndexes().values())
+            {
+              idx.setTrusted(txn, false);
+              idx.delete(txn);
+              idx.open(txn, true);
+            }
+          }
+        }
+        for (VLVIndex idx : entryContainer.getVLVIndexes())
+        {
+          idx.setTrusted(txn, false);
+          idx.delete(txn);
+          idx.open(txn, true);
+        }
+      }
+    });
+
+    RebuildConfig rebuildConf = new RebuildConfig();
+    rebuildConf.setBaseDN(DN.valueOf("dc=test,dc=com"));
+    rebuildConf.setRebuildMode(RebuildMode.USER_DEFINED);
+    for (String indexName : dirtyIndexes)
+    {
+      rebuildConf.addRebuildIndex(indexName);
+    }
+    rebuildConf.addRebuildIndex("vlv.*");
+    rebuildConf.setOnline(true);
+
+    // The backend remains open
+    backend.rebuildBackend(rebuildConf, TestCaseUtils.getServerContext());
+
+    for (AttributeIndex attribute : entryContainer.getAttributeIndexes())
+    {
+      assertThat(attribute.isTrusted()).isTrue();
+    }
+    for (VLVIndex idx : entryContainer.getVLVIndexes())
+    {
+      assertThat(idx.isTrusted()).isTrue();
+    }
+    assertThat(entryContainer.getIndexBuilders()).isEmpty();
+
+    VerifyConfig config = new VerifyConfig();
+    config.setBaseDN(DN.valueOf("dc=test,dc=com"));
+    for (String indexName : backendIndexes.keySet())
+    {
+      config.addCompleteIndex(indexName);
+    }
+    assertThat(backend.verifyBackend(config)).isEqualTo(0);
+
+    config = new VerifyConfig();
+    config.setBaseDN(DN.valueOf("dc=test,dc=com"));
+    for (String indexName : backendIndexes.keySet())
+    {
+      config.addCleanIndex(indexName);
+    }
+    assertThat(backend.verifyBackend(config)).isEqualTo(0);
+  }
+
+  /**
+   * Entries are added, modified and deleted while the indexes are built online: before they are processed by the
+   * builder, and after.
+   */
+  @Test
+  public void testRebuildIndexOnlineWhileEntriesAreUpdated() throws Exception
+  {
+    final EntryContainer entryContainer =  backend.getRootContainer().getEntryContainers().iterator().next();
+    final List<Entry> onlineEntries = new ArrayList<>();
+    for (int i = 0; i < 150; i++)
+    {
+      onlineEntries.add(makeOnlineEntry(i));
+    }
+    final Entry addedEntry = makeOnlineEntry(150);
+    final Entry processedEntry = onlineEntries.get(0);
+    final Entry unprocessedEntry = onlineEntries.get(149);
+    final Entry deletedEntry = onlineEntries.get(148);
+    addEntriesToBackend(onlineEntries);
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      final RebuildConfig rebuildConf = new RebuildConfig();
+      rebuildConf.setBaseDN(DN.valueOf("dc=test,dc=com"));
+      rebuildConf.setRebuildMode(RebuildMode.USER_DEFINED);
+      rebuildConf.addRebuildIndex("sn");
+      rebuildConf.addRebuildIndex("uid");
+      rebuildConf.addRebuildIndex("telephoneNumber");
+      rebuildConf.addRebuildIndex("vlv.*");
+      rebuildConf.setOnline(true);
+      // The builder waits about one second after its first batch of 100 entries
+      rebuildConf.setMaxEntriesPerSecond(100);
+
+      final Future<Void> rebuild = executor.submit(new Callable<Void>()
+      {
+        @Override
+        public Void call() throws Exception
+        {
+          backend.rebuildBackend(rebuildConf, TestCaseUtils.getServerContext());
+          return null;
+        }
+      });
+      waitForProcessedEntries(entryContainer, rebuild, 100);
+
+      replaceSn(processedEntry, "Processed");
+      replaceSn(unprocessedEntry, "Unprocessed");
+      backend.deleteEntry(deletedEntry.getName(), mock(DeleteOperation.class));
+      backend.addEntry(addedEntry, mock(AddOperation.class));
+
+      rebuild.get(30, TimeUnit.SECONDS);
+
+      for (AttributeIndex attribute : entryContainer.getAttributeIndexes())
+      {
+        assertThat(attribute.isTrusted()).isTrue();
+      }
+      for (VLVIndex idx : entryContainer.getVLVIndexes())
+      {
+        assertThat(idx.isTrusted()).isTrue();
+      }
+
+      VerifyConfig config = new VerifyConfig();
+      config.setBaseDN(DN.valueOf("dc=test,dc=com"));
+      for (String indexName : backendIndexes.keySet())
+      {
+        config.addCompleteIndex(indexName);
+      }
+      assertThat(backend.verifyBackend(config)).isEqualTo(0);
+
+      config = new VerifyConfig();
+      config.setBaseDN(DN.valueOf("dc=test,dc=com"));
+      for (String indexName : backendIndexes.keySet())
+      {
+        config.addCleanIndex(indexName);
+      }
+      assertThat(backend.verifyBackend(config)).isEqualTo(0);
+    }
+    finally
+    {
+      executor.shutdownNow();
+      onlineEntries.remove(deletedEntry);
+      onlineEntries.add(addedEntry);
+      for (Entry entry : onlineEntries)
+      {
+        if (backend.entryExists(entry.getName()))
+        {
+          backend.deleteEntry(entry.getName(), mock(DeleteOperation.class));
+        }
+      }
+    }
+  }
+
+  private Entry makeOnlineEntry(int i) throws Exception
+  {
+    return TestCaseUtils.makeEntry(
+        "dn: uid=online." + i + ",ou=People," + testBaseDN,
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "sn: Online",
+        "cn: Online " + i,
+        "employeeNumber: " + (1000 + i),
+        "uid: online." + i,
+        "telephoneNumber: 555-000-" + i);
+  }
+
+  private void replaceSn(Entry oldEntry, String sn) throws Exception
+  {
+    final Entry newEntry = oldEntry.duplicate(false);
+    final List<Modification> mods = Arrays.asList(new Modification(REPLACE, create("sn", sn)));
+    newEntry.applyModifications(mods);
+    final ModifyOperation modifyOp = mock(ModifyOperation.class);
+    when(modifyOp.getModifications()).thenReturn(mods);
+    backend.replaceEntry(oldEntry, newEntry, modifyOp);
+  }
+
+  private void waitForProcessedEntries(EntryContainer entryContainer, Future<?> rebuild, long processedEntries)
+      throws Exception
+  {
+    final long deadline = System.currentTimeMillis() + 30000;
+    while (System.currentTimeMillis() < deadline && !rebuild.isDone())
+    {
+      for (OnlineIndexBuilder builder : entryContainer.getIndexBuilders())
+      {
+        if (builder.getProcessedEntries() >= processedEntries)
+        {
+          return;
+        }
+      }
+      Thread.sleep(10);
+    }
+    fail("The online index build did not process " + processedEntries + " entries");
+  }
+
+  @Test(expectedExceptions = DirectoryException.class)
+  public void testRebuildSystemIndexOnlineIsRejected() throws Exception
+  {
+    RebuildConfig rebuildConf = new RebuildConfig();
+    rebuildConf.setBaseDN(DN.valueOf("dc=test,dc=com"));
+    rebuildConf.setRebuildMode(RebuildMode.USER_DEFINED);
+    rebuildConf.addRebuildIndex("dn2id");
+    rebuildConf.setOnline(true);
+
+    backend.rebuildBackend(rebuildConf, TestCaseUtils.getServerContext());
+  }
+
   @Test
   public void testVerifyID2ChildrenCount() throws Exception
   {
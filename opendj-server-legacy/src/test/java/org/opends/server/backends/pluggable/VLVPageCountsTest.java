@@ -0,0 +1,304 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.config.ConfigurationMock.*;
+import static org.mockito.Mockito.*;
+import static org.opends.server.util.CollectionUtils.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.server.config.server.PDBBackendCfg;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pdb.PDBStorage;
+import org.opends.server.backends.pluggable.spi.AccessMode;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.backends.pluggable.spi.TreeName;
+import org.opends.server.backends.pluggable.spi.WriteOperation;
+import org.opends.server.backends.pluggable.spi.WriteableTransaction;
+import org.opends.server.core.MemoryQuota;
+import org.opends.server.core.ServerContext;
+import org.opends.server.extensions.DiskSpaceMonitor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
+public class VLVPageCountsTest extends DirectoryServerTestCase
+{
+  private static final int NB_KEYS = 3 * VLVPageCounts.MAX_PAGE_SIZE + 17;
+
+  private final TreeName vlvTreeName = new TreeName("base-dn", "vlv.test");
+  private final TreeName pageCountsTreeName = new TreeName("base-dn", "pages.vlv.test");
+  private VLVPageCounts pageCounts;
+  private PDBStorage storage;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception
+  {
+    ServerContext serverContext = mock(ServerContext.class);
+    when(serverContext.getMemoryQuota()).thenReturn(new MemoryQuota());
+    when(serverContext.getDiskSpaceMonitor()).thenReturn(mock(DiskSpaceMonitor.class));
+
+    storage = new PDBStorage(createBackendCfg(), serverContext);
+    storage.open(AccessMode.READ_WRITE);
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        txn.openTree(vlvTreeName, true);
+        txn.openTree(pageCountsTreeName, true);
+      }
+    });
+
+    pageCounts = new VLVPageCounts(pageCountsTreeName, vlvTreeName);
+  }
+
+  @AfterMethod
+  public void tearDown()
+  {
+    storage.close();
+    storage.removeStorageFiles();
+  }
+
+  @Test
+  public void testPositionToIndexAfterRandomAdds() throws Exception
+  {
+    final List<Integer> values = shuffledValues(NB_KEYS);
+    addKeys(values);
+
+    for (int index : new int[] { 0, 1, VLVPageCounts.MAX_PAGE_SIZE, NB_KEYS / 2, NB_KEYS - 1 })
+    {
+      assertThat(keyAtIndex(index, NB_KEYS)).isEqualTo(key(index));
+    }
+    assertThat(keyAtIndex(NB_KEYS, NB_KEYS)).isNull();
+  }
+
+  @Test
+  public void testCountKeysBeforeAfterRandomAdds() throws Exception
+  {
+    addKeys(shuffledValues(NB_KEYS));
+
+    for (int value : new int[] { 0, 1, VLVPageCounts.MAX_PAGE_SIZE + 1, NB_KEYS - 1 })
+    {
+      assertThat(countKeysBefore(key(value), NB_KEYS)).isEqualTo(value);
+    }
+    assertThat(countKeysBefore(key(NB_KEYS + 1), NB_KEYS)).isEqualTo(NB_KEYS);
+  }
+
+  @Test
+  public void testPositionToIndexAfterRemoves() throws Exception
+  {
+    addKeys(shuffledValues(NB_KEYS));
+    // Remove all the even values
+    final List<Integer> removed = new ArrayList<>();
+    for (int i = 0; i < NB_KEYS; i += 2)
+    {
+      removed.add(i);
+    }
+    removeKeys(removed);
+
+    final int remaining = NB_KEYS - removed.size();
+    for (int index : new int[] { 0, remaining / 2, remaining - 1 })
+    {
+      assertThat(keyAtIndex(index, remaining)).isEqualTo(key(2 * index + 1));
+    }
+    assertThat(countKeysBefore(key(NB_KEYS / 2), remaining)).isEqualTo(NB_KEYS / 4);
+  }
+
+  @Test
+  public void testPositionToIndexAfterIncreasingAddsFromSeveralThreads() throws Exception
+  {
+    // Increasing keys all belong to the last page, whose count is sharded by thread
+    final int nbThreads = 5;
+    for (int i = 0; i < nbThreads; i++)
+    {
+      final List<Integer> values = new ArrayList<>();
+      for (int value = i * NB_KEYS / nbThreads; value < (i + 1) * NB_KEYS / nbThreads; value++)
+      {
+        values.add(value);
+      }
+      inNewThread(new Callable<Void>()
+      {
+        @Override
+        public Void call() throws Exception
+        {
+          addKeys(values);
+          return null;
+        }
+      });
+    }
+    inNewThread(new Callable<Void>()
+    {
+      @Override
+      public Void call() throws Exception
+      {
+        removeKeys(Arrays.asList(NB_KEYS - 1, NB_KEYS - 2));
+        return null;
+      }
+    });
+
+    final int remaining = NB_KEYS - 2;
+    for (int index : new int[] { 0, VLVPageCounts.MAX_PAGE_SIZE, remaining / 2, remaining - 1 })
+    {
+      assertThat(keyAtIndex(index, remaining)).isEqualTo(key(index));
+    }
+    assertThat(keyAtIndex(remaining, remaining)).isNull();
+    assertThat(countKeysBefore(key(remaining - 1), remaining)).isEqualTo(remaining - 1);
+  }
+
+  @Test
+  public void testInconsistentCountsFallBackToLinearScan() throws Exception
+  {
+    addKeys(shuffledValues(NB_KEYS));
+
+    // Pretend the VLV index holds more keys than recorded by the page counts
+    assertThat(keyAtIndex(NB_KEYS / 3, NB_KEYS + 1)).isEqualTo(key(NB_KEYS / 3));
+    assertThat(countKeysBefore(key(10), NB_KEYS + 1)).isEqualTo(-1);
+  }
+
+  private void addKeys(final List<Integer> values) throws Exception
+  {
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        for (int value : values)
+        {
+          txn.put(vlvTreeName, key(value), ByteString.empty());
+          pageCounts.addKey(txn, key(value));
+        }
+      }
+    });
+  }
+
+  private void removeKeys(final List<Integer> values) throws Exception
+  {
+    storage.write(new WriteOperation()
+    {
+      @Override
+      public void run(WriteableTransaction txn) throws Exception
+      {
+        for (int value : values)
+        {
+          assertThat(txn.delete(vlvTreeName, key(value))).isTrue();
+          pageCounts.removeKey(txn, key(value));
+        }
+      }
+    });
+  }
+
+  private static void inNewThread(Callable<Void> task) throws Exception
+  {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      executor.submit(task).get();
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+
+  private ByteString keyAtIndex(final int index, final long vlvKeyCount) throws Exception
+  {
+    return storage.read(new ReadOperation<ByteString>()
+    {
+      @Override
+      public ByteString run(ReadableTransaction txn) throws Exception
+      {
+        try (Cursor<ByteString, ByteString> cursor = txn.openCursor(vlvTreeName))
+        {
+          return pageCounts.positionToIndex(txn, cursor, index, vlvKeyCount) ? cursor.getKey() : null;
+        }
+      }
+    });
+  }
+
+  private long countKeysBefore(final ByteString key, final long vlvKeyCount) throws Exception
+  {
+    return storage.read(new ReadOperation<Long>()
+    {
+      @Override
+      public Long run(ReadableTransaction txn) throws Exception
+      {
+        try (Cursor<ByteString, ByteString> cursor = txn.openCursor(vlvTreeName))
+        {
+          return pageCounts.countKeysBefore(txn, cursor, key, vlvKeyCount);
+        }
+      }
+    });
+  }
+
+  private static List<Integer> shuffledValues(int nbValues)
+  {
+    final List<Integer> values = new ArrayList<>(nbValues);
+    for (int i = 0; i < nbValues; i++)
+    {
+      values.add(i);
+    }
+    Collections.shuffle(values, new Random(0));
+    return values;
+  }
+
+  private static ByteString key(int value)
+  {
+    return new ByteStringBuilder(4).appendInt(value).toByteString();
+  }
+
+  private PDBBackendCfg createBackendCfg() throws Exception
+  {
+    String homeDirName = "pdb_test";
+    PDBBackendCfg backendCfg = mockCfg(PDBBackendCfg.class);
+
+    when(backendCfg.getBackendId()).thenReturn("persTest" + homeDirName);
+    when(backendCfg.getDBDirectory()).thenReturn(homeDirName);
+    when(backendCfg.getDBDirectoryPermissions()).thenReturn("755");
+    when(backendCfg.getDBCacheSize()).thenReturn(0L);
+    when(backendCfg.getDBCachePercent()).thenReturn(20);
+    when(backendCfg.getBaseDN()).thenReturn(newTreeSet(DN.valueOf("dc=test,dc=com")));
+    when(backendCfg.dn()).thenReturn(DN.valueOf("dc=test,dc=com"));
+    when(backendCfg.listBackendIndexes()).thenReturn(new String[0]);
+    when(backendCfg.listBackendVLVIndexes()).thenReturn(new String[0]);
+
+    return backendCfg;
+  }
+}
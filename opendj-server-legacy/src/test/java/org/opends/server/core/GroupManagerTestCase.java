@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.core;
 
@@ -50,6 +51,7 @@ import static org.forgerock.opendj.ldap.requests.Requests.*;
 import static org.opends.server.protocols.internal.InternalClientConnection.*;
 import static org.opends.server.protocols.internal.Requests.*;
 import static org.opends.server.types.NullOutputStream.nullPrintStream;
+import static org.opends.server.util.CollectionUtils.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.testng.Assert.*;
 
@@ -200,6 +202,159 @@ public class GroupManagerTestCase
     assertTrue(group1Instance.isMember(user5DN));
   }
 
+  /**
+   * Tests the reverse membership lookups of the group manager with static
+   * groups nesting each other and a dynamic group.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test
+  public void testGroupInstancesWithMember() throws Exception {
+    TestCaseUtils.initializeTestBackend(true);
+    GroupManager groupManager = DirectoryServer.getGroupManager();
+    groupManager.deregisterAllGroups();
+    addNestedGroupTestEntries();
+    Group<?> group1Instance = groupManager.getGroupInstance(DN.valueOf("cn=group 1,ou=Groups,o=test"));
+    Group<?> group2Instance = groupManager.getGroupInstance(DN.valueOf("cn=group 2,ou=Groups,o=test"));
+    Group<?> group3Instance = groupManager.getGroupInstance(DN.valueOf("cn=group 3,ou=Groups,o=test"));
+    Group<?> group4Instance = groupManager.getGroupInstance(DN.valueOf("cn=group 4,ou=Groups,o=test"));
+    Entry user1Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.1,ou=People,o=test"));
+    Entry user2Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.2,ou=People,o=test"));
+    Entry user3Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.3,ou=People,o=test"));
+    Entry user5Entry = DirectoryServer.getEntry(DN.valueOf("uid=user.5,ou=People,o=test"));
+    assertFalse(groupManager.isMemberOfAnyGroup(user1Entry));
+
+    group1Instance.addNestedGroup(group2Instance.getGroupDN());
+    group2Instance.addNestedGroup(group3Instance.getGroupDN());
+    group3Instance.addNestedGroup(group4Instance.getGroupDN());
+    group1Instance.addMember(user1Entry);
+    group2Instance.addMember(user2Entry);
+
+    assertTrue(groupManager.isMemberOfAnyGroup(user1Entry));
+    assertFalse(groupManager.isMemberOfAnyGroup(user3Entry));
+    assertEquals(groupManager.getGroupInstancesWithMember(user1Entry), newHashSet(group1Instance));
+    assertEquals(groupManager.getGroupInstancesWithMember(user2Entry), newHashSet(group1Instance, group2Instance));
+    assertEquals(groupManager.getGroupInstancesWithMember(user5Entry),
+        newHashSet(group1Instance, group2Instance, group3Instance, group4Instance));
+
+    // Membership changes made through LDAP must be reflected as well
+    TestCaseUtils.applyModifications(true,
+        "dn: cn=group 2,ou=Groups,o=test",
+        "changetype: modify",
+        "delete: member",
+        "member: uid=user.2,ou=People,o=test",
+        "",
+        "dn: cn=group 3,ou=Groups,o=test",
+        "changetype: modify",
+        "add: member",
+        "member: uid=user.3,ou=People,o=test");
+    assertTrue(groupManager.getGroupInstancesWithMember(user2Entry).isEmpty());
+    assertEquals(groupManager.getGroupInstancesWithMember(user3Entry),
+        newHashSet(groupManager.getGroupInstance(DN.valueOf("cn=group 1,ou=Groups,o=test")),
+                   groupManager.getGroupInstance(DN.valueOf("cn=group 2,ou=Groups,o=test")),
+                   groupManager.getGroupInstance(DN.valueOf("cn=group 3,ou=Groups,o=test"))));
+
+    TestCaseUtils.deleteEntry(DN.valueOf("cn=group 1,ou=Groups,o=test"));
+    assertFalse(groupManager.isMemberOfAnyGroup(user1Entry));
+  }
+
+  /**
+   * Tests that the members of a static group can be changed while its member
+   * list is being iterated, and that replacing its members only applies the
+   * differences.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test
+  public void testStaticGroupMemberChangesDuringIteration() throws Exception {
+    TestCaseUtils.initializeTestBackend(true);
+    GroupManager groupManager = DirectoryServer.getGroupManager();
+    groupManager.deregisterAllGroups();
+    addNestedGroupTestEntries();
+    DN group1DN = DN.valueOf("cn=group 1,ou=Groups,o=test");
+    DN user1DN = DN.valueOf("uid=user.1,ou=People,o=test");
+    DN user2DN = DN.valueOf("uid=user.2,ou=People,o=test");
+    DN user3DN = DN.valueOf("uid=user.3,ou=People,o=test");
+    DN user4DN = DN.valueOf("uid=user.4,ou=People,o=test");
+    Group<?> group1Instance = groupManager.getGroupInstance(group1DN);
+    group1Instance.addMember(DirectoryServer.getEntry(user1DN));
+    group1Instance.addMember(DirectoryServer.getEntry(user2DN));
+
+    MemberList memberList = group1Instance.getMembers();
+    group1Instance.addMember(DirectoryServer.getEntry(user3DN));
+    group1Instance.removeMember(user1DN);
+    while (memberList.hasMoreMembers()) {
+      assertNotNull(memberList.nextMemberDN());
+    }
+    memberList.close();
+    assertFalse(group1Instance.isMember(user1DN));
+    assertTrue(group1Instance.isMember(user2DN));
+    assertTrue(group1Instance.isMember(user3DN));
+
+    TestCaseUtils.applyModifications(true,
+        "dn: cn=group 1,ou=Groups,o=test",
+        "changetype: modify",
+        "replace: member",
+        "member: uid=user.2,ou=People,o=test",
+        "member: uid=user.4,ou=People,o=test");
+    group1Instance = groupManager.getGroupInstance(group1DN);
+    assertTrue(group1Instance.isMember(user2DN));
+    assertFalse(group1Instance.isMember(user3DN));
+    assertTrue(group1Instance.isMember(user4DN));
+    assertEquals(groupManager.getGroupInstancesWithMember(DirectoryServer.getEntry(user4DN)),
+        newHashSet(group1Instance));
+    assertFalse(groupManager.isMemberOfAnyGroup(DirectoryServer.getEntry(user3DN)));
+  }
+
+  /**
+   * Tests that a group is unindexed from the member DNs which were indexed for
+   * it, even when its current members have changed since and these changes
+   * have not been applied to the index yet.
+   *
+   * @throws Exception If an unexpected problem occurs.
+   */
+  @Test
+  public void testMembershipIndexRemovesIndexedMembers() throws Exception {
+    TestCaseUtils.initializeTestBackend(true);
+    GroupManager groupManager = DirectoryServer.getGroupManager();
+    groupManager.deregisterAllGroups();
+    addNestedGroupTestEntries();
+    DN group1DN = DN.valueOf("cn=group 1,ou=Groups,o=test");
+    DN user1DN = DN.valueOf("uid=user.1,ou=People,o=test");
+    DN user3DN = DN.valueOf("uid=user.3,ou=People,o=test");
+    Group<?> group1Instance = groupManager.getGroupInstance(group1DN);
+    group1Instance.addMember(DirectoryServer.getEntry(user1DN));
+
+    // The group reports its changes to the index of the group manager only,
+    // so this index does not see them, as if they were still in flight
+    GroupMembershipIndex index = new GroupMembershipIndex();
+    index.put(group1Instance);
+    index.indexPendingGroups();
+    assertEquals(index.getGroupDNs(user1DN.toNormalizedByteString()), newHashSet(group1DN));
+    long membershipCount = index.getMembershipCount();
+
+    group1Instance.removeMember(user1DN);
+    group1Instance.addMember(DirectoryServer.getEntry(user3DN));
+    assertTrue(index.getGroupDNs(user3DN.toNormalizedByteString()).isEmpty());
+
+    // Applying these changes, then the same changes again, only updates the index once
+    index.update(group1Instance, newArrayList(user3DN.toNormalizedByteString()),
+        newArrayList(user1DN.toNormalizedByteString()));
+    index.update(group1Instance, newArrayList(user3DN.toNormalizedByteString()),
+        newArrayList(user1DN.toNormalizedByteString()));
+    assertTrue(index.getGroupDNs(user1DN.toNormalizedByteString()).isEmpty());
+    assertEquals(index.getGroupDNs(user3DN.toNormalizedByteString()), newHashSet(group1DN));
+    assertEquals(index.getMembershipCount(), membershipCount);
+
+    // Members removed from the group but still indexed are unindexed too
+    group1Instance.removeMember(user3DN);
+    index.remove(group1DN);
+    assertTrue(index.getGroupDNs(user3DN.toNormalizedByteString()).isEmpty());
+    assertEquals(index.getMembershipCount(), 0);
+    assertEquals(index.getMemberCount(), 0);
+    assertEquals(index.getEstimatedMemorySize(), 0);
+  }
+
   /**
    * Invokes membership and nested group APIs using a group instance that has
    * been changed by the group manager via ldap modify.
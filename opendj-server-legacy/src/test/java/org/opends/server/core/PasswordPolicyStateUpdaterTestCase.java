@@ -0,0 +1,208 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.config.ConfigConstants.*;
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ModificationType;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.Attributes;
+import org.opends.server.types.Entry;
+import org.opends.server.types.Modification;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests the deferred writes of the password policy state updates made by binds. */
+@SuppressWarnings("javadoc")
+public class PasswordPolicyStateUpdaterTestCase extends CoreTestCase
+{
+  private static final String FAILURE_TIME = "20260101000000.000Z";
+
+  private DN userDN;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    userDN = DN.valueOf("uid=test.user,o=test");
+  }
+
+  @BeforeMethod
+  public void addUser() throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntry(
+        "dn: uid=test.user,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: test.user",
+        "givenName: Test",
+        "sn: User",
+        "cn: Test User",
+        "userPassword: password");
+  }
+
+  private PasswordPolicyStateUpdater newStateUpdater(int writeBehindThreshold)
+  {
+    // never write on schedule during the tests
+    return new PasswordPolicyStateUpdater(
+        DirectoryServer.getDefaultPasswordPolicy(), "test", 3600000, writeBehindThreshold);
+  }
+
+  private List<Modification> addFailureTime()
+  {
+    return Collections.singletonList(new Modification(
+        ModificationType.ADD, Attributes.create(OP_ATTR_PWPOLICY_FAILURE_TIME, FAILURE_TIME), true));
+  }
+
+  @Test
+  public void deferredUpdatesAreVisibleToBinds() throws Exception
+  {
+    final PasswordPolicyStateUpdater updater = newStateUpdater(1000);
+    try
+    {
+      assertThat(updater.defer(userDN, addFailureTime())).isTrue();
+
+      final Entry storedEntry = DirectoryServer.getEntry(userDN);
+      assertThat(storedEntry.hasAttribute(getFailureTimeType())).isFalse();
+      assertThat(updater.applyPendingUpdates(storedEntry).hasAttribute(getFailureTimeType())).isTrue();
+
+      updater.writeAll();
+      assertThat(DirectoryServer.getEntry(userDN).hasAttribute(getFailureTimeType())).isTrue();
+    }
+    finally
+    {
+      updater.stop();
+    }
+  }
+
+  @Test
+  public void otherUpdatesAreNotDeferred() throws Exception
+  {
+    final PasswordPolicyStateUpdater updater = newStateUpdater(1000);
+    try
+    {
+      final List<Modification> mods = Collections.singletonList(new Modification(
+          ModificationType.REPLACE, Attributes.create(OP_ATTR_PWPOLICY_GRACE_LOGIN_TIME, FAILURE_TIME), true));
+      assertThat(updater.defer(userDN, mods)).isFalse();
+    }
+    finally
+    {
+      updater.stop();
+    }
+  }
+
+  @Test
+  public void pendingUpdatesAreWrittenFirst() throws Exception
+  {
+    final PasswordPolicyStateUpdater updater = newStateUpdater(1000);
+    try
+    {
+      assertThat(updater.defer(userDN, addFailureTime())).isTrue();
+      updater.write(userDN, Collections.singletonList(new Modification(
+          ModificationType.REPLACE, Attributes.empty(getFailureTimeType()), true)));
+
+      final Entry storedEntry = DirectoryServer.getEntry(userDN);
+      assertThat(storedEntry.hasAttribute(getFailureTimeType())).isFalse();
+      assertThat(updater.applyPendingUpdates(storedEntry)).isSameAs(storedEntry);
+    }
+    finally
+    {
+      updater.stop();
+    }
+  }
+
+  @Test
+  public void unlockDiscardsPendingUpdates() throws Exception
+  {
+    final PasswordPolicyStateUpdater updater = newStateUpdater(1000);
+    try
+    {
+      assertThat(updater.defer(userDN, Arrays.asList(addFailureTime().get(0), new Modification(
+          ModificationType.REPLACE, Attributes.create(OP_ATTR_PWPOLICY_LOCKED_TIME, FAILURE_TIME), true)))).isTrue();
+
+      // clear the failure lockout as the password policy state extended operation does
+      final PasswordPolicyState state = new PasswordPolicyState(
+          DirectoryServer.getDefaultPasswordPolicy(), DirectoryServer.getEntry(userDN), System.currentTimeMillis());
+      state.clearFailureLockout();
+      final ModifyOperation modifyOperation = getRootConnection().processModify(userDN, state.getModifications());
+      assertThat(modifyOperation.getResultCode()).isEqualTo(ResultCode.SUCCESS);
+
+      final Entry storedEntry = DirectoryServer.getEntry(userDN);
+      assertThat(updater.applyPendingUpdates(storedEntry)).isSameAs(storedEntry);
+      updater.writeAll();
+      final Entry writtenEntry = DirectoryServer.getEntry(userDN);
+      assertThat(writtenEntry.hasAttribute(getFailureTimeType())).isFalse();
+      assertThat(writtenEntry.hasAttribute(getLockedTimeType())).isFalse();
+    }
+    finally
+    {
+      updater.stop();
+    }
+  }
+
+  @Test
+  public void unrelatedModifyKeepsPendingUpdates() throws Exception
+  {
+    final PasswordPolicyStateUpdater updater = newStateUpdater(1000);
+    try
+    {
+      assertThat(updater.defer(userDN, addFailureTime())).isTrue();
+      final ModifyOperation modifyOperation = getRootConnection().processModify(userDN,
+          Collections.singletonList(new Modification(
+              ModificationType.REPLACE, Attributes.create("description", "modified"))));
+      assertThat(modifyOperation.getResultCode()).isEqualTo(ResultCode.SUCCESS);
+
+      assertThat(updater.applyPendingUpdates(DirectoryServer.getEntry(userDN)).hasAttribute(getFailureTimeType()))
+          .isTrue();
+    }
+    finally
+    {
+      updater.stop();
+    }
+  }
+
+  @Test
+  public void stopWritesPendingUpdates() throws Exception
+  {
+    final PasswordPolicyStateUpdater updater = newStateUpdater(1000);
+    assertThat(updater.defer(userDN, addFailureTime())).isTrue();
+    updater.stop();
+    assertThat(DirectoryServer.getEntry(userDN).hasAttribute(getFailureTimeType())).isTrue();
+  }
+
+  private AttributeType getFailureTimeType()
+  {
+    return DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType(OP_ATTR_PWPOLICY_FAILURE_TIME);
+  }
+
+  private AttributeType getLockedTimeType()
+  {
+    return DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType(OP_ATTR_PWPOLICY_LOCKED_TIME);
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.core;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Attributes;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/** Tests the cache of the verified passwords of password policies. */
+@SuppressWarnings("javadoc")
+public class PasswordVerificationCacheTestCase extends CoreTestCase
+{
+  private static final ByteString STORED_PASSWORD = ByteString.valueOfUtf8("{PBKDF2}10000:stored");
+
+  private DN userDN;
+  private List<Attribute> storedPasswords;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+    userDN = DN.valueOf("uid=user.1,o=test");
+    storedPasswords = Collections.singletonList(Attributes.create("userPassword", STORED_PASSWORD.toString()));
+  }
+
+  @Test
+  public void onlyVerifiedPasswordsAreCached()
+  {
+    final PasswordVerificationCache cache = new PasswordVerificationCache("test", 10, 60000);
+    final byte[] digest = cache.digest(ByteString.valueOfUtf8("password"));
+    assertThat(cache.isVerified(userDN, storedPasswords, digest)).isFalse();
+
+    cache.verified(userDN, STORED_PASSWORD, digest, 1000000);
+    assertThat(cache.isVerified(userDN, storedPasswords, digest)).isTrue();
+    assertThat(cache.isVerified(userDN, storedPasswords, cache.digest(ByteString.valueOfUtf8("wrong")))).isFalse();
+    assertThat(cache.isVerified(DN.valueOf("uid=user.2,o=test"), storedPasswords, digest)).isFalse();
+  }
+
+  @Test
+  public void passwordChangeInvalidatesVerification()
+  {
+    final PasswordVerificationCache cache = new PasswordVerificationCache("test", 10, 60000);
+    final byte[] digest = cache.digest(ByteString.valueOfUtf8("password"));
+    cache.verified(userDN, STORED_PASSWORD, digest, 1000000);
+
+    final List<Attribute> newStoredPasswords =
+        Collections.singletonList(Attributes.create("userPassword", "{PBKDF2}10000:changed"));
+    assertThat(cache.isVerified(userDN, newStoredPasswords, digest)).isFalse();
+
+    cache.invalidate(userDN);
+    assertThat(cache.isVerified(userDN, storedPasswords, digest)).isFalse();
+  }
+
+  @Test
+  public void expiredVerificationsAreNotUsed() throws Exception
+  {
+    final PasswordVerificationCache cache = new PasswordVerificationCache("test", 10, 1);
+    final byte[] digest = cache.digest(ByteString.valueOfUtf8("password"));
+    cache.verified(userDN, STORED_PASSWORD, digest, 1000000);
+    Thread.sleep(10);
+    assertThat(cache.isVerified(userDN, storedPasswords, digest)).isFalse();
+  }
+
+  @Test
+  public void cacheSizeIsBounded()
+  {
+    final PasswordVerificationCache cache = new PasswordVerificationCache("test", 2, 60000);
+    final byte[] digest = cache.digest(ByteString.valueOfUtf8("password"));
+    for (int i = 0; i < 5; i++)
+    {
+      cache.verified(DN.valueOf("uid=user." + i + ",o=test"), STORED_PASSWORD, digest, 1000000);
+    }
+    int cached = 0;
+    for (int i = 0; i < 5; i++)
+    {
+      if (cache.isVerified(DN.valueOf("uid=user." + i + ",o=test"), storedPasswords, digest))
+      {
+        cached++;
+      }
+    }
+    assertThat(cached).isEqualTo(2);
+  }
+}
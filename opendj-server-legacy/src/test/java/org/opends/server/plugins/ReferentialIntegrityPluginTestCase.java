@@ -14,6 +14,7 @@
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions copyright 2011 profiq s.r.o.
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.plugins;
 
@@ -294,6 +295,38 @@ public class ReferentialIntegrityPluginTestCase extends PluginTestCase  {
     isAttributeValueEntry(tspPerson, false,"seealso", tuser1, tuser2, tuser3);
    }
 
+  /**
+   * Test a subtree delete whose references need several searches per base
+   * DN, with two base DNs searched concurrently.
+   *
+   * @throws Exception If an unexpected result happened.
+   */
+  @Test
+  public void testReferentialDeleteTreeManyEntries() throws Exception {
+    replaceAttrEntry(configDN, dsConfigAttrType, "member");
+    addAttrEntry(configDN, dsConfigAttrType, "uniquemember");
+    replaceAttrEntry(configDN, dsConfigBaseDN, testSuffix);
+    addAttrEntry(configDN, dsConfigBaseDN, exSuffix);
+
+    String[] users = new String[300];
+    for (int i = 0; i < users.length; i++)
+    {
+      users[i] = "uid=many." + i + ", ou=People, ou=dept," + testSuffix;
+    }
+    addEntries(users);
+    addAttrEntry(DN.valueOf(tgroup), "member", (Object[]) users);
+    addAttrEntry(DN.valueOf(tugroup), "uniquemember", (Object[]) users);
+    addAttrEntry(DN.valueOf(group), "member", (Object[]) users);
+
+    deleteSubtree(oldSuperior.replace(exSuffix, testSuffix));
+
+    isMember(tgroup, false, users);
+    isMember(group, false, users);
+    isAttributeValueEntry(tgroup, false, "member", users);
+    isAttributeValueEntry(tugroup, false, "uniquemember", users);
+    isAttributeValueEntry(group, false, "member", users);
+  }
+
   /**
    * Check delete with multiple attribute types and multiple suffixes.
    *
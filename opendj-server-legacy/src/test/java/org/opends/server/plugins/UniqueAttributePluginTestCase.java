@@ -13,6 +13,7 @@
  *
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.plugins;
 
@@ -481,6 +482,31 @@ public class UniqueAttributePluginTestCase extends PluginTestCase {
   }
 
 
+  /**
+   * Test that a value cached as absent by the check of an add operation is
+   * evicted from the absent value cache once that operation has added it,
+   * using the equality index of the "dc=example,dc=com" backend.
+   *
+   * @throws Exception If an unexpected result occurs.
+   */
+  @Test
+  public void testAbsentValueCacheEvictsAddedValues() throws Exception {
+    replaceAttrInEntry(uidConfigDN,dsConfigAttrType,"mail");
+    replaceAttrInEntry(uidConfigDN,dsConfigBaseDN,"dc=example,dc=com");
+    Entry e1 = makeEntry("cn=twice user1, ou=People1,dc=example,dc=com");
+    addAttribute(e1, "mail", "twice@test", "twice2@test");
+    addEntry(e1, SUCCESS);
+    //Fail because the value was added by the previous operation, even
+    //though it is written with a different case.
+    Entry e2 = makeEntry("cn=twice user2, ou=People1,dc=example,dc=com");
+    addAttribute(e2, "mail", "other@test", "Twice2@Test");
+    addEntry(e2, CONSTRAINT_VIOLATION);
+    delAttribute(e2, "mail");
+    addAttribute(e2, "mail", "other@test");
+    addEntry(e2, SUCCESS);
+  }
+
+
   /**
    * Create entries under the specified suffix and add them to the server.
    * The character argument is used to make the mail attribute unique.
@@ -0,0 +1,51 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.common;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.opends.server.replication.ReplicationTestCase;
+import org.testng.annotations.Test;
+
+/** Test {@link LatencyHistogram}. */
+@SuppressWarnings("javadoc")
+public class LatencyHistogramTest extends ReplicationTestCase
+{
+  @Test
+  public void emptyHistogram()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertThat(histogram.getCount()).isEqualTo(0);
+    assertThat(histogram.toMonitorValues()).isEmpty();
+  }
+
+  @Test
+  public void latenciesAreCountedInBuckets()
+  {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(0);
+    histogram.record(1);
+    histogram.record(2);
+    histogram.record(3);
+    histogram.record(5000);
+    histogram.record(5001);
+    histogram.record(60000);
+
+    assertThat(histogram.getCount()).isEqualTo(7);
+    assertThat(histogram.toMonitorValues()).containsExactly(
+        "<=1ms:2", "<=2ms:1", "<=5ms:1", "<=5000ms:1", ">5000ms:2");
+  }
+}
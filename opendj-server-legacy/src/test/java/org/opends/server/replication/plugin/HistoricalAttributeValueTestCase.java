@@ -12,11 +12,16 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
 import org.assertj.core.api.Assertions;
+import org.forgerock.i18n.LocalizedIllegalArgumentException;
+import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.ByteString;
 import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.replication.common.CSN;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -47,4 +52,67 @@ public class HistoricalAttributeValueTestCase extends ReplicationTestCase
     HistoricalAttributeValue val = new HistoricalAttributeValue(strVal);
     Assertions.assertThat(strVal).isEqualTo(val.toString());
   }
+
+  @Test(dataProvider = "values")
+  public void testBinaryFormRoundTrip(String strVal)
+  {
+    ByteString binary = new HistoricalAttributeValue(strVal).toByteString();
+    HistoricalAttributeValue val = HistoricalAttributeValue.valueOf(binary);
+    Assertions.assertThat(val.toString()).isEqualTo(strVal);
+    Assertions.assertThat(val.toByteString()).isEqualTo(binary);
+    Assertions.assertThat(binary.length()).isLessThan(strVal.length());
+    Assertions.assertThat(HistoricalAttributeValue.decodeCSN(binary)).isEqualTo(val.getCSN());
+  }
+
+  @Test(dataProvider = "values")
+  public void testStringFormIsStillDecoded(String strVal)
+  {
+    HistoricalAttributeValue val = HistoricalAttributeValue.valueOf(ByteString.valueOfUtf8(strVal));
+    Assertions.assertThat(val.toString()).isEqualTo(strVal);
+    Assertions.assertThat(HistoricalAttributeValue.decodeCSN(ByteString.valueOfUtf8(strVal))).isNull();
+  }
+
+  @Test
+  public void testBinaryFormKeepsBinaryValues()
+  {
+    ByteString value = ByteString.wrap(new byte[] { 0, (byte) 0xFF, ':', 1 });
+    CSN csn = new CSN(0x14f2d0c9f53L, 1, 1);
+    ByteString binary = HistoricalAttributeValue.encode(AttributeDescription.valueOf("description"), csn,
+        HistAttrModificationKey.ADD, value);
+
+    HistoricalAttributeValue val = HistoricalAttributeValue.valueOf(binary);
+    Assertions.assertThat(val.getAttributeValue()).isEqualTo(value);
+    Assertions.assertThat(val.getHistKey()).isEqualTo(HistAttrModificationKey.ADD);
+    Assertions.assertThat(val.getCSN()).isEqualTo(csn);
+  }
+
+  @DataProvider
+  public Object[][] recordTypes()
+  {
+    return new Object[][] {
+      { HistAttrModificationKey.DEL, 2 },
+      { HistAttrModificationKey.ATTRDEL, 3 },
+      { HistAttrModificationKey.REPL, 4 },
+      { HistAttrModificationKey.ADD, 5 },
+    };
+  }
+
+  /** The record types are persisted, they must not depend on the declaration order of the keys. */
+  @Test(dataProvider = "recordTypes")
+  public void testBinaryRecordTypesAreStable(HistAttrModificationKey histKey, int recordType)
+  {
+    ByteString binary = HistoricalAttributeValue.encode(AttributeDescription.valueOf("description"),
+        new CSN(0x14f2d0c9f53L, 1, 1), histKey, null);
+    Assertions.assertThat(binary.byteAt(1) & 0xFF).isEqualTo(recordType);
+  }
+
+  @Test(expectedExceptions = LocalizedIllegalArgumentException.class)
+  public void testUnknownBinaryRecordTypeIsRejected()
+  {
+    ByteString binary = HistoricalAttributeValue.encode(AttributeDescription.valueOf("description"),
+        new CSN(0x14f2d0c9f53L, 1, 1), HistAttrModificationKey.ADD, null);
+    byte[] bytes = binary.toByteArray();
+    bytes[1] = 0x7F;
+    HistoricalAttributeValue.valueOf(ByteString.wrap(bytes));
+  }
 }
@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -25,6 +26,7 @@ import org.assertj.core.api.Assertions;
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.Assertion;
+import org.forgerock.opendj.ldap.AttributeDescription;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
@@ -121,6 +123,25 @@ public class HistoricalCsnOrderingTest extends ReplicationTestCase
 
   }
 
+  /** Check the binary form of the historical information is ordered like the String form. */
+  @Test
+  public void binaryFormRuleTest() throws Exception
+  {
+    MatchingRule rule = getRule();
+
+    CSN csn = new CSN(TimeThread.getTime(), 12, 345);
+    ByteString stringForm = ByteString.valueOfUtf8("description:" + csn + ":add:value");
+    ByteString binaryForm = HistoricalAttributeValue.encode(
+        AttributeDescription.valueOf("description"), csn, HistAttrModificationKey.ADD, ByteString.valueOfUtf8("value"));
+
+    assertEquals(rule.normalizeAttributeValue(binaryForm), rule.normalizeAttributeValue(stringForm));
+    assertEquals(rule.normalizeAttributeValue(HistoricalAttributeValue.encodeEntryOperation(csn, false)),
+        rule.normalizeAttributeValue(ByteString.valueOfUtf8("dn:" + csn + ":add")));
+
+    Assertion assertion = rule.getGreaterOrEqualAssertion(ByteString.valueOfUtf8("dummy:" + csn));
+    assertEquals(assertion.matches(rule.normalizeAttributeValue(binaryForm)), ConditionResult.TRUE);
+  }
+
   /**
    * Test that we can retrieve the entries that were missed by
    * a replication server and can  re-build operations from the historical
@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.plugin;
 
@@ -33,6 +34,7 @@ import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.protocol.ModifyContext;
 import org.opends.server.replication.protocol.OperationContext;
 import org.opends.server.types.Attribute;
+import org.opends.server.types.AttributeBuilder;
 import org.opends.server.types.Attributes;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
@@ -413,7 +415,9 @@ public class ModifyReplaySingleValuedAttributeTest extends ReplicationTestCase
   private static Attribute dsSyncHist(int t, String partialDsSyncHist)
   {
     String value = ATTRIBUTE_NAME + ":000000000000000000000000000" + t + partialDsSyncHist;
-    return Attributes.create(SYNCHIST, value);
+    AttributeBuilder builder = new AttributeBuilder(SYNCHIST);
+    builder.add(HistoricalAttributeValue.valueOf(ByteString.valueOfUtf8(value)).toByteString());
+    return builder.toAttribute();
   }
 
   private static Modification newModification(ModificationType modType, String value)
@@ -13,6 +13,7 @@
  *
  * Copyright 2006-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.protocol;
 
@@ -635,6 +636,28 @@ public class SynchronizationMsgTest extends ReplicationTestCase
         msg1.getBytes(getCurrentVersion()), getCurrentVersion());
   }
 
+  @Test
+  public void cumulativeAckMsgTest() throws Exception
+  {
+    CSN csn = new CSN(TimeThread.getTime(), 123, 45);
+    AckMsg msg1 = AckMsg.newCumulativeAck(csn);
+    assertTrue(msg1.isCumulative());
+    assertFalse(new AckMsg(csn).isCumulative());
+
+    AckMsg msg2 = (AckMsg) ReplicationMsg.generateMsg(
+        msg1.getBytes(REPLICATION_PROTOCOL_V9), REPLICATION_PROTOCOL_V9);
+    assertEquals(msg2.getCSN(), csn);
+    assertTrue(msg2.isCumulative());
+    assertFalse(msg2.hasTimeout());
+    assertFalse(msg2.hasWrongStatus());
+    assertFalse(msg2.hasReplayError());
+    assertEquals(msg2.getFailedServers().size(), 0);
+
+    // Cannot be sent to servers not supporting cumulative acks
+    assertNull(msg1.getBytes(REPLICATION_PROTOCOL_V8));
+    assertNotNull(new AckMsg(csn).getBytes(REPLICATION_PROTOCOL_V8));
+  }
+
   @DataProvider(name="createServerStartData")
   public Object[][] createServerStartData() throws Exception
   {
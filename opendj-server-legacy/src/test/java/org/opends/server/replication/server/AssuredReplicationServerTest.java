@@ -13,6 +13,7 @@
  *
  * Copyright 2008-2010 Sun Microsystems, Inc.
  * Portions Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server;
 
@@ -2341,6 +2342,63 @@ public class AssuredReplicationServerTest
     }
   }
 
+  /**
+   * Test that the ack of a safe read update sent by a DS accepting cumulative
+   * acks still reports the replay error of another DS.
+   * Topology:
+   * DS1---RS1---DS2 (replay error)
+   */
+  @Test(enabled = true)
+  public void testSafeReadReplayErrorNotCumulated() throws Exception
+  {
+    String testCase = "testSafeReadReplayErrorNotCumulated";
+
+    debugInfo("Starting " + testCase);
+
+    initTest();
+
+    try
+    {
+      rs1 = createReplicationServer(RS1_ID, DEFAULT_GID, SMALL_TIMEOUT, testCase, 0);
+
+      // DS 1 uses the current protocol version, so it accepts cumulative acks
+      fakeRDs[1] = createFakeReplicationDomain(FDS1_ID, DEFAULT_GID, RS1_ID,
+          DEFAULT_GENID, AssuredMode.SAFE_READ_MODE, 1, LONG_TIMEOUT, TIMEOUT_DS_SCENARIO);
+      fakeRDs[2] = createFakeReplicationDomain(FDS2_ID, DEFAULT_GID, RS1_ID,
+          DEFAULT_GENID, AssuredMode.SAFE_READ_MODE, 1, LONG_TIMEOUT, REPLAY_ERROR_DS_SCENARIO);
+
+      final FakeReplicationDomain fakeRd1 = fakeRDs[1];
+      waitForStableTopo(fakeRd1, 1, 0);
+
+      long startTime = System.currentTimeMillis();
+      fakeRd1.sendNewFakeUpdate();
+      long sendUpdateTime = System.currentTimeMillis() - startTime;
+
+      // Check call time (should be short as RS should have sent the error ack)
+      assertThat(sendUpdateTime).isLessThan(MAX_SEND_UPDATE_TIME);
+
+      sleepWhileUpdatePropagates(500);
+
+      fakeRd1.newSafeReadAssertions()
+          .sentUpdates(1)
+          .notAcknowledgedUpdates(1)
+          .replayErrorUpdates(1)
+          .serverNotAcknowledgedUpdates(FDS2_ID, 1)
+          .runAsserts();
+      fakeRDs[2].newSafeReadAssertions()
+          .receivedUpdates(1)
+          .receivedUpdatesNotAcked(1)
+          .runAsserts();
+
+      // Sanity check
+      fakeRd1.assertReceivedUpdates(0);
+      fakeRDs[2].assertReceivedUpdates(1);
+    } finally
+    {
+      endTest();
+    }
+  }
+
   /**
    * Returns possible combinations of parameters for testSafeReadOneRSComplexPrecommit test.
    */
@@ -0,0 +1,118 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.common.ServerState;
+import org.opends.server.replication.protocol.UpdateMsg;
+import org.opends.server.replication.server.UpdateSequence.RoutedUpdate;
+import org.opends.server.replication.server.changelog.api.DBCursor;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit" }, sequential = true)
+public class MessageHandlerTest extends DirectoryServerTestCase
+{
+  /**
+   * A handler reads the changelog to catch up while another handler, following the update sequence,
+   * consumes an update appended in the meantime and trims the sequence. The late handler must then
+   * follow the sequence from where its changelog read ended, without reading the changelog again.
+   */
+  @Test(timeOut = 10000)
+  @SuppressWarnings("unchecked")
+  public void lateHandlerResumesFromSequenceTrimmedByFollowingHandler() throws Exception
+  {
+    final UpdateSequence sequence = new UpdateSequence(16);
+    final UpdateMsg oldUpdate = newUpdate(0);
+    final UpdateMsg newUpdate = newUpdate(1);
+    append(sequence, oldUpdate);
+
+    final ReplicationServerDomain domain = mock(ReplicationServerDomain.class);
+    final MessageHandler lateHandler = new MessageHandler(10, mock(ReplicationServer.class));
+    lateHandler.replicationServerDomain = domain;
+    lateHandler.setInitialServerState(new ServerState());
+    final List<MessageHandler> handlers = Collections.singletonList(lateHandler);
+
+    when(domain.getUpdateSequence()).thenReturn(sequence);
+    when(domain.selectUpdate(any(RoutedUpdate.class), any(MessageHandler.class))).thenAnswer(new Answer<UpdateMsg>()
+    {
+      @Override
+      public UpdateMsg answer(InvocationOnMock invocation)
+      {
+        return ((RoutedUpdate) invocation.getArguments()[0]).getUpdateMsg();
+      }
+    });
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(InvocationOnMock invocation)
+      {
+        final long position = (Long) invocation.getArguments()[0];
+        sequence.trimTo(ReplicationServerDomain.getMinUpdateSequencePosition(handlers, position));
+        return null;
+      }
+    }).when(domain).trimUpdateSequence(anyLong());
+
+    final DBCursor<UpdateMsg> changelogCursor = mock(DBCursor.class);
+    when(changelogCursor.getRecord()).thenReturn(oldUpdate);
+    when(changelogCursor.next()).thenAnswer(new Answer<Boolean>()
+    {
+      private boolean read;
+
+      @Override
+      public Boolean answer(InvocationOnMock invocation)
+      {
+        if (read)
+        {
+          return false;
+        }
+        read = true;
+        // an update arrives, the following handler consumes it then trims the sequence
+        append(sequence, newUpdate);
+        domain.trimUpdateSequence(sequence.getHead());
+        return true;
+      }
+    });
+    final DBCursor<UpdateMsg> secondChangelogCursor = mock(DBCursor.class);
+    when(secondChangelogCursor.getRecord()).thenReturn(newUpdate);
+    when(secondChangelogCursor.next()).thenReturn(true, false);
+    when(domain.getCursorFrom(any(ServerState.class))).thenReturn(changelogCursor, secondChangelogCursor);
+
+    assertThat(lateHandler.getNextMessage()).isSameAs(oldUpdate);
+    assertThat(lateHandler.getNextMessage()).isSameAs(newUpdate);
+    assertThat(sequence.getTrimmedPosition()).isEqualTo(1);
+    verify(domain, times(1)).getCursorFrom(any(ServerState.class));
+  }
+
+  private static void append(UpdateSequence sequence, UpdateMsg updateMsg)
+  {
+    sequence.append(updateMsg, null, Collections.<Integer> emptyList(), null);
+  }
+
+  private static UpdateMsg newUpdate(int i)
+  {
+    return new UpdateMsg(new CSN(i + 1, i, 1), new byte[1]);
+  }
+}
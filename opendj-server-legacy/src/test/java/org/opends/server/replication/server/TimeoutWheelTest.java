@@ -0,0 +1,112 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit" }, sequential = true)
+public class TimeoutWheelTest extends DirectoryServerTestCase
+{
+  @Test
+  public void tasksRunInDeadlineOrder() throws Exception
+  {
+    final Queue<Integer> ran = new ConcurrentLinkedQueue<>();
+    final CountDownLatch latch = new CountDownLatch(3);
+    final TimeoutWheel wheel = new TimeoutWheel("test wheel", 10, null);
+    wheel.start();
+    try
+    {
+      wheel.schedule(newTask(ran, latch, 3), 300);
+      wheel.schedule(newTask(ran, latch, 1), 0);
+      wheel.schedule(newTask(ran, latch, 2), 100);
+
+      assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(ran).containsExactly(1, 2, 3);
+    }
+    finally
+    {
+      wheel.shutdown();
+    }
+  }
+
+  @Test
+  public void tasksDoNotRunBeforeTheirDeadline() throws Exception
+  {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final TimeoutWheel wheel = new TimeoutWheel("test wheel", 1, null);
+    wheel.start();
+    try
+    {
+      final long start = System.nanoTime();
+      // Longer than a full round of the wheel
+      wheel.schedule(newTask(new ConcurrentLinkedQueue<Integer>(), latch, 1), 700);
+
+      assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(700);
+    }
+    finally
+    {
+      wheel.shutdown();
+    }
+  }
+
+  @Test
+  public void tickTaskRunsAfterEachTick() throws Exception
+  {
+    final AtomicInteger ticks = new AtomicInteger();
+    final TimeoutWheel wheel = new TimeoutWheel("test wheel", 10, new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        ticks.incrementAndGet();
+      }
+    });
+    wheel.start();
+    try
+    {
+      Thread.sleep(200);
+      assertThat(ticks.get()).isGreaterThan(1);
+    }
+    finally
+    {
+      wheel.shutdown();
+    }
+  }
+
+  private Runnable newTask(final Queue<Integer> ran, final CountDownLatch latch, final int id)
+  {
+    return new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        ran.add(id);
+        latch.countDown();
+      }
+    };
+  }
+}
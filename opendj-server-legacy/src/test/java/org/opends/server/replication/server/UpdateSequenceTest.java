@@ -0,0 +1,157 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.opends.server.replication.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Collections;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.protocol.UpdateMsg;
+import org.opends.server.replication.server.UpdateSequence.RoutedUpdate;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit" }, sequential = true)
+public class UpdateSequenceTest extends DirectoryServerTestCase
+{
+  @Test
+  public void capacityIsRoundedUpToPowerOfTwo()
+  {
+    assertThat(new UpdateSequence(1).getCapacity()).isEqualTo(2);
+    assertThat(new UpdateSequence(8).getCapacity()).isEqualTo(8);
+    assertThat(new UpdateSequence(10000).getCapacity()).isEqualTo(16384);
+  }
+
+  @Test
+  public void appendedUpdatesAreReadInOrder()
+  {
+    final UpdateSequence sequence = new UpdateSequence(4);
+    assertThat(sequence.get(0)).isNull();
+    assertThat(sequence.isOverwritten(0)).isFalse();
+
+    for (int i = 0; i < 3; i++)
+    {
+      assertThat(append(sequence, i)).isEqualTo(i);
+    }
+
+    assertThat(sequence.getHead()).isEqualTo(3);
+    for (int i = 0; i < 3; i++)
+    {
+      final RoutedUpdate update = sequence.get(i);
+      assertThat(update.getSequence()).isEqualTo(i);
+      assertThat(update.getUpdateMsg().getCSN()).isEqualTo(newCSN(i));
+    }
+    assertThat(sequence.get(3)).isNull();
+    assertThat(sequence.isOverwritten(3)).isFalse();
+  }
+
+  @Test
+  public void lappedUpdatesAreOverwritten()
+  {
+    final UpdateSequence sequence = new UpdateSequence(4);
+    for (int i = 0; i < 6; i++)
+    {
+      append(sequence, i);
+    }
+
+    assertThat(sequence.get(0)).isNull();
+    assertThat(sequence.isOverwritten(0)).isTrue();
+    assertThat(sequence.isOverwritten(1)).isTrue();
+    assertThat(sequence.get(2).getUpdateMsg().getCSN()).isEqualTo(newCSN(2));
+    assertThat(sequence.isOverwritten(2)).isFalse();
+  }
+
+  @Test
+  public void trimmedUpdatesAreCleared()
+  {
+    final UpdateSequence sequence = new UpdateSequence(4);
+    for (int i = 0; i < 3; i++)
+    {
+      append(sequence, i);
+    }
+
+    sequence.trimTo(2);
+    assertThat(sequence.getTrimmedPosition()).isEqualTo(2);
+    assertThat(sequence.get(0)).isNull();
+    assertThat(sequence.get(1)).isNull();
+    assertThat(sequence.isOverwritten(1)).isTrue();
+    assertThat(sequence.get(2).getUpdateMsg().getCSN()).isEqualTo(newCSN(2));
+    assertThat(sequence.isOverwritten(2)).isFalse();
+
+    // Trimming never goes backward
+    sequence.trimTo(1);
+    assertThat(sequence.getTrimmedPosition()).isEqualTo(2);
+  }
+
+  @Test
+  public void bytesAreCountedFromAnUpdateToTheHead()
+  {
+    final UpdateSequence sequence = new UpdateSequence(4);
+    final UpdateMsg first = new UpdateMsg(newCSN(0), new byte[10]);
+    final UpdateMsg second = new UpdateMsg(newCSN(1), new byte[100]);
+    sequence.append(first, null, Collections.<Integer> emptyList(), null);
+    sequence.append(second, null, Collections.<Integer> emptyList(), null);
+
+    assertThat(sequence.getBytesFrom(sequence.get(0))).isEqualTo(first.size() + second.size());
+    assertThat(sequence.getBytesFrom(sequence.get(1))).isEqualTo(second.size());
+  }
+
+  @Test
+  public void notAssuredCopyIsSentToServersNotExpectedToAck()
+  {
+    final UpdateSequence sequence = new UpdateSequence(4);
+    final UpdateMsg assured = new UpdateMsg(newCSN(1), new byte[1]);
+    final UpdateMsg notAssured = new UpdateMsg(newCSN(1), new byte[1]);
+    sequence.append(assured, notAssured, Collections.singletonList(10), null);
+
+    final RoutedUpdate update = sequence.get(0);
+    assertThat(update.getUpdateMsgFor(10)).isSameAs(assured);
+    assertThat(update.getUpdateMsgFor(20)).isSameAs(notAssured);
+  }
+
+  @Test(timeOut = 10000)
+  public void awaitReturnsWhenUpdateIsPublished() throws Exception
+  {
+    final UpdateSequence sequence = new UpdateSequence(4);
+    final Thread producer = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        append(sequence, 0);
+      }
+    };
+    producer.start();
+    while (sequence.get(0) == null)
+    {
+      sequence.await(0, 100);
+    }
+    producer.join();
+    assertThat(sequence.get(0).getUpdateMsg().getCSN()).isEqualTo(newCSN(0));
+  }
+
+  private static long append(UpdateSequence sequence, int i)
+  {
+    return sequence.append(new UpdateMsg(newCSN(i), new byte[1]), null, Collections.<Integer> emptyList(), null);
+  }
+
+  private static CSN newCSN(int i)
+  {
+    return new CSN(i + 1, i, 1);
+  }
+}
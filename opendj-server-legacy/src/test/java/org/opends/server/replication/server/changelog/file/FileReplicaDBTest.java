@@ -12,6 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.replication.server.changelog.file;
 
@@ -37,6 +38,7 @@ import org.opends.server.replication.server.ReplicationServer;
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.replication.server.changelog.api.DBCursor;
 import org.opends.server.replication.server.changelog.api.DBCursor.PositionStrategy;
+import org.opends.server.replication.server.changelog.api.UpdateMsgFilter;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -139,6 +141,50 @@ public class FileReplicaDBTest extends ReplicationTestCase
     }
   }
 
+  @Test
+  public void testFilteredCursor() throws Exception
+  {
+    ReplicationServer replicationServer = null;
+    FileReplicaDB replicaDB = null;
+    try
+    {
+      TestCaseUtils.startServer();
+      replicationServer = configureReplicationServer(100, 5000);
+
+      replicaDB = newReplicaDB(replicationServer);
+      CSN[] csns = generateCSNs(1, 0, 4);
+      replicaDB.add(new DeleteMsg(TEST_ROOT_DN, csns[0], "skipped"));
+      replicaDB.add(new DeleteMsg(TEST_ROOT_DN, csns[1], "matching"));
+      replicaDB.add(new DeleteMsg(TEST_ROOT_DN, csns[2], "skipped"));
+      replicaDB.add(new DeleteMsg(TEST_ROOT_DN, csns[3], "matching"));
+      waitChangesArePersisted(replicaDB, 4);
+
+      final UpdateMsgFilter filter = new UpdateMsgFilter()
+      {
+        @Override
+        public boolean mayMatch(UpdateMsg updateMsg)
+        {
+          return "matching".equals(((DeleteMsg) updateMsg).getEntryUUID());
+        }
+      };
+      try (DBCursor<UpdateMsg> cursor =
+          replicaDB.generateCursorFrom(csns[0], GREATER_THAN_OR_EQUAL_TO_KEY, ON_MATCHING_KEY, filter))
+      {
+        assertTrue(cursor.next());
+        assertEquals(cursor.getRecord().getCSN(), csns[1]);
+        assertTrue(cursor.next());
+        assertEquals(cursor.getRecord().getCSN(), csns[3]);
+        assertFalse(cursor.next());
+        assertNull(cursor.getRecord());
+      }
+    }
+    finally
+    {
+      shutdown(replicaDB);
+      remove(replicationServer);
+    }
+  }
+
   @Test
   public void testAddAndReadRecords() throws Exception
   {
@@ -14,6 +14,7 @@
  * Copyright 2008 Sun Microsystems, Inc.
  * Portions Copyright 2013-2014 Manuel Gaupp
  * Portions Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.opends.server.types;
 
@@ -28,6 +29,7 @@ import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.opends.server.DirectoryServerTestCase;
 import org.opends.server.TestCaseUtils;
+import org.opends.server.util.ServerConstants;
 import org.opends.server.util.StaticUtils;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
@@ -433,6 +435,32 @@ public class SearchFilterTests extends DirectoryServerTestCase {
     Assert.assertEquals(matches, expectMatch, "Filter=" + filter + "\nEntry=" + entry);
   }
 
+  @Test(dataProvider = "matchesParams")
+  public void testCompiledMatchesInterpreted(String ldifEntry, String filterStr, boolean expectMatch)
+      throws Exception {
+    Entry entry = TestCaseUtils.entryFromLdifString(ldifEntry);
+    for (String s : asList(filterStr, "(|" + filterStr + ")", "(&" + filterStr + ")", "(!" + filterStr + ")",
+        "(&(objectClass=*)(|(cn=Jane Smith)" + filterStr + "))")) {
+      SearchFilter filter = SearchFilter.createFilterFromString(s);
+      Assert.assertEquals(SearchFilterMatcher.compile(filter).matches(entry),
+          filter.matchesEntryInternal(filter, entry, 0), "Filter=" + filter + "\nEntry=" + entry);
+    }
+  }
+
+  @Test(expectedExceptions = DirectoryException.class)
+  public void testCompiledNestedTooDeep() throws Exception {
+    StringBuilder filterStr = new StringBuilder();
+    for (int i = 0; i <= ServerConstants.MAX_NESTED_FILTER_DEPTH; i++) {
+      filterStr.append("(!");
+    }
+    filterStr.append("(cn=John Smith)");
+    for (int i = 0; i <= ServerConstants.MAX_NESTED_FILTER_DEPTH; i++) {
+      filterStr.append(")");
+    }
+    SearchFilter.createFilterFromString(filterStr.toString()).matchesEntry(
+        TestCaseUtils.entryFromLdifString(JOHN_SMITH_LDIF));
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   ////////////////////////////////////////////////////////////////////////////
   //